@@ -0,0 +1,95 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.scheduler2.blockout.BlockoutManagerUtil;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The blockout checks done whenever a schedule is created or edited, and whenever the schedules page asks whether
+ * schedules are blocked.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class BlockoutBenchmark {
+
+  private static final long HOUR = BlockoutManagerUtil.TIME.HOUR.time;
+
+  @Param( { "1", "10" } )
+  public int blockoutCount;
+
+  private QuartzScheduler scheduler;
+
+  private IJobTrigger scheduleTrigger;
+
+  private List<IJobTrigger> blockoutTriggers;
+
+  @Setup
+  public void setUp() {
+    scheduler = new QuartzScheduler();
+    Date start = new Date( System.currentTimeMillis() - BlockoutManagerUtil.TIME.DAY.time );
+
+    ComplexJobTrigger hourly = new ComplexJobTrigger();
+    hourly.setCronString( "0 0 * * * ?" );
+    hourly.setStartTime( start );
+    scheduleTrigger = hourly;
+
+    // nightly windows of one hour, spread over the evening, so that the schedule is only partially blocked
+    blockoutTriggers = new ArrayList<>();
+    for ( int i = 0; i < blockoutCount; i++ ) {
+      ComplexJobTrigger blockout = new ComplexJobTrigger();
+      blockout.setCronString( "0 " + ( i * 5 % 60 ) + " " + ( 18 + i % 6 ) + " * * ?" );
+      blockout.setStartTime( start );
+      blockout.setDuration( HOUR );
+      blockoutTriggers.add( blockout );
+    }
+  }
+
+  @Benchmark
+  public boolean willFire() {
+    return BlockoutManagerUtil.willFire( scheduleTrigger, blockoutTriggers, scheduler );
+  }
+
+  @Benchmark
+  public boolean willBlockSchedule() {
+    return BlockoutManagerUtil.willBlockSchedule( scheduleTrigger, blockoutTriggers.get( 0 ), scheduler );
+  }
+
+  @Benchmark
+  public List<Date> getFireTimes() {
+    return BlockoutManagerUtil.getFireTimes( scheduleTrigger, scheduler );
+  }
+}
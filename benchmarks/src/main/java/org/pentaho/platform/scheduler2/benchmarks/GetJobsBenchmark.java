@@ -0,0 +1,112 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.platform.api.scheduler2.IJob;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.pentaho.platform.scheduler2.quartz.BlockingQuartzJob;
+import org.pentaho.platform.scheduler2.quartz.QuartzJobKey;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Scheduler;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.StdSchedulerFactory;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lists the jobs of an in-memory job store holding as many schedules as a large server does. The Quartz scheduler is
+ * never started, so none of the jobs fires while being listed.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 2, time = 5 )
+@Measurement( iterations = 5, time = 5 )
+@Fork( 1 )
+public class GetJobsBenchmark {
+
+  private static final int USER_COUNT = 50;
+
+  @Param( { "10000", "100000" } )
+  public int jobCount;
+
+  private QuartzScheduler scheduler;
+
+  @Setup
+  public void setUp() throws Exception {
+    Properties props = new Properties();
+    props.setProperty( StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, "GetJobsBenchmark" + jobCount );
+    props.setProperty( StdSchedulerFactory.PROP_SCHED_SKIP_UPDATE_CHECK, "true" );
+    props.setProperty( StdSchedulerFactory.PROP_JOB_STORE_CLASS, "org.quartz.simpl.RAMJobStore" );
+    props.setProperty( "org.quartz.threadPool.threadCount", "1" );
+
+    scheduler = new QuartzScheduler();
+    scheduler.setQuartzSchedulerFactory( new StdSchedulerFactory( props ) );
+    Scheduler quartzScheduler = scheduler.getQuartzScheduler();
+
+    for ( int i = 0; i < jobCount; i++ ) {
+      QuartzJobKey jobKey = new QuartzJobKey( "report" + i, "user" + ( i % USER_COUNT ) );
+      JobDetail jobDetail = JobBuilder.newJob( BlockingQuartzJob.class )
+        .withIdentity( jobKey.toString(), jobKey.getUserName() )
+        .usingJobData( QuartzScheduler.RESERVEDMAPKEY_ACTIONUSER, jobKey.getUserName() )
+        .usingJobData( QuartzScheduler.RESERVEDMAPKEY_ACTIONCLASS,
+          "org.pentaho.reporting.platform.plugin.SimpleReportingAction" )
+        .usingJobData( QuartzScheduler.RESERVEDMAPKEY_UIPASSPARAM, QuartzScheduler.UI_PASS_PARAM_DAILY )
+        .usingJobData( "lineage-id", UUID.randomUUID().toString() )
+        .build();
+      Trigger trigger = TriggerBuilder.newTrigger()
+        .withIdentity( jobKey.toString(), jobKey.getUserName() )
+        .withSchedule( CronScheduleBuilder.cronSchedule( "0 " + ( i % 60 ) + " " + ( i % 24 ) + " * * ?" ) )
+        .build();
+      quartzScheduler.scheduleJob( jobDetail, trigger );
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws org.quartz.SchedulerException {
+    scheduler.getQuartzScheduler().shutdown();
+  }
+
+  @Benchmark
+  public List<IJob> getJobs() throws SchedulerException {
+    return scheduler.getJobs( null );
+  }
+
+  /**
+   * The listing of a single user's schedules, where the filter spares the conversion of all other jobs
+   */
+  @Benchmark
+  public List<IJob> getJobsOfOneUser() throws SchedulerException {
+    return scheduler.getJobs( job -> "user7".equals( job.getUserName() ) );
+  }
+}
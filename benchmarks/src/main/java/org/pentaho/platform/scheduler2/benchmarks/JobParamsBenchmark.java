@@ -0,0 +1,93 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.platform.api.scheduler2.JobParams;
+import org.pentaho.platform.api.scheduler2.JobParamsAdapter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The job parameter conversion done for every job of a REST listing and for every schedule that is created.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class JobParamsBenchmark {
+
+  private JobParamsAdapter adapter;
+
+  private Map<String, Object> params;
+
+  private JobParams marshalled;
+
+  @Setup
+  public void setUp() throws Exception {
+    adapter = new JobParamsAdapter();
+
+    // roughly what a report schedule carries: reserved keys, report parameters and a few PDI variables
+    params = new HashMap<>();
+    params.put( "ActionAdapterQuartzJob-ActionUser", "admin" );
+    params.put( "ActionAdapterQuartzJob-ActionClass", "org.pentaho.reporting.platform.plugin.SimpleReportingAction" );
+    params.put( "ActionAdapterQuartzJob-StreamProvider-InputFile", "/public/Steel Wheels/Sales Report.prpt" );
+    params.put( "ActionAdapterQuartzJob-StreamProvider-OutputFile", "/home/admin/Sales Report.*" );
+    params.put( "lineage-id", "0b1c3c5e-7d0a-4d8e-9a51-4a4f5e7c2d11" );
+    params.put( "uiPassParam", "DAILY" );
+    params.put( "timezone", "Europe/Lisbon" );
+    params.put( "output-target", "pageable/pdf" );
+    params.put( "accepted-page", 0 );
+    params.put( "autoSubmit", Boolean.TRUE );
+    params.put( "product lines", Arrays.asList( "Classic Cars", "Motorcycles", "Planes", "Ships", "Trains" ) );
+
+    Map<String, Object> reportParameters = new HashMap<>();
+    for ( int i = 0; i < 10; i++ ) {
+      reportParameters.put( "parameter" + i, "value" + i );
+    }
+    params.put( "parameters", reportParameters );
+
+    Map<String, Object> variables = new HashMap<>();
+    for ( int i = 0; i < 5; i++ ) {
+      variables.put( "VARIABLE_" + i, "value" + i );
+    }
+    params.put( "variables", variables );
+
+    marshalled = adapter.marshal( params );
+  }
+
+  @Benchmark
+  public JobParams marshal() throws Exception {
+    return adapter.marshal( params );
+  }
+
+  @Benchmark
+  public Map<String, Object> unmarshal() throws Exception {
+    return adapter.unmarshal( marshalled );
+  }
+}
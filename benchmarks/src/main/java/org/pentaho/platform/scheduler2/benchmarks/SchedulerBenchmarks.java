@@ -0,0 +1,50 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the scheduler benchmarks. Takes the usual JMH command line options, but defaults to running every benchmark
+ * of this package and to writing the results as JSON to {@value #DEFAULT_RESULT_FILE}, so that runs of different
+ * releases can be compared.
+ */
+public class SchedulerBenchmarks {
+
+  public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+  private SchedulerBenchmarks() {
+  }
+
+  public static void main( String[] args ) throws RunnerException, CommandLineOptionException {
+    CommandLineOptions commandLine = new CommandLineOptions( args );
+    ChainedOptionsBuilder options = new OptionsBuilder().parent( commandLine );
+    if ( commandLine.getIncludes().isEmpty() ) {
+      options.include( SchedulerBenchmarks.class.getPackage().getName() + "\\..*Benchmark" );
+    }
+    if ( !commandLine.getResultFormat().hasValue() ) {
+      options.resultFormat( ResultFormatType.JSON );
+    }
+    if ( !commandLine.getResult().hasValue() ) {
+      options.result( DEFAULT_RESULT_FILE );
+    }
+    new Runner( options.build() ).run();
+  }
+}
@@ -0,0 +1,102 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.IComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.scheduler2.quartz.QuartzCronStringFactory;
+import org.pentaho.platform.scheduler2.quartz.QuartzJobKey;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+import org.quartz.spi.MutableTrigger;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversions between the Pentaho triggers and the Quartz ones, done for every schedule that is created, updated or
+ * listed.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class TriggerBenchmark {
+
+  private static final String CRON_EXPRESSION = "0 30 9 ? * MON,WED,FRI *";
+
+  private QuartzScheduler scheduler;
+
+  private QuartzJobKey jobKey;
+
+  private ComplexJobTrigger complexTrigger;
+
+  private ComplexJobTrigger recurrenceTrigger;
+
+  private SimpleJobTrigger simpleTrigger;
+
+  @Setup
+  public void setUp() throws SchedulerException {
+    scheduler = new QuartzScheduler();
+    jobKey = new QuartzJobKey( "report", "admin" );
+
+    complexTrigger = new ComplexJobTrigger();
+    complexTrigger.setCronString( CRON_EXPRESSION );
+
+    // a trigger made of recurrences, like the ones the schedule dialog creates
+    recurrenceTrigger = (ComplexJobTrigger) scheduler.createComplexTrigger( CRON_EXPRESSION );
+
+    simpleTrigger = new SimpleJobTrigger();
+    simpleTrigger.setStartTime( new Date() );
+    simpleTrigger.setRepeatInterval( 3600 );
+    simpleTrigger.setRepeatCount( -1 );
+    simpleTrigger.setUiPassParam( QuartzScheduler.UI_PASS_PARAM_HOURS );
+  }
+
+  @Benchmark
+  public MutableTrigger createComplexQuartzTrigger() throws SchedulerException {
+    return QuartzScheduler.createQuartzTrigger( complexTrigger, jobKey );
+  }
+
+  @Benchmark
+  public MutableTrigger createSimpleQuartzTrigger() throws SchedulerException {
+    return QuartzScheduler.createQuartzTrigger( simpleTrigger, jobKey );
+  }
+
+  /**
+   * Parses the recurrences of every cron field, as done for each cron schedule of a listing
+   */
+  @Benchmark
+  public IComplexJobTrigger parseCronExpression() {
+    return scheduler.createComplexTrigger( CRON_EXPRESSION );
+  }
+
+  @Benchmark
+  public String createCronString() {
+    return QuartzCronStringFactory.createCronString( recurrenceTrigger );
+  }
+}
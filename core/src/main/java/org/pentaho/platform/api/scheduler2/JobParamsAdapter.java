@@ -19,10 +19,10 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Stream;
+import java.util.function.BiConsumer;
 import jakarta.xml.bind.annotation.adapters.XmlAdapter;
 
 public class JobParamsAdapter extends XmlAdapter<JobParams, Map<String, Object>> {
@@ -32,122 +32,111 @@ public class JobParamsAdapter extends XmlAdapter<JobParams, Map<String, Object>>
 
   public JobParams marshal( Map<String, Object> v ) throws Exception {
     ArrayList<JobParam> params = new ArrayList<>();
-    Set<String> emittedNames = new HashSet<>();
-
-    // Pass 1: root-level single values — highest priority.
-    addRootScalarValues( v, params, emittedNames );
-    // Pass 2: root-level collections, maps, and arrays.
-    addRootCollectionMapAndArrayValues( v, params, emittedNames );
-    // Pass 3: "parameters" map — lower priority than any root-level value.
-    addNamedMapValues( v.get( PARAMETERS ), params, emittedNames );
-    // Pass 4: "variables" map — lowest priority.
-    addNamedMapValues( v.get( VARIABLES ), params, emittedNames );
+    flatten( v, ( name, value ) -> params.add( toJobParam( name, value ) ) );
 
     JobParams jobParams = new JobParams();
     jobParams.jobParams = params.toArray( new JobParam[0] );
     return jobParams;
   }
 
-  private void addRootScalarValues( Map<String, Object> source, Collection<JobParam> params, Set<String> emittedNames ) {
-    // Emit root-level scalar values first so they win over parameters and variables.
-    rootEntries( source )
-        .filter( entry -> !isDeferredPriorityMap( entry ) )
-        .filter( entry -> !isCollectionMapOrArray( entry.getValue() ) )
-        .forEach( entry -> {
-          emittedNames.add( entry.getKey() );
-          params.add( toJobParam( entry.getKey(), entry.getValue() ) );
-        } );
-  }
-
+  /**
+   * Hands the params to the visitor in the order {@link #marshal(Map)} lists them, so that a caller writing them out,
+   * e.g. a streaming response, does not need to build the {@link JobParams} first.
+   * <p>
+   * Root-level single values come first and win over everything else. Root-level collections, maps and arrays follow;
+   * a collection or array contributes all of its values, a map only the keys not produced yet. The "parameters" map
+   * comes next and the "variables" map last, each only for the keys not produced yet. Every value is visited once:
+   * root-level single values are emitted as they are met, and only the multi-value entries are put aside for later.
+   *
+   * @param v       the job params
+   * @param visitor receives the name and the string value of each param
+   */
   @SuppressWarnings( "unchecked" )
-  private void addRootCollectionMapAndArrayValues( Map<String, Object> source, Collection<JobParam> params,
-                                                    Set<String> emittedNames ) {
-    // Emit root-level multi-value structures after scalar roots, but before parameters and variables.
-    rootEntries( source )
-        .filter( entry -> !isDeferredPriorityMap( entry ) )
-        .filter( entry -> isCollectionMapOrArray( entry.getValue() ) )
-        .forEach( entry -> emitCollectionOrMapEntry( entry, params, emittedNames ) );
-  }
-
-  private void emitCollectionOrMapEntry( Map.Entry<String, Object> entry, Collection<JobParam> params,
-                                          Set<String> emittedNames ) {
-    if ( entry.getValue() instanceof Map ) {
-      // For non-deferred Map entries: respect emittedNames per inner key to avoid
-      // re-emitting a key that was already produced by a higher-priority pass.
-      flattenEntryValues( entry ).forEach( jobParam -> emitIfAbsent( jobParam, params, emittedNames ) );
-    } else {
-      // For Collection and Array entries: emit ALL values to support multi-value params.
-      // Mark the outer key as emitted afterward to prevent lower-priority maps from
-      // adding a duplicate single-value entry for the same key.
-      flattenEntryValues( entry ).filter( Objects::nonNull ).forEach( params::add );
-      emittedNames.add( entry.getKey() );
-    }
-  }
-
-  private void emitIfAbsent( JobParam jobParam, Collection<JobParam> params, Set<String> emittedNames ) {
-    if ( jobParam == null ) {
+  public static void flatten( Map<String, Object> v, BiConsumer<String, String> visitor ) {
+    if ( v == null ) {
       return;
     }
-    String name = jobParam.name;
-    if ( name == null || !emittedNames.contains( name ) ) {
-      params.add( jobParam );
-      if ( name != null ) {
-        emittedNames.add( name );
-      }
-    }
-  }
 
-  @SuppressWarnings( "unchecked" )
-  private void addNamedMapValues( Object mapObject, Collection<JobParam> params, Set<String> emittedNames ) {
-    if ( !( mapObject instanceof Map ) ) {
-      return;
+    List<Map.Entry<String, Object>> multiValued = null;
+    Object parameters = null;
+    Object variables = null;
+    for ( Map.Entry<String, Object> entry : v.entrySet() ) {
+      if ( entry == null || entry.getKey() == null || entry.getValue() == null ) {
+        continue;
+      }
+      Object value = entry.getValue();
+      if ( value instanceof Map && PARAMETERS.equals( entry.getKey() ) ) {
+        parameters = value;
+      } else if ( value instanceof Map && VARIABLES.equals( entry.getKey() ) ) {
+        variables = value;
+      } else if ( isCollectionMapOrArray( value ) ) {
+        if ( multiValued == null ) {
+          multiValued = new ArrayList<>();
+        }
+        multiValued.add( entry );
+      } else {
+        visitor.accept( entry.getKey(), value.toString() );
+      }
     }
 
-    // Emit named map entries only if a higher-priority pass has not already produced the same key.
-    ( (Map<String, Object>) mapObject ).forEach( ( key, value ) -> {
-      if ( key != null && value != null && !emittedNames.contains( key ) ) {
-        params.add( toJobParam( key, value ) );
-        emittedNames.add( key );
+    // Names emitted after the root-level single values, which are looked up in the map itself
+    Set<String> emittedNames = new HashSet<>();
+    if ( multiValued != null ) {
+      for ( Map.Entry<String, Object> entry : multiValued ) {
+        Object value = entry.getValue();
+        if ( value instanceof Map ) {
+          // respect already emitted names per inner key
+          for ( Map.Entry<String, Object> inner : ( (Map<String, Object>) value ).entrySet() ) {
+            emitIfAbsent( v, inner.getKey(), inner.getValue(), emittedNames, visitor );
+          }
+        } else {
+          // emit ALL values to support multi-value params, then keep lower-priority maps from adding the key again
+          Iterable<?> values = value instanceof Collection ? (Collection<?>) value : Arrays.asList( (Object[]) value );
+          for ( Object item : values ) {
+            if ( item != null ) {
+              visitor.accept( entry.getKey(), item.toString() );
+            }
+          }
+          emittedNames.add( entry.getKey() );
+        }
       }
-    } );
-  }
+    }
 
-  private Stream<Map.Entry<String, Object>> rootEntries( Map<String, Object> source ) {
-    return source.entrySet().stream()
-        .filter( Objects::nonNull )
-        .filter( entry -> entry.getKey() != null && entry.getValue() != null );
+    emitNamedMapValues( v, parameters, emittedNames, visitor );
+    emitNamedMapValues( v, variables, emittedNames, visitor );
   }
 
   @SuppressWarnings( "unchecked" )
-  private Stream<JobParam> flattenEntryValues( Map.Entry<String, Object> entry ) {
-    if ( entry.getValue() instanceof Map ) {
-      return ( (Map<String, Object>) entry.getValue() ).entrySet().stream()
-          .filter( mapEntry -> mapEntry.getKey() != null && mapEntry.getValue() != null )
-          .map( mapEntry -> toJobParam( mapEntry.getKey(), mapEntry.getValue() ) );
+  private static void emitNamedMapValues( Map<String, Object> root, Object mapObject, Set<String> emittedNames,
+                                          BiConsumer<String, String> visitor ) {
+    if ( mapObject instanceof Map ) {
+      for ( Map.Entry<String, Object> entry : ( (Map<String, Object>) mapObject ).entrySet() ) {
+        emitIfAbsent( root, entry.getKey(), entry.getValue(), emittedNames, visitor );
+      }
     }
-    if ( entry.getValue() instanceof Collection ) {
-      return ( (Collection<?>) entry.getValue() ).stream()
-          .filter( Objects::nonNull )
-          .map( value -> toJobParam( entry.getKey(), value ) );
+  }
+
+  private static void emitIfAbsent( Map<String, Object> root, String name, Object value, Set<String> emittedNames,
+                                    BiConsumer<String, String> visitor ) {
+    if ( name == null || value == null || isRootSingleValue( root, name ) || !emittedNames.add( name ) ) {
+      return;
     }
-    return Arrays.stream( (Object[]) entry.getValue() )
-        .filter( Objects::nonNull )
-        .map( value -> toJobParam( entry.getKey(), value ) );
+    visitor.accept( name, value.toString() );
   }
 
-  private boolean isDeferredPriorityMap( Map.Entry<String, Object> entry ) {
-    return entry.getValue() instanceof Map
-        && ( PARAMETERS.equals( entry.getKey() ) || VARIABLES.equals( entry.getKey() ) );
+  private static boolean isRootSingleValue( Map<String, Object> root, String name ) {
+    Object value = root.get( name );
+    return value != null && !isCollectionMapOrArray( value );
   }
 
-  private boolean isCollectionMapOrArray( Object value ) {
+  private static boolean isCollectionMapOrArray( Object value ) {
     return value instanceof Map || value instanceof Collection || value.getClass().isArray();
   }
 
-  private JobParam toJobParam( String name, Object value ) {
+  private static JobParam toJobParam( String name, String value ) {
     JobParam jobParam = new JobParam();
     jobParam.name = name;
-    jobParam.value = value.toString();
+    jobParam.value = value;
     return jobParam;
   }
 
@@ -29,6 +29,7 @@ import org.pentaho.platform.api.importexport.ExportException;
 import org.pentaho.platform.plugin.services.importexport.exportManifest.ExportManifest;
 import org.pentaho.platform.scheduler2.messsages.Messages;
 import org.pentaho.platform.repository.RepositoryFilenameUtils;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
 import org.pentaho.platform.web.http.api.resources.JobScheduleParam;
 import org.pentaho.platform.web.http.api.resources.JobScheduleRequest;
 import org.pentaho.platform.web.http.api.resources.RepositoryFileStreamProvider;
@@ -37,6 +38,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ScheduleExportUtil implements IExportHelper {
   public static final String RUN_PARAMETERS_KEY = "parameters";
@@ -126,6 +128,9 @@ public class ScheduleExportUtil implements IExportHelper {
           }
           param = new JobScheduleParam( key, (String) object );
         } else if ( object instanceof Number ) {
+          if ( QuartzScheduler.RESERVEDMAPKEY_PRIORITY.equals( key ) ) {
+            schedule.setPriority( ( (Number) object ).intValue() );
+          }
           param = new JobScheduleParam( key, (Number) object );
         } else if ( object instanceof Date ) {
           param = new JobScheduleParam( key, (Date) object );
@@ -174,47 +179,98 @@ public class ScheduleExportUtil implements IExportHelper {
     log.info( Messages.getString( "PentahoPlatformExporter.INFO_START_EXPORT_SCHEDULE" ) );
 
     int jobListSize = 0;
-    int successfulJobExportCount = 0;
+    AtomicInteger successfulJobExportCount = new AtomicInteger();
     try {
       IScheduler scheduler = PentahoSystem.get( IScheduler.class, "IScheduler2", null );
       if ( scheduler == null ) {
         throw new ExportException( " Unable to retrieve scheduler service. Failed to export schedules" );
       }
-      List<Job> jobs = (List<Job>) (List<?>) scheduler.getJobs( null );
-      if ( jobs != null ) {
-        jobListSize = jobs.size();
-      }
-      log.info( Messages.getInstance().getString( "PentahoPlatformExporter.INFO_COUNT_SCHEDULE_TO_EXPORT", jobListSize ) );
-
-      for ( Job job : jobs ) {
-        if ( job.getJobName().equals( "PentahoSystemVersionCheck" ) ) {
-          // don't bother exporting the Version Checker schedule, it gets created automatically on server start
-          // if it doesn't exist and fails if you try to import it due to a null ActionClass
-          log.debug( " Skipping the version check schedule [ " + job.getJobName() + " ]" );
-          continue;
-        }
+      if ( scheduler instanceof QuartzScheduler ) {
+        // visit the jobs one at a time instead of listing them all up front, so only the schedule requests added to
+        // the manifest stay on the heap. IScheduler is part of the platform API, which this plugin cannot extend, so
+        // the other schedulers are still listed in full below
+        QuartzScheduler quartzScheduler = (QuartzScheduler) scheduler;
+        jobListSize = quartzScheduler.getJobCount();
+        log.info( Messages.getInstance().getString( "PentahoPlatformExporter.INFO_COUNT_SCHEDULE_TO_EXPORT", jobListSize ) );
         try {
-          log.trace( " Creating a job scheduling request for [ " + job.getJobName() + " ]" );
-          JobScheduleRequest scheduleRequest = ScheduleExportUtil.createJobScheduleRequest( job );
-          log.trace( " Successfully finish creating a job scheduling request for [ " + job.getJobName() + " ]" );
-          exportManifest.addSchedule( scheduleRequest );
-          successfulJobExportCount++;
-          log.trace( " Successfully added job scheduling request to manifest [ " + job.getJobName() + " ]" );
-          log.debug( " Successfully added schedule [ " + job.getJobName() + " ] to the manifest" );
-        } catch ( IllegalArgumentException e ) {
-          log.info( Messages.getInstance().getString( "PentahoPlatformExporter.ERROR_SCHEDULE_EXPORT", job.getJobName(), e.getMessage() ) );
-          log.debug( Messages.getInstance().getString( "PentahoPlatformExporter.ERROR_SCHEDULE_EXPORT", job.getJobName(), e.getMessage(), e ) );
+          quartzScheduler.forEachJob( null, job -> {
+            try {
+              if ( exportSchedule( (Job) job ) ) {
+                successfulJobExportCount.incrementAndGet();
+              }
+            } catch ( ExportException e ) {
+              throw new ExportFailure( e );
+            }
+          } );
+        } catch ( ExportFailure e ) {
+          throw e.getCause();
+        }
+      } else {
+        List<Job> jobs = (List<Job>) (List<?>) scheduler.getJobs( null );
+        if ( jobs != null ) {
+          jobListSize = jobs.size();
+        }
+        log.info( Messages.getInstance().getString( "PentahoPlatformExporter.INFO_COUNT_SCHEDULE_TO_EXPORT", jobListSize ) );
+
+        if ( jobs != null ) {
+          for ( Job job : jobs ) {
+            if ( exportSchedule( job ) ) {
+              successfulJobExportCount.incrementAndGet();
+            }
+          }
         }
       }
     } catch ( SchedulerException e ) {
       throw new ExportException( Messages.getInstance().getString( "PentahoPlatformExporter.ERROR_EXPORTING_JOBS" ), e );
     } finally {
-      log.info( Messages.getInstance().getString( "PentahoPlatformExporter.INFO_SUCCESSFUL_SCHEDULE_EXPORT_COUNT", successfulJobExportCount, jobListSize ) );
+      log.info( Messages.getInstance().getString( "PentahoPlatformExporter.INFO_SUCCESSFUL_SCHEDULE_EXPORT_COUNT", successfulJobExportCount.get(), jobListSize ) );
 
       log.info( Messages.getInstance().getString( "PentahoPlatformExporter.INFO_END_EXPORT_SCHEDULE" ) );
     }
   }
 
+  /**
+   * Converts one job and adds it to the manifest.
+   *
+   * @return true if the job was exported
+   */
+  private boolean exportSchedule( Job job ) throws ExportException {
+    if ( job.getJobName().equals( "PentahoSystemVersionCheck" ) ) {
+      // don't bother exporting the Version Checker schedule, it gets created automatically on server start
+      // if it doesn't exist and fails if you try to import it due to a null ActionClass
+      log.debug( " Skipping the version check schedule [ " + job.getJobName() + " ]" );
+      return false;
+    }
+    try {
+      log.trace( " Creating a job scheduling request for [ " + job.getJobName() + " ]" );
+      JobScheduleRequest scheduleRequest = ScheduleExportUtil.createJobScheduleRequest( job );
+      log.trace( " Successfully finish creating a job scheduling request for [ " + job.getJobName() + " ]" );
+      exportManifest.addSchedule( scheduleRequest );
+      log.trace( " Successfully added job scheduling request to manifest [ " + job.getJobName() + " ]" );
+      log.debug( " Successfully added schedule [ " + job.getJobName() + " ] to the manifest" );
+      return true;
+    } catch ( IllegalArgumentException e ) {
+      log.info( Messages.getInstance().getString( "PentahoPlatformExporter.ERROR_SCHEDULE_EXPORT", job.getJobName(), e.getMessage() ) );
+      log.debug( Messages.getInstance().getString( "PentahoPlatformExporter.ERROR_SCHEDULE_EXPORT", job.getJobName(), e.getMessage(), e ) );
+      return false;
+    }
+  }
+
+  /**
+   * Carries an {@link ExportException} out of the job visitor, which cannot throw checked exceptions
+   */
+  private static class ExportFailure extends RuntimeException {
+
+    ExportFailure( ExportException cause ) {
+      super( cause );
+    }
+
+    @Override
+    public synchronized ExportException getCause() {
+      return (ExportException) super.getCause();
+    }
+  }
+
   @Override
   public void doExport( Object exportArg ) throws ExportException {
     PentahoPlatformExporter exporter = (PentahoPlatformExporter) exportArg;
@@ -32,6 +32,11 @@ public class ScheduleImportUtil implements IImportHelper {
   private static final String RESERVEDMAPKEY_LINEAGE_ID = "lineage-id";
   private static final String SCHEDULE_IMPORT_UTIL_NAME ="schedule-import-util";
 
+  /**
+   * Number of schedules between two progress messages of a restore
+   */
+  private static final int PROGRESS_BATCH_SIZE = 500;
+
   public ScheduleImportUtil() {
     super();
   }
@@ -60,113 +65,52 @@ public class ScheduleImportUtil implements IImportHelper {
       if ( solutionImportHandler.isPerformingRestore() ) {
         solutionImportHandler.getLogger().debug( "Successfully paused the scheduler" );
       }
+
+      // The existing jobs are listed once; every schedule being imported is matched against this index, which also
+      // picks up the jobs created along the way
+      Map<String, String> jobIdsByLineageId = indexJobsByLineageId( schedulerResource.getJobsList() );
+      if ( solutionImportHandler.isOverwriteFile() ) {
+        removeOverwrittenJobs( scheduler, schedulerResource, scheduleList, jobIdsByLineageId, solutionImportHandler );
+      }
+
+      long importStart = System.currentTimeMillis();
+      int processedCount = 0;
       for ( IJobScheduleRequest jobScheduleRequest : scheduleList ) {
         if ( solutionImportHandler.isPerformingRestore() ) {
           solutionImportHandler.getLogger().debug( "Restoring schedule name [ " + jobScheduleRequest.getJobName() + "] inputFile [ " + jobScheduleRequest.getInputFile() + " ] outputFile [ " + jobScheduleRequest.getOutputFile() + "]" );
         }
-        boolean jobExists = false;
-
-        List<IJob> jobs = schedulerResource.getJobsList();
-        if ( jobs != null ) {
-
-          //paramRequest to map<String, Serializable>
-          Map<String, Serializable> mapParamsRequest = new HashMap<>();
-          for ( IJobScheduleParam paramRequest : jobScheduleRequest.getJobParameters() ) {
-            mapParamsRequest.put( paramRequest.getName(), paramRequest.getValue() );
-          }
+        processedCount++;
+        String lineageId = getLineageId( jobScheduleRequest );
+        boolean jobExists = lineageId != null && jobIdsByLineageId.containsKey( lineageId );
 
-          // We will check the existing job in the repository. If the job being imported exists, we will remove it from the repository
-          for ( IJob job : jobs ) {
-
-            if ( ( mapParamsRequest.get( RESERVEDMAPKEY_LINEAGE_ID ) != null )
-              && ( mapParamsRequest.get( RESERVEDMAPKEY_LINEAGE_ID )
-              .equals( job.getJobParams().get( RESERVEDMAPKEY_LINEAGE_ID ) ) ) ) {
-              jobExists = true;
-            }
-
-            if ( solutionImportHandler.isOverwriteFile() && jobExists ) {
-              if ( solutionImportHandler.isPerformingRestore() ) {
-                solutionImportHandler.getLogger().debug( "Schedule  [ " + jobScheduleRequest.getJobName() + "] already exists and overwrite flag is set to true. Removing the job so we can add it again" );
-              }
-              IJobRequest jobRequest = scheduler.createJobRequest();
-              jobRequest.setJobId( job.getJobId() );
-              schedulerResource.removeJob( jobRequest );
-              jobExists = false;
-              break;
-            }
+        // Only a job created earlier in this import is left in the index at this point, the overwritten ones are gone
+        if ( solutionImportHandler.isOverwriteFile() && jobExists ) {
+          if ( solutionImportHandler.isPerformingRestore() ) {
+            solutionImportHandler.getLogger().debug( "Schedule  [ " + jobScheduleRequest.getJobName() + "] already exists and overwrite flag is set to true. Removing the job so we can add it again" );
           }
+          removeJob( scheduler, schedulerResource, jobIdsByLineageId.remove( lineageId ) );
+          jobExists = false;
         }
 
         boolean canImport = convertFromPreTimeZoneTrigger( jobScheduleRequest, solutionImportHandler );
-        if ( !canImport ) {
-          continue;
-        }
-
-        if ( !jobExists ) {
-          try {
-            Response response = createSchedulerJob( schedulerResource, jobScheduleRequest );
-            if ( response.getStatus() == Response.Status.OK.getStatusCode() ) {
-              if ( response.getEntity() != null ) {
-                // get the schedule job id from the response and add it to the import session
-                ImportSession.getSession().addImportedScheduleJobId( response.getEntity().toString() );
-                if ( solutionImportHandler.isPerformingRestore() ) {
-                  solutionImportHandler.getLogger().debug( "Successfully restored schedule [ " + jobScheduleRequest.getJobName() + " ] " );
-                }
-                successfulScheduleImportCount++;
+        if ( canImport ) {
+          if ( !jobExists ) {
+            String jobId = importSchedule( schedulerResource, jobScheduleRequest, solutionImportHandler );
+            if ( jobId != null ) {
+              successfulScheduleImportCount++;
+              if ( lineageId != null ) {
+                jobIdsByLineageId.put( lineageId, jobId );
               }
-            } else {
-              solutionImportHandler.getLogger().error( Messages.getInstance().getString( "SolutionImportHandler.ERROR_IMPORTING_SCHEDULE", jobScheduleRequest.getJobName(), response.getEntity() != null
-                ? response.getEntity().toString() : "" ) );
-            }
-          } catch ( Exception e ) {
-            // there is a scenario where if the file scheduled has a space in the file name, that it won't work. the
-            // di server
-
-            // replaces spaces with underscores and the export mechanism can't determine if it needs this to happen
-            // or not
-            // so, if we failed to import and there is a space in the path, try again but this time with replacing
-            // the space(s)
-            if ( jobScheduleRequest.getInputFile().contains( " " ) || jobScheduleRequest.getOutputFile()
-              .contains( " " ) ) {
-              solutionImportHandler.getLogger().debug( Messages.getInstance()
-                .getString( "SolutionImportHandler.SchedulesWithSpaces", jobScheduleRequest.getInputFile() ) );
-              File inFile = new File( jobScheduleRequest.getInputFile() );
-              File outFile = new File( jobScheduleRequest.getOutputFile() );
-              String inputFileName = inFile.getParent() + RepositoryFile.SEPARATOR
-                + inFile.getName().replace( " ", "_" );
-              String outputFileName = outFile.getParent() + RepositoryFile.SEPARATOR
-                + outFile.getName().replace( " ", "_" );
-              jobScheduleRequest.setInputFile( inputFileName );
-              jobScheduleRequest.setOutputFile( outputFileName );
-              try {
-                if ( !File.separator.equals( RepositoryFile.SEPARATOR ) ) {
-                  // on windows systems, the backslashes will result in the file not being found in the repository
-                  jobScheduleRequest.setInputFile( inputFileName.replace( File.separator, RepositoryFile.SEPARATOR ) );
-                  jobScheduleRequest
-                    .setOutputFile( outputFileName.replace( File.separator, RepositoryFile.SEPARATOR ) );
-                }
-                Response response = createSchedulerJob( schedulerResource, jobScheduleRequest );
-                if ( response.getStatus() == Response.Status.OK.getStatusCode() ) {
-                  if ( response.getEntity() != null ) {
-                    // get the schedule job id from the response and add it to the import session
-                    ImportSession.getSession().addImportedScheduleJobId( response.getEntity().toString() );
-                    successfulScheduleImportCount++;
-                  }
-                }
-              } catch ( Exception ex ) {
-                // log it and keep going. we shouldn't stop processing all schedules just because one fails.
-                solutionImportHandler.getLogger().error( Messages.getInstance()
-                  .getString( "SolutionImportHandler.ERROR_0001_ERROR_CREATING_SCHEDULE", "[ " + jobScheduleRequest.getJobName() + " ] cause [ " + ex.getMessage() + " ]" ), ex );
-              }
-            } else {
-              // log it and keep going. we shouldn't stop processing all schedules just because one fails.
-              solutionImportHandler.getLogger().error( Messages.getInstance()
-                .getString( "SolutionImportHandler.ERROR_0001_ERROR_CREATING_SCHEDULE", "[ " + jobScheduleRequest.getJobName() + " ]" ) );
             }
+          } else {
+            solutionImportHandler.getLogger().info( Messages.getInstance()
+              .getString( "DefaultImportHandler.ERROR_0009_OVERWRITE_CONTENT", jobScheduleRequest.toString() ) );
           }
-        } else {
-          solutionImportHandler.getLogger().info( Messages.getInstance()
-            .getString( "DefaultImportHandler.ERROR_0009_OVERWRITE_CONTENT", jobScheduleRequest.toString() ) );
+        }
+
+        if ( solutionImportHandler.isPerformingRestore()
+          && ( processedCount % PROGRESS_BATCH_SIZE == 0 || processedCount == scheduleList.size() ) ) {
+          logProgress( solutionImportHandler, processedCount, scheduleList.size(), importStart );
         }
       }
       if ( solutionImportHandler.isPerformingRestore() ) {
@@ -183,6 +127,148 @@ public class ScheduleImportUtil implements IImportHelper {
     }
   }
 
+  /**
+   * Indexes the ids of the existing jobs by their lineage id. Should several jobs share one, the first one listed is
+   * the one an imported schedule replaces.
+   */
+  protected Map<String, String> indexJobsByLineageId( List<IJob> jobs ) {
+    Map<String, String> jobIdsByLineageId = new HashMap<>();
+    if ( jobs != null ) {
+      for ( IJob job : jobs ) {
+        Map<String, Object> jobParams = job.getJobParams();
+        Object lineageId = jobParams == null ? null : jobParams.get( RESERVEDMAPKEY_LINEAGE_ID );
+        if ( lineageId != null ) {
+          jobIdsByLineageId.putIfAbsent( lineageId.toString(), job.getJobId() );
+        }
+      }
+    }
+    return jobIdsByLineageId;
+  }
+
+  /**
+   * Removes, in one pass before anything gets created, the existing jobs the imported schedules replace. Their
+   * entries are dropped from the index.
+   */
+  private void removeOverwrittenJobs( IScheduler scheduler, ISchedulerResource schedulerResource,
+                                      List<IJobScheduleRequest> scheduleList, Map<String, String> jobIdsByLineageId,
+                                      IImportHelper.ImportContext solutionImportHandler ) {
+    if ( jobIdsByLineageId.isEmpty() ) {
+      return;
+    }
+    int removedCount = 0;
+    for ( IJobScheduleRequest jobScheduleRequest : scheduleList ) {
+      String lineageId = getLineageId( jobScheduleRequest );
+      String jobId = lineageId == null ? null : jobIdsByLineageId.remove( lineageId );
+      if ( jobId != null ) {
+        if ( solutionImportHandler.isPerformingRestore() ) {
+          solutionImportHandler.getLogger().debug( "Schedule  [ " + jobScheduleRequest.getJobName() + "] already exists and overwrite flag is set to true. Removing the job so we can add it again" );
+        }
+        removeJob( scheduler, schedulerResource, jobId );
+        removedCount++;
+      }
+    }
+    if ( solutionImportHandler.isPerformingRestore() ) {
+      solutionImportHandler.getLogger().debug( "Removed " + removedCount + " existing schedules replaced by the restore" );
+    }
+  }
+
+  private void removeJob( IScheduler scheduler, ISchedulerResource schedulerResource, String jobId ) {
+    IJobRequest jobRequest = scheduler.createJobRequest();
+    jobRequest.setJobId( jobId );
+    schedulerResource.removeJob( jobRequest );
+  }
+
+  /**
+   * Creates the job of one imported schedule.
+   *
+   * @return the id of the new job, or null if it could not be created
+   */
+  private String importSchedule( ISchedulerResource schedulerResource, IJobScheduleRequest jobScheduleRequest,
+                                 IImportHelper.ImportContext solutionImportHandler ) {
+    try {
+      Response response = createSchedulerJob( schedulerResource, jobScheduleRequest );
+      if ( response.getStatus() == Response.Status.OK.getStatusCode() ) {
+        if ( response.getEntity() != null ) {
+          // get the schedule job id from the response and add it to the import session
+          ImportSession.getSession().addImportedScheduleJobId( response.getEntity().toString() );
+          if ( solutionImportHandler.isPerformingRestore() ) {
+            solutionImportHandler.getLogger().debug( "Successfully restored schedule [ " + jobScheduleRequest.getJobName() + " ] " );
+          }
+          return response.getEntity().toString();
+        }
+      } else {
+        solutionImportHandler.getLogger().error( Messages.getInstance().getString( "SolutionImportHandler.ERROR_IMPORTING_SCHEDULE", jobScheduleRequest.getJobName(), response.getEntity() != null
+          ? response.getEntity().toString() : "" ) );
+      }
+    } catch ( Exception e ) {
+      // there is a scenario where if the file scheduled has a space in the file name, that it won't work. the
+      // di server
+
+      // replaces spaces with underscores and the export mechanism can't determine if it needs this to happen
+      // or not
+      // so, if we failed to import and there is a space in the path, try again but this time with replacing
+      // the space(s)
+      if ( jobScheduleRequest.getInputFile().contains( " " ) || jobScheduleRequest.getOutputFile()
+        .contains( " " ) ) {
+        solutionImportHandler.getLogger().debug( Messages.getInstance()
+          .getString( "SolutionImportHandler.SchedulesWithSpaces", jobScheduleRequest.getInputFile() ) );
+        File inFile = new File( jobScheduleRequest.getInputFile() );
+        File outFile = new File( jobScheduleRequest.getOutputFile() );
+        String inputFileName = inFile.getParent() + RepositoryFile.SEPARATOR
+          + inFile.getName().replace( " ", "_" );
+        String outputFileName = outFile.getParent() + RepositoryFile.SEPARATOR
+          + outFile.getName().replace( " ", "_" );
+        jobScheduleRequest.setInputFile( inputFileName );
+        jobScheduleRequest.setOutputFile( outputFileName );
+        try {
+          if ( !File.separator.equals( RepositoryFile.SEPARATOR ) ) {
+            // on windows systems, the backslashes will result in the file not being found in the repository
+            jobScheduleRequest.setInputFile( inputFileName.replace( File.separator, RepositoryFile.SEPARATOR ) );
+            jobScheduleRequest
+              .setOutputFile( outputFileName.replace( File.separator, RepositoryFile.SEPARATOR ) );
+          }
+          Response response = createSchedulerJob( schedulerResource, jobScheduleRequest );
+          if ( response.getStatus() == Response.Status.OK.getStatusCode() ) {
+            if ( response.getEntity() != null ) {
+              // get the schedule job id from the response and add it to the import session
+              ImportSession.getSession().addImportedScheduleJobId( response.getEntity().toString() );
+              return response.getEntity().toString();
+            }
+          }
+        } catch ( Exception ex ) {
+          // log it and keep going. we shouldn't stop processing all schedules just because one fails.
+          solutionImportHandler.getLogger().error( Messages.getInstance()
+            .getString( "SolutionImportHandler.ERROR_0001_ERROR_CREATING_SCHEDULE", "[ " + jobScheduleRequest.getJobName() + " ] cause [ " + ex.getMessage() + " ]" ), ex );
+        }
+      } else {
+        // log it and keep going. we shouldn't stop processing all schedules just because one fails.
+        solutionImportHandler.getLogger().error( Messages.getInstance()
+          .getString( "SolutionImportHandler.ERROR_0001_ERROR_CREATING_SCHEDULE", "[ " + jobScheduleRequest.getJobName() + " ]" ) );
+      }
+    }
+    return null;
+  }
+
+  private void logProgress( IImportHelper.ImportContext solutionImportHandler, int processedCount, int totalCount,
+                            long importStart ) {
+    long elapsed = Math.max( 1, System.currentTimeMillis() - importStart );
+    solutionImportHandler.getLogger().info( "Restored " + processedCount + " of " + totalCount + " schedules in "
+      + elapsed + " ms (" + ( processedCount * 1000L / elapsed ) + " schedules/s)" );
+  }
+
+  private String getLineageId( IJobScheduleRequest jobScheduleRequest ) {
+    if ( jobScheduleRequest.getJobParameters() == null ) {
+      return null;
+    }
+    for ( IJobScheduleParam paramRequest : jobScheduleRequest.getJobParameters() ) {
+      if ( RESERVEDMAPKEY_LINEAGE_ID.equals( paramRequest.getName() ) ) {
+        Serializable lineageId = paramRequest.getValue();
+        return lineageId == null ? null : lineageId.toString();
+      }
+    }
+    return null;
+  }
+
   public Response createSchedulerJob( ISchedulerResource scheduler, IJobScheduleRequest jobScheduleRequest )
     throws IOException {
     Response rs = scheduler != null ? (Response) scheduler.createJob( jobScheduleRequest ) : null;
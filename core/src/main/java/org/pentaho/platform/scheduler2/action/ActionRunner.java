@@ -31,10 +31,15 @@ import org.pentaho.platform.api.scheduler2.IBackgroundExecutionStreamProvider;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
 import org.pentaho.platform.engine.core.output.FileContentItem;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.engine.security.SecurityHelper;
 import org.pentaho.platform.engine.services.solution.ActionSequenceCompatibilityFormatter;
 import org.pentaho.platform.scheduler2.ISchedulerOutputPathResolver;
+import org.pentaho.platform.scheduler2.history.JobExecutionHistory;
+import org.pentaho.platform.scheduler2.history.JobExecutionRecord;
 import org.pentaho.platform.scheduler2.messsages.Messages;
+import org.pentaho.platform.scheduler2.metrics.SchedulerMetrics;
 import org.pentaho.platform.util.ActionUtil;
+import org.pentaho.platform.util.StringUtil;
 import org.pentaho.platform.util.beans.ActionHarness;
 import org.pentaho.platform.util.messages.LocaleHelper;
 import org.pentaho.platform.workitem.WorkItemLifecycleEventUtil;
@@ -42,9 +47,23 @@ import org.pentaho.platform.workitem.WorkItemLifecyclePhase;
 
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 
 public class ActionRunner implements IActionRunner {
@@ -56,13 +75,58 @@ public class ActionRunner implements IActionRunner {
   protected IBackgroundExecutionStreamProvider streamProvider;
   protected String actionUser;
 
-  protected String outputFilePath = null;
-  protected boolean streamComplete = false;
-  protected Object lock = new Object();
+  protected volatile String outputFilePath = null;
+
+  /**
+   * Completed with the path of the output file once it was created, or with null if the stream completed without one
+   */
+  protected final CompletableFuture<String> fileCreated = new CompletableFuture<>();
+
+  /**
+   * Completed once the work left after the action ran, like emailing the output, is done
+   */
+  protected CompletableFuture<Void> completion = CompletableFuture.completedFuture( null );
+
+  /**
+   * How long to wait for the output file before giving up on emailing it
+   */
+  static final long FILE_CREATED_TIMEOUT_MINUTES = 60;
+
+  private static final int COMPLETION_THREAD_COUNT = 4;
+
+  /**
+   * How many completions wait for a thread at most; past that, the thread completing the output runs them itself
+   */
+  static final int COMPLETION_QUEUE_CAPACITY = 1000;
+
+  /**
+   * From this many outputs in one folder, the folder is listed once rather than each output looked up. The listing is
+   * filtered down to the outputs, so it loads no more files than the lookups would; it takes two repository calls, the
+   * folder lookup and the listing, so it saves calls from three outputs on.
+   */
+  static final int FOLDER_LISTING_THRESHOLD = 3;
+
+  /**
+   * File names that can go into the name pattern of a folder listing as they are
+   */
+  private static final Pattern PLAIN_FILE_NAME = Pattern.compile( "[\\w.\\-]+( [\\w.\\-]+)*" );
+
+  private static final AtomicInteger completionThreadNumber = new AtomicInteger();
+
+  /**
+   * Created on first use and again after {@link #shutdownCompletionExecutor}; guarded by ActionRunner.class
+   */
+  private static ThreadPoolExecutor completionExecutor;
 
   public static final String KEY_USE_JCR = "useJcr"; // TODO move to more common place
   public static final String KEY_JCR_OUTPUT_PATH = "jcrOutputPath"; // TODO move to more common place
 
+  /**
+   * The id of the job the action runs for, so that the work left after the action ran can record its failure in the
+   * history of the job
+   */
+  public static final String KEY_JOB_ID = "ActionAdapterQuartzJob-JobId";
+
   public ActionRunner() {
     // empty constructor
   }
@@ -103,7 +167,7 @@ public class ActionRunner implements IActionRunner {
         WorkItemLifecycleEventUtil.publish( workItemName, params, WorkItemLifecyclePhase.SUCCEEDED );
       } else {
         if ( !isRetry() ) {
-          ActionUtil.sendFailureEmail( params, null );
+          sendFailureEmail( null );
         }
         WorkItemLifecycleEventUtil.publish( workItemName, params, WorkItemLifecyclePhase.FAILED );
       }
@@ -111,11 +175,7 @@ public class ActionRunner implements IActionRunner {
     } catch ( final Throwable t ) {
       // Skip failure email on RunOnce retry jobs — the first run already sent it
       if ( !isRetry() ) {
-        ActionUtil.sendFailureEmail( params, t );
-      }
-      // ensure that the main thread isn't blocked on lock
-      synchronized ( lock ) {
-        lock.notifyAll();
+        sendFailureEmail( t );
       }
       WorkItemLifecycleEventUtil.publish( workItemName, params, WorkItemLifecyclePhase.FAILED, t.toString() );
       // We should not distinguish between checked and unchecked exceptions here. All job execution failures
@@ -183,18 +243,13 @@ public class ActionRunner implements IActionRunner {
       if ( stream instanceof ISourcesStreamEvents ) {
         ( (ISourcesStreamEvents) stream ).addListener( new IStreamListener() {
           public void fileCreated( final String filePath ) {
-            synchronized ( lock ) {
-              outputFilePath = filePath;
-              lock.notifyAll();
-            }
+            outputFilePath = filePath;
+            fileCreated.complete( filePath );
           }
 
           @Override
           public void streamComplete() {
-            synchronized ( lock ) {
-              lock.notifyAll();
-              streamComplete = true;
-            }
+            fileCreated.complete( outputFilePath );
           }
         } );
         waitForFileCreated = true;
@@ -209,26 +264,154 @@ public class ActionRunner implements IActionRunner {
       IOUtils.closeQuietly( stream );
     }
 
-    if ( waitForFileCreated ) {
-      synchronized ( lock ) {
-        while ( outputFilePath == null && !streamComplete ) {
-          lock.wait( 1000 );
-        }
-      }
-      if ( executionStatus ) {
-        sendEmail( actionParams );
-      }
-      deleteFileIfEmpty();
-    }
     if ( actionBean instanceof IPostProcessingAction ) {
       closeContentOutputStreams( (IPostProcessingAction) actionBean );
-      markContentAsGenerated( (IPostProcessingAction) actionBean );
+    }
+    if ( waitForFileCreated || actionBean instanceof IPostProcessingAction ) {
+      completion = complete( actionParams, executionStatus, waitForFileCreated );
     }
 
     // Create the ExecutionResult to return the status and whether the update is required or not
     return new ExecutionResult( false, executionStatus );
   }
 
+  /**
+   * @return completed once the work left after the action ran is done
+   */
+  public CompletableFuture<Void> getCompletion() {
+    return completion;
+  }
+
+  /**
+   * Does the work left after the action ran without holding on to the scheduler thread: once the stream reports the
+   * output file, the output is emailed and deleted if empty, and generated content is tagged with the lineage id, on
+   * a separate thread as the action user. Each step is timed in the {@link SchedulerMetrics}.
+   */
+  private CompletableFuture<Void> complete( final Map<String, Object> actionParams, final boolean executionStatus,
+                                            final boolean waitForFileCreated ) {
+    final long executed = System.currentTimeMillis();
+    final Locale locale = LocaleHelper.getLocale();
+    CompletableFuture<String> outputReady = waitForFileCreated
+      ? fileCreated.orTimeout( FILE_CREATED_TIMEOUT_MINUTES, TimeUnit.MINUTES )
+      .whenComplete( ( path, t ) -> recordStage( "fileCreated", executed ) )
+      : CompletableFuture.completedFuture( null );
+
+    return outputReady.thenAcceptAsync( path -> runAsActionUser( locale, () -> {
+      if ( waitForFileCreated ) {
+        if ( executionStatus ) {
+          timed( "sendEmail", () -> sendEmail( actionParams ) );
+        }
+        timed( "deleteFileIfEmpty", this::deleteFileIfEmpty );
+      }
+      if ( actionBean instanceof IPostProcessingAction ) {
+        timed( "markContentAsGenerated", () -> markContentAsGenerated( (IPostProcessingAction) actionBean ) );
+      }
+    } ), getCompletionExecutor() ).exceptionally( t -> {
+      logger.error( Messages.getInstance().getActionFailedToExecute( actionBean.getClass().getName() ), t );
+      recordCompletionFailure( executed );
+      return null;
+    } );
+  }
+
+  protected Executor getCompletionExecutor() {
+    synchronized ( ActionRunner.class ) {
+      if ( completionExecutor == null ) {
+        completionExecutor = new ThreadPoolExecutor( COMPLETION_THREAD_COUNT, COMPLETION_THREAD_COUNT, 0L,
+          TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>( COMPLETION_QUEUE_CAPACITY ), runnable -> {
+            Thread thread = new Thread( runnable, "ActionCompletion-" + completionThreadNumber.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+          }, new ThreadPoolExecutor.CallerRunsPolicy() );
+      }
+      return completionExecutor;
+    }
+  }
+
+  /**
+   * Waits for the completions already handed to the completion threads, like emailing the outputs, and stops the
+   * threads; called when the scheduler shuts down. Completions started afterwards get new threads.
+   */
+  public static void shutdownCompletionExecutor( long timeout, TimeUnit unit ) {
+    ThreadPoolExecutor executor;
+    synchronized ( ActionRunner.class ) {
+      executor = completionExecutor;
+      completionExecutor = null;
+    }
+    if ( executor == null ) {
+      return;
+    }
+    executor.shutdown();
+    try {
+      if ( !executor.awaitTermination( timeout, unit ) ) {
+        logger.warn( "Gave up waiting for the completion of " + executor.shutdownNow().size() + " actions" );
+      }
+    } catch ( InterruptedException e ) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Adds a failed run to the history of the job: the run itself was recorded when the action returned, before the
+   * work left after it failed
+   */
+  private void recordCompletionFailure( long executed ) {
+    Object jobId = params.get( KEY_JOB_ID );
+    if ( jobId == null ) {
+      return;
+    }
+    try {
+      getExecutionHistory().record( jobId.toString(), executed, System.currentTimeMillis(),
+        JobExecutionRecord.Status.FAILED, outputFilePath );
+    } catch ( Exception e ) {
+      logger.warn( "Failed to record the execution history of the job", e );
+    }
+  }
+
+  protected JobExecutionHistory getExecutionHistory() {
+    return JobExecutionHistory.getInstance();
+  }
+
+  private void runAsActionUser( Locale locale, Runnable steps ) {
+    Callable<Void> callable = () -> {
+      LocaleHelper.setThreadLocaleOverride( locale );
+      try {
+        steps.run();
+      } finally {
+        LocaleHelper.setThreadLocaleOverride( null );
+      }
+      return null;
+    };
+    try {
+      runAs( actionUser, callable );
+    } catch ( Exception e ) {
+      throw new CompletionException( e );
+    }
+  }
+
+  /**
+   * Runs the callable with the same identity as the action ran with, see DefaultActionInvoker
+   */
+  static <T> T runAs( String actionUser, Callable<T> callable ) throws Exception {
+    if ( StringUtil.isEmpty( actionUser ) || actionUser.equals( "system session" ) ) { //$NON-NLS-1$
+      return SecurityHelper.getInstance().runAsAnonymous( callable );
+    }
+    return SecurityHelper.getInstance().runAsUser( actionUser, callable );
+  }
+
+  private static void timed( String stage, Runnable step ) {
+    long start = System.currentTimeMillis();
+    try {
+      step.run();
+    } finally {
+      recordStage( stage, start );
+    }
+  }
+
+  private static void recordStage( String stage, long start ) {
+    SchedulerMetrics.getInstance().recordCompletionStage( stage, System.currentTimeMillis() - start );
+  }
+
   /**
    * Get full path parent directory of a given full path filename.
    * @param path
@@ -288,14 +471,28 @@ public class ActionRunner implements IActionRunner {
   }
 
   /**
-   * Send email with attachment including generated output file.
+   * Queue email with attachment including generated output file in the {@link EmailOutbox}.
    * The successfulness of email will be determined by logic in {@link ActionUtil#sendEmail(Map, Map, String)}
    *
    * @param actionParams
    * @return
    */
   protected void sendEmail( Map<String, Object> actionParams ) {
-    ActionUtil.sendEmail( actionParams, params, outputFilePath );
+    getEmailOutbox().enqueue( EmailRequest.forOutput( actionUser, actionParams, params, outputFilePath ) );
+  }
+
+  /**
+   * Queue the email telling that the action failed in the {@link EmailOutbox}, see
+   * {@link ActionUtil#sendFailureEmail(Map, Throwable)}
+   *
+   * @param t the cause of the failure, null if the action reported it
+   */
+  protected void sendFailureEmail( Throwable t ) {
+    getEmailOutbox().enqueue( EmailRequest.forFailure( actionUser, params, t ) );
+  }
+
+  protected EmailOutbox getEmailOutbox() {
+    return EmailOutbox.getInstance();
   }
 
   /**
@@ -318,23 +515,110 @@ public class ActionRunner implements IActionRunner {
     }
   }
 
-  private void markContentAsGenerated( IPostProcessingAction actionBean ) {
+  /**
+   * Tags the outputs of the action with the lineage id of the job. The outputs are looked up together, a folder
+   * holding many of them being listed once, and files already tagged are not written again.
+   */
+  protected void markContentAsGenerated( IPostProcessingAction actionBean ) {
     IUnifiedRepository repo = PentahoSystem.get( IUnifiedRepository.class );
     String lineageId = (String) params.get( ActionUtil.QUARTZ_LINEAGE_ID );
+    Map<String, IContentItem> contentItems = new LinkedHashMap<>();
     for ( IContentItem contentItem : actionBean.getActionOutputContents() ) {
-      RepositoryFile sourceFile = getRepositoryFileSafe( repo, contentItem.getPath() );
+      contentItems.putIfAbsent( contentItem.getPath(), contentItem );
+    }
+    Map<String, RepositoryFile> sourceFiles = getRepositoryFilesSafe( repo, contentItems.keySet() );
+    for ( Map.Entry<String, IContentItem> entry : contentItems.entrySet() ) {
+      RepositoryFile sourceFile = sourceFiles.get( entry.getKey() );
       // add metadata if we have access and we have file
       if ( sourceFile != null ) {
         Map<String, Serializable> metadata = repo.getFileMetadata( sourceFile.getId() );
-        metadata.put( ActionUtil.QUARTZ_LINEAGE_ID, lineageId );
-        repo.setFileMetadata( sourceFile.getId(), metadata );
+        if ( !Objects.equals( lineageId, metadata.get( ActionUtil.QUARTZ_LINEAGE_ID ) ) ) {
+          metadata.put( ActionUtil.QUARTZ_LINEAGE_ID, lineageId );
+          repo.setFileMetadata( sourceFile.getId(), metadata );
+        }
       } else {
-        String fileName = getFSFileNameSafe( contentItem );
+        String fileName = getFSFileNameSafe( entry.getValue() );
         logger.warn( Messages.getInstance().getSkipRemovingOutputFile( fileName ) );
       }
     }
   }
 
+  /**
+   * @return the files found at the paths, by path
+   */
+  private Map<String, RepositoryFile> getRepositoryFilesSafe( IUnifiedRepository repo, Iterable<String> paths ) {
+    Map<String, List<String>> pathsByFolder = new LinkedHashMap<>();
+    for ( String path : paths ) {
+      pathsByFolder.computeIfAbsent( path == null ? null : getParentDirectory( path ), key -> new ArrayList<>() )
+        .add( path );
+    }
+
+    Map<String, RepositoryFile> files = new HashMap<>();
+    for ( Map.Entry<String, List<String>> entry : pathsByFolder.entrySet() ) {
+      List<String> folderPaths = entry.getValue();
+      if ( entry.getKey() != null && folderPaths.size() >= FOLDER_LISTING_THRESHOLD
+        && listFolderSafe( repo, entry.getKey(), folderPaths, files ) ) {
+        continue;
+      }
+      for ( String path : folderPaths ) {
+        RepositoryFile file = getRepositoryFileSafe( repo, path );
+        if ( file != null ) {
+          files.put( path, file );
+        }
+      }
+    }
+    return files;
+  }
+
+  /**
+   * Adds the files of the folder at the paths to the files
+   *
+   * @return false if the folder could not be listed
+   */
+  private boolean listFolderSafe( IUnifiedRepository repo, String folderPath, List<String> paths,
+                                  Map<String, RepositoryFile> files ) {
+    String namePattern = getNamePattern( paths );
+    if ( namePattern.isEmpty() ) {
+      return false;
+    }
+    RepositoryFile folder = getRepositoryFileSafe( repo, folderPath );
+    if ( folder == null ) {
+      return false;
+    }
+    try {
+      Map<String, RepositoryFile> children = new HashMap<>();
+      for ( RepositoryFile child : repo.getChildren( folder.getId(), namePattern ) ) {
+        children.put( child.getPath(), child );
+      }
+      for ( String path : paths ) {
+        // an output the listing does not show, e.g. hidden, is looked up on its own
+        RepositoryFile file = children.containsKey( path ) ? children.get( path ) : getRepositoryFileSafe( repo, path );
+        if ( file != null ) {
+          files.put( path, file );
+        }
+      }
+      return true;
+    } catch ( Exception e ) {
+      logger.debug( Messages.getInstance().getCannotGetRepoFile( folderPath, e.getMessage() ) );
+      return false;
+    }
+  }
+
+  /**
+   * @return the names of the files at the paths joined into a pattern for {@link IUnifiedRepository#getChildren}, so
+   * that only those files are listed; names that are not plain are left out and looked up on their own
+   */
+  static String getNamePattern( List<String> paths ) {
+    StringJoiner namePattern = new StringJoiner( "|" );
+    for ( String path : paths ) {
+      String name = FilenameUtils.getName( path );
+      if ( PLAIN_FILE_NAME.matcher( name ).matches() ) {
+        namePattern.add( name );
+      }
+    }
+    return namePattern.toString();
+  }
+
   private RepositoryFile getRepositoryFileSafe( IUnifiedRepository repo, String path ) {
     try {
       return repo.getFile( path );
@@ -0,0 +1,454 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.action;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.engine.IApplicationContext;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.scheduler2.metrics.SchedulerMetrics;
+import org.pentaho.platform.util.ActionUtil;
+import org.pentaho.platform.util.messages.LocaleHelper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sends the emails of the scheduler apart from the threads running the jobs, so that a slow mail server does not hold
+ * on to them.
+ * <p>
+ * Queued requests are spooled to disk, one file each, until they are sent, and are queued again on startup. The
+ * requests are grouped by recipient: a sender thread takes all the requests queued for one recipient and sends them
+ * in order, while the other threads serve the other recipients. A request that fails is tried again after a delay
+ * that doubles with every attempt, up to {@link #DEFAULT_MAX_ATTEMPTS} attempts. When the queue is full, the request
+ * is sent by the calling thread, as it was before the outbox existed.
+ */
+public class EmailOutbox {
+
+  public static final int DEFAULT_CAPACITY = 1000;
+
+  public static final int DEFAULT_SENDER_COUNT = 2;
+
+  public static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+  public static final long DEFAULT_RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis( 30 );
+
+  static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.HOURS.toMillis( 1 );
+
+  static final String SPOOL_SUFFIX = ".email";
+
+  private static final Log logger = LogFactory.getLog( EmailOutbox.class );
+
+  private static volatile EmailOutbox instance;
+
+  /**
+   * Delivers one request, throwing if it should be tried again
+   */
+  public interface Sender {
+    void send( EmailRequest request ) throws Exception;
+  }
+
+  private final File directory;
+
+  private final int capacity;
+
+  private final int maxAttempts;
+
+  private final long retryDelayMillis;
+
+  private final Sender sender;
+
+  private final List<Thread> senders = new ArrayList<>();
+
+  private final ScheduledExecutorService retries;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final Condition available = lock.newCondition();
+
+  /**
+   * Requests waiting to be sent, by recipient in the order the recipients were first queued; guarded by lock
+   */
+  private final Map<String, Deque<EmailRequest>> queued = new LinkedHashMap<>();
+
+  /**
+   * Recipients a sender is currently sending to; guarded by lock
+   */
+  private final Set<String> sending = new HashSet<>();
+
+  /**
+   * Requests queued, being sent or waiting to be tried again; guarded by lock
+   */
+  private int size;
+
+  private volatile boolean running = true;
+
+  /**
+   * @param directory        where the requests are spooled, created if missing
+   * @param capacity         the number of requests held at most before they are sent by the calling thread
+   * @param senderCount      the number of threads sending
+   * @param maxAttempts      the number of times a request is tried before it is dropped
+   * @param retryDelayMillis the delay before a failed request is first tried again
+   * @param sender           delivers the requests
+   */
+  public EmailOutbox( File directory, int capacity, int senderCount, int maxAttempts, long retryDelayMillis,
+                      Sender sender ) {
+    if ( capacity < 1 || senderCount < 1 || maxAttempts < 1 ) {
+      throw new IllegalArgumentException( "capacity, senderCount and maxAttempts must be at least 1" );
+    }
+    this.directory = directory;
+    this.capacity = capacity;
+    this.maxAttempts = maxAttempts;
+    this.retryDelayMillis = retryDelayMillis;
+    this.sender = sender;
+    if ( !directory.isDirectory() && !directory.mkdirs() ) {
+      logger.warn( "Could not create the email outbox directory " + directory + ", emails are not spooled" );
+    }
+    this.retries = Executors.newSingleThreadScheduledExecutor( runnable -> {
+      Thread thread = new Thread( runnable, "EmailOutbox-retry" );
+      thread.setDaemon( true );
+      return thread;
+    } );
+    load();
+    for ( int i = 0; i < senderCount; i++ ) {
+      Thread thread = new Thread( this::send, "EmailOutbox-" + ( i + 1 ) );
+      thread.setDaemon( true );
+      thread.start();
+      senders.add( thread );
+    }
+  }
+
+  /**
+   * @return the outbox spooled in the system folder of the solution, sending through {@link ActionUtil}
+   */
+  public static EmailOutbox getInstance() {
+    if ( instance == null ) {
+      synchronized ( EmailOutbox.class ) {
+        if ( instance == null ) {
+          instance = new EmailOutbox( getDefaultDirectory(), DEFAULT_CAPACITY, DEFAULT_SENDER_COUNT,
+            DEFAULT_MAX_ATTEMPTS, DEFAULT_RETRY_DELAY_MILLIS, EmailOutbox::sendWithActionUtil );
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Stops the outbox returned by {@link #getInstance()}, if it was created; called when the scheduler shuts down
+   */
+  public static void shutdownInstance() {
+    EmailOutbox outbox = instance;
+    if ( outbox != null ) {
+      outbox.shutdown();
+    }
+  }
+
+  /**
+   * Queues the request to be sent, or sends it right away if the outbox is full
+   */
+  public void enqueue( EmailRequest request ) {
+    boolean accepted;
+    lock.lock();
+    try {
+      accepted = running && size < capacity;
+      if ( accepted ) {
+        size++;
+      }
+    } finally {
+      lock.unlock();
+    }
+    if ( accepted ) {
+      spool( request );
+      lock.lock();
+      try {
+        offer( request );
+      } finally {
+        lock.unlock();
+      }
+      return;
+    }
+    logger.warn( "The email outbox is full, sending the email to " + request.getRecipient() + " right away" );
+    SchedulerMetrics.getInstance().recordEmailOverflow();
+    try {
+      sender.send( request );
+      SchedulerMetrics.getInstance().recordEmailDelivery( System.currentTimeMillis() - request.getCreated() );
+    } catch ( Exception e ) {
+      SchedulerMetrics.getInstance().recordEmailFailure();
+      logger.error( "Could not send the email to " + request.getRecipient(), e );
+    }
+  }
+
+  /**
+   * @return the number of requests not sent yet
+   */
+  public int size() {
+    lock.lock();
+    try {
+      return size;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Stops sending; the requests not sent yet stay spooled and are sent the next time the outbox starts
+   */
+  public void shutdown() {
+    running = false;
+    retries.shutdownNow();
+    lock.lock();
+    try {
+      available.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    for ( Thread thread : senders ) {
+      try {
+        thread.join( TimeUnit.SECONDS.toMillis( 10 ) );
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  /**
+   * The loop of a sender thread: takes the requests of one recipient and sends them in order
+   */
+  private void send() {
+    while ( running ) {
+      String recipient;
+      Deque<EmailRequest> batch;
+      lock.lock();
+      try {
+        Map.Entry<String, Deque<EmailRequest>> next;
+        while ( ( next = nextBatch() ) == null ) {
+          if ( !running ) {
+            return;
+          }
+          available.awaitUninterruptibly();
+        }
+        recipient = next.getKey();
+        batch = next.getValue();
+        sending.add( recipient );
+      } finally {
+        lock.unlock();
+      }
+
+      try {
+        for ( EmailRequest request : batch ) {
+          if ( !running ) {
+            // the rest stays spooled
+            break;
+          }
+          send( request );
+        }
+      } finally {
+        lock.lock();
+        try {
+          sending.remove( recipient );
+          if ( queued.containsKey( recipient ) ) {
+            available.signal();
+          }
+        } finally {
+          lock.unlock();
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes and returns the requests of the first recipient no other thread is sending to; called with the lock held
+   */
+  private Map.Entry<String, Deque<EmailRequest>> nextBatch() {
+    Iterator<Map.Entry<String, Deque<EmailRequest>>> iterator = queued.entrySet().iterator();
+    while ( iterator.hasNext() ) {
+      Map.Entry<String, Deque<EmailRequest>> entry = iterator.next();
+      if ( !sending.contains( entry.getKey() ) ) {
+        iterator.remove();
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  private void send( EmailRequest request ) {
+    SchedulerMetrics metrics = SchedulerMetrics.getInstance();
+    try {
+      request.incrementAttempts();
+      sender.send( request );
+      metrics.recordEmailDelivery( System.currentTimeMillis() - request.getCreated() );
+      remove( request );
+    } catch ( Exception e ) {
+      if ( request.getAttempts() >= maxAttempts || !running ) {
+        if ( running ) {
+          metrics.recordEmailFailure();
+          logger.error( "Could not send the email to " + request.getRecipient() + " after " + request.getAttempts()
+            + " attempts, dropping it", e );
+          remove( request );
+        }
+        return;
+      }
+      long delay = Math.min( MAX_RETRY_DELAY_MILLIS, retryDelayMillis << Math.min( request.getAttempts() - 1, 20 ) );
+      metrics.recordEmailRetry();
+      logger.warn( "Could not send the email to " + request.getRecipient() + ", trying again in " + delay + " ms", e );
+      // keep the attempts made across restarts
+      spool( request );
+      try {
+        retries.schedule( () -> {
+          lock.lock();
+          try {
+            offer( request );
+          } finally {
+            lock.unlock();
+          }
+        }, delay, TimeUnit.MILLISECONDS );
+      } catch ( RejectedExecutionException re ) {
+        // shutting down, the request stays spooled
+      }
+    }
+  }
+
+  /**
+   * Called with the lock held
+   */
+  private void offer( EmailRequest request ) {
+    queued.computeIfAbsent( request.getRecipient(), key -> new ArrayDeque<>() ).add( request );
+    available.signal();
+  }
+
+  private void remove( EmailRequest request ) {
+    File file = getSpoolFile( request );
+    if ( file.exists() && !file.delete() ) {
+      logger.warn( "Could not delete the spooled email " + file );
+    }
+    lock.lock();
+    try {
+      size--;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void spool( EmailRequest request ) {
+    File file = getSpoolFile( request );
+    File tmp = new File( directory, file.getName() + ".tmp" );
+    try {
+      try ( ObjectOutputStream out = new ObjectOutputStream( new BufferedOutputStream(
+        new FileOutputStream( tmp ) ) ) ) {
+        out.writeObject( request );
+      }
+      Files.move( tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE );
+    } catch ( IOException e ) {
+      if ( tmp.exists() && !tmp.delete() ) {
+        logger.warn( "Could not delete the partly spooled email " + tmp );
+      }
+      logger.warn( "Could not spool the email to " + request.getRecipient() + ", it is only kept in memory", e );
+    }
+  }
+
+  /**
+   * Queues the requests spooled by a previous run, oldest first
+   */
+  private void load() {
+    File[] files = directory.listFiles( ( dir, name ) -> name.endsWith( SPOOL_SUFFIX ) );
+    if ( files == null ) {
+      return;
+    }
+    Arrays.sort( files, Comparator.comparingLong( File::lastModified ) );
+    int loaded = 0;
+    for ( File file : files ) {
+      try ( ObjectInputStream in = new ObjectInputStream( new BufferedInputStream( new FileInputStream( file ) ) ) ) {
+        EmailRequest request = (EmailRequest) in.readObject();
+        loaded++;
+        lock.lock();
+        try {
+          size++;
+          offer( request );
+        } finally {
+          lock.unlock();
+        }
+      } catch ( IOException | ClassNotFoundException | ClassCastException e ) {
+        logger.warn( "Could not read the spooled email " + file + ", deleting it", e );
+        if ( !file.delete() ) {
+          logger.warn( "Could not delete the spooled email " + file );
+        }
+      }
+    }
+    if ( loaded > 0 ) {
+      logger.info( "Sending " + loaded + " emails spooled before the last shutdown" );
+    }
+  }
+
+  private File getSpoolFile( EmailRequest request ) {
+    return new File( directory, request.getId() + SPOOL_SUFFIX );
+  }
+
+  private static File getDefaultDirectory() {
+    IApplicationContext context = PentahoSystem.getApplicationContext();
+    if ( context != null ) {
+      return new File( context.getSolutionPath( "system/scheduler-plugin/outbox" ) );
+    }
+    return new File( System.getProperty( "java.io.tmpdir" ), "pentaho-scheduler-outbox" );
+  }
+
+  /**
+   * Sends the request as the user the job ran as. {@link ActionUtil} logs rather than throws when the mail server
+   * refuses an email, so only the failures around it, e.g. of the session, are tried again.
+   */
+  static void sendWithActionUtil( EmailRequest request ) throws Exception {
+    ActionRunner.runAs( request.getActionUser(), () -> {
+      // the email is written in the locale the job completed in
+      LocaleHelper.setThreadLocaleOverride( request.getLocale() );
+      try {
+        if ( request.isFailureNotice() ) {
+          ActionUtil.sendFailureEmail( new HashMap<String, Object>( request.getParams() ), request.getFailure() );
+        } else {
+          ActionUtil.sendEmail( new HashMap<String, Object>( request.getActionParams() ),
+            new HashMap<String, Object>( request.getParams() ), request.getOutputFilePath() );
+        }
+      } finally {
+        LocaleHelper.setThreadLocaleOverride( null );
+      }
+      return null;
+    } );
+  }
+}
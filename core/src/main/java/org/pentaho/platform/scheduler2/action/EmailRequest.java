@@ -0,0 +1,174 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.action;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.util.messages.LocaleHelper;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * An email waiting in the {@link EmailOutbox}: either the output of a job or the notice that a job failed. Only the
+ * serializable parameters are kept, so that the request can be spooled to disk. A parameter is told serializable by
+ * its type alone; a request that still fails to serialize is only kept in memory. The request is sent in the locale of
+ * the thread that created it, which is the locale the job ran in.
+ */
+public class EmailRequest implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  static final String EMAIL_TO = "_SCH_EMAIL_TO";
+
+  /**
+   * Parameters that are not needed to send the email, always dropped
+   */
+  private static final Set<String> STREAM_PARAMS = Set.of( "inputStream", "outputStream" );
+
+  private static final Log logger = LogFactory.getLog( EmailRequest.class );
+
+  private final String id = UUID.randomUUID().toString();
+
+  private final String actionUser;
+
+  private final HashMap<String, Serializable> actionParams;
+
+  private final HashMap<String, Serializable> params;
+
+  private final String outputFilePath;
+
+  private final Throwable failure;
+
+  private final boolean failureNotice;
+
+  private final long created = System.currentTimeMillis();
+
+  private final Locale locale = LocaleHelper.getLocale();
+
+  private int attempts;
+
+  private EmailRequest( String actionUser, Map<String, Object> actionParams, Map<String, Object> params,
+                        String outputFilePath, Throwable failure, boolean failureNotice ) {
+    this.actionUser = actionUser;
+    this.actionParams = serializableCopy( actionParams );
+    this.params = serializableCopy( params );
+    this.outputFilePath = outputFilePath;
+    this.failure = failure;
+    this.failureNotice = failureNotice;
+  }
+
+  /**
+   * @return a request to email the output of a job, as {@code ActionUtil.sendEmail} does
+   */
+  public static EmailRequest forOutput( String actionUser, Map<String, Object> actionParams,
+                                        Map<String, Object> params, String outputFilePath ) {
+    return new EmailRequest( actionUser, actionParams, params, outputFilePath, null, false );
+  }
+
+  /**
+   * @return a request to tell that a job failed, as {@code ActionUtil.sendFailureEmail} does
+   */
+  public static EmailRequest forFailure( String actionUser, Map<String, Object> params, Throwable failure ) {
+    return new EmailRequest( actionUser, null, params, null, failure, true );
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getActionUser() {
+    return actionUser;
+  }
+
+  public Map<String, Serializable> getActionParams() {
+    return actionParams;
+  }
+
+  public Map<String, Serializable> getParams() {
+    return params;
+  }
+
+  public String getOutputFilePath() {
+    return outputFilePath;
+  }
+
+  public Throwable getFailure() {
+    return failure;
+  }
+
+  public boolean isFailureNotice() {
+    return failureNotice;
+  }
+
+  /**
+   * @return the locale the email is written in, null for requests spooled before the locale was kept
+   */
+  public Locale getLocale() {
+    return locale;
+  }
+
+  /**
+   * @return when the request was queued, in milliseconds since the epoch
+   */
+  public long getCreated() {
+    return created;
+  }
+
+  /**
+   * @return the recipients the request is batched by, empty if unknown
+   */
+  public String getRecipient() {
+    Serializable to = actionParams.get( EMAIL_TO );
+    if ( to == null ) {
+      to = params.get( EMAIL_TO );
+    }
+    return to == null ? "" : to.toString();
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  void incrementAttempts() {
+    attempts++;
+  }
+
+  private static HashMap<String, Serializable> serializableCopy( Map<String, Object> map ) {
+    HashMap<String, Serializable> copy = new HashMap<>();
+    Set<String> dropped = new TreeSet<>();
+    if ( map != null ) {
+      for ( Map.Entry<String, Object> entry : map.entrySet() ) {
+        Object value = entry.getValue();
+        if ( STREAM_PARAMS.contains( entry.getKey() ) ) {
+          continue;
+        }
+        if ( value == null || value instanceof Serializable ) {
+          copy.put( entry.getKey(), (Serializable) value );
+        } else {
+          dropped.add( entry.getKey() );
+        }
+      }
+    }
+    if ( !dropped.isEmpty() && logger.isDebugEnabled() ) {
+      logger.debug( "The parameters " + dropped + " cannot be serialized and are left out of the email" );
+    }
+    return copy;
+  }
+}
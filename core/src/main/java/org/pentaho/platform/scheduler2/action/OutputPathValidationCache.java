@@ -0,0 +1,171 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.action;
+
+import org.pentaho.platform.scheduler2.metrics.SchedulerMetrics;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers, per action user and output directory, the directory the {@link SchedulerOutputPathResolver} resolved to,
+ * so that a job firing again within {@link #DEFAULT_TTL_MILLIS} does not check the folder and the permissions against
+ * the repository again.
+ * <p>
+ * Entries of a folder are dropped with {@link #invalidate(String)} when it changes, and all entries with
+ * {@link #invalidateAll()} when the repository may have changed in unknown ways, e.g. when the file tree cache is
+ * cleared.
+ */
+public class OutputPathValidationCache {
+
+  public static final String METRICS_NAME = "outputPath";
+
+  public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis( 1 );
+
+  static final int MAX_ENTRIES = 10000;
+
+  private static final OutputPathValidationCache instance =
+    new OutputPathValidationCache( DEFAULT_TTL_MILLIS, System::currentTimeMillis );
+
+  private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+  private final long ttlMillis;
+
+  private final LongSupplier clock;
+
+  /**
+   * @param ttlMillis how long a resolved directory is trusted
+   * @param clock     the current time in milliseconds
+   */
+  public OutputPathValidationCache( long ttlMillis, LongSupplier clock ) {
+    this.ttlMillis = ttlMillis;
+    this.clock = clock;
+  }
+
+  public static OutputPathValidationCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * @return the directory the output of the user's job for the directory was last resolved to, null if unknown or
+   * expired
+   */
+  public String get( String actionUser, String directory ) {
+    Key key = new Key( actionUser, directory );
+    Entry entry = entries.get( key );
+    boolean hit = entry != null && entry.expires > clock.getAsLong();
+    if ( entry != null && !hit ) {
+      entries.remove( key, entry );
+    }
+    SchedulerMetrics.getInstance().recordCacheLookup( METRICS_NAME, hit );
+    return hit ? entry.resolvedDirectory : null;
+  }
+
+  /**
+   * Remembers that the output of the user's job for the directory can be written to the resolved directory
+   */
+  public void put( String actionUser, String directory, String resolvedDirectory ) {
+    if ( entries.size() >= MAX_ENTRIES ) {
+      removeExpired();
+      if ( entries.size() >= MAX_ENTRIES ) {
+        entries.clear();
+      }
+    }
+    entries.put( new Key( actionUser, directory ), new Entry( resolvedDirectory, clock.getAsLong() + ttlMillis ) );
+  }
+
+  /**
+   * Drops the entries for the folder and its sub folders, whether requested or resolved to, e.g. when it was deleted
+   * or its permissions changed
+   */
+  public void invalidate( String path ) {
+    String folder = normalize( path );
+    entries.entrySet().removeIf( entry -> isWithin( entry.getKey().directory, folder )
+      || isWithin( entry.getValue().resolvedDirectory, folder ) );
+  }
+
+  public void invalidateAll() {
+    entries.clear();
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  private void removeExpired() {
+    long now = clock.getAsLong();
+    entries.values().removeIf( entry -> entry.expires <= now );
+  }
+
+  private static boolean isWithin( String path, String folder ) {
+    String normalized = normalize( path );
+    return normalized.equals( folder ) || folder.isEmpty() || normalized.startsWith( folder + "/" );
+  }
+
+  /**
+   * @return the path without trailing separators, the root being empty
+   */
+  private static String normalize( String path ) {
+    if ( path == null ) {
+      return "";
+    }
+    int end = path.length();
+    while ( end > 0 && ( path.charAt( end - 1 ) == '/' || path.charAt( end - 1 ) == '\\' ) ) {
+      end--;
+    }
+    return path.substring( 0, end );
+  }
+
+  private static class Key {
+    private final String actionUser;
+
+    private final String directory;
+
+    Key( String actionUser, String directory ) {
+      this.actionUser = actionUser;
+      this.directory = directory;
+    }
+
+    @Override
+    public boolean equals( Object o ) {
+      if ( this == o ) {
+        return true;
+      }
+      if ( !( o instanceof Key ) ) {
+        return false;
+      }
+      Key key = (Key) o;
+      return Objects.equals( actionUser, key.actionUser ) && Objects.equals( directory, key.directory );
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash( actionUser, directory );
+    }
+  }
+
+  private static class Entry {
+    private final String resolvedDirectory;
+
+    private final long expires;
+
+    Entry( String resolvedDirectory, long expires ) {
+      this.resolvedDirectory = resolvedDirectory;
+      this.expires = expires;
+    }
+  }
+}
@@ -71,6 +71,21 @@ public class SchedulerOutputPathResolver implements ISchedulerOutputPathResolver
     this.genericFileService = genericFileService;
   }
 
+  private OutputPathValidationCache validationCache;
+  @NonNull
+  private OutputPathValidationCache getValidationCache() {
+    if ( validationCache == null ) {
+      validationCache = OutputPathValidationCache.getInstance();
+    }
+
+    return validationCache;
+  }
+
+  @VisibleForTesting
+  void setValidationCache( @Nullable OutputPathValidationCache validationCache ) {
+    this.validationCache = validationCache;
+  }
+
   static {
     // initialize permissions
     permissions.add( GenericFilePermission.READ );
@@ -109,6 +124,11 @@ public class SchedulerOutputPathResolver implements ISchedulerOutputPathResolver
 
   @Override
   public String resolveOutputFilePath() throws SchedulerException {
+    // A job firing again shortly after skips the checks against the repository, see OutputPathValidationCache
+    String cachedDirectory = getValidationCache().get( getActionUser(), getDirectory() );
+    if ( cachedDirectory != null ) {
+      return concat( cachedDirectory, getFilename() );
+    }
 
     // IMPROVEMENT: This does not belong here. Move to the caller.
     boolean scheduleAllowed = isScheduleAllowed();
@@ -118,15 +138,20 @@ public class SchedulerOutputPathResolver implements ISchedulerOutputPathResolver
     }
 
     // Enclose validation logic in the context of the job creator's session, not the current session
-    return runAsUser( this::resolveOutputFilePathCore );
+    String outputDirectory = runAsUser( this::resolveOutputDirectory );
+    if ( outputDirectory == null ) {
+      return null;
+    }
+
+    getValidationCache().put( getActionUser(), getDirectory(), outputDirectory );
+    return concat( outputDirectory, getFilename() );
   }
 
-  private String resolveOutputFilePathCore() throws SchedulerException {
+  private String resolveOutputDirectory() throws SchedulerException {
     String outputFilePath = getDirectory();
-    String fileNamePattern = getFilename();
 
     if ( isValidOutputPath( outputFilePath, false ) ) {
-      return concat( outputFilePath, fileNamePattern ); // return if valid
+      return outputFilePath; // return if valid
     } else if ( !SchedulerService.isFallbackEnabled() ) { // If fallback is not enabled, throw an exception
       throw new SchedulerException( Messages.getInstance()
                 .getString( "QuartzScheduler.ERROR_0016_UNAVAILABLE_OUTPUT_LOCATION", actionUser ) );
@@ -149,7 +174,7 @@ public class SchedulerOutputPathResolver implements ISchedulerOutputPathResolver
           getJobName(),
           getActionUser() ) );
 
-        return concat( fallbackPath, fileNamePattern );
+        return fallbackPath;
       }
     }
 
@@ -53,7 +53,7 @@ public class BlockoutManagerUtil {
       return true;
     }
 
-    List<Date> fireTimes = getFireTimes( jobTrigger, scheduler );
+    long[] fireTimes = BlockoutWindows.getFireTimes( jobTrigger, scheduler );
 
     for ( IJobTrigger blockOutJobTrigger : blockOutTriggers ) {
 
@@ -68,20 +68,16 @@ public class BlockoutManagerUtil {
           return false;
         }
 
-        List<Date> blockoutFireTimes = null;
-        if ( isBlockoutComplex ) {
-          blockoutFireTimes = getFireTimes( blockOutJobTrigger, scheduler );
-        }
-
-        // Loop through fire times and verify whether block out is blocking the schedule completely
+        // Verify whether block out is blocking the schedule completely
         boolean scheduleCompletelyBlocked = true;
-        for ( Date fireTime : fireTimes ) {
-          scheduleCompletelyBlocked =
-              isBlockoutComplex ? willComplexBlockOutTriggerBlockDate( blockOutJobTrigger, blockoutFireTimes, fireTime )
-                  : willBlockDate( blockOutJobTrigger, fireTime, scheduler );
-
-          if ( !scheduleCompletelyBlocked ) {
-            break;
+        if ( isBlockoutComplex ) {
+          scheduleCompletelyBlocked = BlockoutWindows.of( blockOutJobTrigger, scheduler ).containsAll( fireTimes );
+        } else {
+          for ( long fireTime : fireTimes ) {
+            if ( !willBlockDate( blockOutJobTrigger, fireTime, scheduler ) ) {
+              scheduleCompletelyBlocked = false;
+              break;
+            }
           }
         }
 
@@ -166,13 +162,10 @@ public class BlockoutManagerUtil {
       return false;
     }
 
-    long duration = blockOutJobTrigger.getDuration();
-
-    // Loop through fire times of block out trigger
-    for ( Date blockOutStartDate : getFireTimes( blockOutJobTrigger, scheduler ) ) {
-      Date blockOutEndDate = new Date( blockOutStartDate.getTime() + duration );
-
-      if ( willBlockOutRangeBlockSimpleTrigger( blockOutStartDate, blockOutEndDate, scheduleTrigger, scheduler ) ) {
+    // Loop through the (merged) windows of the block out trigger
+    BlockoutWindows windows = BlockoutWindows.of( blockOutJobTrigger, scheduler );
+    for ( int i = 0; i < windows.size(); i++ ) {
+      if ( willBlockOutRangeBlockSimpleTrigger( windows.getStart( i ), windows.getEnd( i ), scheduleTrigger ) ) {
         return true;
       }
     }
@@ -180,14 +173,14 @@ public class BlockoutManagerUtil {
     return false;
   }
 
-  private static boolean willBlockOutRangeBlockSimpleTrigger( Date startBlockOutRange, Date endBlockOutRange,
-      IJobTrigger scheduleTrigger, IScheduler scheduler ) {
+  private static boolean willBlockOutRangeBlockSimpleTrigger( long startBlockOutRange, long endBlockOutRange,
+      IJobTrigger scheduleTrigger ) {
     // ( S1 - S ) / R <= x <= ( S2 - S ) / R
 
     double recurrence = getRecurrenceInterval( scheduleTrigger );
     recurrence = recurrence != 0 ? recurrence : 1;
-    double x1 = ( startBlockOutRange.getTime() - scheduleTrigger.getStartTime().getTime() ) / recurrence;
-    double x2 = ( endBlockOutRange.getTime() - scheduleTrigger.getStartTime().getTime() ) / recurrence;
+    double x1 = ( startBlockOutRange - scheduleTrigger.getStartTime().getTime() ) / recurrence;
+    double x2 = ( endBlockOutRange - scheduleTrigger.getStartTime().getTime() ) / recurrence;
 
     return hasPositiveIntBetween( x1, x2 );
   }
@@ -195,7 +188,7 @@ public class BlockoutManagerUtil {
   private static boolean willBlockComplexScheduleTrigger( IJobTrigger trigger, IJobTrigger blockOut,
       IScheduler scheduler ) {
 
-    for ( Date fireTime : getFireTimes( trigger, scheduler ) ) {
+    for ( long fireTime : BlockoutWindows.getFireTimes( trigger, scheduler ) ) {
       if ( willBlockDate( blockOut, fireTime, scheduler ) ) {
         return true;
       }
@@ -206,83 +199,42 @@ public class BlockoutManagerUtil {
 
   private static boolean willComplexBlockOutBlockComplexScheduleTrigger( IJobTrigger blockOutJobTrigger,
       IJobTrigger jobTrigger, IScheduler scheduler ) {
-    List<Date> blockOutFireTimes = getFireTimes( blockOutJobTrigger, scheduler );
-
-    int iStart = 0;
-    for ( Date scheduleFireTime : getFireTimes( jobTrigger, scheduler ) ) {
-      for ( int i = iStart; i < blockOutFireTimes.size(); i++ ) {
-        Date blockOutStartDate = blockOutFireTimes.get( i );
-
-        // BlockOut start date after scheduled fire time
-        if ( blockOutStartDate.after( scheduleFireTime ) ) {
-          iStart = i;
-          break;
-        }
-
-        Date blockOutEndDate = new Date( blockOutStartDate.getTime() + blockOutJobTrigger.getDuration() );
-
-        if ( isDateIncludedInRangeInclusive( blockOutStartDate, blockOutEndDate, scheduleFireTime ) ) {
-          return true;
-        }
-      }
+    BlockoutWindows windows = BlockoutWindows.of( blockOutJobTrigger, scheduler );
 
+    // Nothing to intersect with, spare the enumeration of the schedule
+    if ( windows.size() == 0 ) {
+      return false;
     }
 
-    return false;
+    long now = System.currentTimeMillis();
+    long[] scheduleFireTimes =
+        BlockoutWindows.getFireTimes( jobTrigger, scheduler, now, windows.getLastEnd(), false );
+    return windows.containsAny( scheduleFireTimes );
   }
 
-  private static boolean willBlockDate( IJobTrigger blockOutJobTrigger, Date date, IScheduler scheduler ) {
+  private static boolean willBlockDate( IJobTrigger blockOutJobTrigger, long date, IScheduler scheduler ) {
     // S + Rx <= d <= S + Rx + D
 
     // Out of range of block out
-    if ( date.before( blockOutJobTrigger.getStartTime() )
-        || ( blockOutJobTrigger.getEndTime() != null && date.after( blockOutJobTrigger.getEndTime() ) ) ) {
+    if ( date < blockOutJobTrigger.getStartTime().getTime()
+        || ( blockOutJobTrigger.getEndTime() != null && date > blockOutJobTrigger.getEndTime().getTime() ) ) {
       return false;
     }
 
     if ( isComplexTrigger( blockOutJobTrigger ) ) {
-      return willComplexBlockOutTriggerBlockDate( blockOutJobTrigger, getFireTimes( blockOutJobTrigger, scheduler ),
-          date );
+      return BlockoutWindows.of( blockOutJobTrigger, scheduler ).contains( date );
     }
 
     long blockOutRecurrenceInterval = getRecurrenceInterval( blockOutJobTrigger );
 
-    double x1 = ( date.getTime() - blockOutJobTrigger.getStartTime().getTime() ) / (double) blockOutRecurrenceInterval;
+    double x1 = ( date - blockOutJobTrigger.getStartTime().getTime() ) / (double) blockOutRecurrenceInterval;
     double x2 =
-        ( date.getTime() - ( blockOutJobTrigger.getStartTime().getTime() + blockOutJobTrigger.getDuration() ) )
+        ( date - ( blockOutJobTrigger.getStartTime().getTime() + blockOutJobTrigger.getDuration() ) )
             / (double) blockOutRecurrenceInterval;
 
     return hasPositiveIntBetween( x1, x2 );
   }
 
-  private static boolean willComplexBlockOutTriggerBlockDate( IJobTrigger blockOutJobTrigger, List<Date> blockOutDates,
-      Date date ) {
-
-    // Short circuit if date does not fall within a valid start/end date range
-    if ( date.before( blockOutJobTrigger.getStartTime() )
-        || ( blockOutJobTrigger.getEndTime() != null && date.after( blockOutJobTrigger.getEndTime() ) ) ) {
-      return false;
-    }
-
-    long blockOutDuration = blockOutJobTrigger.getDuration();
-    for ( Date blockOutStartDate : blockOutDates ) {
-
-      // Block out date has passed the date being tested
-      if ( blockOutStartDate.after( date ) ) {
-        break;
-      }
-
-      Date blockOutEndDate = new Date( blockOutStartDate.getTime() + blockOutDuration );
-
-      // Date falls within inclusive block out range
-      if ( isDateIncludedInRangeInclusive( blockOutStartDate, blockOutEndDate, date ) ) {
-        return true;
-      }
-    }
-
-    return false;
-  }
-
   public static boolean isComplexTrigger( IJobTrigger jobTrigger ) {
     return jobTrigger instanceof ComplexJobTrigger || jobTrigger instanceof CronJobTrigger;
   }
@@ -347,7 +299,7 @@ public class BlockoutManagerUtil {
 
   public static boolean shouldFireNow( List<IJobTrigger> blockOutJobTriggers, IScheduler scheduler ) {
 
-    Date currentTime = new Date( System.currentTimeMillis() );
+    long currentTime = System.currentTimeMillis();
     for ( IJobTrigger blockOutJobTrigger : blockOutJobTriggers ) {
 
       if ( willBlockDate( blockOutJobTrigger, currentTime, scheduler ) ) {
@@ -401,18 +353,4 @@ public class BlockoutManagerUtil {
     return ( x1 < x2 ? x2 >= 0 : x1 >= 0 ) && hasIntBetween( x1, x2 );
   }
 
-  /**
-   * @param dateRangeStart
-   *          {@link Date} start of range
-   * @param dateRangeEnd
-   *          {@link Date} end of range
-   * @param date
-   *          {@link Date}
-   * @return whether the date falls within the date inclusive date range
-   */
-  private static boolean isDateIncludedInRangeInclusive( Date dateRangeStart, Date dateRangeEnd, Date date ) {
-    long dateTime = date.getTime();
-    return dateRangeStart.getTime() <= dateTime && dateTime <= dateRangeEnd.getTime();
-  }
-
 }
@@ -0,0 +1,193 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.scheduler2.IBlockoutManager;
+import org.pentaho.platform.api.scheduler2.IJob;
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+import org.quartz.Calendar;
+import org.quartz.Scheduler;
+import org.quartz.impl.calendar.BaseCalendar;
+
+/**
+ * Shared, in-memory index of the blockout jobs and their triggers (with durations applied). It spares the fire path
+ * from listing every job in the store just to find the few blockouts.
+ * <p>
+ * The index is dropped whenever {@link QuartzScheduler} creates, updates, removes, pauses or resumes a blockout job,
+ * but not when a blockout fires, so the last run of the blockout jobs it lists may lag behind. To make other nodes of a cluster notice such a change, a version stamp is kept in the job store as
+ * the description of a tiny calendar named {@link #VERSION_CALENDAR_NAME}; the index is reloaded whenever the stored
+ * stamp differs from the one it was built with. The stamp is read at most once every
+ * {@link #STAMP_CHECK_INTERVAL_MILLIS} rather than on every fire, so a change made on another node is picked up within
+ * that interval; changes made on this node are picked up right away. Schedulers other than {@link QuartzScheduler}
+ * are not cached.
+ */
+public class BlockoutRegistry {
+
+  public static final String VERSION_CALENDAR_NAME = "pentaho-blockout-version";
+
+  /**
+   * How long the index is used before the stored version stamp is read again
+   */
+  public static final long STAMP_CHECK_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis( 5 );
+
+  private static final Log logger = LogFactory.getLog( BlockoutRegistry.class );
+
+  private static final BlockoutRegistry INSTANCE = new BlockoutRegistry();
+
+  private final AtomicLong generation = new AtomicLong();
+
+  private volatile Snapshot snapshot;
+
+  private final long stampCheckIntervalNanos;
+
+  BlockoutRegistry() {
+    this( STAMP_CHECK_INTERVAL_MILLIS );
+  }
+
+  BlockoutRegistry( long stampCheckIntervalMillis ) {
+    this.stampCheckIntervalNanos = TimeUnit.MILLISECONDS.toNanos( stampCheckIntervalMillis );
+  }
+
+  public static BlockoutRegistry getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * @return the blockout jobs of the scheduler, with the duration set on each job trigger
+   */
+  public List<IJob> getBlockOutJobs( IScheduler scheduler ) throws SchedulerException {
+    return getSnapshot( scheduler ).jobs;
+  }
+
+  /**
+   * @return the triggers of the blockout jobs of the scheduler, with their durations set
+   */
+  public List<IJobTrigger> getBlockOutTriggers( IScheduler scheduler ) throws SchedulerException {
+    return getSnapshot( scheduler ).triggers;
+  }
+
+  /**
+   * Drops the local index and publishes a new version stamp so that other cluster nodes drop theirs as well.
+   *
+   * @param quartzScheduler the Quartz scheduler backing the job store that holds the blockouts
+   */
+  public void invalidate( Scheduler quartzScheduler ) {
+    generation.incrementAndGet();
+    snapshot = null;
+    if ( quartzScheduler == null ) {
+      return;
+    }
+    try {
+      BaseCalendar stamp = new BaseCalendar();
+      stamp.setDescription( UUID.randomUUID().toString() );
+      quartzScheduler.addCalendar( VERSION_CALENDAR_NAME, stamp, true, false );
+    } catch ( org.quartz.SchedulerException e ) {
+      logger.warn( "Unable to publish the blockout version stamp", e );
+    }
+  }
+
+  private Snapshot getSnapshot( IScheduler scheduler ) throws SchedulerException {
+    if ( !( scheduler instanceof QuartzScheduler ) ) {
+      return load( scheduler, null, null, 0 );
+    }
+
+    long currentGeneration = generation.get();
+    Snapshot current = snapshot;
+    Scheduler quartzScheduler;
+    String stamp;
+    try {
+      quartzScheduler = ( (QuartzScheduler) scheduler ).getQuartzScheduler();
+      boolean valid = current != null && current.quartzScheduler == quartzScheduler
+        && current.generation == currentGeneration;
+      if ( valid && System.nanoTime() - current.stampChecked < stampCheckIntervalNanos ) {
+        return current;
+      }
+      long checked = System.nanoTime();
+      stamp = readStamp( quartzScheduler );
+      if ( valid && Objects.equals( current.stamp, stamp ) ) {
+        current.stampChecked = checked;
+        return current;
+      }
+    } catch ( org.quartz.SchedulerException e ) {
+      throw new SchedulerException( e );
+    }
+
+    Snapshot loaded = load( scheduler, quartzScheduler, stamp, currentGeneration );
+    // Only publish the result if no invalidation happened while loading
+    if ( generation.get() == currentGeneration ) {
+      snapshot = loaded;
+    }
+    return loaded;
+  }
+
+  private String readStamp( Scheduler quartzScheduler ) throws org.quartz.SchedulerException {
+    Calendar calendar = quartzScheduler.getCalendar( VERSION_CALENDAR_NAME );
+    return calendar == null ? null : calendar.getDescription();
+  }
+
+  private Snapshot load( IScheduler scheduler, Scheduler quartzScheduler, String stamp, long loadedGeneration )
+    throws SchedulerException {
+    List<IJob> jobs = scheduler.getJobs( ( IJob j ) -> {
+      if ( IBlockoutManager.BLOCK_OUT_JOB_NAME.equals( j.getJobName() ) ) {
+        j.getJobTrigger().setDuration( ( (Number) j.getJobParams().get( IBlockoutManager.DURATION_PARAM ) ).longValue() );
+        return true;
+      }
+      return false;
+    } );
+    return new Snapshot( quartzScheduler, stamp, loadedGeneration, jobs );
+  }
+
+  private static class Snapshot {
+
+    private final Scheduler quartzScheduler;
+
+    private final String stamp;
+
+    private final long generation;
+
+    private final List<IJob> jobs;
+
+    private final List<IJobTrigger> triggers;
+
+    /**
+     * When the stored stamp was last read and found equal to this one, in {@link System#nanoTime()}
+     */
+    private volatile long stampChecked = System.nanoTime();
+
+    Snapshot( Scheduler quartzScheduler, String stamp, long generation, List<IJob> jobs ) {
+      this.quartzScheduler = quartzScheduler;
+      this.stamp = stamp;
+      this.generation = generation;
+      this.jobs = Collections.unmodifiableList( new ArrayList<>( jobs ) );
+      List<IJobTrigger> jobTriggers = new ArrayList<>( jobs.size() );
+      for ( IJob job : jobs ) {
+        jobTriggers.add( job.getJobTrigger() );
+      }
+      this.triggers = Collections.unmodifiableList( jobTriggers );
+    }
+  }
+}
@@ -0,0 +1,237 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.pentaho.platform.scheduler2.blockout.BlockoutManagerUtil.TIME;
+import org.pentaho.platform.scheduler2.quartz.QuartzJobKey;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+import org.quartz.CronTrigger;
+import org.quartz.spi.MutableTrigger;
+
+/**
+ * The periods during which a blockout is in effect, materialized once as sorted, non-overlapping inclusive
+ * {@code [start, end]} ranges held in primitive arrays. Checking whether a point in time is blocked is a binary
+ * search.
+ * <p>
+ * Windows are enumerated from {@code now - duration}, so a blockout that started before now and is still running is
+ * included. Like {@link BlockoutManagerUtil#getFireTimes(IJobTrigger, IScheduler)}, enumeration stops after
+ * {@value #MAX_FIRE_TIMES} occurrences or four years. Instances are cached per blockout trigger and rebuilt once an
+ * hour, when their coverage runs out, or when the trigger's duration changes.
+ */
+public class BlockoutWindows {
+
+  /**
+   * Determines the maximum amount of fire times allowed to be calculated
+   */
+  static final int MAX_FIRE_TIMES = 1000;
+
+  static final long HORIZON = 4 * TIME.YEAR.time;
+
+  static final long REFRESH_INTERVAL = TIME.HOUR.time;
+
+  private static final Map<IJobTrigger, BlockoutWindows> cache = Collections.synchronizedMap( new WeakHashMap<>() );
+
+  private final long builtAt;
+
+  private final long coverageEnd;
+
+  private final long duration;
+
+  private final long[] starts;
+
+  private final long[] ends;
+
+  private final int size;
+
+  BlockoutWindows( long builtAt, long coverageEnd, long duration, long[] starts, long[] ends, int size ) {
+    this.builtAt = builtAt;
+    this.coverageEnd = coverageEnd;
+    this.duration = duration;
+    this.starts = starts;
+    this.ends = ends;
+    this.size = size;
+  }
+
+  /**
+   * @return the (possibly cached) windows of a complex blockout trigger
+   */
+  public static BlockoutWindows of( IJobTrigger blockOutJobTrigger, IScheduler scheduler ) {
+    long now = System.currentTimeMillis();
+    BlockoutWindows windows = cache.get( blockOutJobTrigger );
+    if ( windows == null || windows.isStale( now, blockOutJobTrigger.getDuration() ) ) {
+      windows = build( blockOutJobTrigger, scheduler, now );
+      cache.put( blockOutJobTrigger, windows );
+    }
+    return windows;
+  }
+
+  static BlockoutWindows build( IJobTrigger blockOutJobTrigger, IScheduler scheduler, long now ) {
+    long blockOutDuration = blockOutJobTrigger.getDuration();
+    long from = now - blockOutDuration;
+    long[] fireTimes = getFireTimes( blockOutJobTrigger, scheduler, from, from + HORIZON, true );
+
+    long limit = blockOutJobTrigger.getEndTime() == null ? Long.MAX_VALUE : blockOutJobTrigger.getEndTime().getTime();
+    long[] windowStarts = new long[ fireTimes.length ];
+    long[] windowEnds = new long[ fireTimes.length ];
+    int count = 0;
+    for ( long fireTime : fireTimes ) {
+      long end = Math.min( fireTime + blockOutDuration, limit );
+      if ( count > 0 && fireTime <= windowEnds[ count - 1 ] ) {
+        windowEnds[ count - 1 ] = Math.max( windowEnds[ count - 1 ], end );
+      } else {
+        windowStarts[ count ] = fireTime;
+        windowEnds[ count ] = end;
+        count++;
+      }
+    }
+
+    long coverageEnd = fireTimes.length >= MAX_FIRE_TIMES ? fireTimes[ fireTimes.length - 1 ] : from + HORIZON;
+    return new BlockoutWindows( now, coverageEnd, blockOutDuration, windowStarts, windowEnds, count );
+  }
+
+  /**
+   * Computes the upcoming fire times of a trigger, starting now.
+   *
+   * @return the fire times in ascending order, as epoch milliseconds
+   */
+  public static long[] getFireTimes( IJobTrigger jobTrigger, IScheduler scheduler ) {
+    long now = System.currentTimeMillis();
+    return getFireTimes( jobTrigger, scheduler, now, now + HORIZON, false );
+  }
+
+  /**
+   * @param anchorStart whether a cron trigger should be allowed to fire from {@code from} on (bounded by the trigger
+   *                    start time) rather than only after the moment the throwaway Quartz trigger is created
+   */
+  static long[] getFireTimes( IJobTrigger jobTrigger, IScheduler scheduler, long from, long until,
+                              boolean anchorStart ) {
+    if ( !( scheduler instanceof QuartzScheduler ) ) {
+      throw new RuntimeException( "Can not calculate fire times for unsupported Scheduler Type: " //$NON-NLS-1$
+        + scheduler.getClass().getSimpleName() );
+    }
+
+    MutableTrigger trigger;
+    try {
+      trigger = QuartzScheduler.createQuartzTrigger( jobTrigger, new QuartzJobKey( "test", "test" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+    } catch ( SchedulerException e ) {
+      throw new RuntimeException( e );
+    }
+
+    long endTime = jobTrigger.getEndTime() == null ? Long.MAX_VALUE : jobTrigger.getEndTime().getTime();
+    Date afterTime = new Date( from );
+    if ( anchorStart && trigger instanceof CronTrigger ) {
+      long start = jobTrigger.getStartTime() == null ? from : Math.max( from, jobTrigger.getStartTime().getTime() );
+      try {
+        trigger.setStartTime( new Date( start ) );
+      } catch ( IllegalArgumentException e ) {
+        // The trigger ends before it would start
+        return new long[ 0 ];
+      }
+      afterTime = new Date( start - 1 );
+    }
+
+    long[] fireTimes = new long[ 16 ];
+    int count = 0;
+    while ( count < MAX_FIRE_TIMES ) {
+      Date nextFireTime = trigger.getFireTimeAfter( afterTime );
+      if ( nextFireTime == null || nextFireTime.getTime() > until || nextFireTime.getTime() > endTime ) {
+        break;
+      }
+      if ( count == fireTimes.length ) {
+        fireTimes = Arrays.copyOf( fireTimes, count * 2 );
+      }
+      fireTimes[ count++ ] = nextFireTime.getTime();
+      afterTime = nextFireTime;
+    }
+    return Arrays.copyOf( fireTimes, count );
+  }
+
+  boolean isStale( long now, long currentDuration ) {
+    return currentDuration != duration || now - builtAt > REFRESH_INTERVAL || now > coverageEnd;
+  }
+
+  /**
+   * @return whether the blockout is in effect at the given time
+   */
+  public boolean contains( long time ) {
+    int low = 0;
+    int high = size - 1;
+    int candidate = -1;
+    while ( low <= high ) {
+      int mid = ( low + high ) >>> 1;
+      if ( starts[ mid ] <= time ) {
+        candidate = mid;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return candidate >= 0 && time <= ends[ candidate ];
+  }
+
+  /**
+   * @return whether at least one of the times is blocked
+   */
+  public boolean containsAny( long[] times ) {
+    for ( long time : times ) {
+      if ( contains( time ) ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return whether every one of the times is blocked; {@code true} for an empty array
+   */
+  public boolean containsAll( long[] times ) {
+    for ( long time : times ) {
+      if ( !contains( time ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the number of (merged) windows
+   */
+  public int size() {
+    return size;
+  }
+
+  public long getStart( int index ) {
+    return starts[ index ];
+  }
+
+  public long getEnd( int index ) {
+    return ends[ index ];
+  }
+
+  /**
+   * @return the end of the last window, or {@link Long#MIN_VALUE} if there is none
+   */
+  public long getLastEnd() {
+    return size == 0 ? Long.MIN_VALUE : ends[ size - 1 ];
+  }
+}
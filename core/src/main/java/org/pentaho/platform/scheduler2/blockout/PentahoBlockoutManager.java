@@ -19,7 +19,6 @@ import java.util.List;
 
 import org.pentaho.platform.api.scheduler2.IBlockoutManager;
 import org.pentaho.platform.api.scheduler2.IJob;
-import org.pentaho.platform.api.scheduler2.IJobFilter;
 import org.pentaho.platform.api.scheduler2.IJobTrigger;
 import org.pentaho.platform.api.scheduler2.IScheduler;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
@@ -55,14 +54,7 @@ public class PentahoBlockoutManager implements IBlockoutManager {
   @Override
   public List<IJob> getBlockOutJobs() {
     try {
-      return getScheduler().getJobs( ( IJob j ) -> {
-        if ( BLOCK_OUT_JOB_NAME.equals( j.getJobName() ) ) {
-          j.getJobTrigger().setDuration( ( (Number) j.getJobParams().get( DURATION_PARAM ) ).longValue() );
-          return true;
-        }
-        return false;
-      } );
-
+      return new ArrayList<>( BlockoutRegistry.getInstance().getBlockOutJobs( getScheduler() ) );
     } catch ( SchedulerException e ) {
       throw new RuntimeException( e );
     }
@@ -108,13 +100,11 @@ public class PentahoBlockoutManager implements IBlockoutManager {
   }
 
   private List<IJobTrigger> getBlockOutJobTriggers() {
-    List<IJobTrigger> blockOutJobTriggers = new ArrayList<IJobTrigger>();
-
-    for ( IJob blockOutJob : getBlockOutJobs() ) {
-      blockOutJobTriggers.add( blockOutJob.getJobTrigger() );
+    try {
+      return BlockoutRegistry.getInstance().getBlockOutTriggers( getScheduler() );
+    } catch ( SchedulerException e ) {
+      throw new RuntimeException( e );
     }
-
-    return blockOutJobTriggers;
   }
 
 }
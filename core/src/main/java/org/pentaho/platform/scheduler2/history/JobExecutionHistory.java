@@ -0,0 +1,396 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.history;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.engine.IApplicationContext;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.scheduler2.history.JobExecutionRecord.Status;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The run history of the jobs, kept apart from the Quartz tables so that recording a run does not rewrite the job.
+ * <p>
+ * The last {@link #getCapacity()} runs of each job are held in memory in a ring buffer of primitive columns. Every run
+ * is also appended to a binary log file, which is replayed on startup. Once the log holds more than twice as many
+ * records as the ring buffers, it is compacted: rewritten with only the records still in a ring buffer and younger
+ * than the retention period.
+ */
+public class JobExecutionHistory {
+
+  public static final int DEFAULT_CAPACITY = 100;
+
+  public static final long DEFAULT_RETENTION_MILLIS = TimeUnit.DAYS.toMillis( 90 );
+
+  static final String FILE_NAME = "job-history.bin";
+
+  private static final int MAGIC = 0x4a484931;
+
+  private static final int MIN_RECORDS_TO_COMPACT = 10000;
+
+  /**
+   * Rings start small since most jobs run rarely, and grow up to the capacity
+   */
+  private static final int INITIAL_RING_LENGTH = 4;
+
+  private static final Log logger = LogFactory.getLog( JobExecutionHistory.class );
+
+  private static volatile JobExecutionHistory instance;
+
+  private final File file;
+
+  private final int capacity;
+
+  private final long retentionMillis;
+
+  private final String nodeName;
+
+  private final ConcurrentMap<String, Ring> rings = new ConcurrentHashMap<>();
+
+  /**
+   * Node names, so that the rings share one instance per node; guarded by this
+   */
+  private final Map<String, String> nodeNames = new HashMap<>();
+
+  /**
+   * Guarded by this
+   */
+  private DataOutputStream out;
+
+  /**
+   * Number of records in the log file; guarded by this
+   */
+  private long logged;
+
+  /**
+   * Number of records in the rings; guarded by this
+   */
+  private long retained;
+
+  /**
+   * @param directory       where the log file is kept, created if missing
+   * @param capacity        the number of runs kept per job
+   * @param retentionMillis how long runs are kept
+   */
+  public JobExecutionHistory( File directory, int capacity, long retentionMillis ) {
+    if ( capacity < 1 ) {
+      throw new IllegalArgumentException( "capacity must be at least 1" );
+    }
+    this.file = new File( directory, FILE_NAME );
+    this.capacity = capacity;
+    this.retentionMillis = retentionMillis;
+    this.nodeName = resolveNodeName();
+    if ( !directory.isDirectory() && !directory.mkdirs() ) {
+      logger.warn( "Could not create the job history directory " + directory + ", the history is not persisted" );
+    }
+    load();
+  }
+
+  /**
+   * @return the history kept in the system folder of the solution
+   */
+  public static JobExecutionHistory getInstance() {
+    if ( instance == null ) {
+      synchronized ( JobExecutionHistory.class ) {
+        if ( instance == null ) {
+          instance = new JobExecutionHistory( getDefaultDirectory(), DEFAULT_CAPACITY, DEFAULT_RETENTION_MILLIS );
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Closes the history returned by {@link #getInstance()}, if it was created; called when the scheduler shuts down
+   */
+  public static void closeInstance() {
+    JobExecutionHistory history = instance;
+    if ( history != null ) {
+      history.close();
+    }
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @return the name of this server, recorded with every run
+   */
+  public String getNodeName() {
+    return nodeName;
+  }
+
+  /**
+   * Records a run of a job on this server
+   *
+   * @param outputPath the path the output of the job was meant for, may be null
+   */
+  public synchronized void record( String jobId, long start, long end, Status status, String outputPath ) {
+    add( jobId, start, end, status, nodeName, outputPath );
+    if ( out == null ) {
+      return;
+    }
+    try {
+      write( out, jobId, start, end, status, nodeName, outputPath );
+      out.flush();
+      logged++;
+      if ( logged > MIN_RECORDS_TO_COMPACT && logged > 2 * retained ) {
+        compact();
+      }
+    } catch ( IOException e ) {
+      logger.warn( "Could not write the job history to " + file, e );
+    }
+  }
+
+  /**
+   * @return the runs of the job within the retention period, latest first
+   */
+  public List<JobExecutionRecord> getHistory( String jobId ) {
+    Ring ring = rings.get( jobId );
+    if ( ring == null ) {
+      return Collections.emptyList();
+    }
+    return ring.getRecords( jobId, System.currentTimeMillis() - retentionMillis );
+  }
+
+  /**
+   * Rewrites the log file with only the runs still kept, dropping those past the retention period
+   */
+  public synchronized void compact() throws IOException {
+    long minEnd = System.currentTimeMillis() - retentionMillis;
+    File compacted = new File( file.getParentFile(), FILE_NAME + ".tmp" );
+    long count = 0;
+    try ( DataOutputStream compactedOut = open( compacted, false ) ) {
+      compactedOut.writeInt( MAGIC );
+      for ( Map.Entry<String, Ring> entry : rings.entrySet() ) {
+        List<JobExecutionRecord> records = entry.getValue().getRecords( entry.getKey(), minEnd );
+        if ( records.isEmpty() ) {
+          rings.remove( entry.getKey() );
+          continue;
+        }
+        Ring ring = new Ring( capacity );
+        for ( int i = records.size() - 1; i >= 0; i-- ) {
+          JobExecutionRecord record = records.get( i );
+          ring.add( record.getStart().getTime(), record.getEnd().getTime(), record.getStatus(), record.getNode(),
+            record.getOutputPath() );
+          write( compactedOut, entry.getKey(), record.getStart().getTime(), record.getEnd().getTime(),
+            record.getStatus(), record.getNode(), record.getOutputPath() );
+        }
+        rings.put( entry.getKey(), ring );
+        count += records.size();
+      }
+    }
+
+    close();
+    Files.move( compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+      StandardCopyOption.ATOMIC_MOVE );
+    out = open( file, true );
+    logged = count;
+    retained = count;
+  }
+
+  /**
+   * Closes the log file; runs recorded afterwards are only kept in memory
+   */
+  public synchronized void close() {
+    if ( out != null ) {
+      try {
+        out.close();
+      } catch ( IOException e ) {
+        logger.debug( "Could not close the job history", e );
+      }
+      out = null;
+    }
+  }
+
+  private synchronized void load() {
+    boolean valid = false;
+    if ( file.isFile() ) {
+      try ( DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) ) ) {
+        valid = in.readInt() == MAGIC;
+        while ( valid ) {
+          in.mark( 1 );
+          if ( in.read() < 0 ) {
+            break;
+          }
+          in.reset();
+          String jobId = in.readUTF();
+          long start = in.readLong();
+          long end = in.readLong();
+          Status status = Status.values()[ in.readByte() ];
+          String node = in.readUTF();
+          String outputPath = in.readUTF();
+          add( jobId, start, end, status, node, outputPath.isEmpty() ? null : outputPath );
+          logged++;
+        }
+      } catch ( EOFException e ) {
+        // a record cut short by a crash; rewrite the log without it
+        valid = false;
+      } catch ( IOException | RuntimeException e ) {
+        logger.warn( "Could not read the job history from " + file + ", keeping what was read so far", e );
+        valid = false;
+      }
+    }
+
+    try {
+      if ( valid && !( logged > MIN_RECORDS_TO_COMPACT && logged > 2 * retained ) ) {
+        out = open( file, true );
+      } else {
+        compact();
+      }
+    } catch ( IOException e ) {
+      logger.warn( "Could not open the job history " + file + ", the history is not persisted", e );
+    }
+  }
+
+  private void add( String jobId, long start, long end, Status status, String node, String outputPath ) {
+    String sharedNode = nodeNames.computeIfAbsent( node, name -> name );
+    if ( !rings.computeIfAbsent( jobId, key -> new Ring( capacity ) )
+      .add( start, end, status, sharedNode, outputPath ) ) {
+      retained++;
+    }
+  }
+
+  private static void write( DataOutputStream out, String jobId, long start, long end, Status status, String node,
+                             String outputPath ) throws IOException {
+    out.writeUTF( jobId );
+    out.writeLong( start );
+    out.writeLong( end );
+    out.writeByte( status.ordinal() );
+    out.writeUTF( node );
+    out.writeUTF( outputPath == null ? "" : outputPath );
+  }
+
+  private static DataOutputStream open( File file, boolean append ) throws IOException {
+    return new DataOutputStream( new BufferedOutputStream( new FileOutputStream( file, append ) ) );
+  }
+
+  private static File getDefaultDirectory() {
+    IApplicationContext context = PentahoSystem.getApplicationContext();
+    if ( context != null ) {
+      return new File( context.getSolutionPath( "system/scheduler-plugin/history" ) );
+    }
+    return new File( System.getProperty( "java.io.tmpdir" ), "pentaho-scheduler-history" );
+  }
+
+  private static String resolveNodeName() {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch ( IOException e ) {
+      return "localhost";
+    }
+  }
+
+  /**
+   * The last runs of one job, in columns, growing up to the capacity and then overwriting the oldest run
+   */
+  private static class Ring {
+    private final int capacity;
+
+    private long[] starts;
+
+    private long[] ends;
+
+    private byte[] statuses;
+
+    private String[] nodes;
+
+    private String[] outputPaths;
+
+    /**
+     * Index of the next run to write
+     */
+    private int head;
+
+    private int size;
+
+    Ring( int capacity ) {
+      this.capacity = capacity;
+      int length = Math.min( capacity, INITIAL_RING_LENGTH );
+      starts = new long[ length ];
+      ends = new long[ length ];
+      statuses = new byte[ length ];
+      nodes = new String[ length ];
+      outputPaths = new String[ length ];
+    }
+
+    /**
+     * @return true if the oldest run was overwritten
+     */
+    synchronized boolean add( long start, long end, Status status, String node, String outputPath ) {
+      if ( size == starts.length && size < capacity ) {
+        grow( Math.min( capacity, size * 2 ) );
+      }
+      starts[ head ] = start;
+      ends[ head ] = end;
+      statuses[ head ] = (byte) status.ordinal();
+      nodes[ head ] = node;
+      outputPaths[ head ] = outputPath;
+      head = ( head + 1 ) % starts.length;
+      if ( size == starts.length ) {
+        return true;
+      }
+      size++;
+      return false;
+    }
+
+    synchronized List<JobExecutionRecord> getRecords( String jobId, long minEnd ) {
+      List<JobExecutionRecord> records = new ArrayList<>( size );
+      Status[] values = Status.values();
+      for ( int i = 1; i <= size; i++ ) {
+        int index = ( head - i + starts.length ) % starts.length;
+        if ( ends[ index ] >= minEnd ) {
+          records.add( new JobExecutionRecord( jobId, starts[ index ], ends[ index ], values[ statuses[ index ] ],
+            nodes[ index ], outputPaths[ index ] ) );
+        }
+      }
+      return records;
+    }
+
+    /**
+     * Only called while the ring is not full, so the runs are in order from index 0
+     */
+    private void grow( int length ) {
+      starts = Arrays.copyOf( starts, length );
+      ends = Arrays.copyOf( ends, length );
+      statuses = Arrays.copyOf( statuses, length );
+      nodes = Arrays.copyOf( nodes, length );
+      outputPaths = Arrays.copyOf( outputPaths, length );
+      head = size;
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.history;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import org.pentaho.platform.api.scheduler2.IJobResult;
+
+import java.util.Date;
+
+/**
+ * One run of a job, as kept by the {@link JobExecutionHistory}.
+ */
+@XmlRootElement( name = "execution" )
+@XmlAccessorType( XmlAccessType.FIELD )
+public class JobExecutionRecord implements IJobResult {
+
+  public enum Status {
+    SUCCEEDED, FAILED,
+    /**
+     * Not executed because of a blockout
+     */
+    BLOCKED
+  }
+
+  private String jobId;
+
+  private Date start;
+
+  private Date end;
+
+  private Status status;
+
+  private long duration;
+
+  private String node;
+
+  private String outputPath;
+
+  public JobExecutionRecord() {
+  }
+
+  public JobExecutionRecord( String jobId, long start, long end, Status status, String node, String outputPath ) {
+    this.jobId = jobId;
+    this.start = new Date( start );
+    this.end = new Date( end );
+    this.status = status;
+    this.duration = end - start;
+    this.node = node;
+    this.outputPath = outputPath;
+  }
+
+  public String getJobId() {
+    return jobId;
+  }
+
+  public Date getStart() {
+    return start;
+  }
+
+  public Date getEnd() {
+    return end;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  /**
+   * @return the duration of the run in milliseconds
+   */
+  public long getDuration() {
+    return duration;
+  }
+
+  /**
+   * @return the name of the server the job ran on
+   */
+  public String getNode() {
+    return node;
+  }
+
+  /**
+   * @return the path the output of the job was meant for, null if it has none
+   */
+  public String getOutputPath() {
+    return outputPath;
+  }
+}
@@ -0,0 +1,125 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values, e.g. milliseconds. Like an HDR histogram it uses buckets of equal
+ * relative width: values below 16 are counted exactly, larger ones in eight buckets per power of two, so any
+ * percentile is accurate to within 12.5% at a fixed footprint of a few kilobytes.
+ */
+public class Histogram {
+
+  private static final int LINEAR_BUCKETS = 16;
+
+  private static final int LINEAR_EXPONENT = 4;
+
+  private static final int SUB_BUCKET_BITS = 3;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private static final int BUCKET_COUNT = LINEAR_BUCKETS + ( Long.SIZE - LINEAR_EXPONENT ) * SUB_BUCKETS;
+
+  private final AtomicLongArray buckets = new AtomicLongArray( BUCKET_COUNT );
+
+  private final LongAdder count = new LongAdder();
+
+  private final LongAdder sum = new LongAdder();
+
+  private final LongAccumulator max = new LongAccumulator( Math::max, 0 );
+
+  /**
+   * @param value the value to record; negative values are recorded as 0
+   */
+  public void record( long value ) {
+    long recorded = Math.max( 0, value );
+    buckets.incrementAndGet( indexOf( recorded ) );
+    count.increment();
+    sum.add( recorded );
+    max.accumulate( recorded );
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getSum() {
+    return sum.sum();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * @param percentile between 0 and 100
+   * @return the highest value of the bucket holding the percentile, never more than the maximum recorded; 0 if
+   * nothing was recorded
+   */
+  public long getValueAtPercentile( double percentile ) {
+    long[] counts = new long[ BUCKET_COUNT ];
+    long total = 0;
+    for ( int i = 0; i < BUCKET_COUNT; i++ ) {
+      counts[ i ] = buckets.get( i );
+      total += counts[ i ];
+    }
+    if ( total == 0 ) {
+      return 0;
+    }
+
+    long target = Math.max( 1, (long) Math.ceil( Math.min( 100, Math.max( 0, percentile ) ) / 100 * total ) );
+    long seen = 0;
+    for ( int i = 0; i < BUCKET_COUNT; i++ ) {
+      seen += counts[ i ];
+      if ( seen >= target ) {
+        return Math.min( upperBoundOf( i ), getMax() );
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * Forgets all recorded values; values recorded concurrently may or may not be kept
+   */
+  public void reset() {
+    for ( int i = 0; i < BUCKET_COUNT; i++ ) {
+      buckets.set( i, 0 );
+    }
+    count.reset();
+    sum.reset();
+    max.reset();
+  }
+
+  static int indexOf( long value ) {
+    if ( value < LINEAR_BUCKETS ) {
+      return (int) value;
+    }
+    int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros( value );
+    int subBucket = (int) ( value >>> ( exponent - SUB_BUCKET_BITS ) ) & ( SUB_BUCKETS - 1 );
+    return LINEAR_BUCKETS + ( exponent - LINEAR_EXPONENT ) * SUB_BUCKETS + subBucket;
+  }
+
+  static long upperBoundOf( int index ) {
+    if ( index < LINEAR_BUCKETS ) {
+      return index;
+    }
+    int exponent = ( index - LINEAR_BUCKETS ) / SUB_BUCKETS + LINEAR_EXPONENT;
+    int subBucket = ( index - LINEAR_BUCKETS ) % SUB_BUCKETS;
+    long upperBound = ( (long) ( SUB_BUCKETS + subBucket + 1 ) << ( exponent - SUB_BUCKET_BITS ) ) - 1;
+    return upperBound < 0 ? Long.MAX_VALUE : upperBound;
+  }
+}
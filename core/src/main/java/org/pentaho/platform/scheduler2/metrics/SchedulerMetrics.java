@@ -0,0 +1,488 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.metrics;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime statistics of the scheduler: how late jobs start, how long they run per action, how many were skipped by a
+ * blockout, failed or were restarted, how busy the thread pool is, how many executions wait for their quotas and how
+ * long, how long listing the jobs takes, how the emails of the outbox are delivered and how often the caches of the
+ * scheduler are hit.
+ * <p>
+ * Recording is lock-free and cheap enough to be done on every job execution; reading builds a snapshot, either as a
+ * map for JSON or in the Prometheus text exposition format.
+ */
+public class SchedulerMetrics {
+
+  static final String UNKNOWN_ACTION = "unknown";
+
+  private static final double[] QUANTILES = { 0.5, 0.9, 0.99 };
+
+  private static final SchedulerMetrics instance = new SchedulerMetrics();
+
+  private final Histogram fireLag = new Histogram();
+
+  private final Histogram jobListing = new Histogram();
+
+  private final ConcurrentMap<String, ActionMetrics> actions = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, Histogram> completionStages = new ConcurrentHashMap<>();
+
+  private final LongAdder blockoutSkips = new LongAdder();
+
+  private final LongAdder runOnceRestarts = new LongAdder();
+
+  private final Histogram emailDelivery = new Histogram();
+
+  private final LongAdder emailRetries = new LongAdder();
+
+  private final LongAdder emailFailures = new LongAdder();
+
+  private final LongAdder emailOverflows = new LongAdder();
+
+  private final ConcurrentMap<String, CacheMetrics> caches = new ConcurrentHashMap<>();
+
+  private final AtomicInteger runningJobs = new AtomicInteger();
+
+  private final AtomicInteger peakRunningJobs = new AtomicInteger();
+
+  private final AtomicInteger queuedExecutions = new AtomicInteger();
+
+  private final AtomicInteger peakQueuedExecutions = new AtomicInteger();
+
+  private final Histogram admissionWait = new Histogram();
+
+  public static SchedulerMetrics getInstance() {
+    return instance;
+  }
+
+  /**
+   * Records that a job started and how late it did
+   *
+   * @param scheduledFireTime when the trigger was scheduled to fire, may be null
+   * @param startTime         when the job actually started, in milliseconds since the epoch
+   */
+  public void jobStarted( Date scheduledFireTime, long startTime ) {
+    peakRunningJobs.accumulateAndGet( runningJobs.incrementAndGet(), Math::max );
+    if ( scheduledFireTime != null ) {
+      fireLag.record( startTime - scheduledFireTime.getTime() );
+    }
+  }
+
+  /**
+   * Records that a job started with {@link #jobStarted(Date, long)} ended, whether it executed or not
+   */
+  public void jobEnded() {
+    runningJobs.decrementAndGet();
+  }
+
+  /**
+   * @param actionId       the action id or class of the job
+   * @param durationMillis how long the action ran
+   * @param succeeded      false if the action failed
+   */
+  public void recordExecution( String actionId, long durationMillis, boolean succeeded ) {
+    ActionMetrics metrics = actions.computeIfAbsent( actionId == null ? UNKNOWN_ACTION : actionId,
+      key -> new ActionMetrics() );
+    metrics.duration.record( durationMillis );
+    if ( !succeeded ) {
+      metrics.failures.increment();
+    }
+  }
+
+  /**
+   * @param stage          the step done after an action ran, e.g. sending the output by email
+   * @param durationMillis how long the step took
+   */
+  public void recordCompletionStage( String stage, long durationMillis ) {
+    completionStages.computeIfAbsent( stage, key -> new Histogram() ).record( durationMillis );
+  }
+
+  /**
+   * Records that an execution waits for its quotas, see
+   * {@link org.pentaho.platform.scheduler2.quartz.ExecutionAdmissionController}
+   */
+  public void executionQueued() {
+    peakQueuedExecutions.accumulateAndGet( queuedExecutions.incrementAndGet(), Math::max );
+  }
+
+  /**
+   * Records that an execution queued with {@link #executionQueued()} stopped waiting, admitted or not
+   *
+   * @param waitMillis how long it waited
+   */
+  public void executionDequeued( long waitMillis ) {
+    queuedExecutions.decrementAndGet();
+    admissionWait.record( waitMillis );
+  }
+
+  public void recordBlockoutSkip() {
+    blockoutSkips.increment();
+  }
+
+  public void recordRunOnceRestart() {
+    runOnceRestarts.increment();
+  }
+
+  /**
+   * @param durationNanos how long listing the jobs took
+   */
+  public void recordJobListing( long durationNanos ) {
+    jobListing.record( TimeUnit.NANOSECONDS.toMicros( durationNanos ) );
+  }
+
+  /**
+   * @param latencyMillis how long after it was queued the email was sent
+   */
+  public void recordEmailDelivery( long latencyMillis ) {
+    emailDelivery.record( latencyMillis );
+  }
+
+  public void recordEmailRetry() {
+    emailRetries.increment();
+  }
+
+  /**
+   * Records that an email was dropped after its last attempt failed
+   */
+  public void recordEmailFailure() {
+    emailFailures.increment();
+  }
+
+  /**
+   * Records that an email was sent by the calling thread because the outbox was full
+   */
+  public void recordEmailOverflow() {
+    emailOverflows.increment();
+  }
+
+  /**
+   * @param cache the name of the cache looked up
+   * @param hit   false if the value had to be computed
+   */
+  public void recordCacheLookup( String cache, boolean hit ) {
+    CacheMetrics metrics = caches.computeIfAbsent( cache, key -> new CacheMetrics() );
+    ( hit ? metrics.hits : metrics.misses ).increment();
+  }
+
+  public int getRunningJobs() {
+    return runningJobs.get();
+  }
+
+  public int getPeakRunningJobs() {
+    return peakRunningJobs.get();
+  }
+
+  public int getQueuedExecutions() {
+    return queuedExecutions.get();
+  }
+
+  public int getPeakQueuedExecutions() {
+    return peakQueuedExecutions.get();
+  }
+
+  public Histogram getAdmissionWait() {
+    return admissionWait;
+  }
+
+  public long getBlockoutSkips() {
+    return blockoutSkips.sum();
+  }
+
+  public long getRunOnceRestarts() {
+    return runOnceRestarts.sum();
+  }
+
+  public long getFailures() {
+    long failures = 0;
+    for ( ActionMetrics metrics : actions.values() ) {
+      failures += metrics.failures.sum();
+    }
+    return failures;
+  }
+
+  public long getEmailRetries() {
+    return emailRetries.sum();
+  }
+
+  public long getEmailFailures() {
+    return emailFailures.sum();
+  }
+
+  public long getEmailOverflows() {
+    return emailOverflows.sum();
+  }
+
+  public Histogram getEmailDelivery() {
+    return emailDelivery;
+  }
+
+  public long getCacheHits( String cache ) {
+    CacheMetrics metrics = caches.get( cache );
+    return metrics == null ? 0 : metrics.hits.sum();
+  }
+
+  public long getCacheMisses( String cache ) {
+    CacheMetrics metrics = caches.get( cache );
+    return metrics == null ? 0 : metrics.misses.sum();
+  }
+
+  public Histogram getFireLag() {
+    return fireLag;
+  }
+
+  public Histogram getJobListing() {
+    return jobListing;
+  }
+
+  /**
+   * @return the execution durations of the action, null if it never ran
+   */
+  public Histogram getExecutions( String actionId ) {
+    ActionMetrics metrics = actions.get( actionId );
+    return metrics == null ? null : metrics.duration;
+  }
+
+  /**
+   * @return the durations of the step done after actions ran, null if it was never done
+   */
+  public Histogram getCompletionStage( String stage ) {
+    return completionStages.get( stage );
+  }
+
+  /**
+   * @param threadPoolSize the number of threads of the scheduler, or a negative number if unknown
+   * @return a snapshot of all metrics, to be serialized as JSON
+   */
+  public Map<String, Object> toMap( int threadPoolSize ) {
+    Map<String, Object> threadPool = new LinkedHashMap<>();
+    threadPool.put( "size", threadPoolSize );
+    threadPool.put( "running", getRunningJobs() );
+    threadPool.put( "peakRunning", getPeakRunningJobs() );
+    threadPool.put( "saturation", threadPoolSize > 0 ? (double) getRunningJobs() / threadPoolSize : 0d );
+
+    Map<String, Object> executions = new LinkedHashMap<>();
+    for ( Map.Entry<String, ActionMetrics> entry : new TreeMap<>( actions ).entrySet() ) {
+      Map<String, Object> action = toMap( entry.getValue().duration );
+      action.put( "failures", entry.getValue().failures.sum() );
+      executions.put( entry.getKey(), action );
+    }
+
+    Map<String, Object> stages = new LinkedHashMap<>();
+    for ( Map.Entry<String, Histogram> entry : new TreeMap<>( completionStages ).entrySet() ) {
+      stages.put( entry.getKey(), toMap( entry.getValue() ) );
+    }
+
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put( "threadPool", threadPool );
+
+    Map<String, Object> admission = new LinkedHashMap<>();
+    admission.put( "queued", getQueuedExecutions() );
+    admission.put( "peakQueued", getPeakQueuedExecutions() );
+    admission.put( "waitMillis", toMap( admissionWait ) );
+    map.put( "admission", admission );
+    map.put( "fireLagMillis", toMap( fireLag ) );
+    map.put( "executionMillis", executions );
+    map.put( "completionStageMillis", stages );
+    map.put( "jobListingMicros", toMap( jobListing ) );
+    map.put( "blockoutSkips", getBlockoutSkips() );
+    map.put( "failures", getFailures() );
+    map.put( "runOnceRestarts", getRunOnceRestarts() );
+
+    Map<String, Object> email = new LinkedHashMap<>();
+    email.put( "deliveryMillis", toMap( emailDelivery ) );
+    email.put( "retries", getEmailRetries() );
+    email.put( "failures", getEmailFailures() );
+    email.put( "overflows", getEmailOverflows() );
+    map.put( "email", email );
+
+    Map<String, Object> cacheMap = new LinkedHashMap<>();
+    for ( Map.Entry<String, CacheMetrics> entry : new TreeMap<>( caches ).entrySet() ) {
+      long hits = entry.getValue().hits.sum();
+      long misses = entry.getValue().misses.sum();
+      Map<String, Object> cache = new LinkedHashMap<>();
+      cache.put( "hits", hits );
+      cache.put( "misses", misses );
+      cache.put( "hitRate", hits + misses > 0 ? (double) hits / ( hits + misses ) : 0d );
+      cacheMap.put( entry.getKey(), cache );
+    }
+    map.put( "caches", cacheMap );
+    return map;
+  }
+
+  /**
+   * @param threadPoolSize the number of threads of the scheduler, or a negative number if unknown
+   * @return a snapshot of all metrics in the Prometheus text exposition format
+   */
+  public String toPrometheus( int threadPoolSize ) {
+    StringBuilder out = new StringBuilder();
+    if ( threadPoolSize >= 0 ) {
+      gauge( out, "pentaho_scheduler_thread_pool_size", "Number of threads of the scheduler.", threadPoolSize );
+    }
+    gauge( out, "pentaho_scheduler_running_jobs", "Number of jobs currently running.", getRunningJobs() );
+    gauge( out, "pentaho_scheduler_running_jobs_peak", "Highest number of jobs running at once.",
+      getPeakRunningJobs() );
+    gauge( out, "pentaho_scheduler_queued_executions", "Number of executions waiting for their quotas.",
+      getQueuedExecutions() );
+    gauge( out, "pentaho_scheduler_queued_executions_peak", "Highest number of executions waiting at once.",
+      getPeakQueuedExecutions() );
+    summaryHeader( out, "pentaho_scheduler_admission_wait_seconds",
+      "Time executions waited for their quotas." );
+    summary( out, "pentaho_scheduler_admission_wait_seconds", "", admissionWait, 1e3 );
+
+    summaryHeader( out, "pentaho_scheduler_fire_lag_seconds",
+      "Delay between the scheduled and the actual start of jobs." );
+    summary( out, "pentaho_scheduler_fire_lag_seconds", "", fireLag, 1e3 );
+
+    summaryHeader( out, "pentaho_scheduler_execution_seconds", "Duration of job executions by action." );
+    Map<String, ActionMetrics> sorted = new TreeMap<>( actions );
+    for ( Map.Entry<String, ActionMetrics> entry : sorted.entrySet() ) {
+      summary( out, "pentaho_scheduler_execution_seconds", "action=\"" + escape( entry.getKey() ) + "\"",
+        entry.getValue().duration, 1e3 );
+    }
+
+    out.append( "# HELP pentaho_scheduler_execution_failures_total Number of failed job executions by action.\n" );
+    out.append( "# TYPE pentaho_scheduler_execution_failures_total counter\n" );
+    for ( Map.Entry<String, ActionMetrics> entry : sorted.entrySet() ) {
+      out.append( "pentaho_scheduler_execution_failures_total{action=\"" ).append( escape( entry.getKey() ) )
+        .append( "\"} " ).append( entry.getValue().failures.sum() ).append( '\n' );
+    }
+
+    summaryHeader( out, "pentaho_scheduler_completion_stage_seconds",
+      "Duration of the steps done after actions ran, by step." );
+    for ( Map.Entry<String, Histogram> entry : new TreeMap<>( completionStages ).entrySet() ) {
+      summary( out, "pentaho_scheduler_completion_stage_seconds", "stage=\"" + escape( entry.getKey() ) + "\"",
+        entry.getValue(), 1e3 );
+    }
+
+    counter( out, "pentaho_scheduler_blockout_skips_total", "Number of jobs not executed because of a blockout.",
+      getBlockoutSkips() );
+    counter( out, "pentaho_scheduler_run_once_restarts_total", "Number of failed jobs recreated to run once.",
+      getRunOnceRestarts() );
+
+    summaryHeader( out, "pentaho_scheduler_job_listing_seconds", "Duration of listing the jobs." );
+    summary( out, "pentaho_scheduler_job_listing_seconds", "", jobListing, 1e6 );
+
+    summaryHeader( out, "pentaho_scheduler_email_delivery_seconds",
+      "Delay between queuing and sending the emails of the outbox." );
+    summary( out, "pentaho_scheduler_email_delivery_seconds", "", emailDelivery, 1e3 );
+    counter( out, "pentaho_scheduler_email_retries_total", "Number of emails tried again after failing.",
+      getEmailRetries() );
+    counter( out, "pentaho_scheduler_email_failures_total", "Number of emails dropped after their last attempt.",
+      getEmailFailures() );
+    counter( out, "pentaho_scheduler_email_overflows_total",
+      "Number of emails sent by the job thread because the outbox was full.", getEmailOverflows() );
+
+    Map<String, CacheMetrics> sortedCaches = new TreeMap<>( caches );
+    out.append( "# HELP pentaho_scheduler_cache_hits_total Number of lookups answered by a cache, by cache.\n" );
+    out.append( "# TYPE pentaho_scheduler_cache_hits_total counter\n" );
+    for ( Map.Entry<String, CacheMetrics> entry : sortedCaches.entrySet() ) {
+      out.append( "pentaho_scheduler_cache_hits_total{cache=\"" ).append( escape( entry.getKey() ) )
+        .append( "\"} " ).append( entry.getValue().hits.sum() ).append( '\n' );
+    }
+    out.append( "# HELP pentaho_scheduler_cache_misses_total Number of lookups a cache could not answer, by cache.\n" );
+    out.append( "# TYPE pentaho_scheduler_cache_misses_total counter\n" );
+    for ( Map.Entry<String, CacheMetrics> entry : sortedCaches.entrySet() ) {
+      out.append( "pentaho_scheduler_cache_misses_total{cache=\"" ).append( escape( entry.getKey() ) )
+        .append( "\"} " ).append( entry.getValue().misses.sum() ).append( '\n' );
+    }
+    return out.toString();
+  }
+
+  /**
+   * Forgets everything recorded so far, except for the jobs currently running or waiting
+   */
+  public void reset() {
+    actions.clear();
+    completionStages.clear();
+    blockoutSkips.reset();
+    runOnceRestarts.reset();
+    peakRunningJobs.set( runningJobs.get() );
+    peakQueuedExecutions.set( queuedExecutions.get() );
+    admissionWait.reset();
+    fireLag.reset();
+    jobListing.reset();
+    emailDelivery.reset();
+    emailRetries.reset();
+    emailFailures.reset();
+    emailOverflows.reset();
+    caches.clear();
+  }
+
+  private static Map<String, Object> toMap( Histogram histogram ) {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put( "count", histogram.getCount() );
+    map.put( "sum", histogram.getSum() );
+    map.put( "max", histogram.getMax() );
+    map.put( "p50", histogram.getValueAtPercentile( 50 ) );
+    map.put( "p90", histogram.getValueAtPercentile( 90 ) );
+    map.put( "p99", histogram.getValueAtPercentile( 99 ) );
+    return map;
+  }
+
+  private static void gauge( StringBuilder out, String name, String help, long value ) {
+    out.append( "# HELP " ).append( name ).append( ' ' ).append( help ).append( '\n' );
+    out.append( "# TYPE " ).append( name ).append( " gauge\n" );
+    out.append( name ).append( ' ' ).append( value ).append( '\n' );
+  }
+
+  private static void counter( StringBuilder out, String name, String help, long value ) {
+    out.append( "# HELP " ).append( name ).append( ' ' ).append( help ).append( '\n' );
+    out.append( "# TYPE " ).append( name ).append( " counter\n" );
+    out.append( name ).append( ' ' ).append( value ).append( '\n' );
+  }
+
+  private static void summaryHeader( StringBuilder out, String name, String help ) {
+    out.append( "# HELP " ).append( name ).append( ' ' ).append( help ).append( '\n' );
+    out.append( "# TYPE " ).append( name ).append( " summary\n" );
+  }
+
+  private static void summary( StringBuilder out, String name, String labels, Histogram histogram, double unit ) {
+    String separator = labels.isEmpty() ? "" : labels + ",";
+    for ( double quantile : QUANTILES ) {
+      out.append( name ).append( '{' ).append( separator ).append( "quantile=\"" ).append( quantile ).append( "\"} " )
+        .append( histogram.getValueAtPercentile( quantile * 100 ) / unit ).append( '\n' );
+    }
+    String suffix = labels.isEmpty() ? "" : "{" + labels + "}";
+    out.append( name ).append( "_sum" ).append( suffix ).append( ' ' ).append( histogram.getSum() / unit )
+      .append( '\n' );
+    out.append( name ).append( "_count" ).append( suffix ).append( ' ' ).append( histogram.getCount() )
+      .append( '\n' );
+  }
+
+  private static String escape( String labelValue ) {
+    return labelValue.replace( "\\", "\\\\" ).replace( "\"", "\\\"" ).replace( "\n", "\\n" );
+  }
+
+  private static class CacheMetrics {
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+  }
+
+  private static class ActionMetrics {
+    private final Histogram duration = new Histogram();
+
+    private final LongAdder failures = new LongAdder();
+  }
+}
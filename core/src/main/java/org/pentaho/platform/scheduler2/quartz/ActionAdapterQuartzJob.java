@@ -25,20 +25,24 @@ import org.pentaho.platform.api.scheduler2.IScheduler;
 import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.engine.security.SecurityHelper;
+import org.pentaho.platform.scheduler2.action.ActionRunner;
 import org.pentaho.platform.scheduler2.action.DefaultActionInvoker;
 import org.pentaho.platform.scheduler2.blockout.BlockoutAction;
 import org.pentaho.platform.scheduler2.messsages.Messages;
+import org.pentaho.platform.scheduler2.metrics.SchedulerMetrics;
 import org.pentaho.platform.scheduler2.ws.ListParamValue;
 import org.pentaho.platform.scheduler2.ws.MapParamValue;
 import org.pentaho.platform.scheduler2.ws.StringParamValue;
 import org.pentaho.platform.util.ActionUtil;
 import org.pentaho.platform.util.StringUtil;
+import org.pentaho.platform.web.http.api.resources.RepositoryFileStreamProvider;
 import org.pentaho.platform.workitem.WorkItemLifecycleEventUtil;
 import org.pentaho.platform.workitem.WorkItemLifecyclePhase;
 import org.quartz.Job;
 import org.quartz.JobDataMap;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
+import org.quartz.Trigger;
 
 import java.io.Serializable;
 import java.text.MessageFormat;
@@ -70,7 +74,7 @@ public class ActionAdapterQuartzJob implements Job {
     final String actionId = jobDataMap.getString( QuartzScheduler.RESERVEDMAPKEY_ACTIONID );
 
     try {
-      invokeAction( actionClassName, actionId, actionUser, context, jobDataMap.getWrappedMap() );
+      invokeAction( actionClassName, actionId, actionUser, context, QuartzJobData.toParams( jobDataMap ) );
 
     } catch ( Throwable t ) {
       // We should not distinguish between checked and unchecked exceptions here. All job execution failures
@@ -130,6 +134,21 @@ public class ActionAdapterQuartzJob implements Job {
     return serializableMap;
   }
 
+  /**
+   * @return the repository path of the file the action runs, null if the params do not tell
+   */
+  private static String getInputFilePath( final Map<String, Object> params ) {
+    final Object inputFile = params.get( ActionUtil.QUARTZ_STREAMPROVIDER_INPUT_FILE );
+    if ( inputFile != null && !inputFile.toString().isEmpty() ) {
+      return inputFile.toString();
+    }
+    final Object streamProvider = params.get( QuartzScheduler.RESERVEDMAPKEY_STREAMPROVIDER );
+    if ( streamProvider instanceof RepositoryFileStreamProvider ) {
+      return ( (RepositoryFileStreamProvider) streamProvider ).getInputFilePath();
+    }
+    return null;
+  }
+
   /**
    * Invokes the {@link IAction} bean that is created from the provided {@code actionClassName} and {@code actionId} as
    * the provided {@code actionUser}. If the {@code IAction} execution fails as-is, the scheduler attempts to re-create
@@ -177,7 +196,16 @@ public class ActionAdapterQuartzJob implements Job {
     }
 
     // Invoke the action and get the status of the invocation
-    final IActionInvokeStatus status = actionInvoker.invokeAction( actionBean, actionUser, getSerializableMap( params ) );
+    // Actions wait until the quotas of their user, action and path have room, see ExecutionAdmissionController;
+    // CPU bound actions then wait for one of a limited number of permits, see VirtualThreadPool
+    final int priority = context.getTrigger() != null ? context.getTrigger().getPriority() : Trigger.DEFAULT_PRIORITY;
+    // the job id is only passed to the action, it is not kept with the job
+    final Map<String, Object> actionParams = getSerializableMap( params );
+    actionParams.put( ActionRunner.KEY_JOB_ID, context.getJobDetail().getKey().getName() );
+    final IActionInvokeStatus status = ExecutionAdmissionController.getInstance().call( actionUser, actionClassName,
+      actionId, getInputFilePath( params ), priority, context.getScheduledFireTime(),
+      () -> CpuBoundActionLimiter.getInstance().call( actionClassName, actionId,
+        () -> actionInvoker.invokeAction( actionBean, actionUser, actionParams ) ) );
 
     // Status may not be available for remote execution, which is expected
     if ( status == null ) {
@@ -229,6 +257,7 @@ public class ActionAdapterQuartzJob implements Job {
             jobParams.put( QuartzScheduler.RESERVEDMAPKEY_RESTART_FLAG, Boolean.TRUE );
             WorkItemLifecycleEventUtil.publish( workItemName, params, WorkItemLifecyclePhase.RESTARTED );
             scheduler.createJob( jobName, iaction, jobParams, trigger, streamProvider );
+            SchedulerMetrics.getInstance().recordRunOnceRestart();
             log.warn( "New RunOnce job created for " + jobName + " -> possible startup synchronization error" );
             return null;
           }
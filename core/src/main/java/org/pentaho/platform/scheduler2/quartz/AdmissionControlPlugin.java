@@ -0,0 +1,140 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerConfigException;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.SchedulerPlugin;
+
+/**
+ * Configures the quotas of the {@link ExecutionAdmissionController} from quartz.properties, e.g.
+ *
+ * <pre>
+ * org.quartz.plugin.admissionControl.class = org.pentaho.platform.scheduler2.quartz.AdmissionControlPlugin
+ * org.quartz.plugin.admissionControl.maxRunningPerUser = 5
+ * org.quartz.plugin.admissionControl.pathQuotas = /public/Finance=2
+ * </pre>
+ *
+ * The quotas are lifted again when the scheduler shuts down.
+ */
+public class AdmissionControlPlugin implements SchedulerPlugin {
+
+  private static final Log logger = LogFactory.getLog( AdmissionControlPlugin.class );
+
+  private int maxRunningPerUser;
+
+  private String userQuotas;
+
+  private int maxRunningPerAction;
+
+  private String actionQuotas;
+
+  private String pathQuotas;
+
+  private long priorityAgingMillis;
+
+  @Override
+  public void initialize( String name, Scheduler scheduler, ClassLoadHelper loadHelper )
+    throws SchedulerConfigException {
+    try {
+      ExecutionAdmissionController.getInstance().configure( maxRunningPerUser, userQuotas, maxRunningPerAction,
+        actionQuotas, pathQuotas );
+      ExecutionAdmissionController.getInstance().setPriorityAgingMillis( priorityAgingMillis );
+    } catch ( IllegalArgumentException e ) {
+      throw new SchedulerConfigException( "Invalid quotas for plugin " + name, e );
+    }
+    logger.info( "Admission control " + name + ": " + maxRunningPerUser + " per user [" + userQuotas + "], "
+      + maxRunningPerAction + " per action [" + actionQuotas + "], per path [" + pathQuotas + "]" );
+  }
+
+  @Override
+  public void start() {
+  }
+
+  @Override
+  public void shutdown() {
+    ExecutionAdmissionController.getInstance().configure( 0, null, 0, null, null );
+    ExecutionAdmissionController.getInstance().setPriorityAgingMillis( 0 );
+  }
+
+  public int getMaxRunningPerUser() {
+    return maxRunningPerUser;
+  }
+
+  /**
+   * @param maxRunningPerUser the maximum number of actions one user runs at the same time; unlimited if not positive
+   */
+  public void setMaxRunningPerUser( int maxRunningPerUser ) {
+    this.maxRunningPerUser = maxRunningPerUser;
+  }
+
+  public String getUserQuotas() {
+    return userQuotas;
+  }
+
+  /**
+   * @param userQuotas comma separated user=count pairs overriding maxRunningPerUser
+   */
+  public void setUserQuotas( String userQuotas ) {
+    this.userQuotas = userQuotas;
+  }
+
+  public int getMaxRunningPerAction() {
+    return maxRunningPerAction;
+  }
+
+  /**
+   * @param maxRunningPerAction the maximum number of runs of one action at the same time; unlimited if not positive
+   */
+  public void setMaxRunningPerAction( int maxRunningPerAction ) {
+    this.maxRunningPerAction = maxRunningPerAction;
+  }
+
+  public String getActionQuotas() {
+    return actionQuotas;
+  }
+
+  /**
+   * @param actionQuotas comma separated action=count pairs overriding maxRunningPerAction, by action class name or id
+   */
+  public void setActionQuotas( String actionQuotas ) {
+    this.actionQuotas = actionQuotas;
+  }
+
+  public String getPathQuotas() {
+    return pathQuotas;
+  }
+
+  /**
+   * @param pathQuotas comma separated path=count pairs limiting the actions run on files below a repository path
+   */
+  public void setPathQuotas( String pathQuotas ) {
+    this.pathQuotas = pathQuotas;
+  }
+
+  public long getPriorityAgingMillis() {
+    return priorityAgingMillis;
+  }
+
+  /**
+   * @param priorityAgingMillis how late a waiting execution has to be to be let in as if its priority was one higher;
+   *                            late executions are not preferred if not positive
+   */
+  public void setPriorityAgingMillis( long priorityAgingMillis ) {
+    this.priorityAgingMillis = priorityAgingMillis;
+  }
+}
@@ -15,6 +15,7 @@ package org.pentaho.platform.scheduler2.quartz;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.scheduler2.IBackgroundExecutionStreamProvider;
 import org.pentaho.platform.api.scheduler2.IBlockoutManager;
 import org.pentaho.platform.api.scheduler2.IScheduler;
 import org.pentaho.platform.engine.core.audit.AuditHelper;
@@ -24,12 +25,17 @@ import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.scheduler2.blockout.BlockoutAction;
 import org.pentaho.platform.scheduler2.blockout.PentahoBlockoutManager;
+import org.pentaho.platform.scheduler2.history.JobExecutionHistory;
+import org.pentaho.platform.scheduler2.history.JobExecutionRecord;
+import org.pentaho.platform.scheduler2.metrics.SchedulerMetrics;
 import org.quartz.Job;
 import org.quartz.JobDataMap;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.quartz.SchedulerException;
 
+import java.util.Map;
+
 /**
  * A Quartz job that checks if execution is currently suspended before passing on to the underlying job
  * 
@@ -50,15 +56,24 @@ public class BlockingQuartzJob implements Job {
     String messageType = jobRestarted ? MessageTypes.RECREATED_INSTANCE_START : MessageTypes.INSTANCE_START;
     long start = System.currentTimeMillis();
     long end = start;
+    SchedulerMetrics metrics = SchedulerMetrics.getInstance();
+    metrics.jobStarted( jobExecutionContext.getScheduledFireTime(), start );
+    boolean executed = false;
+    boolean succeeded = false;
+    boolean blocked = false;
     try {
       if ( getBlockoutManager().shouldFireNow() || isBlockoutAction( jobExecutionContext ) ) { // We should always let the blockouts fire
         makeAuditRecord( 0, messageType, jobExecutionContext );
         // Record the actual execution time - this ensures Last Run is updated ONLY when the job actually executes
         recordExecutionTime( jobExecutionContext );
+        executed = true;
         createUnderlyingJob().execute( jobExecutionContext );
+        succeeded = true;
         end = System.currentTimeMillis();
         messageType = jobRestarted ? MessageTypes.RECREATED_INSTANCE_END : MessageTypes.INSTANCE_END;
       } else {
+        metrics.recordBlockoutSkip();
+        blocked = true;
         getLogger().warn(
             "Job '" + jobExecutionContext.getJobDetail().getKey().getName()
                 + "' attempted to run during a blockout period.  This job was not executed" );
@@ -74,14 +89,54 @@ public class BlockingQuartzJob implements Job {
       getLogger().warn(
           "Got Exception retrieving the Blockout Manager for job '" + jobExecutionContext.getJobDetail().getKey().getName()
               + "'. Executing the underlying job anyway", e );
+      executed = true;
       createUnderlyingJob().execute( jobExecutionContext );
+      succeeded = true;
       end = System.currentTimeMillis();
       messageType = jobRestarted ? MessageTypes.RECREATED_INSTANCE_END : MessageTypes.INSTANCE_END;
     } finally {
+      metrics.jobEnded();
+      long finished = succeeded || blocked ? end : System.currentTimeMillis();
+      if ( executed ) {
+        metrics.recordExecution( getActionId( jobDataMap ), finished - start, succeeded );
+      }
+      if ( executed || blocked ) {
+        recordHistory( jobExecutionContext, start, finished, blocked ? JobExecutionRecord.Status.BLOCKED
+          : succeeded ? JobExecutionRecord.Status.SUCCEEDED : JobExecutionRecord.Status.FAILED );
+      }
       makeAuditRecord( ( (float) ( end - start ) / 1000 ), messageType, jobExecutionContext );
     }
   }
 
+  private static String getActionId( JobDataMap jobDataMap ) {
+    if ( jobDataMap == null ) {
+      return null;
+    }
+    String actionId = jobDataMap.getString( QuartzScheduler.RESERVEDMAPKEY_ACTIONID );
+    return actionId != null ? actionId : jobDataMap.getString( QuartzScheduler.RESERVEDMAPKEY_ACTIONCLASS );
+  }
+
+  /**
+   * Adds the run to the job's execution history; like the audit record, a failure here never fails the job
+   */
+  protected void recordHistory( JobExecutionContext jobExecutionContext, long start, long end,
+                                JobExecutionRecord.Status status ) {
+    try {
+      Object streamProvider = QuartzJobData.view( jobExecutionContext.getJobDetail().getJobDataMap() )
+        .get( QuartzScheduler.RESERVEDMAPKEY_STREAMPROVIDER );
+      String outputPath = streamProvider instanceof IBackgroundExecutionStreamProvider
+        ? ( (IBackgroundExecutionStreamProvider) streamProvider ).getOutputPath() : null;
+      getExecutionHistory().record( jobExecutionContext.getJobDetail().getKey().getName(), start, end, status,
+        outputPath );
+    } catch ( Exception e ) {
+      getLogger().warn( "Failed to record the execution history of the job", e );
+    }
+  }
+
+  JobExecutionHistory getExecutionHistory() {
+    return JobExecutionHistory.getInstance();
+  }
+
   IBlockoutManager getBlockoutManager() throws SchedulerException {
     return new PentahoBlockoutManager();
   }
@@ -107,9 +162,9 @@ public class BlockingQuartzJob implements Job {
   protected void makeAuditRecord( final float time, final String messageType,
                                   final JobExecutionContext jobExecutionContext ) {
     if ( jobExecutionContext != null && jobExecutionContext.getJobDetail() != null ) {
-      final JobDataMap jobDataMap = jobExecutionContext.getJobDetail().getJobDataMap();
+      final Map<String, Object> jobDataMap = QuartzJobData.view( jobExecutionContext.getJobDetail().getJobDataMap() );
 
-      if ( null == jobDataMap || null == jobDataMap.get( QuartzScheduler.RESERVEDMAPKEY_STREAMPROVIDER ) || null == jobDataMap.get( QuartzScheduler.RESERVEDMAPKEY_ACTIONID ) ) {
+      if ( null == jobDataMap.get( QuartzScheduler.RESERVEDMAPKEY_STREAMPROVIDER ) || null == jobDataMap.get( QuartzScheduler.RESERVEDMAPKEY_ACTIONID ) ) {
         //it's an action, no need to log
         return;
       }
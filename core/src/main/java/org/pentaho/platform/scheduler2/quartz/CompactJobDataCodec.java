@@ -0,0 +1,595 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.pentaho.platform.scheduler2.ws.ListParamValue;
+import org.pentaho.platform.scheduler2.ws.MapParamValue;
+import org.pentaho.platform.scheduler2.ws.StringParamValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The default {@link IJobDataCodec}. The params are written as typed values, with every key and string stored once in
+ * a string table and referred to by index, and deflated when that makes them smaller. Strings, numbers, booleans,
+ * dates, {@link HashMap}s, {@link ArrayList}s, string arrays and the {@link StringParamValue}, {@link ListParamValue}
+ * and {@link MapParamValue} wrappers are written natively; any other value, like the stream provider, is Java
+ * serialized on its own.
+ * <p>
+ * The layout, after a version and a flags byte, is the string table followed by the entries, each entry being the
+ * index of its key and the length of its value, so that a decoded map can skip to a value and decode only the values
+ * that are asked for.
+ */
+public class CompactJobDataCodec implements IJobDataCodec {
+
+  public static final String NAME = "compact";
+
+  /**
+   * The encoded size from which the params are deflated
+   */
+  public static final int DEFAULT_COMPRESSION_THRESHOLD = 512;
+
+  static final int VERSION = 1;
+
+  private static final int FLAG_DEFLATED = 1;
+
+  private static final int NULL = 0;
+  private static final int STRING = 1;
+  private static final int TRUE = 2;
+  private static final int FALSE = 3;
+  private static final int INTEGER = 4;
+  private static final int LONG = 5;
+  private static final int DOUBLE = 6;
+  private static final int FLOAT = 7;
+  private static final int DATE = 8;
+  private static final int LIST = 9;
+  private static final int MAP = 10;
+  private static final int LIST_PARAM_VALUE = 11;
+  private static final int MAP_PARAM_VALUE = 12;
+  private static final int STRING_PARAM_VALUE = 13;
+  private static final int STRING_ARRAY = 14;
+  private static final int SERIALIZED = 15;
+
+  private final int compressionThreshold;
+
+  public CompactJobDataCodec() {
+    this( DEFAULT_COMPRESSION_THRESHOLD );
+  }
+
+  /**
+   * @param compressionThreshold the encoded size from which the params are deflated, negative to never deflate them
+   */
+  public CompactJobDataCodec( int compressionThreshold ) {
+    this.compressionThreshold = compressionThreshold;
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public byte[] encode( Map<String, Object> values ) throws IOException {
+    StringTable strings = new StringTable();
+    ByteArrayOutputStream entries = new ByteArrayOutputStream();
+    ByteArrayOutputStream value = new ByteArrayOutputStream();
+    writeVarInt( entries, values.size() );
+    for ( Map.Entry<String, Object> entry : values.entrySet() ) {
+      value.reset();
+      writeValue( value, entry.getValue(), strings );
+      writeVarInt( entries, strings.ref( entry.getKey() ) );
+      writeVarInt( entries, value.size() );
+      value.writeTo( entries );
+    }
+
+    ByteArrayOutputStream body = new ByteArrayOutputStream( strings.byteSize + entries.size() + 16 );
+    strings.writeTo( body );
+    entries.writeTo( body );
+
+    int flags = 0;
+    if ( compressionThreshold >= 0 && body.size() >= compressionThreshold ) {
+      ByteArrayOutputStream deflated = new ByteArrayOutputStream( body.size() / 2 );
+      try ( DeflaterOutputStream out = new DeflaterOutputStream( deflated ) ) {
+        body.writeTo( out );
+      }
+      if ( deflated.size() < body.size() ) {
+        body = deflated;
+        flags |= FLAG_DEFLATED;
+      }
+    }
+
+    ByteArrayOutputStream data = new ByteArrayOutputStream( body.size() + 2 );
+    data.write( VERSION );
+    data.write( flags );
+    body.writeTo( data );
+    return data.toByteArray();
+  }
+
+  @Override
+  public Map<String, Object> decode( byte[] data ) throws IOException {
+    if ( data.length < 2 ) {
+      throw new IOException( "Truncated job data" );
+    }
+    if ( data[ 0 ] != VERSION ) {
+      throw new IOException( "Unsupported job data version " + data[ 0 ] );
+    }
+
+    byte[] body;
+    if ( ( data[ 1 ] & FLAG_DEFLATED ) != 0 ) {
+      try ( InputStream in = new InflaterInputStream( new ByteArrayInputStream( data, 2, data.length - 2 ) ) ) {
+        body = in.readAllBytes();
+      }
+    } else {
+      body = data;
+    }
+
+    Reader reader = new Reader( body, body == data ? 2 : 0 );
+    String[] strings = new String[ reader.readVarInt() ];
+    for ( int i = 0; i < strings.length; i++ ) {
+      strings[ i ] = reader.readString();
+    }
+    return new DecodedMap( reader, strings );
+  }
+
+  private void writeValue( ByteArrayOutputStream out, Object value, StringTable strings ) throws IOException {
+    if ( value == null ) {
+      out.write( NULL );
+    } else if ( value instanceof String && isWellFormed( (String) value ) ) {
+      out.write( STRING );
+      writeVarInt( out, strings.ref( (String) value ) );
+    } else if ( value instanceof Boolean ) {
+      out.write( (Boolean) value ? TRUE : FALSE );
+    } else if ( value instanceof Integer ) {
+      out.write( INTEGER );
+      writeVarLong( out, zigZag( (Integer) value ) );
+    } else if ( value instanceof Long ) {
+      out.write( LONG );
+      writeVarLong( out, zigZag( (Long) value ) );
+    } else if ( value instanceof Double ) {
+      out.write( DOUBLE );
+      writeFixed( out, Double.doubleToRawLongBits( (Double) value ), 8 );
+    } else if ( value instanceof Float ) {
+      out.write( FLOAT );
+      writeFixed( out, Float.floatToRawIntBits( (Float) value ), 4 );
+    } else if ( value.getClass() == Date.class ) {
+      out.write( DATE );
+      writeVarLong( out, zigZag( ( (Date) value ).getTime() ) );
+    } else if ( value.getClass() == StringParamValue.class
+      && isWellFormed( ( (StringParamValue) value ).getStringValue() ) ) {
+      out.write( STRING_PARAM_VALUE );
+      writeVarInt( out, strings.ref( ( (StringParamValue) value ).getStringValue() ) );
+    } else if ( value.getClass() == ListParamValue.class ) {
+      out.write( LIST_PARAM_VALUE );
+      writeValues( out, (Collection<?>) value, strings );
+    } else if ( value.getClass() == ArrayList.class ) {
+      out.write( LIST );
+      writeValues( out, (Collection<?>) value, strings );
+    } else if ( value.getClass() == MapParamValue.class ) {
+      out.write( MAP_PARAM_VALUE );
+      writeEntries( out, (Map<?, ?>) value, strings );
+    } else if ( value.getClass() == HashMap.class ) {
+      out.write( MAP );
+      writeEntries( out, (Map<?, ?>) value, strings );
+    } else if ( value.getClass() == String[].class && isWellFormed( (String[]) value ) ) {
+      out.write( STRING_ARRAY );
+      String[] array = (String[]) value;
+      writeVarInt( out, array.length );
+      for ( String item : array ) {
+        writeVarInt( out, strings.ref( item ) );
+      }
+    } else if ( value instanceof Serializable ) {
+      out.write( SERIALIZED );
+      ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+      try ( ObjectOutputStream objectOut = new ObjectOutputStream( serialized ) ) {
+        objectOut.writeObject( value );
+      }
+      writeVarInt( out, serialized.size() );
+      serialized.writeTo( out );
+    } else {
+      throw new NotSerializableException( value.getClass().getName() );
+    }
+  }
+
+  private void writeValues( ByteArrayOutputStream out, Collection<?> values, StringTable strings )
+    throws IOException {
+    writeVarInt( out, values.size() );
+    for ( Object item : values ) {
+      writeValue( out, item, strings );
+    }
+  }
+
+  private void writeEntries( ByteArrayOutputStream out, Map<?, ?> map, StringTable strings ) throws IOException {
+    writeVarInt( out, map.size() );
+    for ( Map.Entry<?, ?> entry : map.entrySet() ) {
+      writeValue( out, entry.getKey(), strings );
+      writeValue( out, entry.getValue(), strings );
+    }
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private static Object readValue( Reader in, String[] strings ) throws IOException {
+    int tag = in.readByte();
+    switch ( tag ) {
+      case NULL:
+        return null;
+      case STRING:
+        return in.readString( strings );
+      case TRUE:
+        return Boolean.TRUE;
+      case FALSE:
+        return Boolean.FALSE;
+      case INTEGER:
+        return (int) unZigZag( in.readVarLong() );
+      case LONG:
+        return unZigZag( in.readVarLong() );
+      case DOUBLE:
+        return Double.longBitsToDouble( in.readFixed( 8 ) );
+      case FLOAT:
+        return Float.intBitsToFloat( (int) in.readFixed( 4 ) );
+      case DATE:
+        return new Date( unZigZag( in.readVarLong() ) );
+      case STRING_PARAM_VALUE:
+        return new StringParamValue( in.readString( strings ) );
+      case LIST_PARAM_VALUE:
+        return readValues( in, strings, (Collection<Object>) (Collection<?>) new ListParamValue() );
+      case LIST:
+        return readValues( in, strings, new ArrayList<>() );
+      case MAP_PARAM_VALUE:
+        return readEntries( in, strings, (Map<Object, Object>) (Map<?, ?>) new MapParamValue() );
+      case MAP:
+        return readEntries( in, strings, new HashMap<>() );
+      case STRING_ARRAY:
+        String[] array = new String[ in.readVarInt() ];
+        for ( int i = 0; i < array.length; i++ ) {
+          array[ i ] = in.readString( strings );
+        }
+        return array;
+      case SERIALIZED:
+        int length = in.readVarInt();
+        try ( ObjectInputStream objectIn = new ContextObjectInputStream( in.slice( length ) ) ) {
+          return objectIn.readObject();
+        } catch ( ClassNotFoundException e ) {
+          throw new IOException( e );
+        }
+      default:
+        throw new IOException( "Unknown job data value type " + tag );
+    }
+  }
+
+  private static Collection<Object> readValues( Reader in, String[] strings, Collection<Object> values )
+    throws IOException {
+    int size = in.readVarInt();
+    for ( int i = 0; i < size; i++ ) {
+      values.add( readValue( in, strings ) );
+    }
+    return values;
+  }
+
+  private static Map<Object, Object> readEntries( Reader in, String[] strings, Map<Object, Object> map )
+    throws IOException {
+    int size = in.readVarInt();
+    for ( int i = 0; i < size; i++ ) {
+      Object key = readValue( in, strings );
+      map.put( key, readValue( in, strings ) );
+    }
+    return map;
+  }
+
+  /**
+   * @return whether the string survives a round trip through UTF-8, i.e. has no unpaired surrogate; other strings are
+   * Java serialized
+   */
+  private static boolean isWellFormed( String value ) {
+    if ( value == null ) {
+      return true;
+    }
+    for ( int i = 0; i < value.length(); i++ ) {
+      char c = value.charAt( i );
+      if ( Character.isHighSurrogate( c ) ) {
+        if ( i + 1 == value.length() || !Character.isLowSurrogate( value.charAt( i + 1 ) ) ) {
+          return false;
+        }
+        i++;
+      } else if ( Character.isLowSurrogate( c ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isWellFormed( String[] values ) {
+    for ( String value : values ) {
+      if ( !isWellFormed( value ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long zigZag( long value ) {
+    return ( value << 1 ) ^ ( value >> 63 );
+  }
+
+  private static long unZigZag( long value ) {
+    return ( value >>> 1 ) ^ -( value & 1 );
+  }
+
+  private static void writeVarInt( ByteArrayOutputStream out, int value ) {
+    writeVarLong( out, value & 0xFFFFFFFFL );
+  }
+
+  private static void writeVarLong( ByteArrayOutputStream out, long value ) {
+    while ( ( value & ~0x7FL ) != 0 ) {
+      out.write( (int) ( ( value & 0x7F ) | 0x80 ) );
+      value >>>= 7;
+    }
+    out.write( (int) value );
+  }
+
+  private static void writeFixed( ByteArrayOutputStream out, long value, int bytes ) {
+    for ( int shift = ( bytes - 1 ) * 8; shift >= 0; shift -= 8 ) {
+      out.write( (int) ( value >>> shift ) );
+    }
+  }
+
+  /**
+   * Hands out the index of each distinct string, 0 standing for null
+   */
+  private static class StringTable {
+    private final Map<String, Integer> indexes = new LinkedHashMap<>();
+
+    private int byteSize;
+
+    int ref( String value ) throws IOException {
+      if ( value == null ) {
+        return 0;
+      }
+      if ( !isWellFormed( value ) ) {
+        throw new IOException( "Malformed string in job data key" );
+      }
+      Integer index = indexes.get( value );
+      if ( index == null ) {
+        index = indexes.size() + 1;
+        indexes.put( value, index );
+        byteSize += value.length() + 1;
+      }
+      return index;
+    }
+
+    void writeTo( ByteArrayOutputStream out ) {
+      writeVarInt( out, indexes.size() );
+      for ( String value : indexes.keySet() ) {
+        byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+        writeVarInt( out, bytes.length );
+        out.write( bytes, 0, bytes.length );
+      }
+    }
+  }
+
+  private static class Reader {
+    private final byte[] buffer;
+
+    private int position;
+
+    Reader( byte[] buffer, int position ) {
+      this.buffer = buffer;
+      this.position = position;
+    }
+
+    int readByte() throws IOException {
+      if ( position >= buffer.length ) {
+        throw new IOException( "Truncated job data" );
+      }
+      return buffer[ position++ ] & 0xFF;
+    }
+
+    long readVarLong() throws IOException {
+      long value = 0;
+      for ( int shift = 0; shift < 64; shift += 7 ) {
+        int b = readByte();
+        value |= (long) ( b & 0x7F ) << shift;
+        if ( ( b & 0x80 ) == 0 ) {
+          return value;
+        }
+      }
+      throw new IOException( "Malformed job data" );
+    }
+
+    int readVarInt() throws IOException {
+      long value = readVarLong();
+      if ( value < 0 || value > Integer.MAX_VALUE ) {
+        throw new IOException( "Malformed job data" );
+      }
+      return (int) value;
+    }
+
+    long readFixed( int bytes ) throws IOException {
+      long value = 0;
+      for ( int i = 0; i < bytes; i++ ) {
+        value = ( value << 8 ) | readByte();
+      }
+      return value;
+    }
+
+    String readString() throws IOException {
+      int length = readVarInt();
+      checkAvailable( length );
+      String value = new String( buffer, position, length, StandardCharsets.UTF_8 );
+      position += length;
+      return value;
+    }
+
+    String readString( String[] strings ) throws IOException {
+      int index = readVarInt();
+      if ( index > strings.length ) {
+        throw new IOException( "Malformed job data" );
+      }
+      return index == 0 ? null : strings[ index - 1 ];
+    }
+
+    InputStream slice( int length ) throws IOException {
+      checkAvailable( length );
+      InputStream in = new ByteArrayInputStream( buffer, position, length );
+      position += length;
+      return in;
+    }
+
+    void checkAvailable( int length ) throws IOException {
+      if ( length > buffer.length - position ) {
+        throw new IOException( "Truncated job data" );
+      }
+    }
+  }
+
+  /**
+   * Reads the index of the entries up front, and each value the first time it is asked for
+   */
+  private static class DecodedMap extends AbstractMap<String, Object> {
+    private final byte[] buffer;
+
+    private final String[] strings;
+
+    private final Map<String, Integer> indexes;
+
+    private final String[] keys;
+
+    private final int[] offsets;
+
+    private final Object[] values;
+
+    private final boolean[] decoded;
+
+    DecodedMap( Reader reader, String[] strings ) throws IOException {
+      this.buffer = reader.buffer;
+      this.strings = strings;
+      int size = reader.readVarInt();
+      indexes = new HashMap<>( size * 2 );
+      keys = new String[ size ];
+      offsets = new int[ size ];
+      values = new Object[ size ];
+      decoded = new boolean[ size ];
+      for ( int i = 0; i < size; i++ ) {
+        keys[ i ] = reader.readString( strings );
+        int length = reader.readVarInt();
+        offsets[ i ] = reader.position;
+        reader.checkAvailable( length );
+        reader.position += length;
+        indexes.put( keys[ i ], i );
+      }
+    }
+
+    @Override
+    public Object get( Object key ) {
+      Integer index = indexes.get( key );
+      return index == null ? null : valueAt( index );
+    }
+
+    @Override
+    public boolean containsKey( Object key ) {
+      return indexes.containsKey( key );
+    }
+
+    @Override
+    public int size() {
+      return keys.length;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+      return new AbstractSet<Entry<String, Object>>() {
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+          return new Iterator<Entry<String, Object>>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+              return next < keys.length;
+            }
+
+            @Override
+            public Entry<String, Object> next() {
+              if ( !hasNext() ) {
+                throw new NoSuchElementException();
+              }
+              int index = next++;
+              return new SimpleImmutableEntry<>( keys[ index ], valueAt( index ) );
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return keys.length;
+        }
+      };
+    }
+
+    private synchronized Object valueAt( int index ) {
+      if ( !decoded[ index ] ) {
+        try {
+          values[ index ] = readValue( new Reader( buffer, offsets[ index ] ), strings );
+        } catch ( IOException e ) {
+          throw new UncheckedIOException( "Could not decode the job param " + keys[ index ], e );
+        }
+        decoded[ index ] = true;
+      }
+      return values[ index ];
+    }
+  }
+
+  /**
+   * Resolves the classes of Java serialized values with the context class loader first, as they may come from a plugin
+   */
+  private static class ContextObjectInputStream extends ObjectInputStream {
+    ContextObjectInputStream( InputStream in ) throws IOException {
+      super( in );
+    }
+
+    @Override
+    protected Class<?> resolveClass( ObjectStreamClass desc ) throws IOException, ClassNotFoundException {
+      ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+      if ( contextClassLoader != null ) {
+        try {
+          return Class.forName( desc.getName(), false, contextClassLoader );
+        } catch ( ClassNotFoundException e ) {
+          // fall back on the default resolution
+        }
+      }
+      return super.resolveClass( desc );
+    }
+  }
+}
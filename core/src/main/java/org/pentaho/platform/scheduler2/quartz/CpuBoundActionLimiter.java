@@ -0,0 +1,105 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps how many CPU bound actions run at the same time. Once jobs no longer wait for one of a few worker threads, see
+ * {@link VirtualThreadPool}, a burst of rendering jobs could otherwise keep every core busy and starve the server.
+ * Actions that are not listed run unrestricted.
+ */
+public class CpuBoundActionLimiter {
+
+  private static final CpuBoundActionLimiter instance = new CpuBoundActionLimiter();
+
+  /**
+   * Actions and permits are swapped together, so that a reconfiguration never releases into the wrong semaphore
+   */
+  private static class Limits {
+
+    private final Set<String> actions;
+
+    private final Semaphore permits;
+
+    Limits( Set<String> actions, int permits ) {
+      this.actions = actions;
+      this.permits = new Semaphore( permits, true );
+    }
+  }
+
+  private volatile Limits limits = new Limits( Collections.emptySet(), 1 );
+
+  CpuBoundActionLimiter() {
+  }
+
+  public static CpuBoundActionLimiter getInstance() {
+    return instance;
+  }
+
+  /**
+   * @param actions comma separated action class names or action ids; nothing is limited if empty
+   * @param permits the maximum number of listed actions running at the same time
+   */
+  public void configure( String actions, int permits ) {
+    Set<String> actionSet = new HashSet<>();
+    for ( String action : StringUtils.split( StringUtils.defaultString( actions ), ',' ) ) {
+      if ( StringUtils.isNotBlank( action ) ) {
+        actionSet.add( action.trim() );
+      }
+    }
+    limits = new Limits( Collections.unmodifiableSet( actionSet ), Math.max( 1, permits ) );
+  }
+
+  public boolean isCpuBound( String actionClassName, String actionId ) {
+    return isCpuBound( limits, actionClassName, actionId );
+  }
+
+  private static boolean isCpuBound( Limits limits, String actionClassName, String actionId ) {
+    Set<String> actions = limits.actions;
+    return !actions.isEmpty() && ( ( actionClassName != null && actions.contains( actionClassName ) )
+      || ( actionId != null && actions.contains( actionId ) ) );
+  }
+
+  /**
+   * Runs the action, waiting first for a free permit if it is CPU bound.
+   *
+   * @throws InterruptedException if interrupted while waiting for a permit
+   */
+  public <T> T call( String actionClassName, String actionId, Callable<T> action ) throws Exception {
+    Limits current = limits;
+    if ( !isCpuBound( current, actionClassName, actionId ) ) {
+      return action.call();
+    }
+    current.permits.acquire();
+    try {
+      return action.call();
+    } finally {
+      current.permits.release();
+    }
+  }
+
+  /**
+   * @return the number of CPU bound actions that could start right away
+   */
+  public int getAvailablePermits() {
+    return limits.permits.availablePermits();
+  }
+}
@@ -0,0 +1,275 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.pentaho.platform.scheduler2.messsages.Messages;
+import org.pentaho.platform.scheduler2.recur.ITimeRecurrence;
+import org.pentaho.platform.scheduler2.recur.IncrementalRecurrence;
+import org.pentaho.platform.scheduler2.recur.QualifiedDayOfMonth;
+import org.pentaho.platform.scheduler2.recur.QualifiedDayOfWeek;
+import org.pentaho.platform.scheduler2.recur.QualifiedDayOfWeek.DayOfWeek;
+import org.pentaho.platform.scheduler2.recur.QualifiedDayOfWeek.DayOfWeekQualifier;
+import org.pentaho.platform.scheduler2.recur.RecurrenceList;
+import org.pentaho.platform.scheduler2.recur.SequentialRecurrence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * The recurrences of the fields of a cron expression. Listing the jobs converts the cron expression of every cron job
+ * into recurrences, while most jobs share a few distinct expressions; each expression is therefore parsed once and the
+ * result kept in a bounded, least recently used cache.
+ * <p>
+ * Recurrences are mutable, so instances hold no recurrences but immutable recipes for them, and every call hands out
+ * new recurrences built from those, without any splitting or pattern matching.
+ */
+public final class CronRecurrences {
+
+  /**
+   * The number of distinct cron expressions kept
+   */
+  public static final int MAX_CACHED_EXPRESSIONS = 1000;
+
+  public static final int DAY_OF_WEEK_INDEX = 5;
+
+  private static final int FIELD_COUNT = 7;
+
+  private static final Pattern listPattern = Pattern.compile( "\\d+" );
+
+  private static final Pattern dayOfWeekRangePattern = Pattern.compile( ".*-.*" );
+
+  private static final Pattern sequencePattern = Pattern.compile( "\\d+-\\d+" );
+
+  private static final Pattern intervalPattern = Pattern.compile( "[\\d*]+/\\d+" );
+
+  private static final Pattern qualifiedDayPattern = Pattern.compile( "\\d+#\\d+" );
+
+  private static final Pattern lastDayPattern = Pattern.compile( "\\d+L" );
+
+  private static final Map<String, CronRecurrences> cache = Collections.synchronizedMap(
+    new LinkedHashMap<String, CronRecurrences>( 16, 0.75f, true ) {
+      @Override
+      protected boolean removeEldestEntry( Map.Entry<String, CronRecurrences> eldest ) {
+        return size() > MAX_CACHED_EXPRESSIONS;
+      }
+    } );
+
+  private static final AtomicLong hits = new AtomicLong();
+
+  private static final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Recipes of the recurrences of each field, by token index; null for a field that is missing or invalid
+   */
+  private final List<List<Supplier<ITimeRecurrence>>> fields;
+
+  private final List<Supplier<ITimeRecurrence>> dayOfWeek;
+
+  private CronRecurrences( String cronExpression ) {
+    String[] tokens = cronExpression.split( " +" );
+    List<List<Supplier<ITimeRecurrence>>> parsedFields = new ArrayList<>( FIELD_COUNT );
+    for ( int i = 0; i < FIELD_COUNT; i++ ) {
+      try {
+        parsedFields.add( i < tokens.length ? parseRecurrence( tokens[ i ] ) : null );
+      } catch ( IllegalArgumentException e ) {
+        // numbers out of range; only fails once the field is asked for, as before
+        parsedFields.add( null );
+      }
+    }
+    fields = Collections.unmodifiableList( parsedFields );
+    dayOfWeek = tokens.length > DAY_OF_WEEK_INDEX ? parseDayOfWeekRecurrences( tokens[ DAY_OF_WEEK_INDEX ] ) : null;
+  }
+
+  /**
+   * @return the parsed recurrences of the cron expression, from the cache if it was parsed before
+   */
+  public static CronRecurrences of( String cronExpression ) {
+    CronRecurrences recurrences = cache.get( cronExpression );
+    if ( recurrences != null ) {
+      hits.incrementAndGet();
+      return recurrences;
+    }
+    misses.incrementAndGet();
+    recurrences = new CronRecurrences( cronExpression );
+    cache.put( cronExpression, recurrences );
+    return recurrences;
+  }
+
+  /**
+   * @param tokenIndex the index of the cron field, 0 for seconds up to 6 for years
+   * @return new recurrences of the field, empty if the field is a wildcard
+   * @throws IllegalArgumentException if the field is missing or invalid
+   */
+  public List<ITimeRecurrence> getRecurrences( int tokenIndex ) {
+    return create( tokenIndex >= 0 && tokenIndex < fields.size() ? fields.get( tokenIndex ) : null );
+  }
+
+  /**
+   * @return new recurrences of the day of week field, which also knows day names, qualified and last days
+   * @throws IllegalArgumentException if the field is missing or invalid
+   */
+  public List<ITimeRecurrence> getDayOfWeekRecurrences() {
+    return create( dayOfWeek );
+  }
+
+  public static long getHitCount() {
+    return hits.get();
+  }
+
+  public static long getMissCount() {
+    return misses.get();
+  }
+
+  public static int getCachedCount() {
+    return cache.size();
+  }
+
+  /**
+   * Empties the cache and resets its counters
+   */
+  public static void clear() {
+    cache.clear();
+    hits.set( 0 );
+    misses.set( 0 );
+  }
+
+  private static List<ITimeRecurrence> create( List<Supplier<ITimeRecurrence>> recipes ) {
+    if ( recipes == null ) {
+      throw new IllegalArgumentException( Messages.getInstance().getErrorString(
+        QuartzScheduler.COMPLEX_JOB_TRIGGER_ERROR_0001_INVALID_CRON_EXPRESSION ) );
+    }
+    List<ITimeRecurrence> recurrences = new ArrayList<>( recipes.size() );
+    for ( Supplier<ITimeRecurrence> recipe : recipes ) {
+      recurrences.add( recipe.get() );
+    }
+    return recurrences;
+  }
+
+  private static List<Supplier<ITimeRecurrence>> parseRecurrence( String timeTokens ) {
+    List<Supplier<ITimeRecurrence>> timeRecurrence = new ArrayList<>();
+    String[] tokens = timeTokens.split( "," );
+    if ( ( tokens.length > 1 ) || !( tokens[ 0 ].equals( "*" ) || tokens[ 0 ].equals( "?" ) ) ) {
+      List<Integer> timeList = null;
+      for ( String token : tokens ) {
+        if ( listPattern.matcher( token ).matches() ) {
+          if ( timeList == null ) {
+            timeList = new ArrayList<>();
+          }
+          timeList.add( Integer.parseInt( token ) );
+        } else {
+          if ( timeList != null ) {
+            timeRecurrence.add( recurrenceList( timeList ) );
+            timeList = null;
+          }
+          if ( sequencePattern.matcher( token ).matches() ) {
+            String[] days = token.split( "-" );
+            int first = Integer.parseInt( days[ 0 ] );
+            int last = Integer.parseInt( days[ 1 ] );
+            timeRecurrence.add( () -> new SequentialRecurrence( first, last ) );
+          } else if ( intervalPattern.matcher( token ).matches() ) {
+            String[] days = token.split( "/" );
+            String start = days[ 0 ];
+            int increment = Integer.parseInt( days[ 1 ] );
+            timeRecurrence.add( () -> new IncrementalRecurrence( start, increment ) );
+          } else if ( "L".equalsIgnoreCase( token ) ) {
+            timeRecurrence.add( QualifiedDayOfMonth::new );
+          } else {
+            return null;
+          }
+        }
+      }
+      if ( timeList != null ) {
+        timeRecurrence.add( recurrenceList( timeList ) );
+      }
+    }
+    return Collections.unmodifiableList( timeRecurrence );
+  }
+
+  private static List<Supplier<ITimeRecurrence>> parseDayOfWeekRecurrences( String dayOfWeekTokens ) {
+    List<Supplier<ITimeRecurrence>> dayOfWeekRecurrence = new ArrayList<>();
+    String[] tokens = dayOfWeekTokens.split( "," );
+    try {
+      if ( ( tokens.length > 1 ) || !( tokens[ 0 ].equals( "*" ) || tokens[ 0 ].equals( "?" ) ) ) {
+        List<Integer> dayOfWeekList = null;
+        for ( String token : tokens ) {
+          if ( listPattern.matcher( token ).matches() ) {
+            if ( dayOfWeekList == null ) {
+              dayOfWeekList = new ArrayList<>();
+            }
+            dayOfWeekList.add( Integer.parseInt( token ) );
+          } else {
+            if ( dayOfWeekList != null ) {
+              dayOfWeekRecurrence.add( recurrenceList( dayOfWeekList ) );
+              dayOfWeekList = null;
+            }
+            dayOfWeekRecurrence.add( parseDayOfWeekToken( token ) );
+          }
+        }
+        if ( dayOfWeekList != null ) {
+          dayOfWeekRecurrence.add( recurrenceList( dayOfWeekList ) );
+        }
+      }
+    } catch ( IllegalArgumentException | IndexOutOfBoundsException e ) {
+      // unknown day names or numbers out of range
+      return null;
+    }
+    return Collections.unmodifiableList( dayOfWeekRecurrence );
+  }
+
+  private static Supplier<ITimeRecurrence> parseDayOfWeekToken( String token ) {
+    if ( sequencePattern.matcher( token ).matches() ) {
+      String[] days = token.split( "-" );
+      int first = Integer.parseInt( days[ 0 ] );
+      int last = Integer.parseInt( days[ 1 ] );
+      return () -> new SequentialRecurrence( first, last );
+    } else if ( intervalPattern.matcher( token ).matches() ) {
+      String[] days = token.split( "/" );
+      String start = days[ 0 ];
+      int increment = Integer.parseInt( days[ 1 ] );
+      return () -> new IncrementalRecurrence( start, increment );
+    } else if ( qualifiedDayPattern.matcher( token ).matches() ) {
+      String[] days = token.split( "#" );
+      int qualifier = Integer.parseInt( days[ 1 ] );
+      int day = Integer.parseInt( days[ 0 ] );
+      return () -> new QualifiedDayOfWeek( qualifier, day );
+    } else if ( lastDayPattern.matcher( token ).matches() ) {
+      DayOfWeek dayOfWeek =
+        DayOfWeek.values()[ ( Integer.parseInt( token.substring( 0, token.length() - 1 ) ) - 1 ) % 7 ];
+      return () -> new QualifiedDayOfWeek( DayOfWeekQualifier.LAST, dayOfWeek );
+    } else if ( dayOfWeekRangePattern.matcher( token ).matches() ) {
+      String[] days = token.split( "-" );
+      int start = DayOfWeek.valueOf( days[ 0 ] ).ordinal();
+      int finish = DayOfWeek.valueOf( days[ 1 ] ).ordinal();
+      return () -> new SequentialRecurrence( start, finish );
+    } else {
+      List<Integer> day = Collections.singletonList( DayOfWeek.valueOf( token ).ordinal() );
+      return recurrenceList( day );
+    }
+  }
+
+  private static Supplier<ITimeRecurrence> recurrenceList( List<Integer> values ) {
+    List<Integer> copy = Collections.unmodifiableList( new ArrayList<>( values ) );
+    return () -> {
+      RecurrenceList recurrenceList = new RecurrenceList();
+      recurrenceList.getValues().addAll( copy );
+      return recurrenceList;
+    };
+  }
+}
@@ -317,7 +317,11 @@ public class EmbeddedQuartzSystemListener implements IPluginLifecycleListener {
   public void shutdown() {
     try {
       QuartzScheduler scheduler = (QuartzScheduler) PentahoSystem.get( IScheduler.class, "IScheduler2", null ); //$NON-NLS-1$
-      scheduler.getQuartzScheduler().shutdown();
+      try {
+        scheduler.getQuartzScheduler().shutdown();
+      } finally {
+        scheduler.shutdownCompletionServices();
+      }
     } catch ( SchedulerException e ) {
       e.printStackTrace();
     }
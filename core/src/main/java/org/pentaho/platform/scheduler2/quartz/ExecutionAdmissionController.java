@@ -0,0 +1,385 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.apache.commons.lang.StringUtils;
+import org.pentaho.platform.scheduler2.metrics.SchedulerMetrics;
+import org.quartz.Trigger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caps how many actions one user, one action and the resources below one repository path run at the same time, so
+ * that a user with hundreds of schedules firing together, or a burst of one heavy action, cannot take every thread of
+ * the scheduler. Executions over a quota wait in a single queue and are let in by the priority of their trigger, then
+ * in the order they arrived, skipping the ones whose quotas are still full. The room a skipped execution needs in its
+ * other quotas is kept for it, so that executions behind it, or arriving later, cannot keep taking that room while it
+ * waits for its full quota. Executions that are late can be let in ahead of others, see
+ * {@link #setPriorityAgingMillis(long)}. Quotas are configured by {@link AdmissionControlPlugin};
+ * nothing is limited without it.
+ * <p>
+ * A waiting execution keeps its thread, so quotas are best combined with the {@link VirtualThreadPool}.
+ */
+public class ExecutionAdmissionController {
+
+  private static final ExecutionAdmissionController instance = new ExecutionAdmissionController();
+
+  private static final String USER = "user:";
+
+  private static final String ACTION = "action:";
+
+  private static final String PATH = "path:";
+
+  /**
+   * The quotas in effect, replaced as a whole on reconfiguration
+   */
+  private static class Quotas {
+
+    private final int maxRunningPerUser;
+
+    private final Map<String, Integer> users;
+
+    private final int maxRunningPerAction;
+
+    private final Map<String, Integer> actions;
+
+    private final Map<String, Integer> paths;
+
+    Quotas( int maxRunningPerUser, Map<String, Integer> users, int maxRunningPerAction, Map<String, Integer> actions,
+            Map<String, Integer> paths ) {
+      this.maxRunningPerUser = maxRunningPerUser;
+      this.users = users;
+      this.maxRunningPerAction = maxRunningPerAction;
+      this.actions = actions;
+      this.paths = paths;
+    }
+
+    boolean isEmpty() {
+      return maxRunningPerUser <= 0 && users.isEmpty() && maxRunningPerAction <= 0 && actions.isEmpty()
+        && paths.isEmpty();
+    }
+  }
+
+  /**
+   * An execution waiting for its quotas; admitted by the thread that frees the last permit it needs
+   */
+  private static class Waiter {
+
+    private final Map<String, Integer> limits;
+
+    private final int priority;
+
+    private final long due;
+
+    private final Condition admission;
+
+    private boolean admitted;
+
+    Waiter( Map<String, Integer> limits, int priority, long due, Condition admission ) {
+      this.limits = limits;
+      this.priority = priority;
+      this.due = due;
+      this.admission = admission;
+    }
+
+    long getPriority( long now, long agingMillis ) {
+      return agingMillis > 0 ? priority + Math.max( 0, now - due ) / agingMillis : priority;
+    }
+  }
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final Map<String, Integer> running = new HashMap<>();
+
+  private final LinkedList<Waiter> queue = new LinkedList<>();
+
+  private volatile Quotas quotas = new Quotas( 0, Collections.emptyMap(), 0, Collections.emptyMap(),
+    Collections.emptyMap() );
+
+  private volatile long priorityAgingMillis;
+
+  ExecutionAdmissionController() {
+  }
+
+  public static ExecutionAdmissionController getInstance() {
+    return instance;
+  }
+
+  /**
+   * Replaces the quotas. Executions already admitted keep running; waiting ones are checked against the quotas they
+   * arrived with.
+   *
+   * @param maxRunningPerUser   the maximum number of actions one user runs at the same time; unlimited if not positive
+   * @param userQuotas          comma separated user=count pairs overriding maxRunningPerUser for these users
+   * @param maxRunningPerAction the maximum number of runs of one action at the same time; unlimited if not positive
+   * @param actionQuotas        comma separated action=count pairs overriding maxRunningPerAction, where action is an
+   *                            action class name or action id
+   * @param pathQuotas          comma separated path=count pairs, each limiting how many actions run the file or the
+   *                            files below the repository path at the same time
+   */
+  public void configure( int maxRunningPerUser, String userQuotas, int maxRunningPerAction, String actionQuotas,
+                         String pathQuotas ) {
+    Map<String, Integer> paths = new LinkedHashMap<>();
+    for ( Map.Entry<String, Integer> entry : parseQuotas( pathQuotas ).entrySet() ) {
+      paths.put( normalize( entry.getKey() ), entry.getValue() );
+    }
+    quotas = new Quotas( maxRunningPerUser, parseQuotas( userQuotas ), maxRunningPerAction,
+      parseQuotas( actionQuotas ), Collections.unmodifiableMap( paths ) );
+  }
+
+  /**
+   * @param priorityAgingMillis the time after which a late execution is let in as if its priority was one higher, and
+   *                            so on; late executions are not preferred if not positive
+   */
+  public void setPriorityAgingMillis( long priorityAgingMillis ) {
+    this.priorityAgingMillis = priorityAgingMillis;
+  }
+
+  public long getPriorityAgingMillis() {
+    return priorityAgingMillis;
+  }
+
+  /**
+   * Runs the action with the default priority, see {@link #call(String, String, String, String, int, Date, Callable)}
+   */
+  public <T> T call( String actionUser, String actionClassName, String actionId, String inputFilePath,
+                     Callable<T> action ) throws Exception {
+    return call( actionUser, actionClassName, actionId, inputFilePath, Trigger.DEFAULT_PRIORITY, null, action );
+  }
+
+  /**
+   * Runs the action once every quota it falls under has room, waiting in the queue until then.
+   *
+   * @param actionUser        the user the action runs as, may be null
+   * @param actionClassName   the class name of the action, may be null
+   * @param actionId          the bean id of the action, may be null
+   * @param inputFilePath     the repository path of the file the action runs, may be null
+   * @param priority          the priority of the trigger that fired the action
+   * @param scheduledFireTime when the action was due, may be null; lateness is counted from it
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public <T> T call( String actionUser, String actionClassName, String actionId, String inputFilePath, int priority,
+                     Date scheduledFireTime, Callable<T> action ) throws Exception {
+    Map<String, Integer> limits = getLimits( quotas, actionUser, actionClassName, actionId, inputFilePath );
+    if ( limits.isEmpty() ) {
+      return action.call();
+    }
+    acquire( limits, priority,
+      scheduledFireTime != null ? scheduledFireTime.getTime() : System.currentTimeMillis() );
+    try {
+      return action.call();
+    } finally {
+      release( limits );
+    }
+  }
+
+  /**
+   * @return the number of executions waiting for their quotas
+   */
+  public int getQueueLength() {
+    lock.lock();
+    try {
+      return queue.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the quota keys an execution counts against, each with its limit
+   */
+  private static Map<String, Integer> getLimits( Quotas quotas, String actionUser, String actionClassName,
+                                                 String actionId, String inputFilePath ) {
+    if ( quotas.isEmpty() ) {
+      return Collections.emptyMap();
+    }
+    Map<String, Integer> limits = new HashMap<>();
+    if ( actionUser != null ) {
+      Integer limit = quotas.users.get( actionUser );
+      addLimit( limits, USER + actionUser, limit != null ? limit : quotas.maxRunningPerUser );
+    }
+
+    // an action listed by class name only counts against the quota of its class, all others against their own
+    String action = StringUtils.defaultIfEmpty( actionId, actionClassName );
+    if ( actionClassName != null && !quotas.actions.containsKey( actionId )
+      && quotas.actions.containsKey( actionClassName ) ) {
+      action = actionClassName;
+    }
+    if ( action != null ) {
+      Integer limit = quotas.actions.get( action );
+      addLimit( limits, ACTION + action, limit != null ? limit : quotas.maxRunningPerAction );
+    }
+
+    if ( inputFilePath != null && !quotas.paths.isEmpty() ) {
+      String path = normalize( inputFilePath );
+      for ( Map.Entry<String, Integer> entry : quotas.paths.entrySet() ) {
+        if ( isWithin( path, entry.getKey() ) ) {
+          addLimit( limits, PATH + entry.getKey(), entry.getValue() );
+        }
+      }
+    }
+    return limits;
+  }
+
+  private static void addLimit( Map<String, Integer> limits, String key, int limit ) {
+    if ( limit > 0 ) {
+      limits.put( key, limit );
+    }
+  }
+
+  private void acquire( Map<String, Integer> limits, int priority, long due ) throws InterruptedException {
+    lock.lock();
+    try {
+      if ( queue.isEmpty() && fits( limits, Collections.emptyMap() ) ) {
+        take( limits );
+        return;
+      }
+
+      // let in by the same pass as on release, so that it does not get ahead of the executions already waiting
+      Waiter waiter = new Waiter( limits, priority, due, lock.newCondition() );
+      queue.add( waiter );
+      admit();
+      if ( waiter.admitted ) {
+        return;
+      }
+      SchedulerMetrics metrics = SchedulerMetrics.getInstance();
+      metrics.executionQueued();
+      long start = System.nanoTime();
+      try {
+        while ( !waiter.admitted ) {
+          waiter.admission.await();
+        }
+      } catch ( InterruptedException e ) {
+        if ( waiter.admitted ) {
+          // admitted while being interrupted, hand the permits on
+          give( limits );
+        } else {
+          queue.remove( waiter );
+        }
+        throw e;
+      } finally {
+        metrics.executionDequeued( TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start ) );
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void release( Map<String, Integer> limits ) {
+    lock.lock();
+    try {
+      give( limits );
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Frees the permits and admits the waiters that now fit
+   */
+  private void give( Map<String, Integer> limits ) {
+    for ( String key : limits.keySet() ) {
+      running.computeIfPresent( key, ( k, count ) -> count > 1 ? count - 1 : null );
+    }
+    admit();
+  }
+
+  /**
+   * Admits the waiters that fit, highest priority first, then first come first served. A waiter that does not fit
+   * holds on to one permit of each of its quotas, which the waiters after it cannot take.
+   */
+  private void admit() {
+    if ( queue.isEmpty() ) {
+      return;
+    }
+
+    long now = System.currentTimeMillis();
+    long agingMillis = priorityAgingMillis;
+    List<Waiter> waiters = new ArrayList<>( queue );
+    // the sort is stable, so waiters of the same priority stay in the order they arrived
+    waiters.sort( Comparator.comparingLong( ( Waiter waiter ) -> waiter.getPriority( now, agingMillis ) ).reversed() );
+    Map<String, Integer> held = new HashMap<>();
+    for ( Waiter waiter : waiters ) {
+      if ( fits( waiter.limits, held ) ) {
+        queue.remove( waiter );
+        take( waiter.limits );
+        waiter.admitted = true;
+        waiter.admission.signal();
+      } else {
+        for ( String key : waiter.limits.keySet() ) {
+          held.merge( key, 1, Integer::sum );
+        }
+      }
+    }
+  }
+
+  /**
+   * @param held the permits held on to for waiters ahead, by quota key
+   */
+  private boolean fits( Map<String, Integer> limits, Map<String, Integer> held ) {
+    for ( Map.Entry<String, Integer> entry : limits.entrySet() ) {
+      String key = entry.getKey();
+      if ( running.getOrDefault( key, 0 ) + held.getOrDefault( key, 0 ) >= entry.getValue() ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void take( Map<String, Integer> limits ) {
+    for ( String key : limits.keySet() ) {
+      running.merge( key, 1, Integer::sum );
+    }
+  }
+
+  private static Map<String, Integer> parseQuotas( String quotas ) {
+    Map<String, Integer> parsed = new HashMap<>();
+    for ( String quota : StringUtils.split( StringUtils.defaultString( quotas ), ',' ) ) {
+      int separator = quota.lastIndexOf( '=' );
+      if ( separator <= 0 ) {
+        throw new IllegalArgumentException( "Quota is not of the form name=count: " + quota );
+      }
+      String name = quota.substring( 0, separator ).trim();
+      int count = Integer.parseInt( quota.substring( separator + 1 ).trim() );
+      if ( !name.isEmpty() && count > 0 ) {
+        parsed.put( name, count );
+      }
+    }
+    return Collections.unmodifiableMap( parsed );
+  }
+
+  private static boolean isWithin( String path, String folder ) {
+    return path.equals( folder ) || folder.equals( "/" ) || path.startsWith( folder + "/" );
+  }
+
+  private static String normalize( String path ) {
+    String normalized = path.trim().replace( '\\', '/' );
+    while ( normalized.length() > 1 && normalized.endsWith( "/" ) ) {
+      normalized = normalized.substring( 0, normalized.length() - 1 );
+    }
+    return normalized;
+  }
+}
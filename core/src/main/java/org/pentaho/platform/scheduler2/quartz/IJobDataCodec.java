@@ -0,0 +1,44 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Turns the job params that Quartz would otherwise Java serialize into the job store into bytes and back, see
+ * {@link QuartzJobData}. {@link CompactJobDataCodec} is used unless another codec is published in the
+ * {@link org.pentaho.platform.engine.core.system.PentahoSystem}.
+ */
+public interface IJobDataCodec {
+
+  /**
+   * @return the name stored next to the encoded params, so that they are decoded by the codec that wrote them
+   */
+  String getName();
+
+  /**
+   * @param values the params to encode
+   * @return the encoded params
+   * @throws IOException if one of the values cannot be encoded
+   */
+  byte[] encode( Map<String, Object> values ) throws IOException;
+
+  /**
+   * @param data params encoded by {@link #encode(Map)}
+   * @return a read only map of the params, which may decode each value only when it is asked for
+   * @throws IOException if the data cannot be decoded
+   */
+  Map<String, Object> decode( byte[] data ) throws IOException;
+}
@@ -0,0 +1,80 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks that serialize the changes to a single job, keyed on its job id (the string form of its
+ * {@link QuartzJobKey}). There is one set per JVM, shared by the scheduler service instances and the
+ * {@link QuartzScheduler}, so that a job cannot be changed through two of them at once while changes to other jobs,
+ * and reads, go on.
+ * <p>
+ * Job locks are always taken before the job detail lock of the {@link QuartzScheduler}, and several of them only
+ * through {@link #lockAll(Collection)}.
+ */
+public class JobLocks {
+
+  private static final int STRIPES = 64;
+
+  private static final JobLocks INSTANCE = new JobLocks();
+
+  private final Lock[] locks = new Lock[ STRIPES ];
+
+  JobLocks() {
+    for ( int i = 0; i < locks.length; i++ ) {
+      locks[ i ] = new ReentrantLock();
+    }
+  }
+
+  public static JobLocks getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * @return the lock of the job, shared with the jobs that fall into the same stripe
+   */
+  public Lock get( String jobId ) {
+    return locks[ stripeOf( jobId ) ];
+  }
+
+  /**
+   * Locks the stripes of all the given jobs, in stripe order so that two batches cannot deadlock.
+   *
+   * @return the locks taken, to be unlocked by the caller
+   */
+  public List<Lock> lockAll( Collection<String> jobIds ) {
+    boolean[] stripes = new boolean[ locks.length ];
+    for ( String jobId : jobIds ) {
+      stripes[ stripeOf( jobId ) ] = true;
+    }
+    List<Lock> taken = new ArrayList<>();
+    for ( int i = 0; i < locks.length; i++ ) {
+      if ( stripes[ i ] ) {
+        locks[ i ].lock();
+        taken.add( locks[ i ] );
+      }
+    }
+    return taken;
+  }
+
+  private int stripeOf( String jobId ) {
+    int hash = jobId == null ? 0 : jobId.hashCode();
+    return ( hash & Integer.MAX_VALUE ) % locks.length;
+  }
+}
@@ -0,0 +1,135 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Splits the jobs of a cluster into a fixed number of partitions and decides which of them one node owns.
+ * <p>
+ * A job falls into a partition by the hash of its explicit partition tag or, without one, of its {@link QuartzJobKey}.
+ * Each partition is owned by the live node that ranks highest for it (rendezvous hashing), so every node computes the
+ * same owners from the same set of live nodes without talking to the others, and when a node joins or leaves only the
+ * partitions it gains or owned move.
+ */
+public class PartitionAssignment {
+
+  private final int partitionCount;
+
+  private volatile boolean[] owned;
+
+  private volatile int nodeCount = 1;
+
+  /**
+   * Creates the assignment of a node that owns every partition until {@link #assign(String, Collection)} is called
+   */
+  public PartitionAssignment( int partitionCount ) {
+    if ( partitionCount <= 0 ) {
+      throw new IllegalArgumentException( "Partition count must be > 0" );
+    }
+    this.partitionCount = partitionCount;
+    owned = new boolean[ partitionCount ];
+    Arrays.fill( owned, true );
+  }
+
+  /**
+   * @param jobKey         the job key, or trigger name, of the job
+   * @param tag            the explicit partition tag of the job, may be null
+   * @param partitionCount the number of partitions
+   * @return the partition of the job
+   */
+  public static int getPartition( String jobKey, String tag, int partitionCount ) {
+    String value = tag != null && !tag.trim().isEmpty() ? tag.trim() : jobKey;
+    return Math.floorMod( hash( value, 0 ), partitionCount );
+  }
+
+  /**
+   * @return the node of the ones given that owns the partition, null if there are none
+   */
+  static String getOwner( int partition, Collection<String> instanceIds ) {
+    String owner = null;
+    long ownerRank = Long.MIN_VALUE;
+    for ( String instanceId : instanceIds ) {
+      long rank = hash( instanceId, partition );
+      if ( owner == null || rank > ownerRank || ( rank == ownerRank && instanceId.compareTo( owner ) < 0 ) ) {
+        owner = instanceId;
+        ownerRank = rank;
+      }
+    }
+    return owner;
+  }
+
+  /**
+   * Recomputes the partitions the node owns.
+   *
+   * @param instanceId       the node itself
+   * @param liveInstanceIds  the nodes whose leases have not expired, including the node itself
+   * @return true if the node gained or lost partitions
+   */
+  public synchronized boolean assign( String instanceId, Collection<String> liveInstanceIds ) {
+    boolean[] assigned = new boolean[ partitionCount ];
+    for ( int partition = 0; partition < partitionCount; partition++ ) {
+      assigned[ partition ] = instanceId.equals( getOwner( partition, liveInstanceIds ) );
+    }
+    nodeCount = Math.max( 1, liveInstanceIds.size() );
+    boolean changed = !Arrays.equals( owned, assigned );
+    owned = assigned;
+    return changed;
+  }
+
+  public boolean isOwned( int partition ) {
+    return owned[ partition ];
+  }
+
+  /**
+   * @return the partitions the node owns, in ascending order
+   */
+  public List<Integer> getOwnedPartitions() {
+    boolean[] current = owned;
+    List<Integer> partitions = new ArrayList<>();
+    for ( int partition = 0; partition < current.length; partition++ ) {
+      if ( current[ partition ] ) {
+        partitions.add( partition );
+      }
+    }
+    return partitions;
+  }
+
+  /**
+   * @return the number of live nodes the partitions were last assigned among
+   */
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  public int getPartitionCount() {
+    return partitionCount;
+  }
+
+  /**
+   * Spreads the bits of the string's hash code, so that similar job keys and node ids land far apart
+   */
+  private static long hash( String value, int seed ) {
+    long hash = value.hashCode() * 0x9E3779B97F4A7C15L + seed;
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB9FE1A85EC53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
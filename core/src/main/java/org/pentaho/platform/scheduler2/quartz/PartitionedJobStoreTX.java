@@ -0,0 +1,258 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.quartz.JobPersistenceException;
+import org.quartz.SchedulerConfigException;
+import org.quartz.TriggerKey;
+import org.quartz.impl.jdbcjobstore.DriverDelegate;
+import org.quartz.impl.jdbcjobstore.JobStoreTX;
+import org.quartz.impl.jdbcjobstore.NoSuchDelegateException;
+import org.quartz.impl.jdbcjobstore.SchedulerStateRecord;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A clustered {@link JobStoreTX} whose node only acquires the triggers of its own partitions, see
+ * {@link PartitionAssignment}, instead of competing with every other node for every trigger. Heavy jobs spread over
+ * the nodes by their partitions, and a node no longer takes the trigger locks for triggers another node will fire.
+ * <p>
+ * A node holds a lease on its partitions for as long as it checks in with the cluster: a node whose last check-in is
+ * older than its check-in interval plus {@link #LEASE_GRACE_MILLIS}, or than {@link #setPartitionLeaseMillis(long)},
+ * counts as failed and its partitions move to the remaining nodes. Each node reads the check-ins from the scheduler
+ * state table once per check-in interval. While the nodes disagree for a moment, a trigger may be offered to two of
+ * them; the usual row update of the acquisition still lets only one fire it.
+ * <p>
+ * A job is put in a partition of its own choosing with the {@link QuartzScheduler#RESERVEDMAPKEY_PARTITION} job
+ * param. Selected in quartz.properties:
+ * <pre>
+ *   org.quartz.jobStore.class = org.pentaho.platform.scheduler2.quartz.PartitionedJobStoreTX
+ *   org.quartz.jobStore.isClustered = true
+ *   org.quartz.jobStore.partitionCount = 64
+ * </pre>
+ * Without clustering, or with no partitions, the store behaves like {@link JobStoreTX}.
+ */
+public class PartitionedJobStoreTX extends JobStoreTX {
+
+  private static final Log logger = LogFactory.getLog( PartitionedJobStoreTX.class );
+
+  /**
+   * How long after a missed check-in a node still owns its partitions, like the grace Quartz gives a node before
+   * recovering its jobs
+   */
+  public static final long LEASE_GRACE_MILLIS = 7500L;
+
+  /**
+   * How many trigger partitions are remembered, so that each trigger's tag is only read once
+   */
+  private static final int MAX_CACHED_PARTITIONS = 10000;
+
+  private static final String SELECT_TRIGGER_TO_ACQUIRE = "selectTriggerToAcquire";
+
+  private int partitionCount;
+
+  private long partitionLeaseMillis;
+
+  private volatile PartitionAssignment assignment;
+
+  private volatile long nextRefresh;
+
+  private DriverDelegate delegate;
+
+  private DriverDelegate partitionedDelegate;
+
+  private final Map<TriggerKey, Integer> partitions = new LinkedHashMap<TriggerKey, Integer>( 16, 0.75f, true ) {
+    @Override
+    protected boolean removeEldestEntry( Map.Entry<TriggerKey, Integer> eldest ) {
+      return size() > MAX_CACHED_PARTITIONS;
+    }
+  };
+
+  @Override
+  public void initialize( ClassLoadHelper loadHelper, SchedulerSignaler signaler ) throws SchedulerConfigException {
+    super.initialize( loadHelper, signaler );
+    if ( isPartitioned() ) {
+      logger.info( "Node " + getInstanceId() + " acquires the triggers of its share of " + partitionCount
+        + " partitions" );
+    }
+  }
+
+  @Override
+  protected DriverDelegate getDelegate() throws NoSuchDelegateException {
+    DriverDelegate current = super.getDelegate();
+    if ( !isPartitioned() ) {
+      return current;
+    }
+    synchronized ( this ) {
+      if ( delegate != current ) {
+        delegate = current;
+        partitionedDelegate = partition( current );
+      }
+      return partitionedDelegate;
+    }
+  }
+
+  /**
+   * @return the delegate, with the selection of the triggers to acquire limited to the partitions of this node
+   */
+  DriverDelegate partition( DriverDelegate driverDelegate ) {
+    if ( assignment == null ) {
+      assignment = new PartitionAssignment( partitionCount );
+    }
+    InvocationHandler handler = ( proxy, method, args ) -> {
+      try {
+        if ( SELECT_TRIGGER_TO_ACQUIRE.equals( method.getName() ) ) {
+          return selectOwnTriggersToAcquire( driverDelegate, args );
+        }
+        return method.invoke( driverDelegate, args );
+      } catch ( InvocationTargetException e ) {
+        throw e.getCause();
+      }
+    };
+    return (DriverDelegate) Proxy.newProxyInstance( DriverDelegate.class.getClassLoader(),
+      new Class<?>[] { DriverDelegate.class }, handler );
+  }
+
+  /**
+   * Selects the next triggers due, like {@link DriverDelegate#selectTriggerToAcquire(Connection, long, long, int)},
+   * but only those of this node's partitions. As the node owns about one share of the triggers, it looks at that
+   * many more of them.
+   */
+  private List<TriggerKey> selectOwnTriggersToAcquire( DriverDelegate driverDelegate, Object[] args )
+    throws SQLException {
+    Connection conn = (Connection) args[ 0 ];
+    long noLaterThan = (Long) args[ 1 ];
+    long noEarlierThan = (Long) args[ 2 ];
+    refreshAssignment( driverDelegate, conn );
+
+    List<TriggerKey> keys;
+    int maxCount = Integer.MAX_VALUE;
+    if ( args.length > 3 ) {
+      maxCount = (Integer) args[ 3 ];
+      int candidates = (int) Math.min( Integer.MAX_VALUE, (long) maxCount * assignment.getNodeCount() );
+      keys = driverDelegate.selectTriggerToAcquire( conn, noLaterThan, noEarlierThan, candidates );
+    } else {
+      keys = driverDelegate.selectTriggerToAcquire( conn, noLaterThan, noEarlierThan );
+    }
+
+    List<TriggerKey> ownKeys = new ArrayList<>();
+    for ( TriggerKey key : keys ) {
+      if ( ownKeys.size() >= maxCount ) {
+        break;
+      }
+      if ( assignment.isOwned( getPartition( driverDelegate, conn, key ) ) ) {
+        ownKeys.add( key );
+      }
+    }
+    return ownKeys;
+  }
+
+  /**
+   * Reassigns the partitions among the nodes whose leases are current, once per check-in interval
+   */
+  private void refreshAssignment( DriverDelegate driverDelegate, Connection conn ) throws SQLException {
+    long now = System.currentTimeMillis();
+    if ( now < nextRefresh ) {
+      return;
+    }
+    List<String> live = new ArrayList<>();
+    live.add( getInstanceId() );
+    for ( SchedulerStateRecord record : driverDelegate.selectSchedulerStateRecords( conn, null ) ) {
+      if ( !getInstanceId().equals( record.getSchedulerInstanceId() )
+        && now <= record.getCheckinTimestamp() + getLeaseMillis( record ) ) {
+        live.add( record.getSchedulerInstanceId() );
+      }
+    }
+    if ( assignment.assign( getInstanceId(), live ) ) {
+      logger.info( "Node " + getInstanceId() + " of " + live.size() + " now owns partitions "
+        + assignment.getOwnedPartitions() );
+    }
+    nextRefresh = now + getClusterCheckinInterval();
+  }
+
+  private long getLeaseMillis( SchedulerStateRecord record ) {
+    return partitionLeaseMillis > 0 ? partitionLeaseMillis : record.getCheckinInterval() + LEASE_GRACE_MILLIS;
+  }
+
+  /**
+   * @return the partition of the trigger, by the partition tag in its job data or else by its name, the job key
+   */
+  private int getPartition( DriverDelegate driverDelegate, Connection conn, TriggerKey key ) throws SQLException {
+    synchronized ( partitions ) {
+      Integer partition = partitions.get( key );
+      if ( partition != null ) {
+        return partition;
+      }
+    }
+    String tag = null;
+    try {
+      OperableTrigger trigger = driverDelegate.selectTrigger( conn, key );
+      Object value = trigger != null ? trigger.getJobDataMap().get( QuartzScheduler.RESERVEDMAPKEY_PARTITION ) : null;
+      tag = value != null ? value.toString() : null;
+    } catch ( ClassNotFoundException | IOException | JobPersistenceException e ) {
+      logger.warn( "Could not read the partition tag of trigger " + key + ", partitioning by its name", e );
+    }
+    int partition = PartitionAssignment.getPartition( key.getName(), tag, partitionCount );
+    synchronized ( partitions ) {
+      partitions.put( key, partition );
+    }
+    return partition;
+  }
+
+  private boolean isPartitioned() {
+    return isClustered() && partitionCount > 0;
+  }
+
+  PartitionAssignment getAssignment() {
+    return assignment;
+  }
+
+  public int getPartitionCount() {
+    return partitionCount;
+  }
+
+  /**
+   * @param partitionCount the number of partitions the jobs are split into, the same on every node; the triggers are
+   *                       not partitioned if not positive
+   */
+  public void setPartitionCount( int partitionCount ) {
+    this.partitionCount = partitionCount;
+  }
+
+  public long getPartitionLeaseMillis() {
+    return partitionLeaseMillis;
+  }
+
+  /**
+   * @param partitionLeaseMillis how long after its last check-in a node keeps its partitions; if not positive, its
+   *                             check-in interval plus {@link #LEASE_GRACE_MILLIS}
+   */
+  public void setPartitionLeaseMillis( long partitionLeaseMillis ) {
+    this.partitionLeaseMillis = partitionLeaseMillis;
+  }
+}
@@ -0,0 +1,215 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.quartz.JobDataMap;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores the params of a job in its Quartz {@link JobDataMap}. Quartz Java serializes the whole map into the job store
+ * every time a job is stored or read, which is costly for the large object graphs some params hold, like the stream
+ * provider or the parameter wrappers. Those values are therefore encoded together by an {@link IJobDataCodec} and kept
+ * under {@link #ENCODED_DATA_KEY}, while strings, numbers, booleans and dates stay plain entries, so that the values
+ * read or rewritten on every fire, like the action user or the last execution time, need no decoding.
+ * <p>
+ * Maps written before the params were encoded remain readable as they are, and are encoded by
+ * {@link QuartzScheduler#migrateJobData()}.
+ */
+public class QuartzJobData {
+
+  public static final String ENCODED_DATA_KEY = "pentaho.encodedJobData";
+
+  public static final String CODEC_KEY = "pentaho.jobDataCodec";
+
+  private static final Log logger = LogFactory.getLog( QuartzJobData.class );
+
+  private static final IJobDataCodec defaultCodec = new CompactJobDataCodec();
+
+  private QuartzJobData() {
+  }
+
+  /**
+   * @param params the params of a job
+   * @return the job data map to store the params with; the params are stored as they are if they cannot be encoded
+   */
+  public static JobDataMap toJobDataMap( Map<String, Object> params ) {
+    Map<String, Object> plain = new HashMap<>();
+    Map<String, Object> encoded = new HashMap<>();
+    for ( Map.Entry<String, Object> entry : params.entrySet() ) {
+      if ( isPlain( entry.getValue() ) ) {
+        plain.put( entry.getKey(), entry.getValue() );
+      } else {
+        encoded.put( entry.getKey(), entry.getValue() );
+      }
+    }
+    if ( encoded.isEmpty() ) {
+      return new JobDataMap( params );
+    }
+
+    IJobDataCodec codec = getCodec();
+    try {
+      plain.put( ENCODED_DATA_KEY, codec.encode( encoded ) );
+    } catch ( IOException | RuntimeException e ) {
+      logger.debug( "Could not encode the job params, they are stored as they are", e );
+      return new JobDataMap( params );
+    }
+    plain.put( CODEC_KEY, codec.getName() );
+    return new JobDataMap( plain );
+  }
+
+  /**
+   * @param jobDataMap a job data map, or the merged job data map of a job execution
+   * @return a read only view of the params stored in the map; encoded params are decoded when they are first read
+   */
+  public static Map<String, Object> view( Map<String, Object> jobDataMap ) {
+    if ( jobDataMap == null ) {
+      return Collections.emptyMap();
+    }
+    if ( !( jobDataMap.get( ENCODED_DATA_KEY ) instanceof byte[] ) ) {
+      return Collections.unmodifiableMap( jobDataMap );
+    }
+    return new JobDataView( jobDataMap );
+  }
+
+  /**
+   * @return a modifiable copy of the params stored in the map, all decoded
+   */
+  public static Map<String, Object> toParams( Map<String, Object> jobDataMap ) {
+    return new HashMap<>( view( jobDataMap ) );
+  }
+
+  /**
+   * @return whether the map holds values that {@link #toJobDataMap(Map)} would encode
+   */
+  public static boolean needsEncoding( Map<String, Object> jobDataMap ) {
+    for ( Map.Entry<String, Object> entry : jobDataMap.entrySet() ) {
+      if ( !ENCODED_DATA_KEY.equals( entry.getKey() ) && !isPlain( entry.getValue() ) ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isPlain( Object value ) {
+    return value == null
+      || value instanceof String
+      || value instanceof Boolean
+      || value instanceof Character
+      || value instanceof Integer
+      || value instanceof Long
+      || value instanceof Short
+      || value instanceof Byte
+      || value instanceof Double
+      || value instanceof Float
+      || value.getClass() == Date.class;
+  }
+
+  /**
+   * @return the codec published in the system, the {@link CompactJobDataCodec} if none is
+   */
+  static IJobDataCodec getCodec() {
+    IJobDataCodec codec = null;
+    try {
+      codec = PentahoSystem.get( IJobDataCodec.class, null );
+    } catch ( RuntimeException e ) {
+      logger.debug( "Could not look up the job data codec", e );
+    }
+    return codec != null ? codec : defaultCodec;
+  }
+
+  private static IJobDataCodec getCodec( Object name ) throws IOException {
+    if ( CompactJobDataCodec.NAME.equals( name ) ) {
+      return defaultCodec;
+    }
+    IJobDataCodec codec = getCodec();
+    if ( codec.getName().equals( name ) ) {
+      return codec;
+    }
+    throw new IOException( "Unknown job data codec " + name );
+  }
+
+  private static boolean isReserved( Object key ) {
+    return ENCODED_DATA_KEY.equals( key ) || CODEC_KEY.equals( key );
+  }
+
+  /**
+   * The plain entries of a job data map, followed by its encoded entries, which are only decoded once a key that is not
+   * a plain entry is looked up or the whole map is read
+   */
+  private static class JobDataView extends AbstractMap<String, Object> {
+    private final Map<String, Object> jobDataMap;
+
+    private Map<String, Object> decoded;
+
+    private Map<String, Object> merged;
+
+    JobDataView( Map<String, Object> jobDataMap ) {
+      this.jobDataMap = jobDataMap;
+    }
+
+    @Override
+    public Object get( Object key ) {
+      if ( isReserved( key ) ) {
+        return null;
+      }
+      Object value = jobDataMap.get( key );
+      return value != null || jobDataMap.containsKey( key ) ? value : getDecoded().get( key );
+    }
+
+    @Override
+    public boolean containsKey( Object key ) {
+      return !isReserved( key ) && ( jobDataMap.containsKey( key ) || getDecoded().containsKey( key ) );
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+      return getMerged().entrySet();
+    }
+
+    private synchronized Map<String, Object> getDecoded() {
+      if ( decoded == null ) {
+        try {
+          decoded = getCodec( jobDataMap.get( CODEC_KEY ) ).decode( (byte[]) jobDataMap.get( ENCODED_DATA_KEY ) );
+        } catch ( IOException e ) {
+          throw new IllegalStateException( "Could not decode the job params", e );
+        }
+      }
+      return decoded;
+    }
+
+    private synchronized Map<String, Object> getMerged() {
+      if ( merged == null ) {
+        Map<String, Object> entries = new LinkedHashMap<>( getDecoded() );
+        for ( Map.Entry<String, Object> entry : jobDataMap.entrySet() ) {
+          if ( !isReserved( entry.getKey() ) ) {
+            entries.put( entry.getKey(), entry.getValue() );
+          }
+        }
+        merged = Collections.unmodifiableMap( entries );
+      }
+      return merged;
+    }
+  }
+}
@@ -24,6 +24,7 @@ import org.pentaho.platform.api.repository2.unified.RepositoryFile;
 import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
 import org.pentaho.platform.api.scheduler2.CronJobTrigger;
 import org.pentaho.platform.api.scheduler2.IBackgroundExecutionStreamProvider;
+import org.pentaho.platform.api.scheduler2.IBlockoutManager;
 import org.pentaho.platform.api.scheduler2.IComplexJobTrigger;
 import org.pentaho.platform.api.scheduler2.ICronJobTrigger;
 import org.pentaho.platform.api.scheduler2.IJob;
@@ -46,15 +47,14 @@ import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
 import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.engine.security.SecurityHelper;
+import org.pentaho.platform.scheduler2.action.ActionRunner;
+import org.pentaho.platform.scheduler2.action.EmailOutbox;
+import org.pentaho.platform.scheduler2.blockout.BlockoutRegistry;
+import org.pentaho.platform.scheduler2.history.JobExecutionHistory;
 import org.pentaho.platform.scheduler2.messsages.Messages;
+import org.pentaho.platform.scheduler2.metrics.SchedulerMetrics;
 import org.pentaho.platform.scheduler2.recur.ITimeRecurrence;
 import org.pentaho.platform.scheduler2.recur.IncrementalRecurrence;
-import org.pentaho.platform.scheduler2.recur.QualifiedDayOfMonth;
-import org.pentaho.platform.scheduler2.recur.QualifiedDayOfWeek;
-import org.pentaho.platform.scheduler2.recur.QualifiedDayOfWeek.DayOfWeek;
-import org.pentaho.platform.scheduler2.recur.QualifiedDayOfWeek.DayOfWeekQualifier;
-import org.pentaho.platform.scheduler2.recur.RecurrenceList;
-import org.pentaho.platform.scheduler2.recur.SequentialRecurrence;
 import org.pentaho.platform.web.http.api.resources.JobRequest;
 import org.pentaho.platform.web.http.api.resources.JobScheduleParam;
 import org.pentaho.platform.web.http.api.resources.JobScheduleRequest;
@@ -70,6 +70,7 @@ import org.quartz.JobBuilder;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
 import org.quartz.JobKey;
+import org.quartz.ObjectAlreadyExistsException;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerFactory;
 import org.quartz.SimpleTrigger;
@@ -77,6 +78,7 @@ import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
 import org.quartz.TriggerKey;
 import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.impl.calendar.BaseCalendar;
 import org.quartz.impl.matchers.GroupMatcher;
 import org.quartz.impl.triggers.CalendarIntervalTriggerImpl;
 import org.quartz.impl.triggers.CronTriggerImpl;
@@ -92,12 +94,16 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
 
 /**
  * A Quartz implementation of {@link IScheduler}
@@ -112,6 +118,42 @@ public class QuartzScheduler implements IScheduler {
   public static final String UI_PASS_PARAM_HOURS = "HOURS";
   public static final String UI_PASS_PARAM_RUN_ONCE = "RUN_ONCE";
 
+  /**
+   * Job data key of the start of a cron job's availability window, as entered by the user. The trigger itself starts
+   * at the later of this time and the time it was scheduled, so the original start is kept for listings.
+   */
+  public static final String RESERVEDMAPKEY_AVAILABILITY_START = "availabilityStart";
+
+  /**
+   * Job data key of the priority of a job's trigger. Of the triggers due at the same time, Quartz fires those with the
+   * higher priority first; executions waiting for their quotas are admitted in the same order, see
+   * {@link ExecutionAdmissionController}.
+   */
+  public static final String RESERVEDMAPKEY_PRIORITY = "ActionAdapterQuartzJob-Priority";
+
+  /**
+   * Job data key of the partition tag of a job. Jobs with the same tag fall into the same partition, and so are fired
+   * by the same node of a cluster, see {@link PartitionedJobStoreTX}; jobs without one are spread by their key.
+   */
+  public static final String RESERVEDMAPKEY_PARTITION = "ActionAdapterQuartzJob-Partition";
+
+  /**
+   * Name of the calendar kept in the job store once the availability calendars were migrated, so that the migration
+   * runs once per job store rather than on every start of every node, see {@link #migrateAvailabilityCalendars()}
+   */
+  public static final String AVAILABILITY_MIGRATED_CALENDAR_NAME = "pentaho-availability-migrated";
+
+  /**
+   * Name of the calendar kept in the job store once the params of the stored jobs were encoded, so that the jobs are
+   * scanned once per job store rather than on every start of every node, see {@link #migrateJobData()}
+   */
+  public static final String JOB_DATA_MIGRATED_CALENDAR_NAME = "pentaho-job-data-migrated";
+
+  /**
+   * How long a shutdown waits for the work left after the actions that ran, like emailing their output
+   */
+  static final long COMPLETION_SHUTDOWN_TIMEOUT_SECONDS = 30;
+
   public static final String COMPLEX_JOB_TRIGGER_ERROR_0001_INVALID_CRON_EXPRESSION = "ComplexJobTrigger.ERROR_0001_InvalidCronExpression";
 
   public static final String QUARTZ_SCHEDULER_ERROR_0001_FAILED_TO_SCHEDULE_JOB = "QuartzScheduler.ERROR_0001_FAILED_TO_SCHEDULE_JOB";
@@ -132,20 +174,9 @@ public class QuartzScheduler implements IScheduler {
 
   private final ArrayList<ISchedulerListener> listeners = new ArrayList<>();
 
-  private static final Pattern listPattern = Pattern.compile( "\\d+" );
-
-  private static final Pattern dayOfWeekRangePattern = Pattern.compile( ".*-.*" );
-
-  private static final Pattern sequencePattern = Pattern.compile( "\\d+-\\d+" );
-
-  private static final Pattern intervalPattern = Pattern.compile( "[\\d*]+/\\d+" );
-
-  private static final Pattern qualifiedDayPattern = Pattern.compile( "\\d+#\\d+" );
-
-  private static final Pattern lastDayPattern = Pattern.compile( "\\d+L" );
-
   private final ReentrantReadWriteLock jobDetailLock = new ReentrantReadWriteLock();
 
+
   public QuartzScheduler( SchedulerFactory schedulerFactory ) {
     this.quartzSchedulerFactory = schedulerFactory;
   }
@@ -415,12 +446,16 @@ public class QuartzScheduler implements IScheduler {
     jobParams.put( RESERVEDMAPKEY_ACTIONUSER, jobId.getUserName() );
     return JobBuilder.newJob( BlockingQuartzJob.class )
      .withIdentity( jobId.toString(), jobId.getUserName() )
-     .setJobData( new JobDataMap( jobParams ) )
+     .setJobData( QuartzJobData.toJobDataMap( jobParams ) )
      .build();
   }
 
-  private Calendar createQuartzCalendar( ComplexJobTrigger complexJobTrigger ) {
-    Calendar triggerCalendar = null;
+  /**
+   * Computes the window in which a cron job may fire. The window used to be stored as a Quartz calendar of its own
+   * per job; it is now applied to the trigger instead, see {@link #applyAvailabilityWindow}.
+   */
+  private QuartzSchedulerAvailability createAvailabilityWindow( ComplexJobTrigger complexJobTrigger ) {
+    QuartzSchedulerAvailability triggerCalendar = null;
     if ( complexJobTrigger.getStartHour() > -1 ) {
       java.util.Calendar startDateCal = getStartDateCalFromTrigger( complexJobTrigger );
       if ( complexJobTrigger.getEndTime() != null ) {
@@ -462,6 +497,56 @@ public class QuartzScheduler implements IScheduler {
     return cal;
   }
 
+  /**
+   * Restricts a trigger to an availability window with its own start and end time, so that no calendar has to be
+   * stored and deserialized for it. A window that started in the past starts the trigger at {@code earliestStart},
+   * or now if there is none; the window start itself is kept in the job data for listings.
+   *
+   * @param trigger       the trigger to restrict
+   * @param start         the earliest time the trigger may fire, may be null
+   * @param end           the latest time the trigger may fire, may be null
+   * @param earliestStart the earliest start time the trigger may get, now if null
+   * @param jobParams     the job data of the trigger's job
+   * @throws SchedulerException if the window ends before the trigger could fire
+   */
+  static void applyAvailabilityWindow( MutableTrigger trigger, Date start, Date end, Date earliestStart,
+                                       Map<String, Object> jobParams ) throws SchedulerException {
+    Date triggerStart = earliestStart != null ? earliestStart : new Date();
+    if ( start != null && start.after( triggerStart ) ) {
+      triggerStart = start;
+    }
+    try {
+      if ( end != null ) {
+        trigger.setEndTime( end );
+      }
+      trigger.setStartTime( triggerStart );
+    } catch ( IllegalArgumentException e ) {
+      throw new SchedulerException( Messages.getInstance().getString(
+        QUARTZ_SCHEDULER_ERROR_0001_FAILED_TO_SCHEDULE_JOB, trigger.getKey().getName() ), e );
+    }
+    if ( start != null ) {
+      jobParams.put( RESERVEDMAPKEY_AVAILABILITY_START, start );
+    }
+  }
+
+  /**
+   * @return the priority stored in the job params, null if none or not a number
+   */
+  public static Integer getPriority( Map<String, Object> jobParams ) {
+    Object priority = jobParams.get( RESERVEDMAPKEY_PRIORITY );
+    if ( priority instanceof Number ) {
+      return ( (Number) priority ).intValue();
+    }
+    if ( priority != null ) {
+      try {
+        return Integer.valueOf( priority.toString().trim() );
+      } catch ( NumberFormatException e ) {
+        // the trigger keeps the default priority
+      }
+    }
+    return null;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -481,8 +566,23 @@ public class QuartzScheduler implements IScheduler {
 
     MutableTrigger quartzTrigger = createQuartzTrigger( trigger, jobId );
 
-    Calendar triggerCalendar =
-      quartzTrigger instanceof CronTrigger ? createQuartzCalendar( (ComplexJobTrigger) trigger ) : null;
+    Integer priority = getPriority( jobParams );
+    if ( priority != null ) {
+      quartzTrigger.setPriority( priority );
+    }
+
+    // kept on the trigger too, where the job store can read it without loading the job
+    Serializable partition = (Serializable) jobParams.get( RESERVEDMAPKEY_PARTITION );
+    if ( partition != null && !partition.toString().isEmpty() ) {
+      quartzTrigger.getJobDataMap().put( RESERVEDMAPKEY_PARTITION, partition.toString() );
+    }
+
+    if ( quartzTrigger instanceof CronTrigger ) {
+      QuartzSchedulerAvailability window = createAvailabilityWindow( (ComplexJobTrigger) trigger );
+      if ( window != null ) {
+        applyAvailabilityWindow( quartzTrigger, window.getStartTime(), window.getEndTime(), null, jobParams );
+      }
+    }
 
     if ( outputStreamProvider != null ) {
       jobParams.put( RESERVEDMAPKEY_STREAMPROVIDER, outputStreamProvider );
@@ -505,10 +605,6 @@ public class QuartzScheduler implements IScheduler {
 
     try {
       Scheduler scheduler = getQuartzScheduler();
-      if ( triggerCalendar != null ) {
-        scheduler.addCalendar( jobId.toString(), triggerCalendar, false, false );
-        quartzTrigger.setCalendarName( jobId.toString() );
-      }
       logger.debug(
         MessageFormat.format( "Scheduling job {0} with trigger {1} and job parameters [ {2} ]", jobId,
           trigger, prettyPrintMap( jobParams ) ) );
@@ -526,6 +622,9 @@ public class QuartzScheduler implements IScheduler {
       } finally {
         jobDetailLock.writeLock().unlock();
       }
+      if ( IBlockoutManager.BLOCK_OUT_JOB_NAME.equals( jobName ) ) {
+        BlockoutRegistry.getInstance().invalidate( scheduler );
+      }
 
       logger.debug( MessageFormat.format( "Scheduled job {0} successfully", jobId ) );
     } catch ( org.quartz.SchedulerException e ) {
@@ -537,7 +636,7 @@ public class QuartzScheduler implements IScheduler {
     job.setJobParams( jobParams );
     job.setJobTrigger( (JobTrigger) trigger );
     job.setNextRun( quartzTrigger.getNextFireTime() );
-    job.setLastRun( getLastRun( quartzTrigger ) );
+    job.setLastRun( getLastRun( jobParams ) );
     job.setJobId( jobId.toString() );
     job.setJobName( jobName );
     job.setUserName( curUser );
@@ -563,8 +662,11 @@ public class QuartzScheduler implements IScheduler {
    * {@inheritDoc}
    */
   public List<IJobResult> getJobHistory( String jobId ) {
-    // Not implemented
-    return Collections.emptyList();
+    return new ArrayList<>( getExecutionHistory().getHistory( jobId ) );
+  }
+
+  protected JobExecutionHistory getExecutionHistory() {
+    return JobExecutionHistory.getInstance();
   }
 
   /**
@@ -590,32 +692,93 @@ public class QuartzScheduler implements IScheduler {
    * might try to update the timestamp. If a newer execution timestamp already exists, older
    * timestamps are ignored to ensure Last Run always reflects the most recent actual execution.
    *
+   * <p>The timestamp is written by replacing the stored {@link JobDetail} in place; the job's trigger is left
+   * untouched, so no delete-and-reschedule happens on the fire path. Concurrent fires of different jobs only share
+   * the read side of the job detail lock, and updates of the same job are serialized on its {@link JobLocks job lock},
+   * the one the scheduler service holds while changing the job.</p>
+   *
    * @param jobKey the key of the executed job
    * @param executionTime the time the job was executed
    * @throws org.quartz.SchedulerException if there is an error accessing the scheduler
    */
   protected void saveExecutionDate( JobKey jobKey, Date executionTime ) throws org.quartz.SchedulerException {
-    normalizeTriggerTimingState( jobKey, executionTime );
+    Lock jobLock = getJobLock( jobKey );
+    jobLock.lock();
+    jobDetailLock.readLock().lock();
+    try {
+      JobDetail oldJobDetail = getQuartzScheduler().getJobDetail( jobKey );
+      if ( oldJobDetail == null ) {
+        return;
+      }
+
+      Trigger trigger = getSingleJobTrigger( jobKey );
+      if ( trigger == null || getNextFireTimeInFuture( trigger ) == null ) {
+        // The trigger's lifecycle is complete (e.g. run-once or end-dated schedule); Quartz is about to
+        // remove the job, so there is nothing worth updating.
+        return;
+      }
+
+      Object oldValue = oldJobDetail.getJobDataMap().get( RESERVEDMAPKEY_LAST_EXECUTION_TIME );
+
+      // If the new execution time is before the currently stored execution time,
+      // do not update to ensure Last Run reflects the most recent execution
+      if ( oldValue instanceof Date && executionTime.before( (Date) oldValue ) ) {
+        return;
+      }
+
+      JobDataMap jobDataMap = new JobDataMap( oldJobDetail.getJobDataMap() );
+      jobDataMap.put( RESERVEDMAPKEY_LAST_EXECUTION_TIME, executionTime );
+
+      // the blockout index is left alone, a blockout window does not move when the blockout fires
+      getQuartzScheduler().addJob( recreateJobDetail( oldJobDetail, jobKey, jobDataMap ), true, true );
+    } finally {
+      jobDetailLock.readLock().unlock();
+      jobLock.unlock();
+    }
   }
 
   /**
-   * Rebuilds a job's trigger with a normalized start time and optionally updates the last execution timestamp
-   * in the job data map. This is necessary because Quartz's {@code CalendarIntervalTrigger} uses
-   * {@code MISFIRE_INSTRUCTION_FIRE_ONCE_NOW} by default, which causes the trigger to fire immediately
-   * whenever Quartz detects that {@code nextFireTime} is in the past. That happens after a paused schedule
-   * is resumed, or after the scheduler persists job data via delete-and-reschedule. Without rebuilding the
-   * trigger with a future start time, these operations would produce an unintended immediate execution.
+   * Drops the shared blockout index if the given job is a blockout, since its trigger or state changed.
+   */
+  private void invalidateBlockouts( String jobId ) throws org.quartz.SchedulerException {
+    if ( isBlockoutJob( jobId ) ) {
+      BlockoutRegistry.getInstance().invalidate( getQuartzScheduler() );
+    }
+  }
+
+  private void invalidateBlockouts( List<String> jobIds ) throws org.quartz.SchedulerException {
+    if ( jobIds.stream().anyMatch( QuartzScheduler::isBlockoutJob ) ) {
+      BlockoutRegistry.getInstance().invalidate( getQuartzScheduler() );
+    }
+  }
+
+  private static boolean isBlockoutJob( String jobId ) {
+    try {
+      return IBlockoutManager.BLOCK_OUT_JOB_NAME.equals( QuartzJobKey.parse( jobId ).getJobName() );
+    } catch ( SchedulerException e ) {
+      return false;
+    }
+  }
+
+  private Lock getJobLock( JobKey jobKey ) {
+    return JobLocks.getInstance().get( jobKey.getName() );
+  }
+
+  /**
+   * Rebuilds a job's trigger with a normalized start time. This is necessary because Quartz's
+   * {@code CalendarIntervalTrigger} uses {@code MISFIRE_INSTRUCTION_FIRE_ONCE_NOW} by default, which causes the
+   * trigger to fire immediately whenever Quartz detects that {@code nextFireTime} is in the past. That happens after
+   * a paused schedule is resumed. Without rebuilding the trigger with a future start time, resuming would produce an
+   * unintended immediate execution.
    *
    * <p>The method deletes the existing job and reschedules it with a rebuilt {@link JobDetail} (carrying the
-   * potentially updated job data map) and a rebuilt trigger whose start time has been advanced to the next
+   * unchanged job data map) and a rebuilt trigger whose start time has been advanced to the next
    * future fire time. The original trigger state (e.g. PAUSED) is restored after rescheduling.</p>
    *
    * @param jobKey the key identifying the job to normalize
-   * @param executionTime if non-null, the actual execution timestamp to store as the Last Run value;
-   *                      if null, the job data map is carried over without modification
    * @throws org.quartz.SchedulerException if there is an error accessing the scheduler
    */
-  private void normalizeTriggerTimingState( JobKey jobKey, Date executionTime ) throws org.quartz.SchedulerException {
+  private void normalizeTriggerTimingState( JobKey jobKey ) throws org.quartz.SchedulerException {
     jobDetailLock.writeLock().lock();
     try {
       JobDetail oldJobDetail = getJobDetail( jobKey );
@@ -629,17 +792,6 @@ public class QuartzScheduler implements IScheduler {
       }
 
       JobDataMap jobDataMap = new JobDataMap( oldJobDetail.getJobDataMap() );
-      if ( executionTime != null ) {
-        Object oldValue = jobDataMap.get( RESERVEDMAPKEY_LAST_EXECUTION_TIME );
-
-        // If the new execution time is before the currently stored execution time,
-        // do not update to ensure Last Run reflects the most recent execution
-        if ( oldValue instanceof Date && executionTime.before( (Date) oldValue ) ) {
-          return;
-        }
-
-        jobDataMap.put( RESERVEDMAPKEY_LAST_EXECUTION_TIME, executionTime );
-      }
 
       JobDetail newJobDetail = recreateJobDetail( oldJobDetail, jobKey, jobDataMap );
       Trigger newTrigger = recreateTriggerWithNewStartTime( oldTrigger );
@@ -653,8 +805,8 @@ public class QuartzScheduler implements IScheduler {
       Scheduler scheduler = getQuartzScheduler();
       Trigger.TriggerState oldTriggerState = scheduler.getTriggerState( oldTrigger.getKey() );
 
-      // Delete and reschedule the job to persist both the updated trigger timing state
-      // and any optional job data changes while preserving the original trigger state.
+      // Delete and reschedule the job to persist the updated trigger timing state
+      // while preserving the original trigger state.
       scheduler.deleteJob( jobKey );
       scheduler.scheduleJob( newJobDetail, newTrigger );
 
@@ -667,8 +819,8 @@ public class QuartzScheduler implements IScheduler {
   /**
    * Rebuilds a {@link JobDetail} preserving the original job class, identity, durability, recovery settings,
    * and description, but with a new {@link JobDataMap}. This is needed because Quartz does not allow
-   * in-place mutation of a scheduled job's data map; the job must be deleted and rescheduled with a new
-   * {@link JobDetail} instance to persist changes such as the last execution timestamp.
+   * in-place mutation of a scheduled job's data map; a new {@link JobDetail} instance must be stored in place of
+   * the old one to persist changes such as the last execution timestamp.
    *
    * @param oldJobDetail the original job detail to copy settings from
    * @param jobKey the job identity key
@@ -824,12 +976,14 @@ public class QuartzScheduler implements IScheduler {
         job.setUserName( jobDetail.getKey().getGroup() );
         JobDataMap jobDataMap = jobDetail.getJobDataMap();
         if ( jobDataMap != null ) {
-          job.setJobParams( jobDataMap.getWrappedMap() );
+          // decoded into a map of its own, callers like SchedulerService.getJobInfo rewrite the params
+          job.setJobParams( QuartzJobData.toParams( jobDataMap ) );
         }
       }
 
       job.setJobId( jobId );
       setJobTrigger( scheduler, job, trigger );
+      setJobNextRun( job, trigger );
       return job;
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException( Messages.getInstance().getString(
@@ -856,43 +1010,131 @@ public class QuartzScheduler implements IScheduler {
 
   /**
    * {@inheritDoc}
+   * <p>
+   * The listing is done in a single pass over all job keys. Each job costs one trigger lookup and one job detail
+   * lookup, plus a calendar lookup for cron jobs whose availability window was not migrated yet, see
+   * {@link #migrateAvailabilityCalendars()}. The filter is applied before the Quartz trigger is converted into an
+   * {@link IJobTrigger}, so that conversion (and the trigger state lookup) is only done for accepted jobs, or for
+   * filters that actually inspect the trigger.
    */
-  @SuppressWarnings( "unchecked" )
   public List<IJob> getJobs( IJobFilter filter ) throws SchedulerException {
+    long start = System.nanoTime();
     ArrayList<IJob> jobs = new ArrayList<>();
+    forEachJob( filter, jobs::add );
+    SchedulerMetrics.getInstance().recordJobListing( System.nanoTime() - start );
+    return jobs;
+  }
+
+  /**
+   * @return the number of threads of the Quartz thread pool, or -1 if the scheduler is not available
+   */
+  public int getThreadPoolSize() {
+    try {
+      return getQuartzScheduler().getMetaData().getThreadPoolSize();
+    } catch ( org.quartz.SchedulerException e ) {
+      logger.debug( "Could not read the thread pool size", e );
+      return -1;
+    }
+  }
+
+  /**
+   * Hands the jobs accepted by the filter to the consumer one at a time, in the same single pass as
+   * {@link #getJobs(IJobFilter)} but without collecting them, so that a job can be garbage collected as soon as the
+   * consumer is done with it. Meant for callers that go through every job, like the schedule export.
+   *
+   * @param filter   the filter to apply, or null to visit every job
+   * @param consumer called for each accepted job
+   * @throws SchedulerException if the jobs could not be listed
+   */
+  public void forEachJob( IJobFilter filter, Consumer<IJob> consumer ) throws SchedulerException {
     try {
       Scheduler scheduler = getQuartzScheduler();
-      for ( String groupName : scheduler.getJobGroupNames() ) {
-        scheduler.getJobKeys( GroupMatcher.jobGroupEquals( groupName ) );
-        for ( JobKey jobKey : scheduler.getJobKeys( GroupMatcher.jobGroupEquals( groupName ) ) ) {
-          String jobId = jobKey.getName();
-          Trigger trigger = getSingleJobTrigger( jobKey );
-          if ( trigger == null ) {
-            continue;
-          }
-          Job job = new Job();
-          job.setGroupName( groupName );
-          JobDetail jobDetail = getJobDetail( jobKey );
-          if ( jobDetail != null ) {
-            job.setUserName( jobDetail.getKey().getGroup() );
-            job.setJobParams( jobDetail.getJobDataMap().getWrappedMap() );
-          }
+      for ( JobKey jobKey : scheduler.getJobKeys( GroupMatcher.anyJobGroup() ) ) {
+        Trigger trigger = getSingleJobTrigger( jobKey );
+        if ( trigger == null ) {
+          continue;
+        }
+        JobDetail jobDetail = getJobDetail( jobKey );
+        ListedJob job = new ListedJob( this, scheduler, trigger );
+        job.setGroupName( jobKey.getGroup() );
+        if ( jobDetail != null ) {
+          job.setUserName( jobDetail.getKey().getGroup() );
+          job.setJobParams( QuartzJobData.view( jobDetail.getJobDataMap() ) );
+        }
 
-          job.setJobId( jobId );
-          setJobTrigger( scheduler, job, trigger );
-          job.setJobName( QuartzJobKey.parse( jobId ).getJobName() );
-          setJobNextRun( job, trigger );
-          job.setLastRun( getLastRun( trigger ) );
-          if ( ( filter == null ) || filter.accept( job ) ) {
-            jobs.add( job );
-          }
+        job.setJobId( jobKey.getName() );
+        job.setJobName( QuartzJobKey.parse( jobKey.getName() ).getJobName() );
+        setJobNextRun( job, trigger );
+        job.setLastRun( getLastRun( job.getJobParams() ) );
+        if ( ( filter == null ) || filter.accept( job ) ) {
+          job.materialize();
+          consumer.accept( job );
         }
       }
+    } catch ( org.quartz.SchedulerException | IllegalStateException e ) {
+      throw new SchedulerException(
+        Messages.getString( QUARTZ_SCHEDULER_ERROR_0004_FAILED_TO_LIST_JOBS ), e );
+    }
+  }
+
+  /**
+   * @return the number of jobs known to Quartz, without loading any of them
+   * @throws SchedulerException if the job keys could not be listed
+   */
+  public int getJobCount() throws SchedulerException {
+    try {
+      return getQuartzScheduler().getJobKeys( GroupMatcher.anyJobGroup() ).size();
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException(
         Messages.getString( QUARTZ_SCHEDULER_ERROR_0004_FAILED_TO_LIST_JOBS ), e );
     }
-    return jobs;
+  }
+
+  /**
+   * A {@link Job} built by {@link #getJobs(IJobFilter)}. The job identity, parameters and run dates are filled in
+   * eagerly, while the trigger and state are converted from the Quartz trigger the first time they are needed.
+   */
+  private static class ListedJob extends Job {
+
+    private QuartzScheduler owner;
+
+    private Scheduler scheduler;
+
+    private Trigger quartzTrigger;
+
+    ListedJob( QuartzScheduler owner, Scheduler scheduler, Trigger quartzTrigger ) {
+      this.owner = owner;
+      this.scheduler = scheduler;
+      this.quartzTrigger = quartzTrigger;
+    }
+
+    @Override
+    public JobTrigger getJobTrigger() {
+      materialize();
+      return super.getJobTrigger();
+    }
+
+    @Override
+    public JobState getState() {
+      materialize();
+      return super.getState();
+    }
+
+    void materialize() {
+      if ( quartzTrigger == null ) {
+        return;
+      }
+      Trigger trigger = quartzTrigger;
+      quartzTrigger = null;
+      try {
+        owner.setJobTrigger( scheduler, this, trigger );
+      } catch ( SchedulerException | org.quartz.SchedulerException e ) {
+        throw new IllegalStateException( e );
+      } finally {
+        owner = null;
+        scheduler = null;
+      }
+    }
   }
 
   /** 
@@ -913,13 +1155,21 @@ public class QuartzScheduler implements IScheduler {
       return null;
     }
 
-    JobDataMap jobDataMap = jobDetail.getJobDataMap();
-    boolean hasKey = jobDetail.getJobDataMap().containsKey( RESERVEDMAPKEY_LAST_EXECUTION_TIME );
-    if ( !hasKey ) {
+    return jobDetail == null ? null : getLastRun( jobDetail.getJobDataMap() );
+  }
+
+  /**
+   * Gets the last run time from an already loaded job data map (or the job parameters copied from it).
+   *
+   * @param jobData the job data map or job parameters
+   * @return the last run time of the job, or null if the job has never executed
+   */
+  protected Date getLastRun( Map<String, Object> jobData ) {
+    if ( jobData == null ) {
       return null;
     }
 
-    Object lastExecutionTimeObj = jobDataMap.get( RESERVEDMAPKEY_LAST_EXECUTION_TIME );
+    Object lastExecutionTimeObj = jobData.get( RESERVEDMAPKEY_LAST_EXECUTION_TIME );
     if ( !( lastExecutionTimeObj instanceof Date ) ) {
       return null;
     }
@@ -931,8 +1181,12 @@ public class QuartzScheduler implements IScheduler {
     job.setNextRun( getNextFireTimeInFuture( trigger ) );
   }
 
-  private void setJobTrigger( Scheduler scheduler, Job job, Trigger trigger ) throws SchedulerException,
-    org.quartz.SchedulerException {
+  /**
+   * Converts the Quartz trigger into the matching {@link IJobTrigger} and sets it, along with the trigger state and
+   * last run date, on the job; the next run is set apart, see {@link #setJobNextRun}.
+   */
+  private void setJobTrigger( Scheduler scheduler, Job job, Trigger trigger )
+    throws SchedulerException, org.quartz.SchedulerException {
     QuartzJobKey jobKey = QuartzJobKey.parse( job.getJobId() );
     String groupName = jobKey.getUserName();
 
@@ -1000,7 +1254,8 @@ public class QuartzScheduler implements IScheduler {
       IComplexJobTrigger complexJobTrigger = createComplexTrigger( cronTrigger.getCronExpression() );
       complexJobTrigger.setUiPassParam( (String) job.getJobParams().get( RESERVEDMAPKEY_UIPASSPARAM ) );
       complexJobTrigger.setCronString( cronTrigger.getCronExpression() );
-      List<ITimeRecurrence> timeRecurrences = parseRecurrence( complexJobTrigger.getCronString(), 3 );
+      List<ITimeRecurrence> timeRecurrences = CronRecurrences.of( complexJobTrigger.getCronString() )
+        .getRecurrences( 3 );
       if ( !timeRecurrences.isEmpty() ) {
         ITimeRecurrence recurrence = timeRecurrences.get( 0 );
         if ( recurrence instanceof IncrementalRecurrence ) {
@@ -1016,7 +1271,12 @@ public class QuartzScheduler implements IScheduler {
         }
       }
       job.setJobTrigger( complexJobTrigger );
-      if ( trigger.getCalendarName() != null ) {
+      Object availabilityStart = job.getJobParams().get( RESERVEDMAPKEY_AVAILABILITY_START );
+      if ( availabilityStart instanceof Date ) {
+        setPentahoTriggerDates( complexJobTrigger, (Date) availabilityStart, cronTrigger.getEndTime(),
+          cronTrigger.getTimeZone() );
+      } else if ( trigger.getCalendarName() != null ) {
+        // schedules that were not migrated yet, see migrateAvailabilityCalendars
         Calendar calendar = scheduler.getCalendar( trigger.getCalendarName() );
         if ( calendar instanceof QuartzSchedulerAvailability ) {
           QuartzSchedulerAvailability quartzSchedulerAvailability = (QuartzSchedulerAvailability) calendar;
@@ -1054,8 +1314,7 @@ public class QuartzScheduler implements IScheduler {
     }
 
     job.setJobName( QuartzJobKey.parse( job.getJobId() ).getJobName() );
-    job.setNextRun( trigger.getNextFireTime() );
-    job.setLastRun( getLastRun( trigger ) );
+    job.setLastRun( getLastRun( job.getJobParams() ) );
 
   }
 
@@ -1115,6 +1374,7 @@ public class QuartzScheduler implements IScheduler {
     try {
       Scheduler scheduler = getQuartzScheduler();
       scheduler.pauseJob( new JobKey( jobId, QuartzJobKey.parse( jobId ).getUserName() ) );
+      invalidateBlockouts( jobId );
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException( Messages
         .getString( QUARTZ_SCHEDULER_ERROR_0005_FAILED_TO_PAUSE_JOBS ), e );
@@ -1129,6 +1389,7 @@ public class QuartzScheduler implements IScheduler {
     try {
       Scheduler scheduler = getQuartzScheduler();
       scheduler.deleteJob( new JobKey( jobId, QuartzJobKey.parse( jobId ).getUserName() ) );
+      invalidateBlockouts( jobId );
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException( Messages
         .getString( QUARTZ_SCHEDULER_ERROR_0005_FAILED_TO_PAUSE_JOBS ), e );
@@ -1137,17 +1398,311 @@ public class QuartzScheduler implements IScheduler {
     }
   }
 
+  /**
+   * Removes several jobs with a single {@link Scheduler#deleteJobs(List)} call, which a JDBC job store runs as one
+   * transaction under one acquisition of its trigger access lock. Either all the jobs are removed or none is.
+   *
+   * @param jobIds the ids of the jobs to remove
+   * @throws SchedulerException if the jobs could not be removed
+   */
+  public void removeJobs( List<String> jobIds ) throws SchedulerException {
+    jobDetailLock.writeLock().lock();
+    try {
+      getQuartzScheduler().deleteJobs( getJobKeys( jobIds ) );
+      invalidateBlockouts( jobIds );
+    } catch ( org.quartz.SchedulerException e ) {
+      throw new SchedulerException( Messages
+        .getString( QUARTZ_SCHEDULER_ERROR_0005_FAILED_TO_PAUSE_JOBS ), e );
+    } finally {
+      jobDetailLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Pauses several jobs. Quartz can only pause a set of jobs by group, so the jobs are paused one by one, but the
+   * shared blockout index is only dropped once for the whole batch.
+   *
+   * @param jobIds the ids of the jobs to pause
+   * @throws SchedulerException if any of the jobs could not be paused; the ones before it stay paused
+   */
+  public void pauseJobs( List<String> jobIds ) throws SchedulerException {
+    try {
+      Scheduler scheduler = getQuartzScheduler();
+      for ( JobKey jobKey : getJobKeys( jobIds ) ) {
+        scheduler.pauseJob( jobKey );
+      }
+      invalidateBlockouts( jobIds );
+    } catch ( org.quartz.SchedulerException e ) {
+      throw new SchedulerException( Messages
+        .getString( QUARTZ_SCHEDULER_ERROR_0005_FAILED_TO_PAUSE_JOBS ), e );
+    }
+  }
+
+  /**
+   * Resumes several jobs, see {@link #pauseJobs(List)}.
+   *
+   * @param jobIds the ids of the jobs to resume
+   * @throws SchedulerException if any of the jobs could not be resumed; the ones before it stay resumed
+   */
+  public void resumeJobs( List<String> jobIds ) throws SchedulerException {
+    try {
+      Scheduler scheduler = getQuartzScheduler();
+      for ( JobKey jobKey : getJobKeys( jobIds ) ) {
+        normalizeTriggerTimingState( jobKey );
+        scheduler.resumeJob( jobKey );
+      }
+      invalidateBlockouts( jobIds );
+    } catch ( org.quartz.SchedulerException e ) {
+      throw new SchedulerException( Messages.getString(
+        QUARTZ_SCHEDULER_ERROR_0005_FAILED_TO_RESUME_JOBS ), e );
+    }
+  }
+
+  /**
+   * Tells which of the given jobs exist. The owner of a job is part of its id and is the group of its Quartz job key,
+   * so this costs one job store query per owner instead of a job detail and trigger lookup per job.
+   *
+   * @param jobIds the ids of the jobs to look up
+   * @return the ids of the jobs that exist
+   * @throws SchedulerException if the job keys could not be listed
+   */
+  public Set<String> getExistingJobIds( Collection<String> jobIds ) throws SchedulerException {
+    Map<String, Set<String>> jobIdsByOwner = new HashMap<>();
+    for ( String jobId : jobIds ) {
+      if ( jobId == null ) {
+        continue;
+      }
+      try {
+        jobIdsByOwner.computeIfAbsent( QuartzJobKey.parse( jobId ).getUserName(), owner -> new HashSet<>() )
+          .add( jobId );
+      } catch ( SchedulerException e ) {
+        // not a job id, so there is no such job
+      }
+    }
+
+    Set<String> existing = new HashSet<>();
+    try {
+      Scheduler scheduler = getQuartzScheduler();
+      for ( Map.Entry<String, Set<String>> owner : jobIdsByOwner.entrySet() ) {
+        for ( JobKey jobKey : scheduler.getJobKeys( GroupMatcher.jobGroupEquals( owner.getKey() ) ) ) {
+          if ( owner.getValue().contains( jobKey.getName() ) ) {
+            existing.add( jobKey.getName() );
+          }
+        }
+      }
+    } catch ( org.quartz.SchedulerException e ) {
+      throw new SchedulerException(
+        Messages.getString( QUARTZ_SCHEDULER_ERROR_0004_FAILED_TO_LIST_JOBS ), e );
+    }
+    return existing;
+  }
+
+  private static List<JobKey> getJobKeys( List<String> jobIds ) throws SchedulerException {
+    List<JobKey> jobKeys = new ArrayList<>( jobIds.size() );
+    for ( String jobId : jobIds ) {
+      jobKeys.add( new JobKey( jobId, QuartzJobKey.parse( jobId ).getUserName() ) );
+    }
+    return jobKeys;
+  }
+
   /**
    * {@inheritDoc}
    */
   public void start() throws SchedulerException {
     try {
+      migrateAvailabilityCalendars();
+      migrateJobData();
       getQuartzScheduler().start();
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException( e );
     }
   }
 
+  /**
+   * Moves the availability windows of cron jobs off the per-job {@link QuartzSchedulerAvailability} calendars that
+   * older versions stored, and onto the triggers themselves, see {@link #applyAvailabilityWindow}. Calendars left
+   * behind by removed jobs are dropped as well. Failures are logged and leave the calendar in place, which still
+   * works, so that they never keep the scheduler from starting.
+   * <p>
+   * The migration is claimed by storing the {@link #AVAILABILITY_MIGRATED_CALENDAR_NAME} calendar, which the job store
+   * refuses to do twice, so only one node of a cluster runs it and later starts skip it. If a calendar is left in
+   * place, the claim is dropped again so that the next start tries once more.
+   *
+   * @return the number of calendars removed
+   */
+  protected int migrateAvailabilityCalendars() {
+    int removed = 0;
+    Scheduler scheduler;
+    List<String> calendarNames;
+    try {
+      scheduler = getQuartzScheduler();
+      if ( !claimMigration( scheduler, AVAILABILITY_MIGRATED_CALENDAR_NAME,
+        "Availability calendars migrated onto the job triggers" ) ) {
+        return removed;
+      }
+      calendarNames = scheduler.getCalendarNames();
+    } catch ( org.quartz.SchedulerException e ) {
+      logger.warn( "Could not list the scheduler calendars, availability windows are not migrated", e );
+      return removed;
+    }
+
+    boolean incomplete = false;
+    for ( String calendarName : calendarNames ) {
+      jobDetailLock.writeLock().lock();
+      try {
+        Calendar calendar = scheduler.getCalendar( calendarName );
+        if ( calendar instanceof QuartzSchedulerAvailability ) {
+          if ( migrateAvailabilityCalendar( scheduler, calendarName, (QuartzSchedulerAvailability) calendar ) ) {
+            scheduler.deleteCalendar( calendarName );
+            removed++;
+          } else {
+            incomplete = true;
+          }
+        }
+      } catch ( org.quartz.SchedulerException | SchedulerException | RuntimeException e ) {
+        incomplete = true;
+        logger.warn( MessageFormat.format( "Could not migrate the availability calendar {0}", calendarName ), e );
+      } finally {
+        jobDetailLock.writeLock().unlock();
+      }
+    }
+
+    if ( incomplete ) {
+      dropMigrationClaim( scheduler, AVAILABILITY_MIGRATED_CALENDAR_NAME );
+    }
+    if ( removed > 0 ) {
+      logger.info( MessageFormat.format( "Moved {0} availability calendars onto the job triggers", removed ) );
+    }
+    return removed;
+  }
+
+  /**
+   * Stores the marker calendar of a migration
+   *
+   * @return false if the marker was there already, the migration having been run or being run elsewhere
+   */
+  private boolean claimMigration( Scheduler scheduler, String markerName, String description )
+    throws org.quartz.SchedulerException {
+    BaseCalendar marker = new BaseCalendar();
+    marker.setDescription( description );
+    try {
+      scheduler.addCalendar( markerName, marker, false, false );
+      return true;
+    } catch ( ObjectAlreadyExistsException e ) {
+      return false;
+    }
+  }
+
+  /**
+   * Removes the marker calendar of a migration that did not complete, so that the next start runs it again
+   */
+  private void dropMigrationClaim( Scheduler scheduler, String markerName ) {
+    try {
+      scheduler.deleteCalendar( markerName );
+    } catch ( org.quartz.SchedulerException e ) {
+      logger.warn( MessageFormat.format( "Could not drop the migration marker {0}, the migration is not tried again",
+        markerName ), e );
+    }
+  }
+
+  /**
+   * Encodes the params of the jobs stored before they were encoded, see {@link QuartzJobData}, so that Quartz no
+   * longer Java serializes their object graphs each time it reads or stores them. Like the calendar migration, a job
+   * that fails to migrate is logged and keeps working as it is.
+   * <p>
+   * Jobs are only stored encoded from then on, so the scan is claimed once per job store by storing the
+   * {@link #JOB_DATA_MIGRATED_CALENDAR_NAME} calendar, the same way as the availability calendar migration. If a job
+   * fails to migrate, the claim is dropped again so that the next start tries once more.
+   *
+   * @return the number of jobs migrated
+   */
+  protected int migrateJobData() {
+    int migrated = 0;
+    Scheduler scheduler;
+    Set<JobKey> jobKeys;
+    try {
+      scheduler = getQuartzScheduler();
+      if ( !claimMigration( scheduler, JOB_DATA_MIGRATED_CALENDAR_NAME, "Job params encoded" ) ) {
+        return migrated;
+      }
+      jobKeys = scheduler.getJobKeys( GroupMatcher.anyJobGroup() );
+    } catch ( org.quartz.SchedulerException e ) {
+      logger.warn( "Could not list the jobs, their params are not migrated", e );
+      return migrated;
+    }
+
+    boolean incomplete = false;
+    for ( JobKey jobKey : jobKeys ) {
+      Lock jobLock = getJobLock( jobKey );
+      jobLock.lock();
+      jobDetailLock.writeLock().lock();
+      try {
+        JobDetail oldJobDetail = scheduler.getJobDetail( jobKey );
+        if ( oldJobDetail != null && QuartzJobData.needsEncoding( oldJobDetail.getJobDataMap() ) ) {
+          JobDataMap jobDataMap = QuartzJobData.toJobDataMap( QuartzJobData.toParams( oldJobDetail.getJobDataMap() ) );
+          if ( jobDataMap.containsKey( QuartzJobData.ENCODED_DATA_KEY ) ) {
+            scheduler.addJob( recreateJobDetail( oldJobDetail, jobKey, jobDataMap ), true, true );
+            migrated++;
+          }
+        }
+      } catch ( org.quartz.SchedulerException | RuntimeException e ) {
+        incomplete = true;
+        logger.warn( MessageFormat.format( "Could not migrate the params of the job {0}", jobKey.getName() ), e );
+      } finally {
+        jobDetailLock.writeLock().unlock();
+        jobLock.unlock();
+      }
+    }
+
+    if ( incomplete ) {
+      dropMigrationClaim( scheduler, JOB_DATA_MIGRATED_CALENDAR_NAME );
+    }
+    if ( migrated > 0 ) {
+      logger.info( MessageFormat.format( "Encoded the params of {0} jobs", migrated ) );
+    }
+    return migrated;
+  }
+
+  /**
+   * Reschedules the job the calendar was created for without it.
+   *
+   * @return true if no trigger refers to the calendar anymore
+   */
+  private boolean migrateAvailabilityCalendar( Scheduler scheduler, String calendarName,
+                                               QuartzSchedulerAvailability window )
+    throws org.quartz.SchedulerException, SchedulerException {
+    JobKey jobKey = new JobKey( calendarName, QuartzJobKey.parse( calendarName ).getUserName() );
+    JobDetail oldJobDetail = scheduler.getJobDetail( jobKey );
+    if ( oldJobDetail == null ) {
+      // left behind by a removed job
+      return true;
+    }
+
+    boolean migrated = true;
+    for ( Trigger oldTrigger : scheduler.getTriggersOfJob( jobKey ) ) {
+      if ( !calendarName.equals( oldTrigger.getCalendarName() ) ) {
+        continue;
+      }
+      Date nextFireTime = getNextFireTimeInFuture( oldTrigger );
+      if ( nextFireTime == null ) {
+        // nothing left to fire, Quartz removes the trigger on its own
+        migrated = false;
+        continue;
+      }
+
+      Map<String, Object> jobParams = new HashMap<>( oldJobDetail.getJobDataMap().getWrappedMap() );
+      MutableTrigger newTrigger = (MutableTrigger) oldTrigger.getTriggerBuilder().modifiedByCalendar( null ).build();
+      applyAvailabilityWindow( newTrigger, window.getStartTime(),
+        oldTrigger.getEndTime() != null ? oldTrigger.getEndTime() : window.getEndTime(), nextFireTime, jobParams );
+
+      Trigger.TriggerState oldTriggerState = scheduler.getTriggerState( oldTrigger.getKey() );
+      scheduler.addJob( recreateJobDetail( oldJobDetail, jobKey, new JobDataMap( jobParams ) ), true, true );
+      scheduler.rescheduleJob( oldTrigger.getKey(), newTrigger );
+      restoreTriggerState( scheduler, oldTriggerState, newTrigger );
+    }
+    return migrated;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -1155,8 +1710,9 @@ public class QuartzScheduler implements IScheduler {
     try {
       Scheduler scheduler = getQuartzScheduler();
       JobKey jobKey = new JobKey( jobId, QuartzJobKey.parse( jobId ).getUserName() );
-      normalizeTriggerTimingState( jobKey, null );
+      normalizeTriggerTimingState( jobKey );
       scheduler.resumeJob( jobKey );
+      invalidateBlockouts( jobId );
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException( Messages.getString(
         QUARTZ_SCHEDULER_ERROR_0005_FAILED_TO_RESUME_JOBS ), e );
@@ -1197,19 +1753,20 @@ public class QuartzScheduler implements IScheduler {
   }
 
   public IComplexJobTrigger createComplexTrigger( String cronExpression ) {
+    CronRecurrences cronRecurrences = CronRecurrences.of( cronExpression );
     ComplexJobTrigger complexJobTrigger = new ComplexJobTrigger();
     complexJobTrigger.setHourlyRecurrence( (ITimeRecurrence) null );
     complexJobTrigger.setMinuteRecurrence( (ITimeRecurrence) null );
     complexJobTrigger.setSecondRecurrence( (ITimeRecurrence) null );
 
-    for ( ITimeRecurrence recurrence : parseRecurrence( cronExpression, 6 ) ) {
+    for ( ITimeRecurrence recurrence : cronRecurrences.getRecurrences( 6 ) ) {
       complexJobTrigger.addYearlyRecurrence( recurrence );
     }
-    for ( ITimeRecurrence recurrence : parseRecurrence( cronExpression, 4 ) ) {
+    for ( ITimeRecurrence recurrence : cronRecurrences.getRecurrences( 4 ) ) {
       complexJobTrigger.addMonthlyRecurrence( recurrence );
     }
-    List<ITimeRecurrence> dayOfWeekRecurrences = parseDayOfWeekRecurrences( cronExpression );
-    List<ITimeRecurrence> dayOfMonthRecurrences = parseRecurrence( cronExpression, 3 );
+    List<ITimeRecurrence> dayOfWeekRecurrences = cronRecurrences.getDayOfWeekRecurrences();
+    List<ITimeRecurrence> dayOfMonthRecurrences = cronRecurrences.getRecurrences( 3 );
     if ( !dayOfWeekRecurrences.isEmpty() && dayOfMonthRecurrences.isEmpty() ) {
       for ( ITimeRecurrence recurrence : dayOfWeekRecurrences ) {
         complexJobTrigger.addDayOfWeekRecurrence( recurrence );
@@ -1219,13 +1776,13 @@ public class QuartzScheduler implements IScheduler {
         complexJobTrigger.addDayOfMonthRecurrence( recurrence );
       }
     }
-    for ( ITimeRecurrence recurrence : parseRecurrence( cronExpression, 2 ) ) {
+    for ( ITimeRecurrence recurrence : cronRecurrences.getRecurrences( 2 ) ) {
       complexJobTrigger.addHourlyRecurrence( recurrence );
     }
-    for ( ITimeRecurrence recurrence : parseRecurrence( cronExpression, 1 ) ) {
+    for ( ITimeRecurrence recurrence : cronRecurrences.getRecurrences( 1 ) ) {
       complexJobTrigger.addMinuteRecurrence( recurrence );
     }
-    for ( ITimeRecurrence recurrence : parseRecurrence( cronExpression, 0 ) ) {
+    for ( ITimeRecurrence recurrence : cronRecurrences.getRecurrences( 0 ) ) {
       complexJobTrigger.addSecondRecurrence( recurrence );
     }
     return complexJobTrigger;
@@ -1247,116 +1804,6 @@ public class QuartzScheduler implements IScheduler {
     return new ArrayList<>();
   }
 
-  private static List<ITimeRecurrence> parseDayOfWeekRecurrences( String cronExpression ) {
-    List<ITimeRecurrence> dayOfWeekRecurrence = new ArrayList<>();
-    String delims = " +";
-    String[] tokens = cronExpression.split( delims );
-    if ( tokens.length >= 6 ) {
-      String dayOfWeekTokens = tokens[ 5 ];
-      tokens = dayOfWeekTokens.split( "," );
-      if ( ( tokens.length > 1 ) || !( tokens[ 0 ].equals( "*" ) || tokens[ 0 ].equals( "?" ) ) ) {
-        RecurrenceList dayOfWeekList = null;
-        for ( String token : tokens ) {
-          if ( listPattern.matcher( token ).matches() ) {
-            if ( dayOfWeekList == null ) {
-              dayOfWeekList = new RecurrenceList();
-            }
-            dayOfWeekList.getValues().add( Integer.parseInt( token ) );
-          } else {
-            if ( dayOfWeekList != null ) {
-              dayOfWeekRecurrence.add( dayOfWeekList );
-              dayOfWeekList = null;
-            }
-            if ( sequencePattern.matcher( token ).matches() ) {
-              String[] days = token.split( "-" );
-              dayOfWeekRecurrence.add( new SequentialRecurrence( Integer.parseInt( days[ 0 ] ), Integer
-                .parseInt( days[ 1 ] ) ) );
-            } else if ( intervalPattern.matcher( token ).matches() ) {
-              String[] days = token.split( "/" );
-              dayOfWeekRecurrence.add( new IncrementalRecurrence( days[ 0 ], Integer
-                .parseInt( days[ 1 ] ) ) );
-            } else if ( qualifiedDayPattern.matcher( token ).matches() ) {
-              String[] days = token.split( "#" );
-              dayOfWeekRecurrence
-                .add( new QualifiedDayOfWeek( Integer.parseInt( days[ 1 ] ), Integer.parseInt( days[ 0 ] ) ) );
-            } else if ( lastDayPattern.matcher( token ).matches() ) {
-              DayOfWeek dayOfWeek =
-                DayOfWeek.values()[ ( Integer.parseInt( token.substring( 0, token.length() - 1 ) ) - 1 ) % 7 ];
-              dayOfWeekRecurrence.add( new QualifiedDayOfWeek( DayOfWeekQualifier.LAST, dayOfWeek ) );
-            } else if ( dayOfWeekRangePattern.matcher( token ).matches() ) {
-              String[] days = token.split( "-" );
-              int start = DayOfWeek.valueOf( days[ 0 ] ).ordinal();
-              int finish = DayOfWeek.valueOf( days[ 1 ] ).ordinal();
-              dayOfWeekRecurrence.add( new SequentialRecurrence( start, finish ) );
-            } else {
-              dayOfWeekList = new RecurrenceList();
-              dayOfWeekList.getValues().add( DayOfWeek.valueOf( token ).ordinal() );
-              dayOfWeekRecurrence.add( dayOfWeekList );
-              dayOfWeekList = null;
-            }
-          }
-
-        }
-        if ( dayOfWeekList != null ) {
-          dayOfWeekRecurrence.add( dayOfWeekList );
-        }
-      }
-    } else {
-      throw new IllegalArgumentException( Messages.getInstance().getErrorString(
-        COMPLEX_JOB_TRIGGER_ERROR_0001_INVALID_CRON_EXPRESSION ) );
-    }
-    return dayOfWeekRecurrence;
-  }
-
-  private static List<ITimeRecurrence> parseRecurrence( String cronExpression, int tokenIndex ) {
-    List<ITimeRecurrence> timeRecurrence = new ArrayList<>();
-    String delims = " +";
-    String[] tokens = cronExpression.split( delims );
-    if ( tokens.length > tokenIndex ) {
-      String timeTokens = tokens[ tokenIndex ];
-      tokens = timeTokens.split( "," );
-      if ( ( tokens.length > 1 ) || !( tokens[ 0 ].equals( "*" ) || tokens[ 0 ].equals( "?" ) ) ) {
-        RecurrenceList timeList = null;
-        for ( String token : tokens ) {
-          if ( listPattern.matcher( token ).matches() ) {
-            if ( timeList == null ) {
-              timeList = new RecurrenceList();
-            }
-            timeList.getValues().add( Integer.parseInt( token ) );
-          } else {
-            if ( timeList != null ) {
-              timeRecurrence.add( timeList );
-              timeList = null;
-            }
-            if ( sequencePattern.matcher( token ).matches() ) {
-              String[] days = token.split( "-" );
-              timeRecurrence.add( new SequentialRecurrence( Integer.parseInt( days[ 0 ] ),
-                Integer.parseInt( days[ 1 ] ) ) );
-            } else if ( intervalPattern.matcher( token ).matches() ) {
-              String[] days = token.split( "/" );
-
-              timeRecurrence
-                .add( new IncrementalRecurrence( days[ 0 ], Integer.parseInt( days[ 1 ] ) ) );
-            } else if ( "L".equalsIgnoreCase( token ) ) {
-              timeRecurrence.add( new QualifiedDayOfMonth() );
-            } else {
-              throw new IllegalArgumentException( Messages.getInstance().getErrorString(
-                COMPLEX_JOB_TRIGGER_ERROR_0001_INVALID_CRON_EXPRESSION ) );
-            }
-          }
-
-        }
-        if ( timeList != null ) {
-          timeRecurrence.add( timeList );
-        }
-      }
-    } else {
-      throw new IllegalArgumentException( Messages.getInstance().getErrorString(
-        COMPLEX_JOB_TRIGGER_ERROR_0001_INVALID_CRON_EXPRESSION ) );
-    }
-    return timeRecurrence;
-  }
-
   /**
    * Update cronTrigger's timezone based on the info from caller
    *
@@ -1402,9 +1849,21 @@ public class QuartzScheduler implements IScheduler {
       setQuartzScheduler( null );
     } catch ( org.quartz.SchedulerException e ) {
       throw new SchedulerException( e );
+    } finally {
+      shutdownCompletionServices();
     }
   }
 
+  /**
+   * Stops the services the jobs complete through once the Quartz scheduler is down: the completions already queued are
+   * waited for, the emails not sent yet stay spooled for the next start and the job history file is closed
+   */
+  protected void shutdownCompletionServices() {
+    ActionRunner.shutdownCompletionExecutor( COMPLETION_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS );
+    EmailOutbox.shutdownInstance();
+    JobExecutionHistory.closeInstance();
+  }
+
   public static String prettyPrintMap( Map<String, Object> map ) {
     StringBuilder b = new StringBuilder();
     for ( Map.Entry<String, Object> entry : map.entrySet() ) {
@@ -0,0 +1,307 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.quartz.SchedulerConfigException;
+import org.quartz.spi.ThreadPool;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A Quartz {@link ThreadPool} that runs every job on a thread of its own instead of on one of a fixed set of workers.
+ * Scheduled reports spend most of their time waiting on the repository, the output stream and mail servers, so the
+ * number of jobs running at once is bounded by {@link #setThreadCount(int)} rather than by how many platform threads
+ * the server can afford.
+ * <p>
+ * On a Java runtime with virtual threads, jobs run on virtual threads; on older runtimes the pool falls back to
+ * plain daemon threads, which still spares the fixed workers but costs a platform thread per running job.
+ * <p>
+ * Actions that are mostly CPU bound can be listed with {@link #setCpuBoundActions(String)}; at most
+ * {@link #setCpuBoundThreadCount(int)} of them run at the same time, see {@link CpuBoundActionLimiter}.
+ * <p>
+ * Selected in quartz.properties:
+ * <pre>
+ *   org.quartz.threadPool.class = org.pentaho.platform.scheduler2.quartz.VirtualThreadPool
+ *   org.quartz.threadPool.threadCount = 500
+ *   org.quartz.threadPool.cpuBoundThreadCount = 8
+ *   org.quartz.threadPool.cpuBoundActions = org.pentaho.reporting.platform.plugin.SimpleReportingAction
+ * </pre>
+ */
+public class VirtualThreadPool implements ThreadPool {
+
+  private static final Log logger = LogFactory.getLog( VirtualThreadPool.class );
+
+  /**
+   * How long {@link #blockForAvailableThreads()} waits between two checks, like Quartz's own pool
+   */
+  private static final long WAIT_INTERVAL = 500L;
+
+  private int threadCount = 100;
+
+  private int cpuBoundThreadCount = Runtime.getRuntime().availableProcessors();
+
+  private String cpuBoundActions;
+
+  private boolean threadsInheritContextClassLoaderOfInitializingThread = true;
+
+  private int threadPriority = Thread.NORM_PRIORITY;
+
+  private boolean makeThreadsDaemons = true;
+
+  private boolean threadsInheritGroupOfInitializingThread = true;
+
+  private String instanceName = "QuartzScheduler";
+
+  private ThreadFactory threadFactory;
+
+  private ClassLoader contextClassLoader;
+
+  private final AtomicInteger threadNumber = new AtomicInteger();
+
+  private final Object runningLock = new Object();
+
+  private int running;
+
+  private boolean shutdown;
+
+  @Override
+  public void initialize() throws SchedulerConfigException {
+    if ( threadCount <= 0 ) {
+      throw new SchedulerConfigException( "Thread count must be > 0" );
+    }
+    if ( cpuBoundThreadCount <= 0 ) {
+      throw new SchedulerConfigException( "CPU bound thread count must be > 0" );
+    }
+    if ( threadPriority < Thread.MIN_PRIORITY || threadPriority > Thread.MAX_PRIORITY ) {
+      throw new SchedulerConfigException( "Thread priority must be > 0 and <= 10" );
+    }
+    if ( threadsInheritContextClassLoaderOfInitializingThread ) {
+      contextClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    threadFactory = createVirtualThreadFactory();
+    if ( threadFactory == null ) {
+      logger.info( "Virtual threads are not available on this Java runtime, jobs run on platform threads" );
+      ThreadGroup group = threadsInheritGroupOfInitializingThread ? Thread.currentThread().getThreadGroup() : null;
+      threadFactory = runnable -> {
+        Thread thread = new Thread( group, runnable );
+        thread.setDaemon( makeThreadsDaemons );
+        thread.setPriority( threadPriority );
+        return thread;
+      };
+    }
+
+    CpuBoundActionLimiter.getInstance().configure( cpuBoundActions, cpuBoundThreadCount );
+  }
+
+  /**
+   * Looks up the virtual thread builder reflectively, so the plugin still runs on Java versions without it.
+   *
+   * @return a factory of virtual threads, or null if the runtime has none
+   */
+  static ThreadFactory createVirtualThreadFactory() {
+    try {
+      Object builder = Thread.class.getMethod( "ofVirtual" ).invoke( null );
+      return (ThreadFactory) builder.getClass().getMethod( "factory" ).invoke( builder );
+    } catch ( ReflectiveOperationException | RuntimeException e ) {
+      return null;
+    }
+  }
+
+  @Override
+  public boolean runInThread( Runnable runnable ) {
+    if ( runnable == null ) {
+      return false;
+    }
+
+    synchronized ( runningLock ) {
+      while ( running >= threadCount && !shutdown ) {
+        try {
+          runningLock.wait( WAIT_INTERVAL );
+        } catch ( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+      }
+      if ( shutdown ) {
+        return false;
+      }
+      running++;
+    }
+
+    Thread thread = threadFactory.newThread( () -> {
+      try {
+        runnable.run();
+      } catch ( RuntimeException e ) {
+        logger.error( "Error while executing the Runnable: ", e );
+      } finally {
+        synchronized ( runningLock ) {
+          running--;
+          runningLock.notifyAll();
+        }
+      }
+    } );
+    thread.setName( instanceName + "_Worker-" + threadNumber.incrementAndGet() );
+    if ( contextClassLoader != null ) {
+      thread.setContextClassLoader( contextClassLoader );
+    }
+    try {
+      thread.start();
+    } catch ( RuntimeException | OutOfMemoryError e ) {
+      synchronized ( runningLock ) {
+        running--;
+        runningLock.notifyAll();
+      }
+      throw e;
+    }
+    return true;
+  }
+
+  @Override
+  public int blockForAvailableThreads() {
+    synchronized ( runningLock ) {
+      while ( running >= threadCount && !shutdown ) {
+        try {
+          runningLock.wait( WAIT_INTERVAL );
+        } catch ( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+      return Math.max( 0, threadCount - running );
+    }
+  }
+
+  @Override
+  public void shutdown( boolean waitForJobsToComplete ) {
+    synchronized ( runningLock ) {
+      shutdown = true;
+      runningLock.notifyAll();
+      while ( waitForJobsToComplete && running > 0 ) {
+        try {
+          runningLock.wait( WAIT_INTERVAL );
+        } catch ( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  @Override
+  public int getPoolSize() {
+    return threadCount;
+  }
+
+  /**
+   * @return the number of jobs running at the moment
+   */
+  public int getRunningCount() {
+    synchronized ( runningLock ) {
+      return running;
+    }
+  }
+
+  @Override
+  public void setInstanceId( String schedInstId ) {
+    // not used
+  }
+
+  @Override
+  public void setInstanceName( String schedName ) {
+    this.instanceName = schedName;
+  }
+
+  public int getThreadCount() {
+    return threadCount;
+  }
+
+  /**
+   * @param threadCount the maximum number of jobs running at the same time
+   */
+  public void setThreadCount( int threadCount ) {
+    this.threadCount = threadCount;
+  }
+
+  public int getCpuBoundThreadCount() {
+    return cpuBoundThreadCount;
+  }
+
+  /**
+   * @param cpuBoundThreadCount the maximum number of CPU bound actions running at the same time
+   */
+  public void setCpuBoundThreadCount( int cpuBoundThreadCount ) {
+    this.cpuBoundThreadCount = cpuBoundThreadCount;
+  }
+
+  public String getCpuBoundActions() {
+    return cpuBoundActions;
+  }
+
+  /**
+   * @param cpuBoundActions comma separated action class names or action ids of the CPU bound actions
+   */
+  public void setCpuBoundActions( String cpuBoundActions ) {
+    this.cpuBoundActions = cpuBoundActions;
+  }
+
+  public boolean isThreadsInheritContextClassLoaderOfInitializingThread() {
+    return threadsInheritContextClassLoaderOfInitializingThread;
+  }
+
+  public void setThreadsInheritContextClassLoaderOfInitializingThread( boolean inherit ) {
+    this.threadsInheritContextClassLoaderOfInitializingThread = inherit;
+  }
+
+  public int getThreadPriority() {
+    return threadPriority;
+  }
+
+  /**
+   * Accepted like for Quartz's SimpleThreadPool, so a pool configuration can switch between the two by its class
+   * alone. Only applies to the platform threads used without virtual threads; virtual threads always run at normal
+   * priority.
+   *
+   * @param threadPriority the priority of the threads, between {@link Thread#MIN_PRIORITY} and
+   *                       {@link Thread#MAX_PRIORITY}
+   */
+  public void setThreadPriority( int threadPriority ) {
+    this.threadPriority = threadPriority;
+  }
+
+  public boolean isMakeThreadsDaemons() {
+    return makeThreadsDaemons;
+  }
+
+  /**
+   * Only applies to the platform threads used without virtual threads; virtual threads are always daemons.
+   */
+  public void setMakeThreadsDaemons( boolean makeThreadsDaemons ) {
+    this.makeThreadsDaemons = makeThreadsDaemons;
+  }
+
+  public boolean isThreadsInheritGroupOfInitializingThread() {
+    return threadsInheritGroupOfInitializingThread;
+  }
+
+  /**
+   * Only applies to the platform threads used without virtual threads; virtual threads have a group of their own.
+   */
+  public void setThreadsInheritGroupOfInitializingThread( boolean inherit ) {
+    this.threadsInheritGroupOfInitializingThread = inherit;
+  }
+}
@@ -41,6 +41,7 @@ import org.pentaho.platform.api.genericfile.model.CreateFileOptions;
 import org.pentaho.platform.api.genericfile.model.IGenericFile;
 import org.pentaho.platform.api.genericfile.model.IGenericFileContent;
 import org.pentaho.platform.api.genericfile.model.IGenericFileTree;
+import org.pentaho.platform.scheduler2.action.OutputPathValidationCache;
 import org.pentaho.platform.scheduler2.messsages.Messages;
 import org.pentaho.platform.web.servlet.HttpMimeTypeListener;
 
@@ -196,6 +197,8 @@ public class GenericFileResource {
   public void clearCache() {
     try {
       genericFileService.clearTreeCache();
+      // folders may have been deleted or their permissions changed
+      OutputPathValidationCache.getInstance().invalidateAll();
     } catch ( AccessControlException e ) {
       throw new WebApplicationException( e, Response.Status.FORBIDDEN );
     } catch ( OperationFailedException e ) {
@@ -239,9 +242,11 @@ public class GenericFileResource {
   public Response createFolder( @NonNull @PathParam( "path" ) String path ) {
 
     try {
-      if ( !genericFileService.createFolder( decodeRequestPath( path ) ) ) {
+      String folderPath = decodeRequestPath( path );
+      if ( !genericFileService.createFolder( folderPath ) ) {
         throw new WebApplicationException( Response.Status.CONFLICT );
       }
+      OutputPathValidationCache.getInstance().invalidate( folderPath );
 
       return Response.status( Response.Status.CREATED ).build();
 
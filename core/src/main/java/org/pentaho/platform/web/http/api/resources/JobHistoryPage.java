@@ -0,0 +1,85 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.http.api.resources;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import org.pentaho.platform.scheduler2.history.JobExecutionRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of the run history of a job, latest run first.
+ */
+@XmlRootElement( name = "jobHistoryPage" )
+@XmlAccessorType( XmlAccessType.FIELD )
+public class JobHistoryPage {
+
+  @XmlElement( name = "execution" )
+  private List<JobExecutionRecord> executions = new ArrayList<>();
+
+  private int offset;
+
+  private int limit;
+
+  /**
+   * Number of runs kept for the job, over all pages
+   */
+  private int totalCount;
+
+  public JobHistoryPage() {
+  }
+
+  public JobHistoryPage( List<JobExecutionRecord> executions, int offset, int limit, int totalCount ) {
+    this.executions = executions;
+    this.offset = offset;
+    this.limit = limit;
+    this.totalCount = totalCount;
+  }
+
+  public List<JobExecutionRecord> getExecutions() {
+    return executions;
+  }
+
+  public void setExecutions( List<JobExecutionRecord> executions ) {
+    this.executions = executions;
+  }
+
+  public int getOffset() {
+    return offset;
+  }
+
+  public void setOffset( int offset ) {
+    this.offset = offset;
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  public void setLimit( int limit ) {
+    this.limit = limit;
+  }
+
+  public int getTotalCount() {
+    return totalCount;
+  }
+
+  public void setTotalCount( int totalCount ) {
+    this.totalCount = totalCount;
+  }
+}
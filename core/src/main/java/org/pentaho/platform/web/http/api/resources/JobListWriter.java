@@ -0,0 +1,184 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.http.api.resources;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.jakarta.xmlbind.JakartaXmlBindAnnotationModule;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import org.pentaho.platform.api.scheduler2.IJob;
+import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.JobWrapper;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Writes a job listing one job at a time, as the jobs are produced, so that the memory needed to answer a job list
+ * request does not grow with the number of jobs. The document has the shape of a {@link JobWrapper}: a "jobs" root
+ * with one "job" element per job in XML, an object with a single "job" array in JSON and Smile.
+ */
+public class JobListWriter {
+
+  public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
+  private static final String JOBS = "jobs";
+
+  private static final String JOB = "job";
+
+  private static final ObjectMapper jsonMapper = createMapper( new JsonFactory() );
+
+  private static final ObjectMapper smileMapper = createMapper( new SmileFactory() );
+
+  private static JAXBContext jaxbContext;
+
+  public enum Format {
+    JSON( MediaType.APPLICATION_JSON ),
+    XML( MediaType.APPLICATION_XML ),
+    SMILE( APPLICATION_SMILE );
+
+    private final String mediaType;
+
+    Format( String mediaType ) {
+      this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+      return mediaType;
+    }
+
+    /**
+     * @return the first format the Accept header asks for, JSON if it names none of them
+     */
+    public static Format fromAccept( String accept ) {
+      if ( accept != null ) {
+        for ( String range : accept.split( "," ) ) {
+          String type = range.split( ";" )[ 0 ].trim().toLowerCase( Locale.ROOT );
+          if ( type.equals( MediaType.APPLICATION_JSON ) ) {
+            return JSON;
+          }
+          if ( type.equals( MediaType.APPLICATION_XML ) || type.equals( MediaType.TEXT_XML ) ) {
+            return XML;
+          }
+          if ( type.equals( APPLICATION_SMILE ) ) {
+            return SMILE;
+          }
+        }
+      }
+      return JSON;
+    }
+  }
+
+  /**
+   * The jobs to write, handed over one at a time
+   */
+  @FunctionalInterface
+  public interface JobSource {
+    void forEachJob( Consumer<IJob> consumer ) throws SchedulerException, IllegalAccessException;
+  }
+
+  /**
+   * Writes the jobs of the source to the stream, which is left open
+   *
+   * @throws IOException if the stream could not be written or the jobs could not be listed; the document is
+   *                     incomplete then
+   */
+  public void write( Format format, JobSource source, OutputStream out ) throws IOException {
+    try {
+      if ( format == Format.XML ) {
+        writeXml( source, out );
+      } else {
+        writeJson( format == Format.SMILE ? smileMapper : jsonMapper, source, out );
+      }
+    } catch ( UncheckedIOException e ) {
+      throw e.getCause();
+    } catch ( SchedulerException | IllegalAccessException e ) {
+      throw new IOException( e );
+    }
+  }
+
+  private void writeJson( ObjectMapper mapper, JobSource source, OutputStream out )
+    throws IOException, SchedulerException, IllegalAccessException {
+    try ( JsonGenerator generator = mapper.getFactory().createGenerator( out ) ) {
+      generator.writeStartObject();
+      generator.writeArrayFieldStart( JOB );
+      source.forEachJob( job -> {
+        try {
+          mapper.writeValue( generator, job );
+        } catch ( IOException e ) {
+          throw new UncheckedIOException( e );
+        }
+      } );
+      generator.writeEndArray();
+      generator.writeEndObject();
+    }
+  }
+
+  private void writeXml( JobSource source, OutputStream out )
+    throws IOException, SchedulerException, IllegalAccessException {
+    try {
+      Marshaller marshaller = getJaxbContext().createMarshaller();
+      marshaller.setProperty( Marshaller.JAXB_FRAGMENT, Boolean.TRUE );
+      XMLStreamWriter writer =
+        XMLOutputFactory.newFactory().createXMLStreamWriter( out, StandardCharsets.UTF_8.name() );
+      writer.writeStartDocument( StandardCharsets.UTF_8.name(), "1.0" );
+      writer.writeStartElement( JOBS );
+      source.forEachJob( job -> {
+        try {
+          marshaller.marshal( new JAXBElement<>( new QName( JOB ), Job.class, (Job) job ), writer );
+        } catch ( JAXBException e ) {
+          throw new UncheckedIOException( new IOException( e ) );
+        }
+      } );
+      writer.writeEndElement();
+      writer.writeEndDocument();
+      // flushes without closing the underlying stream
+      writer.close();
+    } catch ( JAXBException | XMLStreamException e ) {
+      throw new IOException( e );
+    }
+  }
+
+  private static synchronized JAXBContext getJaxbContext() throws JAXBException {
+    if ( jaxbContext == null ) {
+      jaxbContext = JAXBContext.newInstance( JobWrapper.class );
+    }
+    return jaxbContext;
+  }
+
+  private static ObjectMapper createMapper( JsonFactory factory ) {
+    ObjectMapper mapper = new ObjectMapper( factory );
+    mapper.registerModule( new JakartaXmlBindAnnotationModule() );
+    // the generator is flushed by the stream buffers, not after every job
+    mapper.disable( SerializationFeature.FLUSH_AFTER_WRITE_VALUE );
+    mapper.getFactory().disable( JsonGenerator.Feature.AUTO_CLOSE_TARGET );
+    return mapper;
+  }
+}
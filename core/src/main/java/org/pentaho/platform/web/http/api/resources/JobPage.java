@@ -0,0 +1,116 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.http.api.resources;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import org.pentaho.platform.api.scheduler2.Job;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of a filtered and sorted schedule listing.
+ */
+@XmlRootElement( name = "jobPage" )
+@XmlAccessorType( XmlAccessType.FIELD )
+public class JobPage {
+
+  @XmlElement( name = "job" )
+  private List<Job> jobs = new ArrayList<>();
+
+  private int offset;
+
+  private int limit;
+
+  /**
+   * Number of jobs matching the filters, over all pages
+   */
+  private int totalCount;
+
+  /**
+   * Owners of the jobs visible to the caller, ignoring the filters, to offer as a user filter
+   */
+  @XmlElement( name = "owner" )
+  private List<String> owners = new ArrayList<>();
+
+  /**
+   * Resource names of the jobs visible to the caller, ignoring the filters, to suggest in the resource filter
+   */
+  @XmlElement( name = "resource" )
+  private List<String> resources = new ArrayList<>();
+
+  public JobPage() {
+  }
+
+  public JobPage( List<Job> jobs, int offset, int limit, int totalCount, List<String> owners,
+                  List<String> resources ) {
+    this.jobs = jobs;
+    this.offset = offset;
+    this.limit = limit;
+    this.totalCount = totalCount;
+    this.owners = owners;
+    this.resources = resources;
+  }
+
+  public List<Job> getJobs() {
+    return jobs;
+  }
+
+  public void setJobs( List<Job> jobs ) {
+    this.jobs = jobs;
+  }
+
+  public int getOffset() {
+    return offset;
+  }
+
+  public void setOffset( int offset ) {
+    this.offset = offset;
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  public void setLimit( int limit ) {
+    this.limit = limit;
+  }
+
+  public int getTotalCount() {
+    return totalCount;
+  }
+
+  public void setTotalCount( int totalCount ) {
+    this.totalCount = totalCount;
+  }
+
+  public List<String> getOwners() {
+    return owners;
+  }
+
+  public void setOwners( List<String> owners ) {
+    this.owners = owners;
+  }
+
+  public List<String> getResources() {
+    return resources;
+  }
+
+  public void setResources( List<String> resources ) {
+    this.resources = resources;
+  }
+}
@@ -102,6 +102,8 @@ public class JobScheduleRequest implements Serializable, IJobScheduleRequest {
 
   String timeZone;
 
+  Integer priority;
+
   protected String runSafeMode;
   protected String gatheringMetrics;
   protected String logLevel;
@@ -222,6 +224,18 @@ public class JobScheduleRequest implements Serializable, IJobScheduleRequest {
     this.timeZone = timeZone;
   }
 
+  /**
+   * @return the priority of the schedule's trigger, the Quartz default (5) if null; of the schedules due at the same
+   * time, the ones with a higher priority run first
+   */
+  public Integer getPriority() {
+    return priority;
+  }
+
+  public void setPriority( Integer priority ) {
+    this.priority = priority;
+  }
+
   @Override public void setSimpleJobTrigger( ISimpleJobTrigger jobTrigger ) {
     simpleJobTrigger = (SimpleJobTrigger) jobTrigger;
   }
@@ -35,24 +35,31 @@ import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.scheduler2.action.SchedulerHelper;
 import org.pentaho.platform.web.http.api.proxies.BlockStatusProxy;
 import org.pentaho.platform.web.http.api.resources.services.ISchedulerServicePlugin;
+import org.pentaho.platform.web.http.api.resources.services.JobQuery;
 import org.pentaho.platform.web.http.messages.Messages;
 
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.Status;
+import jakarta.ws.rs.core.StreamingOutput;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
 
 import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
 import static jakarta.ws.rs.core.MediaType.APPLICATION_XML;
@@ -74,6 +81,8 @@ public class SchedulerResource implements ISchedulerResource {
 
   private static final String LEGACY_API_BASE = "/scheduler-plugin/api/scheduler";
   private static final String NEW_API_BASE = "/scheduler-plugin/api/v2/scheduler";
+  private static final String GZIP = "gzip";
+  private static final int GZIP_BUFFER_SIZE = 8192;
   private static volatile SchedulerHelper schedulerHelper;
 
   /**
@@ -596,6 +605,265 @@ public class SchedulerResource implements ISchedulerResource {
     }
   }
 
+  /**
+   * Retrieve one page of the scheduled job(s) visible to the current user. Filtering, sorting and paging happen on the
+   * server, so only the requested page is transferred.
+   *
+   * <p><b>Example Request:</b><br />
+   * GET pentaho/api/scheduler/getJobsPage?offset=0&amp;limit=2&amp;sortBy=NEXT_RUN&amp;sortOrder=desc&amp;state=NORMAL
+   * </p>
+   *
+   * <p><b>Example Response:</b></p>
+   * <pre function="syntax.xml">
+   *   &lt;jobPage&gt;
+   *     &lt;job&gt;
+   *       &lt;jobId&gt;admin JobName 1410786491777&lt;/jobId&gt;
+   *       &lt;jobName&gt;JobName&lt;/jobName&gt;
+   *       ...
+   *     &lt;/job&gt;
+   *     &lt;offset&gt;0&lt;/offset&gt;
+   *     &lt;limit&gt;2&lt;/limit&gt;
+   *     &lt;totalCount&gt;17&lt;/totalCount&gt;
+   *     &lt;owner&gt;admin&lt;/owner&gt;
+   *     &lt;owner&gt;suzy&lt;/owner&gt;
+   *   &lt;/jobPage&gt;
+   * </pre>
+   *
+   * @param offset        Index of the first job of the page.
+   * @param limit         Maximum number of jobs of the page, at most 1000.
+   * @param sortBy        One of NEXT_RUN, LAST_RUN, NAME, OWNER or STATE.
+   * @param sortOrder     asc or desc.
+   * @param nextRunAfter  Only jobs whose next run is after this time, in milliseconds since the epoch.
+   * @param nextRunBefore Only jobs whose next run is before this time, in milliseconds since the epoch.
+   * @param resourceName  Only jobs whose resource name contains this text, ignoring case.
+   * @param userName      Only jobs of this owner.
+   * @param state         Only jobs in this state.
+   * @param scheduleType  Only jobs of this schedule type, e.g. DAILY or WEEKLY.
+   * @return A jax-rs Response object with the page of jobs, the total count of matching jobs and the owners of all
+   *         visible jobs.
+   */
+  @GET
+  @Path( "/getJobsPage" )
+  @Produces( { APPLICATION_JSON, APPLICATION_XML } )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Jobs retrieved successfully." ),
+    @ResponseCode( code = 400, condition = "Invalid sort field." ),
+    @ResponseCode( code = 403, condition = "The user may not view schedules." ),
+    @ResponseCode( code = 500, condition = "Error while retrieving jobs." ),
+  } )
+  public Response getJobsPage( @DefaultValue( "0" ) @QueryParam( "offset" ) int offset,
+                               @DefaultValue( "100" ) @QueryParam( "limit" ) int limit,
+                               @QueryParam( "sortBy" ) String sortBy,
+                               @DefaultValue( "asc" ) @QueryParam( "sortOrder" ) String sortOrder,
+                               @QueryParam( "nextRunAfter" ) Long nextRunAfter,
+                               @QueryParam( "nextRunBefore" ) Long nextRunBefore,
+                               @QueryParam( "resourceName" ) String resourceName,
+                               @QueryParam( "userName" ) String userName,
+                               @QueryParam( "state" ) String state,
+                               @QueryParam( "scheduleType" ) String scheduleType ) {
+    JobQuery query = new JobQuery();
+    try {
+      query.setSortBy( sortBy );
+    } catch ( IllegalArgumentException e ) {
+      return buildStatusResponse( Status.BAD_REQUEST );
+    }
+    query.setOffset( offset );
+    query.setLimit( limit );
+    query.setAscending( !"desc".equalsIgnoreCase( sortOrder ) );
+    query.setNextRunAfter( nextRunAfter == null ? null : new Date( nextRunAfter ) );
+    query.setNextRunBefore( nextRunBefore == null ? null : new Date( nextRunBefore ) );
+    query.setResourceName( resourceName );
+    query.setUserName( userName );
+    query.setState( state );
+    query.setScheduleType( scheduleType );
+
+    try {
+      return buildOkResponse( schedulerService.getJobs( query ) );
+    } catch ( IllegalAccessException e ) {
+      return buildStatusResponse( FORBIDDEN );
+    } catch ( SchedulerException e ) {
+      throw new RuntimeException( e );
+    }
+  }
+
+  /**
+   * Retrieve all the scheduled job(s) visible to the current user, written one job at a time as the scheduler lists
+   * them, so that neither the server nor the client hold the whole list to produce or start reading it. The document
+   * is the same as the one of GET pentaho/api/scheduler/getJobs. Besides JSON and XML, the binary Smile encoding of
+   * JSON is available for clients that can read it, and the response is compressed when the client accepts gzip.
+   *
+   * <p><b>Example Request:</b><br />
+   * GET pentaho/api/scheduler/getJobsStream<br />
+   * Accept: application/x-jackson-smile<br />
+   * Accept-Encoding: gzip
+   * </p>
+   *
+   * @param accept         The Accept header: application/json (the default), application/xml or
+   *                       application/x-jackson-smile.
+   * @param acceptEncoding The Accept-Encoding header; gzip compresses the response.
+   * @return A jax-rs Response object streaming the jobs.
+   */
+  @GET
+  @Path( "/getJobsStream" )
+  @Produces( { APPLICATION_JSON, APPLICATION_XML, JobListWriter.APPLICATION_SMILE } )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Jobs retrieved successfully." ),
+    @ResponseCode( code = 403, condition = "The user may not view schedules." ),
+    @ResponseCode( code = 500, condition = "Error while retrieving jobs." ),
+  } )
+  public Response getJobsStream( @HeaderParam( HttpHeaders.ACCEPT ) String accept,
+                                 @HeaderParam( HttpHeaders.ACCEPT_ENCODING ) String acceptEncoding ) {
+    // checked up front, as nothing but a broken stream can report an error once the response is being written
+    if ( !schedulerService.canListJobs() ) {
+      return buildStatusResponse( FORBIDDEN );
+    }
+
+    JobListWriter.Format format = JobListWriter.Format.fromAccept( accept );
+    boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase( Locale.ROOT ).contains( GZIP );
+    StreamingOutput entity = out -> {
+      if ( gzip ) {
+        GZIPOutputStream gzipOut = new GZIPOutputStream( out, GZIP_BUFFER_SIZE );
+        getJobListWriter().write( format, schedulerService::forEachJob, gzipOut );
+        gzipOut.finish();
+      } else {
+        getJobListWriter().write( format, schedulerService::forEachJob, out );
+      }
+    };
+
+    Response.ResponseBuilder response = Response.ok( entity, format.getMediaType() );
+    if ( gzip ) {
+      response.header( HttpHeaders.CONTENT_ENCODING, GZIP );
+    }
+    return response.header( HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING ).build();
+  }
+
+  /**
+   * Retrieve one page of the run history of a job, latest run first. Administrators may read the history of any job,
+   * other users only that of their own jobs. Runs skipped because of a blockout are listed with the status BLOCKED.
+   *
+   * <p><b>Example Request:</b><br />
+   * GET pentaho/api/scheduler/jobHistory?jobId=admin%09JobName%091410786491777&amp;offset=0&amp;limit=2
+   * </p>
+   *
+   * <p><b>Example Response:</b></p>
+   * <pre function="syntax.xml">
+   *   &lt;jobHistoryPage&gt;
+   *     &lt;execution&gt;
+   *       &lt;jobId&gt;admin JobName 1410786491777&lt;/jobId&gt;
+   *       &lt;start&gt;2014-08-18T12:47:00.012-04:00&lt;/start&gt;
+   *       &lt;end&gt;2014-08-18T12:47:03.415-04:00&lt;/end&gt;
+   *       &lt;status&gt;SUCCEEDED&lt;/status&gt;
+   *       &lt;duration&gt;3403&lt;/duration&gt;
+   *       &lt;node&gt;pentaho-1&lt;/node&gt;
+   *       &lt;outputPath&gt;/home/admin/JobName.*&lt;/outputPath&gt;
+   *     &lt;/execution&gt;
+   *     ...
+   *     &lt;offset&gt;0&lt;/offset&gt;
+   *     &lt;limit&gt;2&lt;/limit&gt;
+   *     &lt;totalCount&gt;37&lt;/totalCount&gt;
+   *   &lt;/jobHistoryPage&gt;
+   * </pre>
+   *
+   * @param jobId  The id of the job.
+   * @param offset Index of the first run of the page.
+   * @param limit  Maximum number of runs of the page, at most 1000.
+   * @return A jax-rs Response object with the page of runs and the number of runs kept for the job.
+   */
+  @GET
+  @Path( "/jobHistory" )
+  @Produces( { APPLICATION_JSON, APPLICATION_XML } )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Job history retrieved successfully." ),
+    @ResponseCode( code = 403, condition = "The user may not view the job." ),
+    @ResponseCode( code = 500, condition = "Error while retrieving the job history." )
+  } )
+  public Response getJobHistory( @QueryParam( "jobId" ) String jobId,
+                                 @DefaultValue( "0" ) @QueryParam( "offset" ) int offset,
+                                 @DefaultValue( "100" ) @QueryParam( "limit" ) int limit ) {
+    try {
+      return buildOkResponse( schedulerService.getJobHistory( jobId, offset, limit ) );
+    } catch ( IllegalAccessException e ) {
+      return buildStatusResponse( FORBIDDEN );
+    } catch ( SchedulerException e ) {
+      throw new RuntimeException( e );
+    }
+  }
+
+  /**
+   * Retrieve the runtime statistics of the scheduler: how late jobs start, how long they run per action, how many were
+   * skipped by a blockout, failed or were restarted, how busy the thread pool is and how long listing the jobs takes.
+   * Durations are in milliseconds, except for the job listing which is in microseconds.
+   *
+   * <p><b>Example Request:</b><br />
+   * GET pentaho/api/scheduler/metrics
+   * </p>
+   *
+   * <p><b>Example Response:</b></p>
+   * <pre function="syntax.json">
+   *   {
+   *     "threadPool": { "size": 10, "running": 2, "peakRunning": 7, "saturation": 0.2 },
+   *     "fireLagMillis": { "count": 120, "sum": 960, "max": 41, "p50": 6, "p90": 13, "p99": 41 },
+   *     "executionMillis": {
+   *       "prpt.backgroundExecution": { "count": 118, "sum": 94400, "max": 5119, "p50": 703, "p90": 1535,
+   *         "p99": 5119, "failures": 2 }
+   *     },
+   *     "jobListingMicros": { "count": 31, "sum": 40130, "max": 3583, "p50": 1151, "p90": 1791, "p99": 3583 },
+   *     "blockoutSkips": 2,
+   *     "failures": 2,
+   *     "runOnceRestarts": 0
+   *   }
+   * </pre>
+   *
+   * @return A jax-rs Response object with the metrics.
+   */
+  @GET
+  @Path( "/metrics" )
+  @Produces( APPLICATION_JSON )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Metrics retrieved successfully." ),
+    @ResponseCode( code = 403, condition = "The user is not an administrator." )
+  } )
+  public Response getMetrics() {
+    try {
+      return buildStatusResponse( Status.OK, schedulerService.getMetrics() );
+    } catch ( IllegalAccessException e ) {
+      return buildStatusResponse( FORBIDDEN );
+    }
+  }
+
+  /**
+   * Retrieve the runtime statistics of the scheduler in the Prometheus text format, for scraping. Durations are in
+   * seconds.
+   *
+   * <p><b>Example Request:</b><br />
+   * GET pentaho/api/scheduler/metrics with the header Accept: text/plain
+   * </p>
+   *
+   * <p><b>Example Response:</b></p>
+   * <pre function="syntax.txt">
+   *   # HELP pentaho_scheduler_running_jobs Number of jobs currently running.
+   *   # TYPE pentaho_scheduler_running_jobs gauge
+   *   pentaho_scheduler_running_jobs 2
+   *   ...
+   * </pre>
+   *
+   * @return A jax-rs Response object with the metrics.
+   */
+  @GET
+  @Path( "/metrics" )
+  @Produces( TEXT_PLAIN )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Metrics retrieved successfully." ),
+    @ResponseCode( code = 403, condition = "The user is not an administrator." )
+  } )
+  public Response getPrometheusMetrics() {
+    try {
+      return buildPlainTextOkResponse( schedulerService.getPrometheusMetrics() );
+    } catch ( IllegalAccessException e ) {
+      return buildStatusResponse( FORBIDDEN );
+    }
+  }
+
   public List<IJob> getJobsList() {
     try {
       return schedulerService.getJobs();
@@ -1066,7 +1334,9 @@ public class SchedulerResource implements ISchedulerResource {
    *
    * @param jobsRequest A JobsRequest object containing a list of jobIds.
    * @return A jax-rs Response object containing all the scheduled jobs ids and their new status.
+   * @deprecated use "POST pentaho/api/scheduler/deleteJobs" instead.
    */
+  @Deprecated
   @POST
   @Path( "/removeJobs" )
   @Produces( { APPLICATION_XML, APPLICATION_JSON } )
@@ -1077,29 +1347,189 @@ public class SchedulerResource implements ISchedulerResource {
   } )
   public JobsResponse removeJobs( JobsRequest jobsRequest ) {
     logDeprecationWarning( "POST", "/removeJobs" );
+    return deleteJobs( jobsRequest );
+  }
+
+  /**
+   * Deletes all the specified scheduled jobs from the platform, as one batch.
+   *
+   * <p><b>Example Request:</b><br />
+   * POST pentaho/api/scheduler/deleteJobs
+   * </p>
+   * <br /><b>POST data:</b>
+   * <pre function="syntax.json">
+   *   &lt;jobsRequest&gt;
+   *     &lt;jobIds&gt;
+   *       &lt;jobId&gt;admin  JobName 1410786491777&lt;/jobId&gt;
+   *       &lt;jobId&gt;admin  JobName 1410786491503&lt;/jobId&gt;
+   *     &lt;/jobIds&gt;
+   *   &lt;/jobsRequest&gt;
+   * </pre>
+   *
+   * <p><b>Example Response:</b></p>
+   * <pre function="syntax.xml">
+   *   &lt;JobsResponse&gt;
+   *     &lt;changes&gt;
+   *       &lt;entry&gt;
+   *         &lt;key&gt;admin  JobName 1410786491777&lt;/key&gt;
+   *         &lt;value&gt;REMOVED&lt;/value&gt;
+   *       &lt;/entry&gt;
+   *       &lt;entry&gt;
+   *         &lt;key&gt;admin  JobName 1410786491503&lt;/key&gt;
+   *         &lt;value&gt;UNKNOWN_ERROR&lt;/value&gt;
+   *       &lt;/entry&gt;
+   *     &lt;/changes&gt;
+   *   &lt;/JobsResponse&gt;
+   * </pre>
+   *
+   * @param jobsRequest A JobsRequest object containing a list of jobIds.
+   * @return A JobsResponse object containing all the scheduled jobs ids and their new status.
+   */
+  @POST
+  @Path( "/deleteJobs" )
+  @Produces( { APPLICATION_XML, APPLICATION_JSON } )
+  @Consumes( { APPLICATION_XML, APPLICATION_JSON } )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Successfully returned the all the jobs new states." ),
+    @ResponseCode( code = 500, condition = "Invalid request or server error." )
+  } )
+  public JobsResponse deleteJobs( JobsRequest jobsRequest ) {
     try {
-      return removeJobs( jobsRequest.getJobIds() );
+      return schedulerService.removeJobs( jobsRequest.getJobIds() );
     } catch ( Exception e ) {
       throw new RuntimeException( e );
     }
   }
 
-  private JobsResponse removeJobs( List<String> jobIds ) {
-    JobsResponse response = new JobsResponse();
-
-    for ( String jobId : jobIds ) {
-      String newState;
-
-      try {
-        newState = deleteJob( jobId );
-      } catch ( Exception e ) {
-        newState = ERROR_JOB_STATE;
-      }
+  /**
+   * Pauses all the specified scheduled jobs, as one batch.
+   *
+   * <p><b>Example Request:</b><br />
+   * POST pentaho/api/scheduler/pauseJobs
+   * </p>
+   * <br /><b>POST data:</b>
+   * <pre function="syntax.json">
+   *   &lt;jobsRequest&gt;
+   *     &lt;jobIds&gt;
+   *       &lt;jobId&gt;admin  JobName 1410786491777&lt;/jobId&gt;
+   *       &lt;jobId&gt;admin  JobName 1410786491503&lt;/jobId&gt;
+   *     &lt;/jobIds&gt;
+   *   &lt;/jobsRequest&gt;
+   * </pre>
+   *
+   * <p><b>Example Response:</b></p>
+   * <pre function="syntax.xml">
+   *   &lt;JobsResponse&gt;
+   *     &lt;changes&gt;
+   *       &lt;entry&gt;
+   *         &lt;key&gt;admin  JobName 1410786491777&lt;/key&gt;
+   *         &lt;value&gt;PAUSED&lt;/value&gt;
+   *       &lt;/entry&gt;
+   *       &lt;entry&gt;
+   *         &lt;key&gt;admin  JobName 1410786491503&lt;/key&gt;
+   *         &lt;value&gt;UNKNOWN_ERROR&lt;/value&gt;
+   *       &lt;/entry&gt;
+   *     &lt;/changes&gt;
+   *   &lt;/JobsResponse&gt;
+   * </pre>
+   *
+   * @param jobsRequest A JobsRequest object containing a list of jobIds.
+   * @return A JobsResponse object containing all the scheduled jobs ids and their new status.
+   */
+  @POST
+  @Path( "/pauseJobs" )
+  @Produces( { APPLICATION_XML, APPLICATION_JSON } )
+  @Consumes( { APPLICATION_XML, APPLICATION_JSON } )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Successfully returned the all the jobs new states." ),
+    @ResponseCode( code = 500, condition = "Invalid request or server error." )
+  } )
+  public JobsResponse pauseJobs( JobsRequest jobsRequest ) {
+    return schedulerService.pauseJobs( jobsRequest.getJobIds() );
+  }
 
-      response.addChanges( jobId, newState );
-    }
+  /**
+   * Resumes all the specified scheduled jobs, as one batch.
+   *
+   * <p><b>Example Request:</b><br />
+   * POST pentaho/api/scheduler/resumeJobs
+   * </p>
+   * <br /><b>POST data:</b>
+   * <pre function="syntax.json">
+   *   &lt;jobsRequest&gt;
+   *     &lt;jobIds&gt;
+   *       &lt;jobId&gt;admin  JobName 1410786491777&lt;/jobId&gt;
+   *     &lt;/jobIds&gt;
+   *   &lt;/jobsRequest&gt;
+   * </pre>
+   *
+   * <p><b>Example Response:</b></p>
+   * <pre function="syntax.xml">
+   *   &lt;JobsResponse&gt;
+   *     &lt;changes&gt;
+   *       &lt;entry&gt;
+   *         &lt;key&gt;admin  JobName 1410786491777&lt;/key&gt;
+   *         &lt;value&gt;NORMAL&lt;/value&gt;
+   *       &lt;/entry&gt;
+   *     &lt;/changes&gt;
+   *   &lt;/JobsResponse&gt;
+   * </pre>
+   *
+   * @param jobsRequest A JobsRequest object containing a list of jobIds.
+   * @return A JobsResponse object containing all the scheduled jobs ids and their new status.
+   */
+  @POST
+  @Path( "/resumeJobs" )
+  @Produces( { APPLICATION_XML, APPLICATION_JSON } )
+  @Consumes( { APPLICATION_XML, APPLICATION_JSON } )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Successfully returned the all the jobs new states." ),
+    @ResponseCode( code = 500, condition = "Invalid request or server error." )
+  } )
+  public JobsResponse resumeJobs( JobsRequest jobsRequest ) {
+    return schedulerService.resumeJobs( jobsRequest.getJobIds() );
+  }
 
-    return response;
+  /**
+   * Executes all the specified scheduled jobs immediately.
+   *
+   * <p><b>Example Request:</b><br />
+   * POST pentaho/api/scheduler/triggerJobsNow
+   * </p>
+   * <br /><b>POST data:</b>
+   * <pre function="syntax.json">
+   *   &lt;jobsRequest&gt;
+   *     &lt;jobIds&gt;
+   *       &lt;jobId&gt;admin  JobName 1410786491777&lt;/jobId&gt;
+   *     &lt;/jobIds&gt;
+   *   &lt;/jobsRequest&gt;
+   * </pre>
+   *
+   * <p><b>Example Response:</b></p>
+   * <pre function="syntax.xml">
+   *   &lt;JobsResponse&gt;
+   *     &lt;changes&gt;
+   *       &lt;entry&gt;
+   *         &lt;key&gt;admin  JobName 1410786491777&lt;/key&gt;
+   *         &lt;value&gt;NORMAL&lt;/value&gt;
+   *       &lt;/entry&gt;
+   *     &lt;/changes&gt;
+   *   &lt;/JobsResponse&gt;
+   * </pre>
+   *
+   * @param jobsRequest A JobsRequest object containing a list of jobIds.
+   * @return A JobsResponse object containing all the scheduled jobs ids and their status.
+   */
+  @POST
+  @Path( "/triggerJobsNow" )
+  @Produces( { APPLICATION_XML, APPLICATION_JSON } )
+  @Consumes( { APPLICATION_XML, APPLICATION_JSON } )
+  @StatusCodes( {
+    @ResponseCode( code = 200, condition = "Successfully returned the all the jobs states." ),
+    @ResponseCode( code = 500, condition = "Invalid request or server error." )
+  } )
+  public JobsResponse triggerNow( JobsRequest jobsRequest ) {
+    return schedulerService.triggerNow( jobsRequest.getJobIds() );
   }
 
   /**
@@ -1710,6 +2140,10 @@ public class SchedulerResource implements ISchedulerResource {
     return new JobRequest();
   }
 
+  protected JobListWriter getJobListWriter() {
+    return new JobListWriter();
+  }
+
   protected IJobTrigger convertScheduleRequestToJobTrigger( JobScheduleRequest request ) throws SchedulerException {
     return SchedulerResourceUtil.convertScheduleRequestToJobTrigger( request, schedulerService.getScheduler() );
   }
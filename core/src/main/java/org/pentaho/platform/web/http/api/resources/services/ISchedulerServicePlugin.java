@@ -21,12 +21,17 @@ import org.pentaho.platform.api.scheduler2.Job;
 import org.pentaho.platform.api.scheduler2.JobState;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
 import org.pentaho.platform.web.http.api.proxies.BlockStatusProxy;
+import org.pentaho.platform.web.http.api.resources.JobHistoryPage;
+import org.pentaho.platform.web.http.api.resources.JobPage;
 import org.pentaho.platform.web.http.api.resources.JobRequest;
 import org.pentaho.platform.web.http.api.resources.JobScheduleRequest;
+import org.pentaho.platform.web.http.api.resources.JobsResponse;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Interface for pentaho platform scheduling service with focus
@@ -55,6 +60,18 @@ public interface ISchedulerServicePlugin {
 
   List<IJob> getJobs() throws SchedulerException, IllegalAccessException;
 
+  JobPage getJobs( JobQuery query ) throws SchedulerException, IllegalAccessException;
+
+  boolean canListJobs();
+
+  void forEachJob( Consumer<IJob> consumer ) throws SchedulerException, IllegalAccessException;
+
+  JobHistoryPage getJobHistory( String jobId, int offset, int limit ) throws SchedulerException, IllegalAccessException;
+
+  Map<String, Object> getMetrics() throws IllegalAccessException;
+
+  String getPrometheusMetrics() throws IllegalAccessException;
+
   boolean isScheduleAllowed( String id );
 
   String doGetCanSchedule();
@@ -77,6 +94,14 @@ public interface ISchedulerServicePlugin {
 
   boolean removeJob( String jobId ) throws SchedulerException;
 
+  JobsResponse removeJobs( List<String> jobIds );
+
+  JobsResponse pauseJobs( List<String> jobIds );
+
+  JobsResponse resumeJobs( List<String> jobIds );
+
+  JobsResponse triggerNow( List<String> jobIds );
+
   IJob getJob( String jobId ) throws SchedulerException;
 
   IJob getJobInfo( String jobId ) throws SchedulerException;
@@ -0,0 +1,359 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.http.api.resources.services;
+
+import org.apache.commons.lang.StringUtils;
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.IJob;
+import org.pentaho.platform.api.scheduler2.IJobFilter;
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.api.scheduler2.wrappers.ITimeWrapper;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+import org.pentaho.platform.scheduler2.recur.IncrementalRecurrence;
+import org.pentaho.platform.scheduler2.recur.QualifiedDayOfWeek;
+import org.pentaho.platform.scheduler2.recur.RecurrenceList;
+import org.pentaho.platform.scheduler2.recur.SequentialRecurrence;
+import org.pentaho.platform.util.ActionUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Filters, sort order and page of a schedule listing, as offered by the schedules page of the user console. The
+ * filters mirror the ones of its filter dialog: next run range, resource name, owner, state and schedule type.
+ */
+public class JobQuery implements IJobFilter {
+
+  public static final int DEFAULT_LIMIT = 100;
+
+  public static final int MAX_LIMIT = 1000;
+
+  private static final String OUTPUT_FILE_SEPARATOR = ":output file\\s*=|:outputFile\\s*=";
+
+  private static final String INPUT_FILE_SEPARATOR = "input file =";
+
+  /**
+   * Never listed on the schedules page, it has a page of its own
+   */
+  private static final String CONTENT_CLEANER_RESOURCE = "GeneratedContentCleaner";
+
+  private static final List<Integer> WORK_DAYS = Arrays.asList( ComplexJobTrigger.MONDAY, ComplexJobTrigger.TUESDAY,
+    ComplexJobTrigger.WEDNESDAY, ComplexJobTrigger.THURSDAY, ComplexJobTrigger.FRIDAY );
+
+  public enum SortField {
+    NEXT_RUN( IJob::getNextRun ),
+    LAST_RUN( IJob::getLastRun ),
+    NAME( IJob::getJobName ),
+    OWNER( IJob::getUserName ),
+    STATE( job -> job.getState() == null ? null : job.getState().name() );
+
+    private final Function<IJob, Comparable<?>> key;
+
+    SortField( Function<IJob, Comparable<?>> key ) {
+      this.key = key;
+    }
+  }
+
+  private int offset;
+
+  private int limit = DEFAULT_LIMIT;
+
+  private SortField sortBy = SortField.NAME;
+
+  private boolean ascending = true;
+
+  private Date nextRunAfter;
+
+  private Date nextRunBefore;
+
+  private String resourceName;
+
+  private String userName;
+
+  private String state;
+
+  private String scheduleType;
+
+  public int getOffset() {
+    return offset;
+  }
+
+  public void setOffset( int offset ) {
+    this.offset = Math.max( 0, offset );
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  /**
+   * @param limit the page size, capped at {@link #MAX_LIMIT}; anything below one selects {@link #DEFAULT_LIMIT}
+   */
+  public void setLimit( int limit ) {
+    this.limit = limit < 1 ? DEFAULT_LIMIT : Math.min( limit, MAX_LIMIT );
+  }
+
+  public SortField getSortBy() {
+    return sortBy;
+  }
+
+  public void setSortBy( SortField sortBy ) {
+    this.sortBy = sortBy == null ? SortField.NAME : sortBy;
+  }
+
+  /**
+   * @param sortBy the name of a {@link SortField}, case insensitive
+   * @throws IllegalArgumentException if there is no such field
+   */
+  public void setSortBy( String sortBy ) {
+    setSortBy( StringUtils.isEmpty( sortBy ) ? null : SortField.valueOf( sortBy.toUpperCase( Locale.ROOT ) ) );
+  }
+
+  public boolean isAscending() {
+    return ascending;
+  }
+
+  public void setAscending( boolean ascending ) {
+    this.ascending = ascending;
+  }
+
+  public Date getNextRunAfter() {
+    return nextRunAfter;
+  }
+
+  public void setNextRunAfter( Date nextRunAfter ) {
+    this.nextRunAfter = nextRunAfter;
+  }
+
+  public Date getNextRunBefore() {
+    return nextRunBefore;
+  }
+
+  public void setNextRunBefore( Date nextRunBefore ) {
+    this.nextRunBefore = nextRunBefore;
+  }
+
+  public String getResourceName() {
+    return resourceName;
+  }
+
+  public void setResourceName( String resourceName ) {
+    this.resourceName = resourceName;
+  }
+
+  public String getUserName() {
+    return userName;
+  }
+
+  public void setUserName( String userName ) {
+    this.userName = userName;
+  }
+
+  public String getState() {
+    return state;
+  }
+
+  public void setState( String state ) {
+    this.state = state;
+  }
+
+  public String getScheduleType() {
+    return scheduleType;
+  }
+
+  public void setScheduleType( String scheduleType ) {
+    this.scheduleType = scheduleType;
+  }
+
+  /**
+   * Applies the filters of the query. The ones that only need the job data are checked first, so that the trigger of
+   * a job is only looked at if the job is still a candidate.
+   */
+  @Override
+  public boolean accept( IJob job ) {
+    if ( StringUtils.isNotEmpty( userName ) && !userName.equalsIgnoreCase( job.getUserName() ) ) {
+      return false;
+    }
+
+    String inputFilePath = getInputFilePath( job );
+    if ( CONTENT_CLEANER_RESOURCE.equals( inputFilePath ) ) {
+      return false;
+    }
+
+    if ( StringUtils.isNotEmpty( resourceName ) && !StringUtils.containsIgnoreCase( getShortResourceName(
+      inputFilePath ), resourceName ) ) {
+      return false;
+    }
+
+    if ( nextRunAfter != null && ( job.getNextRun() == null || !job.getNextRun().after( nextRunAfter ) ) ) {
+      return false;
+    }
+
+    if ( nextRunBefore != null && ( job.getNextRun() == null || !job.getNextRun().before( nextRunBefore ) ) ) {
+      return false;
+    }
+
+    if ( StringUtils.isNotEmpty( state ) && ( job.getState() == null || !state.equalsIgnoreCase( job.getState()
+      .name() ) ) ) {
+      return false;
+    }
+
+    if ( StringUtils.isNotEmpty( scheduleType ) ) {
+      IJobTrigger trigger = job.getJobTrigger();
+      return trigger != null && scheduleType.equalsIgnoreCase( getScheduleType( trigger ) );
+    }
+
+    return true;
+  }
+
+  /**
+   * @return the order of the query; jobs without a value for the sort field come last
+   */
+  @SuppressWarnings( { "unchecked", "rawtypes" } )
+  public Comparator<IJob> getComparator() {
+    Comparator<Comparable> natural = Comparator.naturalOrder();
+    Comparator<IJob> comparator = Comparator.comparing( job -> (Comparable) sortBy.key.apply( job ),
+      Comparator.nullsLast( ascending ? natural : natural.reversed() ) );
+    return comparator.thenComparing( IJob::getJobId, Comparator.nullsLast( Comparator.naturalOrder() ) );
+  }
+
+  /**
+   * Resolves the repository path a job runs, the way the schedules page does: jobs scheduled from the user console
+   * carry it on its own, the ones scheduled from PDI only as part of the stream provider description.
+   */
+  static String getInputFilePath( IJob job ) {
+    Object inputPath = job.getJobParams().get( ActionUtil.QUARTZ_STREAMPROVIDER_INPUT_FILE );
+    if ( inputPath != null && !inputPath.toString().isEmpty() ) {
+      return inputPath.toString();
+    }
+
+    Object streamProvider = job.getJobParams().get( IScheduler.RESERVEDMAPKEY_STREAMPROVIDER );
+    String resource = streamProvider == null ? null : streamProvider.toString();
+    if ( resource == null || resource.isEmpty() ) {
+      return job.getJobName();
+    }
+
+    // Match on the full separator to avoid issues for paths with colons
+    String inputPart = resource.split( OUTPUT_FILE_SEPARATOR )[ 0 ];
+    int inputStart = inputPart.indexOf( INPUT_FILE_SEPARATOR );
+    if ( inputStart == -1 ) {
+      return job.getJobName();
+    }
+
+    return inputPart.substring( inputStart + INPUT_FILE_SEPARATOR.length() ).trim();
+  }
+
+  /**
+   * Resolves the schedule type the schedules page shows for a trigger. Triggers created before the user console
+   * passed one along, or by other clients, have no ui pass param; their type is derived from the recurrence the same
+   * way <code>JsJobTrigger.calcScheduleType</code> does.
+   */
+  static String getScheduleType( IJobTrigger trigger ) {
+    if ( StringUtils.isNotEmpty( trigger.getUiPassParam() ) ) {
+      return trigger.getUiPassParam();
+    }
+
+    if ( trigger instanceof ComplexJobTrigger ) {
+      ComplexJobTrigger complexTrigger = (ComplexJobTrigger) trigger;
+      if ( !getValues( complexTrigger.getMonthlyRecurrences() ).isEmpty() ) {
+        return "YEARLY";
+      } else if ( !getValues( complexTrigger.getDayOfMonthRecurrences() ).isEmpty() ) {
+        return "MONTHLY";
+      } else if ( isQualifiedDayOfWeek( complexTrigger.getDayOfWeekRecurrences() ) ) {
+        return "MONTHLY";
+      } else if ( WORK_DAYS.equals( getValues( complexTrigger.getDayOfWeekRecurrences() ) ) ) {
+        return "DAILY";
+      }
+      return "WEEKLY";
+    } else if ( trigger instanceof SimpleJobTrigger ) {
+      long repeatInterval = ( (SimpleJobTrigger) trigger ).getRepeatInterval();
+      if ( repeatInterval <= 0 ) {
+        return QuartzScheduler.UI_PASS_PARAM_RUN_ONCE;
+      } else if ( repeatInterval % 604800 == 0 ) {
+        return "WEEKLY";
+      } else if ( repeatInterval % 86400 == 0 ) {
+        return "DAILY";
+      } else if ( repeatInterval % 3600 == 0 ) {
+        return "HOURS";
+      } else if ( repeatInterval % 60 == 0 ) {
+        return "MINUTES";
+      }
+      return "SECONDS";
+    }
+    return "CRON";
+  }
+
+  /**
+   * @return the values of the first recurrence, as the user console reads them: a list of values, the range of a
+   * sequence or the increment of an incremental recurrence
+   */
+  private static List<Integer> getValues( ITimeWrapper wrapper ) {
+    if ( wrapper == null || wrapper.getRecurrences() == null || wrapper.getRecurrences().isEmpty() ) {
+      return Collections.emptyList();
+    }
+
+    Object recurrence = wrapper.getRecurrences().get( 0 );
+    if ( recurrence instanceof RecurrenceList && ( (RecurrenceList) recurrence ).getValues() != null ) {
+      return ( (RecurrenceList) recurrence ).getValues();
+    } else if ( recurrence instanceof SequentialRecurrence ) {
+      SequentialRecurrence sequence = (SequentialRecurrence) recurrence;
+      if ( sequence.getFirstValue() == null || sequence.getLastValue() == null ) {
+        return Collections.emptyList();
+      }
+      List<Integer> values = new ArrayList<>();
+      int lastValue = Integer.parseInt( sequence.getLastValue().toString() );
+      for ( int value = Integer.parseInt( sequence.getFirstValue().toString() ); value <= lastValue; value++ ) {
+        values.add( value );
+      }
+      return values;
+    } else if ( recurrence instanceof IncrementalRecurrence
+      && ( (IncrementalRecurrence) recurrence ).getIncrement() != null ) {
+      return Collections.singletonList( Integer.valueOf( String.valueOf( ( (IncrementalRecurrence) recurrence )
+        .getIncrement() ) ) );
+    }
+    return Collections.emptyList();
+  }
+
+  private static boolean isQualifiedDayOfWeek( ITimeWrapper wrapper ) {
+    if ( wrapper == null || wrapper.getRecurrences() == null || wrapper.getRecurrences().size() != 1
+      || !( wrapper.getRecurrences().get( 0 ) instanceof QualifiedDayOfWeek ) ) {
+      return false;
+    }
+    QualifiedDayOfWeek qualifiedDayOfWeek = (QualifiedDayOfWeek) wrapper.getRecurrences().get( 0 );
+    return qualifiedDayOfWeek.getQualifier() != null && qualifiedDayOfWeek.getDayOfWeek() != null;
+  }
+
+  /**
+   * @return the resource name the schedules page shows for a job, or null for a job it never lists
+   */
+  static String getResourceName( IJob job ) {
+    String inputFilePath = getInputFilePath( job );
+    return CONTENT_CLEANER_RESOURCE.equals( inputFilePath ) ? null : getShortResourceName( inputFilePath );
+  }
+
+  static String getShortResourceName( String inputFilePath ) {
+    if ( inputFilePath == null ) {
+      return "";
+    }
+    return inputFilePath.substring( inputFilePath.lastIndexOf( '/' ) + 1 );
+  }
+}
@@ -33,6 +33,7 @@ import org.pentaho.platform.api.scheduler2.IBackgroundExecutionStreamProvider;
 import org.pentaho.platform.api.scheduler2.IBlockoutManager;
 import org.pentaho.platform.api.scheduler2.IJob;
 import org.pentaho.platform.api.scheduler2.IJobFilter;
+import org.pentaho.platform.api.scheduler2.IJobResult;
 import org.pentaho.platform.api.scheduler2.IJobScheduleParam;
 import org.pentaho.platform.api.scheduler2.IJobTrigger;
 import org.pentaho.platform.api.scheduler2.IScheduler;
@@ -43,6 +44,11 @@ import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.engine.security.SecurityHelper;
 import org.pentaho.platform.scheduler2.blockout.BlockoutAction;
+import org.pentaho.platform.scheduler2.history.JobExecutionRecord;
+import org.pentaho.platform.scheduler2.metrics.SchedulerMetrics;
+import org.pentaho.platform.scheduler2.quartz.JobLocks;
+import org.pentaho.platform.scheduler2.quartz.QuartzJobKey;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
 import org.pentaho.platform.security.policy.rolebased.actions.AdministerSecurityAction;
 import org.pentaho.platform.security.policy.rolebased.actions.SchedulerAction;
 import org.pentaho.platform.security.policy.rolebased.actions.SchedulerExecuteAction;
@@ -50,11 +56,15 @@ import org.pentaho.platform.util.ActionUtil;
 import org.pentaho.platform.util.messages.LocaleHelper;
 import org.pentaho.platform.web.http.api.proxies.BlockStatusProxy;
 import org.pentaho.platform.web.http.api.resources.ComplexJobTriggerProxy;
+import org.pentaho.platform.web.http.api.resources.JobHistoryPage;
+import org.pentaho.platform.web.http.api.resources.JobPage;
 import org.pentaho.platform.web.http.api.resources.JobRequest;
 import org.pentaho.platform.web.http.api.resources.JobScheduleParam;
 import org.pentaho.platform.web.http.api.resources.JobScheduleRequest;
+import org.pentaho.platform.web.http.api.resources.JobsResponse;
 import org.pentaho.platform.web.http.api.resources.RepositoryFileStreamProvider;
 import org.pentaho.platform.web.http.api.resources.SchedulerOutputPathResolver;
+import org.pentaho.platform.web.http.api.resources.SchedulerResource;
 import org.pentaho.platform.web.http.api.resources.SchedulerResourceUtil;
 import org.pentaho.platform.web.http.api.resources.SessionResource;
 
@@ -63,11 +73,19 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
 
 import com.google.common.annotations.VisibleForTesting;
 
@@ -238,6 +256,10 @@ public class SchedulerService implements ISchedulerServicePlugin {
       parameterMap.put( "logLevel", scheduleRequest.getLogLevel() );
     }
 
+    if ( scheduleRequest.getPriority() != null ) {
+      parameterMap.put( QuartzScheduler.RESERVEDMAPKEY_PRIORITY, scheduleRequest.getPriority() );
+    }
+
     if ( inputFile.isPresent() ) {
       String fileName = inputFile.get().getName();
       if ( isPdiFile( fileName ) ) {
@@ -306,19 +328,29 @@ public class SchedulerService implements ISchedulerServicePlugin {
   }
 
   @Override
-  public synchronized Job updateJob( JobScheduleRequest scheduleRequest )
+  public Job updateJob( JobScheduleRequest scheduleRequest )
     throws IllegalAccessException, IOException, SchedulerException {
-    Job job = (Job) getJob( scheduleRequest.getJobId() );
-
-    if ( job != null ) {
-      addJobScheduleParam( scheduleRequest, getJobScheduleParam( IScheduler.RESERVEDMAPKEY_ACTIONUSER, job
-        .getUserName() ) );
-    }
+    Lock jobLock = getJobLock( scheduleRequest.getJobId() );
+    jobLock.lock();
+    try {
+      Job job = (Job) getJob( scheduleRequest.getJobId() );
+
+      if ( job != null ) {
+        addJobScheduleParam( scheduleRequest, getJobScheduleParam( IScheduler.RESERVEDMAPKEY_ACTIONUSER, job
+          .getUserName() ) );
+        // editors that do not know about priorities keep the one of the schedule
+        if ( scheduleRequest.getPriority() == null && job.getJobParams() != null ) {
+          scheduleRequest.setPriority( QuartzScheduler.getPriority( job.getJobParams() ) );
+        }
+      }
 
-    Job newJob = createJob( scheduleRequest );
-    removeJob( scheduleRequest.getJobId() );
+      Job newJob = createJob( scheduleRequest );
+      removeJob( scheduleRequest.getJobId() );
 
-    return newJob;
+      return newJob;
+    } finally {
+      jobLock.unlock();
+    }
   }
 
   @Override
@@ -357,7 +389,7 @@ public class SchedulerService implements ISchedulerServicePlugin {
   }
 
   @Override
-  public synchronized IJob getJob( String jobId ) throws SchedulerException {
+  public IJob getJob( String jobId ) throws SchedulerException {
     return getScheduler().getJob( jobId );
   }
 
@@ -477,15 +509,226 @@ public class SchedulerService implements ISchedulerServicePlugin {
   }
 
   @Override
-  public synchronized boolean removeJob( String jobId ) throws SchedulerException {
-    Job job = (Job) getJob( jobId );
+  public boolean removeJob( String jobId ) throws SchedulerException {
+    Lock jobLock = getJobLock( jobId );
+    jobLock.lock();
+    try {
+      Job job = (Job) getJob( jobId );
 
-    if ( isScheduleAllowed() || getSession().getName().equals( job.getUserName() ) ) {
-      getScheduler().removeJob( jobId );
-      return true;
+      if ( isScheduleAllowed() || getSession().getName().equals( job.getUserName() ) ) {
+        getScheduler().removeJob( jobId );
+        return true;
+      }
+
+      return false;
+    } finally {
+      jobLock.unlock();
     }
+  }
 
-    return false;
+  /**
+   * Removes the given jobs. The ones the caller may remove are removed with a single scheduler call, while holding
+   * their job locks.
+   *
+   * @return per job, {@link SchedulerResource#REMOVED_JOB_STATE}, the unchanged state of a job the caller may not
+   * remove, or {@link SchedulerResource#ERROR_JOB_STATE}
+   */
+  @Override
+  public JobsResponse removeJobs( List<String> jobIds ) {
+    List<Lock> locks = JobLocks.getInstance().lockAll( jobIds );
+    try {
+      Map<String, String> states = controlJobs( jobIds, false, this::removeJobsFromScheduler,
+        jobId -> getScheduler().removeJob( jobId ) );
+      states.replaceAll( ( jobId, state ) -> state == null ? SchedulerResource.REMOVED_JOB_STATE : state );
+      return toJobsResponse( states );
+    } finally {
+      locks.forEach( Lock::unlock );
+    }
+  }
+
+  /**
+   * Pauses the given jobs the caller may pause.
+   *
+   * @return the state of each job afterwards, or {@link SchedulerResource#ERROR_JOB_STATE}
+   */
+  @Override
+  public JobsResponse pauseJobs( List<String> jobIds ) {
+    return toJobsResponse( getCurrentStates( controlJobs( jobIds, true, ids -> {
+      if ( getScheduler() instanceof QuartzScheduler ) {
+        ( (QuartzScheduler) getScheduler() ).pauseJobs( ids );
+      } else {
+        for ( String jobId : ids ) {
+          getScheduler().pauseJob( jobId );
+        }
+      }
+    }, jobId -> getScheduler().pauseJob( jobId ) ) ) );
+  }
+
+  /**
+   * Resumes the given jobs the caller may resume.
+   *
+   * @return the state of each job afterwards, or {@link SchedulerResource#ERROR_JOB_STATE}
+   */
+  @Override
+  public JobsResponse resumeJobs( List<String> jobIds ) {
+    return toJobsResponse( getCurrentStates( controlJobs( jobIds, true, ids -> {
+      if ( getScheduler() instanceof QuartzScheduler ) {
+        ( (QuartzScheduler) getScheduler() ).resumeJobs( ids );
+      } else {
+        for ( String jobId : ids ) {
+          getScheduler().resumeJob( jobId );
+        }
+      }
+    }, jobId -> getScheduler().resumeJob( jobId ) ) ) );
+  }
+
+  /**
+   * Runs the given jobs the caller may run. There is no batch to roll back here, so every job is triggered on its
+   * own and a failure only affects that job.
+   *
+   * @return the state of each job afterwards, or {@link SchedulerResource#ERROR_JOB_STATE}
+   */
+  @Override
+  public JobsResponse triggerNow( List<String> jobIds ) {
+    return toJobsResponse( getCurrentStates( controlJobs( jobIds, true, null,
+      jobId -> getScheduler().triggerNow( jobId ) ) ) );
+  }
+
+  private void removeJobsFromScheduler( List<String> jobIds ) throws SchedulerException {
+    if ( getScheduler() instanceof QuartzScheduler ) {
+      ( (QuartzScheduler) getScheduler() ).removeJobs( jobIds );
+    } else {
+      for ( String jobId : jobIds ) {
+        getScheduler().removeJob( jobId );
+      }
+    }
+  }
+
+  /**
+   * Applies an operation to the jobs the caller is allowed to control. The permissions are checked once for the
+   * whole request, against owners looked up for all the jobs at once; only jobs the caller may not control are
+   * loaded, to report their state. The operation is applied to the allowed jobs as one batch, and only if that batch
+   * fails is it applied job by job, so that the result tells which of the jobs failed.
+   *
+   * @param allowExecutors whether users allowed to execute schedules may control jobs they do not own
+   * @param batchOperation applies the operation to a list of jobs, or null to always go job by job
+   * @param jobOperation   applies the operation to a single job
+   * @return per job in request order, null if the operation was applied, otherwise the unchanged state of a job the
+   * caller may not control or {@link SchedulerResource#ERROR_JOB_STATE}
+   */
+  private Map<String, String> controlJobs( List<String> jobIds, boolean allowExecutors,
+                                           JobsOperation batchOperation, JobOperation jobOperation ) {
+    Map<String, String> states = new LinkedHashMap<>();
+    boolean allowed = isScheduleAllowed() || ( allowExecutors && isExecuteScheduleAllowed() );
+    String userName = allowed ? null : getSession().getName();
+
+    Map<String, String> owners;
+    try {
+      owners = getJobOwners( jobIds );
+    } catch ( Exception e ) {
+      logger.debug( "Could not look up the jobs", e );
+      owners = Collections.emptyMap();
+    }
+
+    List<String> allowedJobIds = new ArrayList<>();
+    for ( String jobId : jobIds ) {
+      if ( states.containsKey( jobId ) ) {
+        continue;
+      }
+      String owner = owners.get( jobId );
+      if ( owner == null ) {
+        states.put( jobId, SchedulerResource.ERROR_JOB_STATE );
+      } else if ( allowed || userName.equals( owner ) ) {
+        allowedJobIds.add( jobId );
+        states.put( jobId, null );
+      } else {
+        states.put( jobId, getCurrentState( jobId ) );
+      }
+    }
+
+    if ( allowedJobIds.isEmpty() ) {
+      return states;
+    }
+
+    if ( batchOperation != null ) {
+      try {
+        batchOperation.apply( allowedJobIds );
+        return states;
+      } catch ( Exception e ) {
+        logger.debug( "Batch operation failed, retrying job by job", e );
+      }
+    }
+
+    for ( String jobId : allowedJobIds ) {
+      try {
+        jobOperation.apply( jobId );
+      } catch ( Exception e ) {
+        states.put( jobId, SchedulerResource.ERROR_JOB_STATE );
+      }
+    }
+    return states;
+  }
+
+  /**
+   * Looks up the owners of the given jobs. The Quartz scheduler does so with one query per owner, since the owner of
+   * a job is part of its id; other schedulers load the jobs one by one.
+   *
+   * @return the owner of each of the jobs that exist
+   */
+  private Map<String, String> getJobOwners( List<String> jobIds ) throws SchedulerException {
+    Map<String, String> owners = new HashMap<>();
+    IScheduler scheduler = getScheduler();
+    if ( scheduler instanceof QuartzScheduler ) {
+      for ( String jobId : ( (QuartzScheduler) scheduler ).getExistingJobIds( jobIds ) ) {
+        owners.put( jobId, QuartzJobKey.parse( jobId ).getUserName() );
+      }
+      return owners;
+    }
+
+    for ( String jobId : jobIds ) {
+      try {
+        IJob job = getJob( jobId );
+        if ( job != null && job.getUserName() != null ) {
+          owners.put( jobId, job.getUserName() );
+        }
+      } catch ( Exception e ) {
+        logger.debug( "Could not look up the job " + jobId, e );
+      }
+    }
+    return owners;
+  }
+
+  /**
+   * Replaces the entries left null by {@link #controlJobs} with the state the job is in now.
+   */
+  private Map<String, String> getCurrentStates( Map<String, String> states ) {
+    states.replaceAll( ( jobId, state ) -> state != null ? state : getCurrentState( jobId ) );
+    return states;
+  }
+
+  private String getCurrentState( String jobId ) {
+    try {
+      IJob job = getJob( jobId );
+      return job == null ? SchedulerResource.ERROR_JOB_STATE : job.getState().name();
+    } catch ( Exception e ) {
+      return SchedulerResource.ERROR_JOB_STATE;
+    }
+  }
+
+  private JobsResponse toJobsResponse( Map<String, String> states ) {
+    JobsResponse response = new JobsResponse();
+    states.forEach( response::addChanges );
+    return response;
+  }
+
+  @FunctionalInterface
+  private interface JobOperation {
+    void apply( String jobId ) throws SchedulerException;
+  }
+
+  @FunctionalInterface
+  private interface JobsOperation {
+    void apply( List<String> jobIds ) throws SchedulerException;
   }
 
   @SuppressWarnings( "java:S112" )
@@ -515,7 +758,7 @@ public class SchedulerService implements ISchedulerServicePlugin {
   }
 
   @Override
-  public synchronized List<IJob> getBlockOutJobs() throws IllegalAccessException {
+  public List<IJob> getBlockOutJobs() throws IllegalAccessException {
     if ( !isScheduleAllowed() && !isExecuteScheduleAllowed() ) {
       throw new IllegalAccessException();
     }
@@ -540,7 +783,7 @@ public class SchedulerService implements ISchedulerServicePlugin {
   }
 
   @Override
-  public synchronized IJob addBlockout( JobScheduleRequest jobScheduleRequest )
+  public IJob addBlockout( JobScheduleRequest jobScheduleRequest )
     throws IOException, IllegalAccessException, SchedulerException {
     if ( canAdminister() ) {
       String jobName = BlockoutAction.class.getCanonicalName().substring( BlockoutAction.class.getCanonicalName()
@@ -590,14 +833,20 @@ public class SchedulerService implements ISchedulerServicePlugin {
   }
 
   @Override
-  public synchronized IJob updateBlockout( String jobId, JobScheduleRequest jobScheduleRequest )
+  public IJob updateBlockout( String jobId, JobScheduleRequest jobScheduleRequest )
     throws IllegalAccessException, SchedulerException, IOException {
 
     if ( canAdminister() ) {
-      boolean isJobRemoved = removeJob( jobId );
+      Lock jobLock = getJobLock( jobId );
+      jobLock.lock();
+      try {
+        boolean isJobRemoved = removeJob( jobId );
 
-      if ( isJobRemoved ) {
-        return addBlockout( jobScheduleRequest );
+        if ( isJobRemoved ) {
+          return addBlockout( jobScheduleRequest );
+        }
+      } finally {
+        jobLock.unlock();
       }
     }
 
@@ -685,6 +934,13 @@ public class SchedulerService implements ISchedulerServicePlugin {
     return scheduler;
   }
 
+  /**
+   * @return the lock serializing the changes to the job, shared by all service instances and the scheduler
+   */
+  private Lock getJobLock( String jobId ) {
+    return JobLocks.getInstance().get( jobId );
+  }
+
   public IAuthorizationPolicy getPolicy() {
     if ( policy == null ) {
       policy = PentahoSystem.get( IAuthorizationPolicy.class );
@@ -740,24 +996,162 @@ public class SchedulerService implements ISchedulerServicePlugin {
   }
 
   @Override
-  public synchronized List<IJob> getJobs() throws SchedulerException, IllegalAccessException {
-    if ( !isScheduleAllowed() && !isExecuteScheduleAllowed() ) {
+  public List<IJob> getJobs() throws SchedulerException, IllegalAccessException {
+    if ( !canListJobs() ) {
+      throw new IllegalAccessException();
+    }
+
+    return getScheduler().getJobs( getVisibleJobFilter() );
+  }
+
+  /**
+   * @return whether the current user may list jobs at all; which jobs they see depends on their other permissions
+   */
+  @Override
+  public boolean canListJobs() {
+    return isScheduleAllowed() || isExecuteScheduleAllowed();
+  }
+
+  /**
+   * Hands the jobs visible to the current user to the consumer one at a time, as the scheduler walks its store, so
+   * that a response can be written without holding the whole list.
+   */
+  @Override
+  public void forEachJob( Consumer<IJob> consumer ) throws SchedulerException, IllegalAccessException {
+    if ( !canListJobs() ) {
+      throw new IllegalAccessException();
+    }
+
+    forEachJob( getVisibleJobFilter(), consumer );
+  }
+
+  private void forEachJob( IJobFilter filter, Consumer<IJob> consumer ) throws SchedulerException {
+    IScheduler scheduler = getScheduler();
+    if ( scheduler instanceof QuartzScheduler ) {
+      ( (QuartzScheduler) scheduler ).forEachJob( filter, consumer );
+    } else {
+      scheduler.getJobs( filter ).forEach( consumer );
+    }
+  }
+
+  /**
+   * Lists one page of the jobs visible to the current user. Filtering happens while the scheduler walks its store.
+   * Sorting needs to see every match, but only the first offset + limit of them in query order are held on to, so a
+   * page costs memory in proportion to how deep it is rather than to the number of matching jobs.
+   */
+  @Override
+  public JobPage getJobs( JobQuery query ) throws SchedulerException, IllegalAccessException {
+    if ( !canListJobs() ) {
+      throw new IllegalAccessException();
+    }
+
+    IJobFilter visible = getVisibleJobFilter();
+    Set<String> owners = new TreeSet<>();
+    Set<String> resources = new TreeSet<>();
+    Comparator<IJob> order = query.getComparator();
+    int keep = (int) Math.min( (long) query.getOffset() + query.getLimit(), Integer.MAX_VALUE );
+    // the last of the jobs kept is at the head, so it is the one dropped when a job that sorts before it turns up
+    PriorityQueue<IJob> firstMatches = new PriorityQueue<>( order.reversed() );
+    AtomicInteger totalCount = new AtomicInteger();
+    forEachJob( job -> {
+      if ( !visible.accept( job ) ) {
+        return false;
+      }
+      if ( job.getUserName() != null ) {
+        owners.add( job.getUserName() );
+      }
+      String resource = JobQuery.getResourceName( job );
+      if ( StringUtils.isNotEmpty( resource ) ) {
+        resources.add( resource );
+      }
+      return query.accept( job );
+    }, job -> {
+      totalCount.incrementAndGet();
+      firstMatches.add( job );
+      if ( firstMatches.size() > keep ) {
+        firstMatches.poll();
+      }
+    } );
+
+    List<IJob> matches = new ArrayList<>( firstMatches );
+    matches.sort( order );
+    int from = Math.min( query.getOffset(), matches.size() );
+    List<Job> page = new ArrayList<>( matches.size() - from );
+    for ( IJob job : matches.subList( from, matches.size() ) ) {
+      page.add( (Job) job );
+    }
+
+    return new JobPage( page, query.getOffset(), query.getLimit(), totalCount.get(), new ArrayList<>( owners ),
+      new ArrayList<>( resources ) );
+  }
+
+  /**
+   * Lists one page of the run history of a job, latest run first. Administrators see the history of any job, other
+   * users only that of their own jobs.
+   */
+  @Override
+  public JobHistoryPage getJobHistory( String jobId, int offset, int limit )
+    throws SchedulerException, IllegalAccessException {
+    if ( !canAdminister() ) {
+      IJob job = getJob( jobId );
+      if ( job == null || !getSession().getName().equals( job.getUserName() ) ) {
+        throw new IllegalAccessException();
+      }
+    }
+
+    List<IJobResult> history = getScheduler().getJobHistory( jobId );
+    int pageSize = limit < 1 ? JobQuery.DEFAULT_LIMIT : Math.min( limit, JobQuery.MAX_LIMIT );
+    int from = Math.min( Math.max( offset, 0 ), history.size() );
+    int to = (int) Math.min( (long) from + pageSize, history.size() );
+    List<JobExecutionRecord> page = new ArrayList<>( to - from );
+    for ( IJobResult result : history.subList( from, to ) ) {
+      page.add( (JobExecutionRecord) result );
+    }
+
+    return new JobHistoryPage( page, from, pageSize, history.size() );
+  }
+
+  /**
+   * @return a snapshot of the scheduler metrics, for administrators only
+   */
+  @Override
+  public Map<String, Object> getMetrics() throws IllegalAccessException {
+    if ( !canAdminister() ) {
       throw new IllegalAccessException();
     }
+    return SchedulerMetrics.getInstance().toMap( getThreadPoolSize() );
+  }
 
+  /**
+   * @return a snapshot of the scheduler metrics in the Prometheus text format, for administrators only
+   */
+  @Override
+  public String getPrometheusMetrics() throws IllegalAccessException {
+    if ( !canAdminister() ) {
+      throw new IllegalAccessException();
+    }
+    return SchedulerMetrics.getInstance().toPrometheus( getThreadPoolSize() );
+  }
+
+  private int getThreadPoolSize() {
+    IScheduler scheduler = getScheduler();
+    return scheduler instanceof QuartzScheduler ? ( (QuartzScheduler) scheduler ).getThreadPoolSize() : -1;
+  }
+
+  private IJobFilter getVisibleJobFilter() {
     IPentahoSession session = getSession();
     // this authentication wasn't matching with the job username, changed to get name via the current session
     final String principalName = session.getName();
     final boolean canAdminister = canAdminister();
     final boolean canExecuteSchedule = isExecuteScheduleAllowed();
 
-    return getScheduler().getJobs( job -> {
+    return job -> {
       if ( canAdminister || canExecuteSchedule ) {
         return !IBlockoutManager.BLOCK_OUT_JOB_NAME.equals( job.getJobName() );
       }
 
       return principalName.equals( job.getUserName() );
-    } );
+    };
   }
 
   protected boolean canAdminister() {
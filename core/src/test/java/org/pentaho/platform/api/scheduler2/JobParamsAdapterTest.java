@@ -19,6 +19,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -282,6 +283,27 @@ public class JobParamsAdapterTest {
     assertJobParamArrayEquals( "", expectedJobParams.jobParams, resultJobParams.jobParams );
   }
 
+  @Test
+  public void testFlattenVisitsParamsInPriorityOrder() {
+    Map<String, Object> dataMap = new LinkedHashMap<>();
+    Map<String, Object> variables = new LinkedHashMap<>();
+    variables.put( "a", "variable" );
+    variables.put( "v", "V" );
+    dataMap.put( "variables", variables );
+    Map<String, Object> parameters = new LinkedHashMap<>();
+    parameters.put( "a", "parameter" );
+    parameters.put( "b", "parameter" );
+    parameters.put( "p", "P" );
+    dataMap.put( "parameters", parameters );
+    dataMap.put( "b", Arrays.asList( "B1", "B2" ) );
+    dataMap.put( "a", "A" );
+    List<String> visited = new ArrayList<>();
+
+    JobParamsAdapter.flatten( dataMap, ( name, value ) -> visited.add( name + "=" + value ) );
+
+    assertEquals( Arrays.asList( "a=A", "b=B1", "b=B2", "p=P", "v=V" ), visited );
+  }
+
   JobParam createJobParam( String n, String v ) {
     JobParam r = new JobParam();
     r.name = n;
@@ -40,6 +40,7 @@ import org.pentaho.platform.plugin.services.importexport.Log4JRepositoryExportLo
 import org.pentaho.platform.plugin.services.importexport.RepositoryTextLayout;
 import org.pentaho.platform.plugin.services.importexport.exportManifest.ExportManifest;
 import org.pentaho.platform.plugin.services.importexport.legacy.MondrianCatalogRepositoryHelper;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
 import org.pentaho.platform.web.http.api.resources.JobScheduleRequest;
 import org.pentaho.platform.web.http.api.resources.RepositoryFileStreamProvider;
 
@@ -49,14 +50,20 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -320,6 +327,21 @@ public class ScheduleExportUtilTest {
     assertEquals( timeZone, jobScheduleRequest.getTimeZone() );
   }
 
+  @Test
+  public void testCreateJobScheduleRequest_PriorityJobParam() throws ExportException {
+    Map<String, Object> params = new HashMap<>();
+    params.put( QuartzScheduler.RESERVEDMAPKEY_PRIORITY, 8 );
+
+    Job job = mock( Job.class );
+    CronJobTrigger trigger = mock( CronJobTrigger.class );
+    when( job.getJobTrigger() ).thenReturn( trigger );
+    when( job.getJobName() ).thenReturn( "JOB" );
+    when( job.getJobParams() ).thenReturn( params );
+
+    ScheduleExportUtil.createJobScheduleRequest( job );
+    verify( jobScheduleRequest ).setPriority( 8 );
+  }
+
   @Test
   public void testCreateJobScheduleRequest_MultipleTypesJobParam() throws ExportException {
     String jobName = "JOB";
@@ -390,6 +412,63 @@ public class ScheduleExportUtilTest {
     assertEquals( 2, exportManifest.getScheduleList().size() );
   }
 
+  @Test
+  @SuppressWarnings( "unchecked" )
+  public void testExportSchedules_QuartzSchedulerVisitsJobs() throws Exception {
+    QuartzScheduler quartzScheduler = mock( QuartzScheduler.class );
+    pentahoSystem.when( () -> PentahoSystem.get( IScheduler.class, "IScheduler2", null ) ).thenReturn( quartzScheduler );
+    when( quartzScheduler.createJobScheduleRequest() ).thenReturn( jobScheduleRequest );
+    when( quartzScheduler.getJobCount() ).thenReturn( 2 );
+
+    Job job1 = mock( Job.class );
+    Job job2 = mock( Job.class );
+    when( job1.getJobName() ).thenReturn( "job 1" );
+    when( job1.getJobTrigger() ).thenReturn( new SimpleJobTrigger() );
+    when( job2.getJobName() ).thenReturn( "PentahoSystemVersionCheck" );
+    doAnswer( invocation -> {
+      Consumer<IJob> consumer = invocation.getArgument( 1 );
+      consumer.accept( job1 );
+      consumer.accept( job2 );
+      return null;
+    } ).when( quartzScheduler ).forEachJob( isNull(), any() );
+
+    PentahoPlatformExporter exporter = new PentahoPlatformExporter( repo );
+    exporter.setExportManifest( exportManifest );
+    IRepositoryExportLogger exportLogger = new Log4JRepositoryExportLogger();
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    exportLogger.startJob( outputStream, Level.INFO, new RepositoryTextLayout( Level.INFO ) );
+    exporter.setRepositoryExportLogger( exportLogger );
+    exporterSpy.doExport( exporter );
+    exportLogger.endJob();
+
+    verify( quartzScheduler, never() ).getJobs( any() );
+    assertEquals( 1, exportManifest.getScheduleList().size() );
+  }
+
+  @Test( expected = ExportException.class )
+  public void testExportSchedules_QuartzSchedulerPropagatesExportException() throws Exception {
+    QuartzScheduler quartzScheduler = mock( QuartzScheduler.class );
+    pentahoSystem.when( () -> PentahoSystem.get( IScheduler.class, "IScheduler2", null ) ).thenReturn( quartzScheduler );
+    Job job = mock( Job.class );
+    when( job.getJobName() ).thenReturn( "job 1" );
+    doAnswer( invocation -> {
+      Consumer<IJob> consumer = invocation.getArgument( 1 );
+      consumer.accept( job );
+      return null;
+    } ).when( quartzScheduler ).forEachJob( isNull(), any() );
+    IRepositoryExportLogger exportLogger = new Log4JRepositoryExportLogger();
+    exportLogger.startJob( new ByteArrayOutputStream(), Level.INFO, new RepositoryTextLayout( Level.INFO ) );
+    exporterSpy.log = exportLogger;
+
+    try ( MockedStatic<ScheduleExportUtil> exportUtil = mockStatic( ScheduleExportUtil.class, CALLS_REAL_METHODS ) ) {
+      exportUtil.when( () -> ScheduleExportUtil.createJobScheduleRequest( job ) )
+        .thenThrow( new ExportException( "bad" ) );
+      exporterSpy.exportSchedules();
+    } finally {
+      exportLogger.endJob();
+    }
+  }
+
   @Test(expected = ExportException.class)
   public void testExportSchedules_SchedulerThrowsException() throws ExportException, SchedulerException {
     when( scheduler.getJobs( null ) ).thenThrow( new SchedulerException( "bad" ) );
@@ -254,6 +254,90 @@ public class ScheduleImportUtilTest {
     }
   }
 
+  @Test
+  public void testDoImport_listsExistingJobsOnce() throws Exception {
+    List<IJobScheduleRequest> scheduleList = new ArrayList<>();
+    List<IJob> existingJobs = new ArrayList<>();
+    for ( int i = 0; i < 3; i++ ) {
+      FakeJobScheduleRequest scheduleRequest = new FakeJobScheduleRequest();
+      scheduleRequest.setInputFile( "/home/admin/test" + i + ".prpt" );
+      scheduleRequest.setOutputFile( "/home/admin/test" + i + ".*" );
+      scheduleRequest.setJobName( "TestJob" + i );
+      IJobScheduleParam param = mock( IJobScheduleParam.class );
+      when( param.getName() ).thenReturn( "lineage-id" );
+      when( param.getValue() ).thenReturn( "lineage-" + i );
+      scheduleRequest.setJobParameters( Collections.singletonList( param ) );
+      scheduleList.add( scheduleRequest );
+
+      IJob existingJob = mock( IJob.class );
+      Map<String, Object> existingJobParams = new HashMap<>();
+      existingJobParams.put( "lineage-id", "lineage-" + i );
+      when( existingJob.getJobParams() ).thenReturn( existingJobParams );
+      when( existingJob.getJobId() ).thenReturn( "existing-job-id-" + i );
+      existingJobs.add( existingJob );
+    }
+    when( mockSchedulerResource.getJobsList() ).thenReturn( existingJobs );
+
+    Response mockResponse = mock( Response.class );
+    when( mockResponse.getStatus() ).thenReturn( Response.Status.OK.getStatusCode() );
+    when( mockResponse.getEntity() ).thenReturn( "new-job-id" );
+    when( mockSchedulerResource.createJob( ArgumentMatchers.any( IJobScheduleRequest.class ) ) )
+      .thenReturn( mockResponse );
+
+    TestableScheduleImportUtil scheduleImportUtil = new TestableScheduleImportUtil( scheduleList );
+
+    try ( MockedStatic<PentahoSystem> pentahoSystemMock = Mockito.mockStatic( PentahoSystem.class ) ) {
+      stubPentahoSystem( pentahoSystemMock );
+
+      IImportHelper.ImportContext ctx = createImportContext( true, true );
+      scheduleImportUtil.doImport( ctx );
+
+      verify( mockSchedulerResource, Mockito.times( 1 ) ).getJobsList();
+      for ( int i = 0; i < 3; i++ ) {
+        verify( mockJobRequest ).setJobId( "existing-job-id-" + i );
+      }
+      verify( mockSchedulerResource, Mockito.times( 3 ) ).removeJob( mockJobRequest );
+      verify( mockSchedulerResource, Mockito.times( 3 ) ).createJob( ArgumentMatchers.any( IJobScheduleRequest.class ) );
+      verify( mockLogger ).info( ArgumentMatchers.startsWith( "Restored 3 of 3 schedules" ) );
+    }
+  }
+
+  @Test
+  public void testDoImport_duplicateLineageInImport_replacesEarlierSchedule() throws Exception {
+    List<IJobScheduleRequest> scheduleList = new ArrayList<>();
+    for ( int i = 0; i < 2; i++ ) {
+      FakeJobScheduleRequest scheduleRequest = new FakeJobScheduleRequest();
+      scheduleRequest.setInputFile( "/home/admin/test.prpt" );
+      scheduleRequest.setOutputFile( "/home/admin/test.*" );
+      scheduleRequest.setJobName( "TestJob" );
+      IJobScheduleParam param = mock( IJobScheduleParam.class );
+      when( param.getName() ).thenReturn( "lineage-id" );
+      when( param.getValue() ).thenReturn( "lineage-123" );
+      scheduleRequest.setJobParameters( Collections.singletonList( param ) );
+      scheduleList.add( scheduleRequest );
+    }
+
+    Response mockResponse = mock( Response.class );
+    when( mockResponse.getStatus() ).thenReturn( Response.Status.OK.getStatusCode() );
+    when( mockResponse.getEntity() ).thenReturn( "new-job-id" );
+    when( mockSchedulerResource.createJob( ArgumentMatchers.any( IJobScheduleRequest.class ) ) )
+      .thenReturn( mockResponse );
+
+    TestableScheduleImportUtil scheduleImportUtil = new TestableScheduleImportUtil( scheduleList );
+
+    try ( MockedStatic<PentahoSystem> pentahoSystemMock = Mockito.mockStatic( PentahoSystem.class ) ) {
+      stubPentahoSystem( pentahoSystemMock );
+
+      IImportHelper.ImportContext ctx = createImportContext( false, true );
+      scheduleImportUtil.doImport( ctx );
+
+      // The job created for the first schedule is replaced by the second one
+      verify( mockJobRequest ).setJobId( "new-job-id" );
+      verify( mockSchedulerResource ).removeJob( mockJobRequest );
+      verify( mockSchedulerResource, Mockito.times( 2 ) ).createJob( ArgumentMatchers.any( IJobScheduleRequest.class ) );
+    }
+  }
+
   @Test
   public void testDoImport_existingJobNoOverwrite_skipsJob() throws Exception {
     String lineageId = "lineage-123";
@@ -16,6 +16,9 @@ package org.pentaho.platform.scheduler2.action;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.isA;
@@ -28,22 +31,35 @@ import static org.pentaho.platform.scheduler2.action.ActionRunner.KEY_USE_JCR;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.pentaho.platform.api.action.ActionInvocationException;
 import org.pentaho.platform.api.action.IAction;
+import org.pentaho.platform.api.action.IPostProcessingAction;
 import org.pentaho.platform.api.engine.IAuthorizationPolicy;
 import org.pentaho.platform.api.engine.ISecurityHelper;
+import org.pentaho.platform.api.repository.IContentItem;
+import org.pentaho.platform.api.repository2.unified.ISourcesStreamEvents;
+import org.pentaho.platform.api.repository2.unified.IStreamListener;
 import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
 import org.pentaho.platform.api.repository2.unified.RepositoryFile;
 import org.pentaho.platform.api.scheduler2.IBackgroundExecutionStreamProvider;
@@ -51,6 +67,9 @@ import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.engine.security.SecurityHelper;
 import org.pentaho.platform.engine.services.actions.TestVarArgsAction;
 import org.pentaho.platform.scheduler2.ISchedulerOutputPathResolver;
+import org.pentaho.platform.scheduler2.history.JobExecutionHistory;
+import org.pentaho.platform.scheduler2.history.JobExecutionRecord;
+import org.pentaho.platform.scheduler2.metrics.SchedulerMetrics;
 import org.pentaho.platform.util.ActionUtil;
 import org.pentaho.platform.util.bean.TestAction;
 import org.pentaho.platform.util.messages.LocaleHelper;
@@ -154,7 +173,8 @@ public class ActionRunnerTest {
     IAction actionBeanSpy = Mockito.spy( new TestAction() );
     IBackgroundExecutionStreamProvider mockStreamProvider = Mockito.mock( IBackgroundExecutionStreamProvider.class );
     when( mockStreamProvider.getInputStream() ).thenThrow( new Exception( "something went wrong" ) );
-    ActionRunner actionRunner = new ActionRunner( actionBeanSpy, "actionUser", paramsMap, mockStreamProvider );
+    ActionRunner actionRunner = createActionRunner( actionBeanSpy, paramsMap, mockStreamProvider,
+      Mockito.mock( EmailOutbox.class ) );
     exception.expect( ActionInvocationException.class );
     actionRunner.call();
   }
@@ -164,14 +184,13 @@ public class ActionRunnerTest {
     Map<String, Object> paramsMap = createMapWithUserLocale();
     IAction actionBeanSpy = Mockito.spy( new TestAction() );
     Mockito.doReturn( false ).when( actionBeanSpy ).isExecutionSuccessful();
+    EmailOutbox mockOutbox = Mockito.mock( EmailOutbox.class );
 
-    ActionRunner actionRunner = new ActionRunner( actionBeanSpy, "actionUser", paramsMap, null );
-
-    try ( MockedStatic<ActionUtil> actionUtilStatic = Mockito.mockStatic( ActionUtil.class, Mockito.CALLS_REAL_METHODS ) ) {
-      actionRunner.call();
+    ActionRunner actionRunner = createActionRunner( actionBeanSpy, paramsMap, null, mockOutbox );
+    actionRunner.call();
 
-      actionUtilStatic.verify( () -> ActionUtil.sendFailureEmail( paramsMap, null ), times( 1 ) );
-    }
+    verify( mockOutbox, times( 1 ) ).enqueue( Mockito.argThat( request -> request.isFailureNotice()
+      && request.getFailure() == null && "actionUser".equals( request.getActionUser() ) ) );
   }
 
   @Test
@@ -180,17 +199,16 @@ public class ActionRunnerTest {
     IAction actionBeanSpy = Mockito.spy( new TestAction() );
     IBackgroundExecutionStreamProvider mockStreamProvider = Mockito.mock( IBackgroundExecutionStreamProvider.class );
     Exception boom = new Exception( "something went wrong" );
+    when( mockStreamProvider.getInputStream() ).thenThrow( boom );
+    EmailOutbox mockOutbox = Mockito.mock( EmailOutbox.class );
 
-    try ( MockedStatic<ActionUtil> actionUtilStatic = Mockito.mockStatic( ActionUtil.class, Mockito.CALLS_REAL_METHODS ) ) {
-      when( mockStreamProvider.getInputStream() ).thenThrow( boom );
-
-      ActionRunner actionRunner = new ActionRunner( actionBeanSpy, "actionUser", paramsMap, mockStreamProvider );
-      exception.expect( ActionInvocationException.class );
-      try {
-        actionRunner.call();
-      } finally {
-        actionUtilStatic.verify( () -> ActionUtil.sendFailureEmail( paramsMap, boom ), times( 1 ) );
-      }
+    ActionRunner actionRunner = createActionRunner( actionBeanSpy, paramsMap, mockStreamProvider, mockOutbox );
+    exception.expect( ActionInvocationException.class );
+    try {
+      actionRunner.call();
+    } finally {
+      verify( mockOutbox, times( 1 ) ).enqueue( Mockito.argThat( request -> request.isFailureNotice()
+        && request.getFailure() == boom ) );
     }
   }
 
@@ -201,14 +219,12 @@ public class ActionRunnerTest {
 
     IAction actionBeanSpy = Mockito.spy( new TestAction() );
     Mockito.doReturn( false ).when( actionBeanSpy ).isExecutionSuccessful();
+    EmailOutbox mockOutbox = Mockito.mock( EmailOutbox.class );
 
-    ActionRunner actionRunner = new ActionRunner( actionBeanSpy, "actionUser", paramsMap, null );
-
-    try ( MockedStatic<ActionUtil> actionUtilStatic = Mockito.mockStatic( ActionUtil.class, Mockito.CALLS_REAL_METHODS ) ) {
-      actionRunner.call();
+    ActionRunner actionRunner = createActionRunner( actionBeanSpy, paramsMap, null, mockOutbox );
+    actionRunner.call();
 
-      actionUtilStatic.verify( () -> ActionUtil.sendFailureEmail( paramsMap, null ), Mockito.never() );
-    }
+    verify( mockOutbox, Mockito.never() ).enqueue( any() );
   }
 
   @Test
@@ -219,17 +235,245 @@ public class ActionRunnerTest {
     IAction actionBeanSpy = Mockito.spy( new TestAction() );
     IBackgroundExecutionStreamProvider mockStreamProvider = Mockito.mock( IBackgroundExecutionStreamProvider.class );
     Exception boom = new Exception( "something went wrong" );
+    when( mockStreamProvider.getInputStream() ).thenThrow( boom );
+    EmailOutbox mockOutbox = Mockito.mock( EmailOutbox.class );
+
+    ActionRunner actionRunner = createActionRunner( actionBeanSpy, paramsMap, mockStreamProvider, mockOutbox );
+    exception.expect( ActionInvocationException.class );
+    try {
+      actionRunner.call();
+    } finally {
+      verify( mockOutbox, Mockito.never() ).enqueue( any() );
+    }
+  }
 
-    try ( MockedStatic<ActionUtil> actionUtilStatic = Mockito.mockStatic( ActionUtil.class, Mockito.CALLS_REAL_METHODS ) ) {
-      when( mockStreamProvider.getInputStream() ).thenThrow( boom );
+  private ActionRunner createActionRunner( IAction actionBean, Map<String, Object> paramsMap,
+                                           IBackgroundExecutionStreamProvider streamProvider,
+                                           EmailOutbox emailOutbox ) {
+    return new ActionRunner( actionBean, "actionUser", paramsMap, streamProvider ) {
+      @Override
+      protected EmailOutbox getEmailOutbox() {
+        return emailOutbox;
+      }
+    };
+  }
 
-      ActionRunner actionRunner = new ActionRunner( actionBeanSpy, "actionUser", paramsMap, mockStreamProvider );
-      exception.expect( ActionInvocationException.class );
+  @Test
+  public void testPostExecutionWaitsForFileCreatedEvent() throws Exception {
+    Map<String, Object> paramsMap = createMapWithUserLocale();
+    IAction actionBeanSpy = Mockito.spy( new TestAction() );
+    IBackgroundExecutionStreamProvider mockStreamProvider = Mockito.mock( IBackgroundExecutionStreamProvider.class );
+    OutputStream mockOutputStream =
+      Mockito.mock( OutputStream.class, Mockito.withSettings().extraInterfaces( ISourcesStreamEvents.class ) );
+    String outputPath = "/home/someUser/someOutput.*";
+    when( mockStreamProvider.getInputStream() ).thenReturn( Mockito.mock( InputStream.class ) );
+    when( mockStreamProvider.getOutputPath() ).thenReturn( outputPath );
+    when( mockStreamProvider.getOutputStream() ).thenReturn( mockOutputStream );
+    ISecurityHelper mockSecurityHelper = Mockito.mock( ISecurityHelper.class );
+    SecurityHelper.setMockInstance( mockSecurityHelper );
+    when( mockSecurityHelper.runAsUser( Mockito.eq( "actionUser" ), Mockito.any() ) )
+      .thenAnswer( invocation -> ( (Callable<?>) invocation.getArgument( 1 ) ).call() );
+
+    List<String> steps = new ArrayList<>();
+    ActionRunner actionRunner = new ActionRunner( actionBeanSpy, "actionUser", paramsMap, mockStreamProvider ) {
+      @Override
+      protected String resolveOutputFilePath() {
+        return outputPath;
+      }
+
+      @Override
+      protected Executor getCompletionExecutor() {
+        return Runnable::run;
+      }
+
+      @Override
+      protected void sendEmail( Map<String, Object> actionParams ) {
+        steps.add( "sendEmail " + outputFilePath );
+      }
+
+      @Override
+      protected void deleteFileIfEmpty() {
+        steps.add( "deleteFileIfEmpty " + outputFilePath );
+      }
+    };
+
+    actionRunner.call();
+
+    Mockito.verify( actionBeanSpy ).execute();
+    assertFalse( actionRunner.getCompletion().isDone() );
+    assertTrue( steps.isEmpty() );
+
+    ArgumentCaptor<IStreamListener> listener = ArgumentCaptor.forClass( IStreamListener.class );
+    verify( (ISourcesStreamEvents) mockOutputStream ).addListener( listener.capture() );
+    listener.getValue().fileCreated( "/home/someUser/someOutput.pdf" );
+
+    assertTrue( actionRunner.getCompletion().isDone() );
+    assertEquals( Arrays.asList( "sendEmail /home/someUser/someOutput.pdf",
+      "deleteFileIfEmpty /home/someUser/someOutput.pdf" ), steps );
+    assertNotNull( SchedulerMetrics.getInstance().getCompletionStage( "sendEmail" ) );
+  }
+
+  @Test
+  public void testCompletionFailureIsRecordedInJobHistory() throws Exception {
+    Map<String, Object> paramsMap = createMapWithUserLocale();
+    paramsMap.put( ActionRunner.KEY_JOB_ID, "admin\tjob\tid" );
+    IAction actionBeanSpy = Mockito.spy( new TestAction() );
+    IBackgroundExecutionStreamProvider mockStreamProvider = Mockito.mock( IBackgroundExecutionStreamProvider.class );
+    OutputStream mockOutputStream =
+      Mockito.mock( OutputStream.class, Mockito.withSettings().extraInterfaces( ISourcesStreamEvents.class ) );
+    String outputPath = "/home/someUser/someOutput.*";
+    when( mockStreamProvider.getInputStream() ).thenReturn( Mockito.mock( InputStream.class ) );
+    when( mockStreamProvider.getOutputPath() ).thenReturn( outputPath );
+    when( mockStreamProvider.getOutputStream() ).thenReturn( mockOutputStream );
+    ISecurityHelper mockSecurityHelper = Mockito.mock( ISecurityHelper.class );
+    SecurityHelper.setMockInstance( mockSecurityHelper );
+    when( mockSecurityHelper.runAsUser( Mockito.eq( "actionUser" ), Mockito.any() ) )
+      .thenAnswer( invocation -> ( (Callable<?>) invocation.getArgument( 1 ) ).call() );
+    JobExecutionHistory mockHistory = Mockito.mock( JobExecutionHistory.class );
+
+    ActionRunner actionRunner = new ActionRunner( actionBeanSpy, "actionUser", paramsMap, mockStreamProvider ) {
+      @Override
+      protected String resolveOutputFilePath() {
+        return outputPath;
+      }
+
+      @Override
+      protected Executor getCompletionExecutor() {
+        return Runnable::run;
+      }
+
+      @Override
+      protected JobExecutionHistory getExecutionHistory() {
+        return mockHistory;
+      }
+
+      @Override
+      protected void sendEmail( Map<String, Object> actionParams ) {
+        throw new IllegalStateException( "the outbox is gone" );
+      }
+    };
+
+    actionRunner.call();
+    ArgumentCaptor<IStreamListener> listener = ArgumentCaptor.forClass( IStreamListener.class );
+    verify( (ISourcesStreamEvents) mockOutputStream ).addListener( listener.capture() );
+    listener.getValue().fileCreated( "/home/someUser/someOutput.pdf" );
+
+    assertTrue( actionRunner.getCompletion().isDone() );
+    verify( mockHistory ).record( Mockito.eq( "admin\tjob\tid" ), Mockito.anyLong(), Mockito.anyLong(),
+      Mockito.eq( JobExecutionRecord.Status.FAILED ), Mockito.eq( "/home/someUser/someOutput.pdf" ) );
+  }
+
+  @Test
+  public void testShutdownCompletionExecutorWaitsForQueuedCompletions() throws Exception {
+    Executor executor = new ActionRunner().getCompletionExecutor();
+    CountDownLatch started = new CountDownLatch( 1 );
+    CountDownLatch release = new CountDownLatch( 1 );
+    AtomicInteger completed = new AtomicInteger();
+    executor.execute( () -> {
+      started.countDown();
       try {
-        actionRunner.call();
-      } finally {
-        actionUtilStatic.verify( () -> ActionUtil.sendFailureEmail( paramsMap, boom ), Mockito.never() );
+        release.await();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      }
+      completed.incrementAndGet();
+    } );
+    executor.execute( completed::incrementAndGet );
+    started.await();
+    release.countDown();
+
+    ActionRunner.shutdownCompletionExecutor( 10, TimeUnit.SECONDS );
+
+    assertEquals( 2, completed.get() );
+    // later completions get a new executor
+    assertTrue( executor != new ActionRunner().getCompletionExecutor() );
+  }
+
+  @Test
+  public void testMarkContentAsGeneratedListsSharedFolderOnce() {
+    Map<String, Object> paramsMap = createMapWithUserLocale();
+    paramsMap.put( ActionUtil.QUARTZ_LINEAGE_ID, "lineage" );
+    IUnifiedRepository mockRepository = Mockito.mock( IUnifiedRepository.class );
+    RepositoryFile folder = Mockito.mock( RepositoryFile.class );
+    when( folder.getId() ).thenReturn( "folderId" );
+    when( mockRepository.getFile( "/home/admin/burst" ) ).thenReturn( folder );
+
+    List<IContentItem> contentItems = new ArrayList<>();
+    List<RepositoryFile> children = new ArrayList<>();
+    List<String> names = new ArrayList<>();
+    for ( int i = 0; i < ActionRunner.FOLDER_LISTING_THRESHOLD; i++ ) {
+      names.add( "report" + i + ".pdf" );
+      String path = "/home/admin/burst/report" + i + ".pdf";
+      IContentItem contentItem = Mockito.mock( IContentItem.class );
+      when( contentItem.getPath() ).thenReturn( path );
+      contentItems.add( contentItem );
+      RepositoryFile file = Mockito.mock( RepositoryFile.class );
+      when( file.getPath() ).thenReturn( path );
+      when( file.getId() ).thenReturn( "id" + i );
+      children.add( file );
+      Map<String, Serializable> metadata = new HashMap<>();
+      if ( i == 0 ) {
+        metadata.put( ActionUtil.QUARTZ_LINEAGE_ID, "lineage" );
       }
+      when( mockRepository.getFileMetadata( "id" + i ) ).thenReturn( metadata );
+    }
+    // only the outputs are listed, not the whole folder
+    when( mockRepository.getChildren( "folderId", String.join( "|", names ) ) ).thenReturn( children );
+    IPostProcessingAction postProcessingAction = Mockito.mock( IPostProcessingAction.class );
+    when( postProcessingAction.getActionOutputContents() ).thenReturn( contentItems );
+
+    try ( MockedStatic<PentahoSystem> pentahoSystemMockedStatic = Mockito.mockStatic( PentahoSystem.class ) ) {
+      pentahoSystemMockedStatic.when( () -> PentahoSystem.get( IUnifiedRepository.class ) )
+        .thenReturn( mockRepository );
+      new ActionRunner( null, "actionUser", paramsMap, null ).markContentAsGenerated( postProcessingAction );
+    }
+
+    verify( mockRepository, times( 1 ) ).getFile( any() );
+    verify( mockRepository, times( 1 ) ).getChildren( any(), Mockito.anyString() );
+    // the first file already has the lineage id
+    verify( mockRepository, Mockito.never() ).setFileMetadata( Mockito.eq( "id0" ), any() );
+    verify( mockRepository, times( ActionRunner.FOLDER_LISTING_THRESHOLD - 1 ) ).setFileMetadata( any(), any() );
+  }
+
+  @Test
+  public void testNamePatternLeavesOutNamesThatAreNotPlain() {
+    assertEquals( "report.pdf|sales 2024-Q1.xlsx", ActionRunner.getNamePattern( Arrays.asList(
+      "/home/admin/report.pdf", "/home/admin/sales 2024-Q1.xlsx", "/home/admin/a|b.pdf", "/home/admin/*.pdf" ) ) );
+  }
+
+  @Test
+  public void testActionGetsTheOutputStreamOfTheProvider() throws Exception {
+    OutputStreamAction action = new OutputStreamAction();
+    IBackgroundExecutionStreamProvider mockStreamProvider = Mockito.mock( IBackgroundExecutionStreamProvider.class );
+    OutputStream mockOutputStream =
+      Mockito.mock( OutputStream.class, Mockito.withSettings().extraInterfaces( ISourcesStreamEvents.class ) );
+    String outputPath = "/home/someUser/someOutput.*";
+    when( mockStreamProvider.getInputStream() ).thenReturn( Mockito.mock( InputStream.class ) );
+    when( mockStreamProvider.getOutputPath() ).thenReturn( outputPath );
+    when( mockStreamProvider.getOutputStream() ).thenReturn( mockOutputStream );
+    Map<String, Object> paramsMap = createMapWithUserLocale();
+    ActionRunner actionRunner = new ActionRunner( action, "actionUser", paramsMap, mockStreamProvider ) {
+      @Override
+      protected String resolveOutputFilePath() {
+        return outputPath;
+      }
+    };
+
+    actionRunner.call();
+
+    // actions and stream types check the stream they are given, so it is not wrapped
+    assertSame( mockOutputStream, action.outputStream );
+  }
+
+  public static class OutputStreamAction implements IAction {
+    private OutputStream outputStream;
+
+    public void setOutputStream( OutputStream outputStream ) {
+      this.outputStream = outputStream;
+    }
+
+    @Override
+    public void execute() {
     }
   }
 
@@ -0,0 +1,271 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.action;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.platform.scheduler2.metrics.SchedulerMetrics;
+import org.pentaho.platform.util.messages.LocaleHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class EmailOutboxTest {
+
+  private static final long TIMEOUT_MILLIS = 10000;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final List<EmailOutbox> outboxes = new ArrayList<>();
+
+  /**
+   * Stands in for the mail server: records what was sent, and fails the first attempts if asked to
+   */
+  private final List<String> delivered = Collections.synchronizedList( new ArrayList<>() );
+
+  private volatile int failuresLeft;
+
+  private File directory;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = temporaryFolder.newFolder( "outbox" );
+    SchedulerMetrics.getInstance().reset();
+  }
+
+  @After
+  public void tearDown() {
+    for ( EmailOutbox outbox : outboxes ) {
+      outbox.shutdown();
+    }
+  }
+
+  @Test
+  public void testSendsQueuedEmailAndDeletesItsSpoolFile() throws Exception {
+    EmailOutbox outbox = createOutbox( 10, 1, 3, this::deliver );
+
+    outbox.enqueue( request( "a@example.com", "/home/a/report.pdf" ) );
+
+    await( () -> outbox.size() == 0 );
+    assertEquals( Collections.singletonList( "a@example.com /home/a/report.pdf" ), delivered );
+    assertEquals( 0, spooled() );
+    assertEquals( 1, SchedulerMetrics.getInstance().getEmailDelivery().getCount() );
+  }
+
+  @Test
+  public void testRetriesFailedEmail() throws Exception {
+    failuresLeft = 2;
+    EmailOutbox outbox = createOutbox( 10, 1, 3, this::deliver );
+
+    outbox.enqueue( request( "a@example.com", "/home/a/report.pdf" ) );
+
+    await( () -> outbox.size() == 0 );
+    assertEquals( Collections.singletonList( "a@example.com /home/a/report.pdf" ), delivered );
+    assertEquals( 2, SchedulerMetrics.getInstance().getEmailRetries() );
+    assertEquals( 0, SchedulerMetrics.getInstance().getEmailFailures() );
+  }
+
+  @Test
+  public void testDropsEmailAfterLastAttempt() throws Exception {
+    failuresLeft = Integer.MAX_VALUE;
+    EmailOutbox outbox = createOutbox( 10, 1, 3, this::deliver );
+
+    outbox.enqueue( request( "a@example.com", "/home/a/report.pdf" ) );
+
+    await( () -> outbox.size() == 0 );
+    assertTrue( delivered.isEmpty() );
+    assertEquals( 2, SchedulerMetrics.getInstance().getEmailRetries() );
+    assertEquals( 1, SchedulerMetrics.getInstance().getEmailFailures() );
+    assertEquals( 0, spooled() );
+  }
+
+  @Test
+  public void testSendsEmailsOfOneRecipientInOrder() throws Exception {
+    CountDownLatch gate = new CountDownLatch( 1 );
+    EmailOutbox outbox = createOutbox( 10, 4, 3, request -> {
+      gate.await();
+      deliver( request );
+    } );
+
+    for ( int i = 0; i < 5; i++ ) {
+      outbox.enqueue( request( "a@example.com", "/home/a/report" + i + ".pdf" ) );
+    }
+    gate.countDown();
+
+    await( () -> outbox.size() == 0 );
+    List<String> expected = new ArrayList<>();
+    for ( int i = 0; i < 5; i++ ) {
+      expected.add( "a@example.com /home/a/report" + i + ".pdf" );
+    }
+    assertEquals( expected, delivered );
+  }
+
+  @Test
+  public void testSendsSpooledEmailsAfterRestart() throws Exception {
+    CountDownLatch gate = new CountDownLatch( 1 );
+    EmailOutbox stopped = createOutbox( 10, 1, 3, request -> {
+      gate.await();
+      throw new IOException( "the server is down" );
+    } );
+    stopped.enqueue( request( "a@example.com", "/home/a/report.pdf" ) );
+    stopped.enqueue( request( "b@example.com", "/home/b/report.pdf" ) );
+    assertEquals( 2, spooled() );
+    // let the attempt fail only once the outbox is stopping, so that it is not tried again
+    new Thread( () -> {
+      sleepQuietly( 50 );
+      gate.countDown();
+    } ).start();
+    stopped.shutdown();
+    assertEquals( 2, spooled() );
+
+    EmailOutbox outbox = createOutbox( 10, 1, 3, this::deliver );
+
+    await( () -> outbox.size() == 0 );
+    assertEquals( 2, delivered.size() );
+    assertTrue( delivered.contains( "a@example.com /home/a/report.pdf" ) );
+    assertTrue( delivered.contains( "b@example.com /home/b/report.pdf" ) );
+    assertEquals( 0, spooled() );
+  }
+
+  @Test
+  public void testSendsOnCallingThreadWhenFull() throws Exception {
+    CountDownLatch gate = new CountDownLatch( 1 );
+    List<String> threads = Collections.synchronizedList( new ArrayList<>() );
+    EmailOutbox outbox = createOutbox( 1, 1, 3, request -> {
+      if ( Thread.currentThread().getName().startsWith( "EmailOutbox" ) ) {
+        gate.await();
+      }
+      threads.add( Thread.currentThread().getName() );
+      deliver( request );
+    } );
+
+    outbox.enqueue( request( "a@example.com", "/home/a/report1.pdf" ) );
+    outbox.enqueue( request( "a@example.com", "/home/a/report2.pdf" ) );
+
+    assertEquals( Collections.singletonList( Thread.currentThread().getName() ), threads );
+    assertEquals( 1, SchedulerMetrics.getInstance().getEmailOverflows() );
+    gate.countDown();
+    await( () -> outbox.size() == 0 );
+    assertEquals( 2, delivered.size() );
+  }
+
+  @Test
+  public void testFailureRequestKeepsOnlySerializableParams() {
+    Map<String, Object> params = new HashMap<>();
+    params.put( EmailRequest.EMAIL_TO, "a@example.com" );
+    params.put( "outputStream", new Object() );
+    Exception boom = new Exception( "something went wrong" );
+
+    EmailRequest request = EmailRequest.forFailure( "actionUser", params, boom );
+
+    assertTrue( request.isFailureNotice() );
+    assertEquals( "a@example.com", request.getRecipient() );
+    assertEquals( Collections.singleton( EmailRequest.EMAIL_TO ), request.getParams().keySet() );
+    assertEquals( boom, request.getFailure() );
+  }
+
+  @Test
+  public void testSendsEmailThatCannotBeSpooled() throws Exception {
+    CountDownLatch gate = new CountDownLatch( 1 );
+    EmailOutbox outbox = createOutbox( 10, 1, 3, request -> {
+      gate.await();
+      deliver( request );
+    } );
+    Map<String, Object> actionParams = new HashMap<>();
+    actionParams.put( EmailRequest.EMAIL_TO, "a@example.com" );
+    // serializable by its type, not by its content
+    actionParams.put( "context", new HashMap<>( Collections.singletonMap( "session", new Object() ) ) );
+
+    outbox.enqueue( EmailRequest.forOutput( "actionUser", actionParams, new HashMap<>(), "/home/a/report.pdf" ) );
+
+    assertEquals( 0, spooled() );
+    assertEquals( 0, directory.list().length );
+    gate.countDown();
+    await( () -> outbox.size() == 0 );
+    assertEquals( Collections.singletonList( "a@example.com /home/a/report.pdf" ), delivered );
+  }
+
+  @Test
+  public void testRequestKeepsLocaleOfCreatingThread() {
+    LocaleHelper.setThreadLocaleOverride( Locale.FRENCH );
+    EmailRequest request;
+    try {
+      request = request( "a@example.com", "/home/a/report.pdf" );
+    } finally {
+      LocaleHelper.setThreadLocaleOverride( null );
+    }
+
+    assertEquals( Locale.FRENCH, request.getLocale() );
+  }
+
+  private EmailOutbox createOutbox( int capacity, int senderCount, int maxAttempts, EmailOutbox.Sender sender ) {
+    EmailOutbox outbox = new EmailOutbox( directory, capacity, senderCount, maxAttempts, 1, sender );
+    outboxes.add( outbox );
+    return outbox;
+  }
+
+  private void deliver( EmailRequest request ) throws IOException {
+    if ( failuresLeft > 0 ) {
+      failuresLeft--;
+      throw new IOException( "421 service not available" );
+    }
+    delivered.add( request.getRecipient() + " " + request.getOutputFilePath() );
+  }
+
+  private static EmailRequest request( String to, String outputFilePath ) {
+    Map<String, Object> actionParams = new HashMap<>();
+    actionParams.put( EmailRequest.EMAIL_TO, to );
+    return EmailRequest.forOutput( "actionUser", actionParams, new HashMap<>(), outputFilePath );
+  }
+
+  private int spooled() {
+    File[] files = directory.listFiles( ( dir, name ) -> name.endsWith( EmailOutbox.SPOOL_SUFFIX ) );
+    return files == null ? 0 : files.length;
+  }
+
+  private static void sleepQuietly( long millis ) {
+    try {
+      TimeUnit.MILLISECONDS.sleep( millis );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void await( BooleanSupplier condition ) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while ( !condition.getAsBoolean() ) {
+      if ( System.currentTimeMillis() > deadline ) {
+        fail( "timed out" );
+      }
+      TimeUnit.MILLISECONDS.sleep( 5 );
+    }
+  }
+}
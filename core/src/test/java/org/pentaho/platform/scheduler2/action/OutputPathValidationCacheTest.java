@@ -0,0 +1,94 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.action;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.scheduler2.metrics.SchedulerMetrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class OutputPathValidationCacheTest {
+
+  private static final long TTL = 1000;
+
+  private final AtomicLong now = new AtomicLong( 1000000 );
+
+  private OutputPathValidationCache cache;
+
+  @Before
+  public void setUp() {
+    cache = new OutputPathValidationCache( TTL, now::get );
+    SchedulerMetrics.getInstance().reset();
+  }
+
+  @Test
+  public void testGetReturnsResolvedDirectoryOfUser() {
+    cache.put( "admin", "/home/admin/output/", "/home/admin/output/" );
+
+    assertEquals( "/home/admin/output/", cache.get( "admin", "/home/admin/output/" ) );
+    assertNull( cache.get( "suzy", "/home/admin/output/" ) );
+    assertNull( cache.get( "admin", "/public/" ) );
+    assertEquals( 1, SchedulerMetrics.getInstance().getCacheHits( OutputPathValidationCache.METRICS_NAME ) );
+    assertEquals( 2, SchedulerMetrics.getInstance().getCacheMisses( OutputPathValidationCache.METRICS_NAME ) );
+  }
+
+  @Test
+  public void testEntriesExpire() {
+    cache.put( "admin", "/home/admin/output/", "/home/admin/output/" );
+
+    now.addAndGet( TTL - 1 );
+    assertEquals( "/home/admin/output/", cache.get( "admin", "/home/admin/output/" ) );
+    now.incrementAndGet();
+    assertNull( cache.get( "admin", "/home/admin/output/" ) );
+    assertEquals( 0, cache.size() );
+  }
+
+  @Test
+  public void testInvalidateDropsFolderAndSubFolders() {
+    cache.put( "admin", "/home/admin/", "/home/admin/" );
+    cache.put( "admin", "/home/admin/output/", "/home/admin/output/" );
+    cache.put( "suzy", "/home/suzy/output/", "/home/suzy/output/" );
+    cache.put( "admin", "/home/administrator/", "/home/administrator/" );
+
+    cache.invalidate( "/home/admin" );
+
+    assertNull( cache.get( "admin", "/home/admin/" ) );
+    assertNull( cache.get( "admin", "/home/admin/output/" ) );
+    assertEquals( "/home/suzy/output/", cache.get( "suzy", "/home/suzy/output/" ) );
+    assertEquals( "/home/administrator/", cache.get( "admin", "/home/administrator/" ) );
+  }
+
+  @Test
+  public void testInvalidateDropsEntriesResolvedToFolder() {
+    cache.put( "admin", "/public/deleted/", "/home/admin" );
+
+    cache.invalidate( "/home/admin/" );
+
+    assertEquals( 0, cache.size() );
+  }
+
+  @Test
+  public void testInvalidateAll() {
+    cache.put( "admin", "/home/admin/", "/home/admin/" );
+    cache.put( "suzy", "/home/suzy/", "/home/suzy/" );
+
+    cache.invalidateAll();
+
+    assertEquals( 0, cache.size() );
+  }
+}
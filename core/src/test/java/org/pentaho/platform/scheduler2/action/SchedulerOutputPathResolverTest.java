@@ -14,6 +14,7 @@
 package org.pentaho.platform.scheduler2.action;
 
 import junit.framework.TestCase;
+import org.pentaho.platform.scheduler2.metrics.SchedulerMetrics;
 
 public class SchedulerOutputPathResolverTest extends TestCase {
 
@@ -40,4 +41,24 @@ public class SchedulerOutputPathResolverTest extends TestCase {
     assertEquals( expectedFullPathRepoHome, actualFullPath2 );
   }
 
+  public void testResolveOutputFilePathFromCache() throws Exception {
+    SchedulerMetrics.getInstance().reset();
+    OutputPathValidationCache cache = new OutputPathValidationCache( 60000, System::currentTimeMillis );
+    cache.put( "admin", "/home/admin/output/", "/home/admin/fallback" );
+
+    SchedulerOutputPathResolver testInstance = new SchedulerOutputPathResolver() {
+      @Override
+      protected boolean isValidOutputPath( String outputPath, boolean isFallback ) {
+        throw new AssertionError( "the output path should not be validated again" );
+      }
+    };
+    testInstance.setValidationCache( cache );
+    testInstance.setActionUser( "admin" );
+    testInstance.setDirectory( "/home/admin/output/" );
+    testInstance.setFileName( "report.*" );
+
+    assertEquals( "/home/admin/fallback/report.*", testInstance.resolveOutputFilePath() );
+    assertEquals( 1, SchedulerMetrics.getInstance().getCacheHits( OutputPathValidationCache.METRICS_NAME ) );
+  }
+
 }
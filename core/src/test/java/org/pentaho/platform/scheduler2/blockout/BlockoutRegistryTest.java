@@ -0,0 +1,140 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.IBlockoutManager;
+import org.pentaho.platform.api.scheduler2.IJob;
+import org.pentaho.platform.api.scheduler2.IJobFilter;
+import org.pentaho.platform.api.scheduler2.IJobTrigger;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+import org.quartz.Scheduler;
+import org.quartz.impl.calendar.BaseCalendar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BlockoutRegistryTest {
+
+  private BlockoutRegistry registry;
+  private QuartzScheduler scheduler;
+  private Scheduler quartzScheduler;
+  private IJobTrigger blockoutTrigger;
+
+  @Before
+  public void setUp() throws Exception {
+    registry = new BlockoutRegistry();
+    quartzScheduler = mock( Scheduler.class );
+    scheduler = mock( QuartzScheduler.class );
+    when( scheduler.getQuartzScheduler() ).thenReturn( quartzScheduler );
+
+    blockoutTrigger = mock( IJobTrigger.class );
+    IJob blockout = mockJob( IBlockoutManager.BLOCK_OUT_JOB_NAME, blockoutTrigger );
+    IJob regular = mockJob( "report", mock( IJobTrigger.class ) );
+    stubJobs( scheduler, Arrays.asList( blockout, regular ) );
+  }
+
+  @Test
+  public void testBlockoutsAreLoadedOnceAndDurationApplied() throws Exception {
+    List<IJobTrigger> triggers = registry.getBlockOutTriggers( scheduler );
+    List<IJob> jobs = registry.getBlockOutJobs( scheduler );
+
+    assertEquals( 1, jobs.size() );
+    assertEquals( Collections.singletonList( blockoutTrigger ), triggers );
+    verify( blockoutTrigger ).setDuration( 60000L );
+    verify( scheduler, times( 1 ) ).getJobs( any( IJobFilter.class ) );
+  }
+
+  @Test
+  public void testInvalidateForcesReloadAndPublishesStamp() throws Exception {
+    registry.getBlockOutJobs( scheduler );
+    registry.invalidate( quartzScheduler );
+    registry.getBlockOutJobs( scheduler );
+
+    verify( scheduler, times( 2 ) ).getJobs( any( IJobFilter.class ) );
+    verify( quartzScheduler ).addCalendar( eq( BlockoutRegistry.VERSION_CALENDAR_NAME ), any( BaseCalendar.class ),
+      eq( true ), eq( false ) );
+  }
+
+  @Test
+  public void testStampIsReadOncePerInterval() throws Exception {
+    for ( int i = 0; i < 5; i++ ) {
+      registry.getBlockOutJobs( scheduler );
+    }
+
+    verify( quartzScheduler, times( 1 ) ).getCalendar( BlockoutRegistry.VERSION_CALENDAR_NAME );
+    verify( scheduler, times( 1 ) ).getJobs( any( IJobFilter.class ) );
+  }
+
+  @Test
+  public void testStampChangedByAnotherNodeForcesReload() throws Exception {
+    // read the stamp on every call
+    registry = new BlockoutRegistry( 0 );
+    List<IJob> first = registry.getBlockOutJobs( scheduler );
+    assertSame( first, registry.getBlockOutJobs( scheduler ) );
+
+    BaseCalendar stamp = new BaseCalendar();
+    stamp.setDescription( "changed-elsewhere" );
+    when( quartzScheduler.getCalendar( BlockoutRegistry.VERSION_CALENDAR_NAME ) ).thenReturn( stamp );
+    registry.getBlockOutJobs( scheduler );
+    registry.getBlockOutJobs( scheduler );
+
+    verify( scheduler, times( 2 ) ).getJobs( any( IJobFilter.class ) );
+  }
+
+  @Test
+  public void testNonQuartzSchedulerIsNotCached() throws Exception {
+    IScheduler other = mock( IScheduler.class );
+    stubJobs( other, Collections.singletonList( mockJob( IBlockoutManager.BLOCK_OUT_JOB_NAME,
+      mock( IJobTrigger.class ) ) ) );
+
+    registry.getBlockOutJobs( other );
+    registry.getBlockOutJobs( other );
+
+    verify( other, times( 2 ) ).getJobs( any( IJobFilter.class ) );
+  }
+
+  private static IJob mockJob( String jobName, IJobTrigger trigger ) {
+    IJob job = mock( IJob.class );
+    when( job.getJobName() ).thenReturn( jobName );
+    when( job.getJobTrigger() ).thenReturn( trigger );
+    when( job.getJobParams() ).thenReturn( Collections.singletonMap( IBlockoutManager.DURATION_PARAM, 60000L ) );
+    return job;
+  }
+
+  private static void stubJobs( IScheduler scheduler, List<IJob> jobs ) throws Exception {
+    when( scheduler.getJobs( any( IJobFilter.class ) ) ).thenAnswer( invocation -> {
+      IJobFilter filter = invocation.getArgument( 0 );
+      List<IJob> accepted = new ArrayList<>();
+      for ( IJob job : jobs ) {
+        if ( filter.accept( job ) ) {
+          accepted.add( job );
+        }
+      }
+      return accepted;
+    } );
+  }
+}
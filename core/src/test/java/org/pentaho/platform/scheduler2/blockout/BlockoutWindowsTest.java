@@ -0,0 +1,105 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.platform.scheduler2.blockout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class BlockoutWindowsTest {
+
+  // Aligned on a quarter of an hour, so every 15 minutes cron fires on it in any whole-quarter time zone
+  private static final long BASE = 1699999200000L;
+  private static final long MINUTE = BlockoutManagerUtil.TIME.MINUTE.time;
+
+  private IScheduler scheduler;
+
+  @Before
+  public void setUp() {
+    scheduler = mock( QuartzScheduler.class );
+  }
+
+  @Test
+  public void testWindowsIncludeActiveBlockoutAndAreInclusive() {
+    BlockoutWindows windows = BlockoutWindows.build( quarterHourly( 5 * MINUTE ), scheduler, BASE + 2 * MINUTE );
+
+    assertTrue( windows.contains( BASE + 2 * MINUTE ) );
+    assertFalse( windows.contains( BASE + 6 * MINUTE ) );
+    assertTrue( windows.contains( BASE + 20 * MINUTE ) );
+    assertFalse( windows.contains( BASE + 20 * MINUTE + 1 ) );
+    assertFalse( windows.contains( BASE - 20 * MINUTE ) );
+    assertEquals( BlockoutWindows.MAX_FIRE_TIMES, windows.size() );
+  }
+
+  @Test
+  public void testOverlappingWindowsAreMerged() {
+    BlockoutWindows windows = BlockoutWindows.build( quarterHourly( 20 * MINUTE ), scheduler, BASE );
+
+    assertEquals( 1, windows.size() );
+    assertTrue( windows.contains( BASE + 100 * MINUTE ) );
+  }
+
+  @Test
+  public void testWindowsAreClippedToEndTime() {
+    ComplexJobTrigger trigger = quarterHourly( 5 * MINUTE );
+    trigger.setEndTime( new Date( BASE + 17 * MINUTE ) );
+    BlockoutWindows windows = BlockoutWindows.build( trigger, scheduler, BASE );
+
+    assertFalse( windows.contains( BASE + 19 * MINUTE ) );
+    assertFalse( windows.contains( BASE + 30 * MINUTE ) );
+  }
+
+  @Test
+  public void testContainsAllAndAny() {
+    BlockoutWindows windows = BlockoutWindows.build( quarterHourly( 5 * MINUTE ), scheduler, BASE );
+    long[] blocked = { BASE + MINUTE, BASE + 16 * MINUTE };
+    long[] mixed = { BASE + MINUTE, BASE + 10 * MINUTE };
+    long[] free = { BASE + 10 * MINUTE, BASE + 25 * MINUTE };
+
+    assertTrue( windows.containsAll( blocked ) );
+    assertFalse( windows.containsAll( mixed ) );
+    assertTrue( windows.containsAny( mixed ) );
+    assertFalse( windows.containsAny( free ) );
+    assertTrue( windows.containsAll( new long[ 0 ] ) );
+  }
+
+  @Test
+  public void testWindowsAreCachedPerTrigger() {
+    ComplexJobTrigger trigger = quarterHourly( 5 * MINUTE );
+
+    BlockoutWindows windows = BlockoutWindows.of( trigger, scheduler );
+    assertSame( windows, BlockoutWindows.of( trigger, scheduler ) );
+
+    trigger.setDuration( 10 * MINUTE );
+    assertNotSame( windows, BlockoutWindows.of( trigger, scheduler ) );
+  }
+
+  private ComplexJobTrigger quarterHourly( long duration ) {
+    ComplexJobTrigger trigger = new ComplexJobTrigger();
+    trigger.setCronString( "0 0/15 * * * ?" );
+    trigger.setStartTime( new Date( BASE - BlockoutManagerUtil.TIME.DAY.time ) );
+    trigger.setDuration( duration );
+    return trigger;
+  }
+}
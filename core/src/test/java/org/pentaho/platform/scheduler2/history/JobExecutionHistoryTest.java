@@ -0,0 +1,130 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.history;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.platform.scheduler2.history.JobExecutionRecord.Status;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JobExecutionHistoryTest {
+
+  private static final long RETENTION = TimeUnit.DAYS.toMillis( 1 );
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File directory;
+
+  private JobExecutionHistory history;
+
+  @Before
+  public void setUp() {
+    directory = temporaryFolder.getRoot();
+    history = new JobExecutionHistory( directory, 3, RETENTION );
+  }
+
+  @After
+  public void tearDown() {
+    history.close();
+  }
+
+  @Test
+  public void testKeepsLatestRunsPerJob() {
+    long now = System.currentTimeMillis();
+    for ( int i = 0; i < 5; i++ ) {
+      history.record( "job1", now + i, now + i + 10, Status.SUCCEEDED, "/home/admin/report" + i );
+    }
+    history.record( "job2", now, now + 5, Status.FAILED, null );
+
+    List<JobExecutionRecord> runs = history.getHistory( "job1" );
+    assertEquals( 3, runs.size() );
+    assertEquals( now + 4, runs.get( 0 ).getStart().getTime() );
+    assertEquals( now + 2, runs.get( 2 ).getStart().getTime() );
+    assertEquals( 10, runs.get( 0 ).getDuration() );
+    assertEquals( "/home/admin/report4", runs.get( 0 ).getOutputPath() );
+    assertEquals( history.getNodeName(), runs.get( 0 ).getNode() );
+
+    assertEquals( Status.FAILED, history.getHistory( "job2" ).get( 0 ).getStatus() );
+    assertNull( history.getHistory( "job2" ).get( 0 ).getOutputPath() );
+    assertTrue( history.getHistory( "job3" ).isEmpty() );
+  }
+
+  @Test
+  public void testHistoryIsReloaded() {
+    long now = System.currentTimeMillis();
+    history.record( "job1", now, now + 10, Status.SUCCEEDED, "/out" );
+    history.record( "job1", now + 20, now + 30, Status.BLOCKED, null );
+    history.close();
+
+    history = new JobExecutionHistory( directory, 3, RETENTION );
+    List<JobExecutionRecord> runs = history.getHistory( "job1" );
+    assertEquals( 2, runs.size() );
+    assertEquals( Status.BLOCKED, runs.get( 0 ).getStatus() );
+    assertEquals( "/out", runs.get( 1 ).getOutputPath() );
+  }
+
+  @Test
+  public void testCompactionDropsOverwrittenAndExpiredRuns() throws Exception {
+    long now = System.currentTimeMillis();
+    history.record( "expired", now - 2 * RETENTION, now - 2 * RETENTION, Status.SUCCEEDED, null );
+    for ( int i = 0; i < 10; i++ ) {
+      history.record( "job1", now + i, now + i, Status.SUCCEEDED, null );
+    }
+    File file = new File( directory, JobExecutionHistory.FILE_NAME );
+    long before = file.length();
+
+    history.compact();
+
+    assertTrue( file.length() < before );
+    assertTrue( history.getHistory( "expired" ).isEmpty() );
+    history.close();
+    history = new JobExecutionHistory( directory, 3, RETENTION );
+    assertEquals( 3, history.getHistory( "job1" ).size() );
+    assertTrue( history.getHistory( "expired" ).isEmpty() );
+  }
+
+  @Test
+  public void testTruncatedRecordIsDropped() throws Exception {
+    long now = System.currentTimeMillis();
+    history.record( "job1", now, now + 10, Status.SUCCEEDED, null );
+    history.record( "job1", now + 20, now + 30, Status.SUCCEEDED, null );
+    history.close();
+    File file = new File( directory, JobExecutionHistory.FILE_NAME );
+    try ( RandomAccessFile raf = new RandomAccessFile( file, "rw" ) ) {
+      raf.setLength( raf.length() - 3 );
+    }
+
+    history = new JobExecutionHistory( directory, 3, RETENTION );
+    assertEquals( 1, history.getHistory( "job1" ).size() );
+    history.record( "job1", now + 40, now + 50, Status.FAILED, null );
+    history.close();
+
+    history = new JobExecutionHistory( directory, 3, RETENTION );
+    List<JobExecutionRecord> runs = history.getHistory( "job1" );
+    assertEquals( 2, runs.size() );
+    assertEquals( Status.FAILED, runs.get( 0 ).getStatus() );
+  }
+}
@@ -0,0 +1,72 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramTest {
+
+  @Test
+  public void testSmallValuesAreExact() {
+    Histogram histogram = new Histogram();
+    for ( int i = 1; i <= 10; i++ ) {
+      histogram.record( i );
+    }
+
+    assertEquals( 10, histogram.getCount() );
+    assertEquals( 55, histogram.getSum() );
+    assertEquals( 10, histogram.getMax() );
+    assertEquals( 5, histogram.getValueAtPercentile( 50 ) );
+    assertEquals( 9, histogram.getValueAtPercentile( 90 ) );
+    assertEquals( 10, histogram.getValueAtPercentile( 100 ) );
+  }
+
+  @Test
+  public void testLargeValuesStayWithinBucketPrecision() {
+    Histogram histogram = new Histogram();
+    for ( long value = 1; value <= 100000; value++ ) {
+      histogram.record( value );
+    }
+
+    long median = histogram.getValueAtPercentile( 50 );
+    assertTrue( median >= 50000 && median <= 50000 * 1.125 );
+    long p99 = histogram.getValueAtPercentile( 99 );
+    assertTrue( p99 >= 99000 && p99 <= 100000 );
+  }
+
+  @Test
+  public void testBucketsCoverAllValues() {
+    assertEquals( 15, Histogram.upperBoundOf( Histogram.indexOf( 15 ) ) );
+    assertEquals( 17, Histogram.upperBoundOf( Histogram.indexOf( 16 ) ) );
+    assertEquals( 1023, Histogram.upperBoundOf( Histogram.indexOf( 1000 ) ) );
+    assertEquals( Long.MAX_VALUE, Histogram.upperBoundOf( Histogram.indexOf( Long.MAX_VALUE ) ) );
+  }
+
+  @Test
+  public void testEmptyAndNegative() {
+    Histogram histogram = new Histogram();
+    assertEquals( 0, histogram.getValueAtPercentile( 99 ) );
+
+    histogram.record( -5 );
+    assertEquals( 1, histogram.getCount() );
+    assertEquals( 0, histogram.getMax() );
+
+    histogram.reset();
+    assertEquals( 0, histogram.getCount() );
+    assertEquals( 0, histogram.getValueAtPercentile( 50 ) );
+  }
+}
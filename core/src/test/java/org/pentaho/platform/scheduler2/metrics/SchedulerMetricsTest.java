@@ -0,0 +1,108 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.metrics;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SchedulerMetricsTest {
+
+  private final SchedulerMetrics metrics = SchedulerMetrics.getInstance();
+
+  @After
+  public void tearDown() {
+    metrics.reset();
+  }
+
+  @Test
+  public void testRunningJobsAndFireLag() {
+    long now = System.currentTimeMillis();
+    metrics.jobStarted( new Date( now - 40 ), now );
+    metrics.jobStarted( null, now );
+    assertEquals( 2, metrics.getRunningJobs() );
+
+    metrics.jobEnded();
+    metrics.jobEnded();
+    assertEquals( 0, metrics.getRunningJobs() );
+    assertEquals( 2, metrics.getPeakRunningJobs() );
+    assertEquals( 1, metrics.getFireLag().getCount() );
+    assertEquals( 40, metrics.getFireLag().getMax() );
+  }
+
+  @Test
+  public void testExecutionsByAction() {
+    metrics.recordExecution( "report", 120, true );
+    metrics.recordExecution( "report", 80, false );
+    metrics.recordExecution( null, 5, true );
+
+    assertEquals( 2, metrics.getExecutions( "report" ).getCount() );
+    assertEquals( 1, metrics.getExecutions( SchedulerMetrics.UNKNOWN_ACTION ).getCount() );
+    assertNull( metrics.getExecutions( "mail" ) );
+    assertEquals( 1, metrics.getFailures() );
+  }
+
+  @Test
+  public void testQueuedExecutions() {
+    metrics.executionQueued();
+    metrics.executionQueued();
+    metrics.executionDequeued( 30 );
+    assertEquals( 1, metrics.getQueuedExecutions() );
+    assertEquals( 2, metrics.getPeakQueuedExecutions() );
+
+    metrics.executionDequeued( 10 );
+    assertEquals( 0, metrics.getQueuedExecutions() );
+    assertEquals( 2, metrics.getAdmissionWait().getCount() );
+    assertEquals( 30, metrics.getAdmissionWait().getMax() );
+    assertTrue( metrics.toPrometheus( 10 ).contains( "pentaho_scheduler_queued_executions_peak 2\n" ) );
+  }
+
+  @Test
+  @SuppressWarnings( "unchecked" )
+  public void testToMap() {
+    metrics.jobStarted( null, 0 );
+    metrics.recordBlockoutSkip();
+    metrics.recordRunOnceRestart();
+    metrics.recordJobListing( 2500000 );
+
+    Map<String, Object> map = metrics.toMap( 4 );
+    Map<String, Object> threadPool = (Map<String, Object>) map.get( "threadPool" );
+    assertEquals( 4, threadPool.get( "size" ) );
+    assertEquals( 0.25, (Double) threadPool.get( "saturation" ), 0.0001 );
+    assertEquals( 1L, map.get( "blockoutSkips" ) );
+    assertEquals( 1L, map.get( "runOnceRestarts" ) );
+    assertEquals( 2500L, ( (Map<String, Object>) map.get( "jobListingMicros" ) ).get( "sum" ) );
+    metrics.jobEnded();
+  }
+
+  @Test
+  public void testToPrometheus() {
+    metrics.recordExecution( "a \"quoted\" action", 1500, false );
+    metrics.recordBlockoutSkip();
+
+    String text = metrics.toPrometheus( 10 );
+    assertTrue( text.contains( "# TYPE pentaho_scheduler_thread_pool_size gauge\npentaho_scheduler_thread_pool_size 10\n" ) );
+    assertTrue( text.contains( "pentaho_scheduler_execution_seconds_count{action=\"a \\\"quoted\\\" action\"} 1\n" ) );
+    assertTrue( text.contains( "pentaho_scheduler_execution_seconds_sum{action=\"a \\\"quoted\\\" action\"} 1.5\n" ) );
+    assertTrue( text.contains( "pentaho_scheduler_execution_failures_total{action=\"a \\\"quoted\\\" action\"} 1\n" ) );
+    assertTrue( text.contains( "pentaho_scheduler_blockout_skips_total 1\n" ) );
+    assertTrue( !metrics.toPrometheus( -1 ).contains( "pentaho_scheduler_thread_pool_size" ) );
+  }
+}
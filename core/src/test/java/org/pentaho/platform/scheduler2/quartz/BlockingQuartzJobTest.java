@@ -22,11 +22,15 @@ import org.jmock.lib.legacy.ClassImposteriser;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.pentaho.platform.api.scheduler2.IBlockoutManager;
 import org.pentaho.platform.engine.core.audit.MDCUtil;
 import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.StandaloneSession;
+import org.pentaho.platform.scheduler2.history.JobExecutionHistory;
+import org.pentaho.platform.scheduler2.history.JobExecutionRecord;
 import org.quartz.Job;
 import org.quartz.JobBuilder;
 import org.quartz.JobDetail;
@@ -34,6 +38,9 @@ import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.quartz.SchedulerException;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Unit tests for BlockingQuartzJob
  * 
@@ -50,6 +57,11 @@ public class BlockingQuartzJobTest {
 
   private Log logger;
 
+  private JobExecutionHistory history;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private SchedulerException schedulerException = new SchedulerException( "something bad happened" );
 
   @Before
@@ -63,10 +75,12 @@ public class BlockingQuartzJobTest {
     context = mockery.mock( JobExecutionContext.class );
     blockoutManager = mockery.mock( IBlockoutManager.class );
     logger = mockery.mock( Log.class );
+    history = new JobExecutionHistory( temporaryFolder.getRoot(), 10, TimeUnit.DAYS.toMillis( 1 ) );
   }
 
   @After
   public void tearDown() throws Exception {
+    history.close();
     mockery.assertIsSatisfied();
   }
 
@@ -94,6 +108,8 @@ public class BlockingQuartzJobTest {
         one( blockoutManager ).shouldFireNow();
         will( returnValue( false ) );
         one( logger ).warn( "Job 'myjob' attempted to run during a blockout period.  This job was not executed" );
+        allowing( context ).getScheduledFireTime();
+        will( returnValue( null ) );
         allowing( context ).getJobDetail();
         will( returnValue( jobDetail ) );
       }
@@ -115,11 +131,17 @@ public class BlockingQuartzJobTest {
         one( blockoutManager ).shouldFireNow();
         will( returnValue( false ) );
         one( logger ).warn( "Job 'myjob' attempted to run during a blockout period.  This job was not executed" );
+        allowing( context ).getScheduledFireTime();
+        will( returnValue( null ) );
         allowing( context ).getJobDetail();
         will( returnValue( JobBuilder.newJob( BlockingQuartzJob.class ).withIdentity( "myjob" ).build() ) );
       }
     } );
     blockingJob.execute( context );
+
+    List<JobExecutionRecord> runs = history.getHistory( "myjob" );
+    assertEquals( 1, runs.size() );
+    assertEquals( JobExecutionRecord.Status.BLOCKED, runs.get( 0 ).getStatus() );
   }
 
   @Test
@@ -142,6 +164,11 @@ public class BlockingQuartzJobTest {
         return logger;
       }
 
+      @Override
+      JobExecutionHistory getExecutionHistory() {
+        return history;
+      }
+
       @Override
       protected void makeAuditRecord( float time, String messageType, JobExecutionContext jobExecutionContext ) {
         // No-op for testing
@@ -159,6 +186,8 @@ public class BlockingQuartzJobTest {
         one( blockoutManager ).shouldFireNow();
         will( returnValue( false ) );
         one( logger ).warn( "Job 'blockedJob' attempted to run during a blockout period.  This job was not executed" );
+        allowing( context ).getScheduledFireTime();
+        will( returnValue( null ) );
         allowing( context ).getJobDetail();
         will( returnValue( JobBuilder.newJob( BlockingQuartzJob.class ).withIdentity( "blockedJob" ).build() ) );
       }
@@ -175,6 +204,8 @@ public class BlockingQuartzJobTest {
         {
           // getJobDetail is called in execute() (3 times for setup/blockout/audit)
           // plus once more in recordExecutionTime() (if scheduler is available)
+          allowing( context ).getScheduledFireTime();
+          will( returnValue( null ) );
           allowing( context ).getJobDetail();
           will( returnValue( JobBuilder.newJob( BlockingQuartzJob.class ).withIdentity( "somejob" ).build() ) );
           
@@ -187,6 +218,10 @@ public class BlockingQuartzJobTest {
       throw new RuntimeException( e );
     }
     blockingJob.execute( context );
+
+    List<JobExecutionRecord> runs = history.getHistory( "somejob" );
+    assertEquals( 1, runs.size() );
+    assertEquals( JobExecutionRecord.Status.SUCCEEDED, runs.get( 0 ).getStatus() );
   }
 
   @Test
@@ -194,6 +229,8 @@ public class BlockingQuartzJobTest {
     BlockingQuartzJob blockingJob = createTestBlockingJob( true );
     mockery.checking( new Expectations() {
       {
+        allowing( context ).getScheduledFireTime();
+        will( returnValue( null ) );
         allowing( context ).getJobDetail();
         will( returnValue( JobBuilder.newJob( BlockingQuartzJob.class ).withIdentity( "somejob" ).build() ) );
         one( underlyingJob ).execute( with( same( context ) ) );
@@ -226,6 +263,11 @@ public class BlockingQuartzJobTest {
         return logger;
       }
 
+      @Override
+      JobExecutionHistory getExecutionHistory() {
+        return history;
+      }
+
       @Override
       protected void makeAuditRecord( float time, String messageType, JobExecutionContext jobExecutionContext ) {
 
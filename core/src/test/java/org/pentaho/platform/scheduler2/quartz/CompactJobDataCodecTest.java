@@ -0,0 +1,176 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.Test;
+import org.pentaho.platform.scheduler2.ws.ListParamValue;
+import org.pentaho.platform.scheduler2.ws.MapParamValue;
+import org.pentaho.platform.scheduler2.ws.StringParamValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CompactJobDataCodecTest {
+
+  private final CompactJobDataCodec codec = new CompactJobDataCodec();
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Map<String, Object> values = new HashMap<>();
+    values.put( "string", "text" );
+    values.put( "null", null );
+    values.put( "true", true );
+    values.put( "int", -42 );
+    values.put( "long", Long.MIN_VALUE );
+    values.put( "double", 1.5d );
+    values.put( "float", -2.25f );
+    values.put( "date", new Date( 1410786491777L ) );
+    values.put( "list", new ArrayList<>( Arrays.asList( "a", null, 3L ) ) );
+    Map<String, Object> nested = new HashMap<>();
+    nested.put( "region", "EMEA" );
+    nested.put( "year", 2024 );
+    values.put( "map", nested );
+    values.put( "decimal", new BigDecimal( "12.50" ) );
+
+    Map<String, Object> decoded = codec.decode( codec.encode( values ) );
+
+    assertEquals( values, decoded );
+    assertEquals( ArrayList.class, decoded.get( "list" ).getClass() );
+    assertEquals( HashMap.class, decoded.get( "map" ).getClass() );
+  }
+
+  @Test
+  public void testParamValuesKeepTheirType() throws Exception {
+    ListParamValue list = new ListParamValue();
+    list.add( "first" );
+    list.add( "second" );
+    MapParamValue map = new MapParamValue();
+    map.put( "key", "value" );
+    Map<String, Object> values = new HashMap<>();
+    values.put( "list", list );
+    values.put( "map", map );
+    values.put( "string", new StringParamValue( "value" ) );
+    values.put( "array", new String[] { "x", "y" } );
+
+    Map<String, Object> decoded = codec.decode( codec.encode( values ) );
+
+    assertEquals( ListParamValue.class, decoded.get( "list" ).getClass() );
+    assertEquals( list, decoded.get( "list" ) );
+    assertEquals( MapParamValue.class, decoded.get( "map" ).getClass() );
+    assertEquals( map, decoded.get( "map" ) );
+    assertEquals( "value", ( (StringParamValue) decoded.get( "string" ) ).getStringValue() );
+    assertArrayEquals( new String[] { "x", "y" }, (String[]) decoded.get( "array" ) );
+  }
+
+  @Test
+  public void testSmallerThanJavaSerialization() throws Exception {
+    HashMap<String, Object> values = new HashMap<>();
+    for ( int i = 0; i < 20; i++ ) {
+      MapParamValue map = new MapParamValue();
+      map.put( "name", "param" + i );
+      map.put( "value", "/public/Steel Wheels/Reports/Sales " + i + ".prpt" );
+      values.put( "param" + i, map );
+    }
+
+    int encoded = codec.encode( values ).length;
+    int uncompressed = new CompactJobDataCodec( -1 ).encode( values ).length;
+    ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+    try ( ObjectOutputStream out = new ObjectOutputStream( serialized ) ) {
+      out.writeObject( values );
+    }
+
+    assertTrue( encoded < uncompressed );
+    assertTrue( uncompressed < serialized.size() );
+    assertEquals( values, codec.decode( codec.encode( values ) ) );
+  }
+
+  @Test
+  public void testDecodesValuesWhenAskedFor() throws Exception {
+    Map<String, Object> values = new HashMap<>();
+    values.put( "streamProvider", new CountingValue() );
+    values.put( "actionUser", "admin" );
+    CountingValue.reads.set( 0 );
+
+    Map<String, Object> decoded = codec.decode( codec.encode( values ) );
+
+    assertEquals( "admin", decoded.get( "actionUser" ) );
+    assertEquals( 0, CountingValue.reads.get() );
+    Object streamProvider = decoded.get( "streamProvider" );
+    assertSame( streamProvider, decoded.get( "streamProvider" ) );
+    assertEquals( 1, CountingValue.reads.get() );
+  }
+
+  @Test
+  public void testUnpairedSurrogateSurvives() throws Exception {
+    Map<String, Object> values = new HashMap<>();
+    values.put( "broken", "a\uD800b" );
+
+    assertEquals( "a\uD800b", codec.decode( codec.encode( values ) ).get( "broken" ) );
+  }
+
+  @Test
+  public void testEmptyMap() throws Exception {
+    Map<String, Object> decoded = codec.decode( codec.encode( new HashMap<>() ) );
+
+    assertTrue( decoded.isEmpty() );
+    assertNull( decoded.get( "missing" ) );
+  }
+
+  @Test
+  public void testRejectsUnknownVersion() throws Exception {
+    byte[] data = codec.encode( new HashMap<>() );
+    data[ 0 ] = (byte) ( CompactJobDataCodec.VERSION + 1 );
+
+    try {
+      codec.decode( data );
+      fail();
+    } catch ( IOException e ) {
+      // expected
+    }
+  }
+
+  @Test( expected = IOException.class )
+  public void testRejectsValuesThatCannotBeSerialized() throws Exception {
+    codec.encode( Collections.singletonMap( "value", new Object() ) );
+  }
+
+  private static class CountingValue implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    static final AtomicInteger reads = new AtomicInteger();
+
+    private void readObject( ObjectInputStream in ) throws IOException, ClassNotFoundException {
+      in.defaultReadObject();
+      reads.incrementAndGet();
+    }
+  }
+}
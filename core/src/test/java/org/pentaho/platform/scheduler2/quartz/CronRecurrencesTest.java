@@ -0,0 +1,86 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.scheduler2.recur.ITimeRecurrence;
+import org.pentaho.platform.scheduler2.recur.QualifiedDayOfWeek.DayOfWeek;
+import org.pentaho.platform.scheduler2.recur.RecurrenceList;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CronRecurrencesTest {
+
+  @Before
+  public void setUp() {
+    CronRecurrences.clear();
+  }
+
+  @Test
+  public void testExpressionsAreParsedOnce() {
+    CronRecurrences recurrences = CronRecurrences.of( "0 30 9 ? * MON,WED *" );
+    assertSame( recurrences, CronRecurrences.of( "0 30 9 ? * MON,WED *" ) );
+    CronRecurrences.of( "0 0 12 * * ? *" );
+
+    assertEquals( 1, CronRecurrences.getHitCount() );
+    assertEquals( 2, CronRecurrences.getMissCount() );
+    assertEquals( 2, CronRecurrences.getCachedCount() );
+  }
+
+  @Test
+  public void testEveryCallHandsOutNewRecurrences() {
+    CronRecurrences recurrences = CronRecurrences.of( "0 15,45 9 ? * * *" );
+
+    List<ITimeRecurrence> minutes = recurrences.getRecurrences( 1 );
+    assertEquals( 1, minutes.size() );
+    RecurrenceList list = (RecurrenceList) minutes.get( 0 );
+    assertEquals( Arrays.asList( 15, 45 ), list.getValues() );
+    list.getValues().add( 50 );
+
+    RecurrenceList other = (RecurrenceList) recurrences.getRecurrences( 1 ).get( 0 );
+    assertNotSame( list, other );
+    assertEquals( Arrays.asList( 15, 45 ), other.getValues() );
+    assertTrue( recurrences.getRecurrences( 3 ).isEmpty() );
+  }
+
+  @Test
+  public void testDayNamesAreParsed() {
+    List<ITimeRecurrence> days = CronRecurrences.of( "0 0 12 ? * MON,FRI *" ).getDayOfWeekRecurrences();
+
+    assertEquals( 2, days.size() );
+    assertEquals( Arrays.asList( DayOfWeek.MON.ordinal() ), ( (RecurrenceList) days.get( 0 ) ).getValues() );
+    assertEquals( Arrays.asList( DayOfWeek.FRI.ordinal() ), ( (RecurrenceList) days.get( 1 ) ).getValues() );
+  }
+
+  @Test
+  public void testInvalidFieldOnlyFailsWhenAskedFor() {
+    CronRecurrences recurrences = CronRecurrences.of( "0 0 12 * * ?" );
+    assertTrue( recurrences.getRecurrences( 3 ).isEmpty() );
+
+    try {
+      recurrences.getRecurrences( 6 );
+      fail( "a cron expression without a year field has no year recurrences" );
+    } catch ( IllegalArgumentException e ) {
+      // expected
+    }
+  }
+}
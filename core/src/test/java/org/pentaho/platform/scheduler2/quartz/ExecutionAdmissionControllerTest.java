@@ -0,0 +1,251 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.After;
+import org.junit.Test;
+import org.pentaho.platform.scheduler2.metrics.SchedulerMetrics;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ExecutionAdmissionControllerTest {
+
+  private static final String RENDER_ACTION = "com.example.RenderAction";
+
+  private final ExecutionAdmissionController controller = new ExecutionAdmissionController();
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  private final CountDownLatch release = new CountDownLatch( 1 );
+
+  @After
+  public void tearDown() throws InterruptedException {
+    release.countDown();
+    executor.shutdownNow();
+    executor.awaitTermination( 10, TimeUnit.SECONDS );
+    SchedulerMetrics.getInstance().reset();
+  }
+
+  @Test
+  public void testRunsRightAwayWithoutQuotas() throws Exception {
+    assertEquals( "done", controller.call( "admin", RENDER_ACTION, null, "/public/report.prpt", () -> "done" ) );
+    assertEquals( 0, controller.getQueueLength() );
+  }
+
+  @Test
+  public void testCapsRunsPerUser() throws Exception {
+    controller.configure( 2, null, 0, null, null );
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch( 6 );
+    for ( int i = 0; i < 6; i++ ) {
+      executor.submit( () -> {
+        try {
+          return controller.call( "power", RENDER_ACTION, null, null, () -> {
+            maxRunning.accumulateAndGet( running.incrementAndGet(), Math::max );
+            Thread.sleep( 20 );
+            return running.decrementAndGet();
+          } );
+        } finally {
+          done.countDown();
+        }
+      } );
+    }
+
+    assertTrue( done.await( 10, TimeUnit.SECONDS ) );
+    assertEquals( 2, maxRunning.get() );
+    assertEquals( 0, controller.getQueueLength() );
+  }
+
+  @Test
+  public void testOtherUsersDoNotWait() throws Exception {
+    controller.configure( 1, "admin=2", 0, null, null );
+    Future<String> first = hold( "power", RENDER_ACTION, null, null );
+    Future<String> second = hold( "power", RENDER_ACTION, null, null );
+    awaitQueueLength( 1 );
+
+    assertEquals( "other", controller.call( "other", RENDER_ACTION, null, null, () -> "other" ) );
+    hold( "admin", RENDER_ACTION, null, null );
+    assertEquals( "admin", controller.call( "admin", RENDER_ACTION, null, null, () -> "admin" ) );
+    assertEquals( 1, SchedulerMetrics.getInstance().getQueuedExecutions() );
+
+    release.countDown();
+    assertEquals( "done", first.get( 10, TimeUnit.SECONDS ) );
+    assertEquals( "done", second.get( 10, TimeUnit.SECONDS ) );
+    assertEquals( 0, SchedulerMetrics.getInstance().getQueuedExecutions() );
+    assertEquals( 1, SchedulerMetrics.getInstance().getAdmissionWait().getCount() );
+  }
+
+  @Test
+  public void testActionQuotas() throws Exception {
+    controller.configure( 0, null, 0, RENDER_ACTION + "=1, mailBean=1", null );
+    hold( "admin", RENDER_ACTION, null, null );
+    hold( "suzy", RENDER_ACTION, "renderBean", null );
+    awaitQueueLength( 1 );
+
+    assertEquals( "other", controller.call( "admin", "com.example.MailAction", null, null, () -> "other" ) );
+    hold( "admin", "com.example.MailAction", "mailBean", null );
+    hold( "suzy", null, "mailBean", null );
+    awaitQueueLength( 2 );
+  }
+
+  @Test
+  public void testPathQuotas() throws Exception {
+    controller.configure( 0, null, 0, null, "/public/Finance/=1" );
+    hold( "admin", RENDER_ACTION, null, "/public/Finance/sales.prpt" );
+    hold( "suzy", RENDER_ACTION, null, "/public/Finance/2024/costs.prpt" );
+    awaitQueueLength( 1 );
+
+    assertEquals( "other", controller.call( "admin", RENDER_ACTION, null, "/public/FinanceOld/sales.prpt",
+      () -> "other" ) );
+    assertEquals( "other", controller.call( "admin", RENDER_ACTION, null, null, () -> "other" ) );
+  }
+
+  @Test
+  public void testAdmitsInArrivalOrder() throws Exception {
+    controller.configure( 1, null, 0, null, null );
+    List<String> order = new CopyOnWriteArrayList<>();
+    Future<String> first = hold( "power", RENDER_ACTION, null, null );
+    Future<String> second = executor.submit( () -> controller.call( "power", "second", null, null,
+      () -> record( order, "second" ) ) );
+    awaitQueueLength( 1 );
+    Future<String> third = executor.submit( () -> controller.call( "power", "third", null, null,
+      () -> record( order, "third" ) ) );
+    awaitQueueLength( 2 );
+
+    release.countDown();
+    first.get( 10, TimeUnit.SECONDS );
+    second.get( 10, TimeUnit.SECONDS );
+    third.get( 10, TimeUnit.SECONDS );
+    assertEquals( "second", order.get( 0 ) );
+    assertEquals( "third", order.get( 1 ) );
+  }
+
+  @Test
+  public void testLaterArrivalDoesNotTakeTheRoomOfAWaiter() throws Exception {
+    controller.configure( 0, "power=1", 0, RENDER_ACTION + "=1", null );
+    List<String> order = new CopyOnWriteArrayList<>();
+    Future<String> first = hold( "suzy", RENDER_ACTION, null, null );
+    // waits for the render quota, while the power quota has room
+    Future<String> render = executor.submit( () -> controller.call( "power", RENDER_ACTION, null, null,
+      () -> record( order, "render" ) ) );
+    awaitQueueLength( 1 );
+    Future<String> mail = executor.submit( () -> controller.call( "power", "com.example.MailAction", null, null,
+      () -> record( order, "mail" ) ) );
+    awaitQueueLength( 2 );
+
+    release.countDown();
+    first.get( 10, TimeUnit.SECONDS );
+    render.get( 10, TimeUnit.SECONDS );
+    mail.get( 10, TimeUnit.SECONDS );
+    assertEquals( "render", order.get( 0 ) );
+    assertEquals( "mail", order.get( 1 ) );
+  }
+
+  @Test
+  public void testAdmitsHigherPriorityFirst() throws Exception {
+    controller.configure( 1, null, 0, null, null );
+    List<String> order = new CopyOnWriteArrayList<>();
+    Future<String> first = hold( "power", RENDER_ACTION, null, null );
+    Future<String> low = executor.submit( () -> controller.call( "power", "low", null, null, 1, new Date(),
+      () -> record( order, "low" ) ) );
+    awaitQueueLength( 1 );
+    Future<String> critical = executor.submit( () -> controller.call( "power", "critical", null, null, 9, new Date(),
+      () -> record( order, "critical" ) ) );
+    awaitQueueLength( 2 );
+
+    release.countDown();
+    first.get( 10, TimeUnit.SECONDS );
+    low.get( 10, TimeUnit.SECONDS );
+    critical.get( 10, TimeUnit.SECONDS );
+    assertEquals( "critical", order.get( 0 ) );
+    assertEquals( "low", order.get( 1 ) );
+  }
+
+  @Test
+  public void testLateExecutionsAge() throws Exception {
+    controller.configure( 1, null, 0, null, null );
+    controller.setPriorityAgingMillis( 1000 );
+    List<String> order = new CopyOnWriteArrayList<>();
+    Future<String> first = hold( "power", RENDER_ACTION, null, null );
+    Date hourAgo = new Date( System.currentTimeMillis() - TimeUnit.HOURS.toMillis( 1 ) );
+    Future<String> late = executor.submit( () -> controller.call( "power", "late", null, null, 1, hourAgo,
+      () -> record( order, "late" ) ) );
+    awaitQueueLength( 1 );
+    Future<String> critical = executor.submit( () -> controller.call( "power", "critical", null, null, 9, new Date(),
+      () -> record( order, "critical" ) ) );
+    awaitQueueLength( 2 );
+
+    release.countDown();
+    first.get( 10, TimeUnit.SECONDS );
+    late.get( 10, TimeUnit.SECONDS );
+    critical.get( 10, TimeUnit.SECONDS );
+    assertEquals( "late", order.get( 0 ) );
+    assertEquals( "critical", order.get( 1 ) );
+  }
+
+  @Test
+  public void testInterruptedExecutionLeavesTheQueue() throws Exception {
+    controller.configure( 1, null, 0, null, null );
+    hold( "power", RENDER_ACTION, null, null );
+    Future<String> waiting = hold( "power", RENDER_ACTION, null, null );
+    awaitQueueLength( 1 );
+
+    waiting.cancel( true );
+    awaitQueueLength( 0 );
+    assertEquals( 0, SchedulerMetrics.getInstance().getQueuedExecutions() );
+
+    release.countDown();
+    assertEquals( "other", controller.call( "power", RENDER_ACTION, null, null, () -> "other" ) );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testRejectsInvalidQuotas() {
+    controller.configure( 0, "admin", 0, null, null );
+  }
+
+  private Future<String> hold( String user, String actionClassName, String actionId, String path ) {
+    return executor.submit( () -> controller.call( user, actionClassName, actionId, path, () -> {
+      release.await( 10, TimeUnit.SECONDS );
+      return "done";
+    } ) );
+  }
+
+  private void awaitQueueLength( int length ) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while ( controller.getQueueLength() != length ) {
+      if ( System.currentTimeMillis() > deadline ) {
+        fail( "Queue length is " + controller.getQueueLength() + ", not " + length );
+      }
+      Thread.sleep( 5 );
+    }
+  }
+
+  private static String record( List<String> order, String name ) {
+    order.add( name );
+    return name;
+  }
+}
@@ -0,0 +1,81 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JobLocksTest {
+
+  @Test
+  public void testOneLockPerJobForAllCallers() {
+    assertSame( JobLocks.getInstance().get( "admin\tjob\t1" ), JobLocks.getInstance().get( "admin\tjob\t1" ) );
+  }
+
+  @Test
+  public void testLockAllTakesEachStripeOnce() {
+    JobLocks jobLocks = new JobLocks();
+    List<String> jobIds = new ArrayList<>();
+    for ( int i = 0; i < 200; i++ ) {
+      jobIds.add( "admin\tjob" + i + "\t1" );
+    }
+
+    List<Lock> locks = jobLocks.lockAll( jobIds );
+    try {
+      assertEquals( locks.size(), new HashSet<>( locks ).size() );
+      for ( String jobId : jobIds ) {
+        assertTrue( locks.contains( jobLocks.get( jobId ) ) );
+      }
+    } finally {
+      locks.forEach( Lock::unlock );
+    }
+  }
+
+  @Test
+  public void testBatchWaitsForSingleJob() throws Exception {
+    JobLocks jobLocks = new JobLocks();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Lock jobLock = jobLocks.get( "suzy\tjob\t1" );
+    Future<List<Lock>> batch;
+    jobLock.lock();
+    try {
+      batch = executor.submit( () -> {
+        List<Lock> locks = jobLocks.lockAll( Arrays.asList( "admin\tjob\t1", "suzy\tjob\t1" ) );
+        locks.forEach( Lock::unlock );
+        return locks;
+      } );
+      Thread.sleep( 100 );
+      assertFalse( batch.isDone() );
+    } finally {
+      jobLock.unlock();
+    }
+
+    assertTrue( batch.get( 5, TimeUnit.SECONDS ).contains( jobLock ) );
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,95 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PartitionAssignmentTest {
+
+  private static final int PARTITIONS = 64;
+
+  private static final List<String> NODES = Arrays.asList( "node1", "node2", "node3" );
+
+  @Test
+  public void testOwnsEveryPartitionAlone() {
+    PartitionAssignment assignment = new PartitionAssignment( PARTITIONS );
+
+    assertEquals( PARTITIONS, assignment.getOwnedPartitions().size() );
+    assertTrue( assignment.assign( "node1", NODES ) );
+    assertFalse( assignment.assign( "node1", NODES ) );
+    assertEquals( 3, assignment.getNodeCount() );
+  }
+
+  @Test
+  public void testEveryPartitionHasOneOwner() {
+    PartitionAssignment[] assignments = assign( NODES );
+
+    for ( int partition = 0; partition < PARTITIONS; partition++ ) {
+      int owners = 0;
+      for ( PartitionAssignment assignment : assignments ) {
+        owners += assignment.isOwned( partition ) ? 1 : 0;
+      }
+      assertEquals( "Owners of partition " + partition, 1, owners );
+    }
+    for ( PartitionAssignment assignment : assignments ) {
+      assertFalse( assignment.getOwnedPartitions().isEmpty() );
+    }
+  }
+
+  @Test
+  public void testOnlyPartitionsOfFailedNodeMove() {
+    PartitionAssignment[] before = assign( NODES );
+    PartitionAssignment[] after = assign( NODES.subList( 0, 2 ) );
+
+    for ( int partition = 0; partition < PARTITIONS; partition++ ) {
+      for ( int node = 0; node < 2; node++ ) {
+        if ( before[ node ].isOwned( partition ) ) {
+          assertTrue( after[ node ].isOwned( partition ) );
+        }
+      }
+      assertTrue( after[ 0 ].isOwned( partition ) || after[ 1 ].isOwned( partition ) );
+    }
+  }
+
+  @Test
+  public void testTagDecidesPartition() {
+    int partition = PartitionAssignment.getPartition( "admin\tSales\t1", "finance", PARTITIONS );
+
+    assertEquals( partition, PartitionAssignment.getPartition( "suzy\tCosts\t2", " finance ", PARTITIONS ) );
+    assertEquals( PartitionAssignment.getPartition( "admin\tSales\t1", null, PARTITIONS ),
+      PartitionAssignment.getPartition( "admin\tSales\t1", "", PARTITIONS ) );
+    assertTrue( partition >= 0 && partition < PARTITIONS );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testRejectsNoPartitions() {
+    new PartitionAssignment( 0 );
+  }
+
+  private static PartitionAssignment[] assign( List<String> nodes ) {
+    PartitionAssignment[] assignments = new PartitionAssignment[ nodes.size() ];
+    for ( int i = 0; i < nodes.size(); i++ ) {
+      assignments[ i ] = new PartitionAssignment( PARTITIONS );
+      assignments[ i ].assign( nodes.get( i ), nodes );
+    }
+    return assignments;
+  }
+}
@@ -0,0 +1,172 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.Test;
+import org.quartz.TriggerKey;
+import org.quartz.impl.jdbcjobstore.DriverDelegate;
+import org.quartz.impl.jdbcjobstore.SchedulerStateRecord;
+import org.quartz.impl.triggers.SimpleTriggerImpl;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PartitionedJobStoreTXTest {
+
+  private static final int PARTITIONS = 16;
+
+  private final SharedDatabase database = new SharedDatabase();
+
+  @Test
+  public void testNodesAcquireDisjointShares() throws Exception {
+    database.addTriggers( 200 );
+    List<DriverDelegate> nodes = startNodes( "node1", "node2", "node3" );
+
+    Map<TriggerKey, String> acquiredBy = acquireAll( nodes );
+
+    assertEquals( 200, acquiredBy.size() );
+    assertEquals( 3, new HashSet<>( acquiredBy.values() ).size() );
+  }
+
+  @Test
+  public void testPartitionsOfFailedNodeMove() throws Exception {
+    database.addTriggers( 200 );
+    List<DriverDelegate> nodes = startNodes( "node1", "node2", "node3" );
+    Map<TriggerKey, String> before = acquireAll( nodes );
+
+    database.checkIn( "node3", System.currentTimeMillis() - 60000 );
+    Map<TriggerKey, String> after = acquireAll( nodes.subList( 0, 2 ) );
+
+    assertEquals( 200, after.size() );
+    for ( Map.Entry<TriggerKey, String> entry : before.entrySet() ) {
+      if ( !"node3".equals( entry.getValue() ) ) {
+        assertEquals( entry.getValue(), after.get( entry.getKey() ) );
+      }
+    }
+  }
+
+  @Test
+  public void testTaggedJobsStayTogether() throws Exception {
+    database.addTriggers( 50 );
+    database.tag( "finance", 10 );
+    List<DriverDelegate> nodes = startNodes( "node1", "node2", "node3" );
+
+    Map<TriggerKey, String> acquiredBy = acquireAll( nodes );
+
+    Set<String> financeNodes = new HashSet<>();
+    for ( TriggerKey key : database.tags.keySet() ) {
+      financeNodes.add( acquiredBy.get( key ) );
+    }
+    assertEquals( 1, financeNodes.size() );
+  }
+
+  @Test
+  public void testLooksAtMoreCandidatesForABatch() throws Exception {
+    database.addTriggers( 200 );
+    List<DriverDelegate> nodes = startNodes( "node1", "node2", "node3" );
+
+    List<TriggerKey> keys = nodes.get( 0 ).selectTriggerToAcquire( null, Long.MAX_VALUE, 0L, 5 );
+
+    assertEquals( 5, keys.size() );
+    assertEquals( 15, database.lastMaxCount );
+  }
+
+  private List<DriverDelegate> startNodes( String... instanceIds ) {
+    List<DriverDelegate> nodes = new ArrayList<>();
+    for ( String instanceId : instanceIds ) {
+      PartitionedJobStoreTX store = new PartitionedJobStoreTX();
+      store.setInstanceId( instanceId );
+      store.setIsClustered( true );
+      store.setClusterCheckinInterval( 0 );
+      store.setPartitionCount( PARTITIONS );
+      database.checkIn( instanceId, System.currentTimeMillis() );
+      nodes.add( store.partition( database.delegate ) );
+    }
+    return nodes;
+  }
+
+  private Map<TriggerKey, String> acquireAll( List<DriverDelegate> nodes ) throws Exception {
+    Map<TriggerKey, String> acquiredBy = new HashMap<>();
+    for ( int node = 0; node < nodes.size(); node++ ) {
+      for ( TriggerKey key : nodes.get( node ).selectTriggerToAcquire( null, Long.MAX_VALUE, 0L ) ) {
+        String previous = acquiredBy.put( key, "node" + ( node + 1 ) );
+        assertTrue( key + " acquired by " + previous + " too", previous == null );
+      }
+    }
+    return acquiredBy;
+  }
+
+  /**
+   * The trigger and scheduler state tables all nodes share
+   */
+  private static class SharedDatabase {
+
+    private final List<TriggerKey> triggers = new ArrayList<>();
+
+    private final Map<TriggerKey, String> tags = new HashMap<>();
+
+    private final Map<String, SchedulerStateRecord> checkIns = new HashMap<>();
+
+    private int lastMaxCount;
+
+    private final DriverDelegate delegate = (DriverDelegate) Proxy.newProxyInstance(
+      DriverDelegate.class.getClassLoader(), new Class<?>[] { DriverDelegate.class }, ( proxy, method, args ) -> {
+        switch ( method.getName() ) {
+          case "selectTriggerToAcquire":
+            lastMaxCount = args.length > 3 ? (Integer) args[ 3 ] : Integer.MAX_VALUE;
+            return new ArrayList<>( triggers.subList( 0, Math.min( lastMaxCount, triggers.size() ) ) );
+          case "selectSchedulerStateRecords":
+            return new ArrayList<>( checkIns.values() );
+          case "selectTrigger":
+            SimpleTriggerImpl trigger = new SimpleTriggerImpl();
+            String tag = tags.get( (TriggerKey) args[ 1 ] );
+            if ( tag != null ) {
+              trigger.getJobDataMap().put( QuartzScheduler.RESERVEDMAPKEY_PARTITION, tag );
+            }
+            return trigger;
+          default:
+            throw new UnsupportedOperationException( method.getName() );
+        }
+      } );
+
+    void addTriggers( int count ) throws Exception {
+      for ( int i = 0; i < count; i++ ) {
+        QuartzJobKey jobKey = new QuartzJobKey( "job" + i, "user" + ( i % 7 ) );
+        triggers.add( new TriggerKey( jobKey.toString(), jobKey.getUserName() ) );
+      }
+    }
+
+    void tag( String tag, int count ) {
+      for ( TriggerKey key : triggers.subList( 0, count ) ) {
+        tags.put( key, tag );
+      }
+    }
+
+    void checkIn( String instanceId, long timestamp ) {
+      SchedulerStateRecord record = new SchedulerStateRecord();
+      record.setSchedulerInstanceId( instanceId );
+      record.setCheckinTimestamp( timestamp );
+      record.setCheckinInterval( 7500 );
+      checkIns.put( instanceId, record );
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.Test;
+import org.pentaho.platform.scheduler2.ws.ListParamValue;
+import org.quartz.JobDataMap;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class QuartzJobDataTest {
+
+  @Test
+  public void testEncodesOnlyComplexValues() {
+    Map<String, Object> params = createParams();
+
+    JobDataMap jobDataMap = QuartzJobData.toJobDataMap( params );
+
+    assertEquals( "admin", jobDataMap.get( QuartzScheduler.RESERVEDMAPKEY_ACTIONUSER ) );
+    assertEquals( params.get( QuartzScheduler.RESERVEDMAPKEY_LAST_EXECUTION_TIME ),
+      jobDataMap.get( QuartzScheduler.RESERVEDMAPKEY_LAST_EXECUTION_TIME ) );
+    assertFalse( jobDataMap.containsKey( "parameters" ) );
+    assertFalse( jobDataMap.containsKey( "regions" ) );
+    assertTrue( jobDataMap.get( QuartzJobData.ENCODED_DATA_KEY ) instanceof byte[] );
+    assertEquals( CompactJobDataCodec.NAME, jobDataMap.get( QuartzJobData.CODEC_KEY ) );
+    assertFalse( QuartzJobData.needsEncoding( jobDataMap ) );
+  }
+
+  @Test
+  public void testViewMergesPlainAndEncodedValues() {
+    Map<String, Object> params = createParams();
+    JobDataMap jobDataMap = QuartzJobData.toJobDataMap( params );
+
+    Map<String, Object> view = QuartzJobData.view( jobDataMap );
+
+    assertEquals( params, view );
+    assertNull( view.get( QuartzJobData.ENCODED_DATA_KEY ) );
+    assertFalse( view.containsKey( QuartzJobData.CODEC_KEY ) );
+  }
+
+  @Test
+  public void testPlainEntryWinsOverEncodedOne() {
+    JobDataMap jobDataMap = QuartzJobData.toJobDataMap( createParams() );
+    jobDataMap.put( "regions", "EMEA" );
+
+    assertEquals( "EMEA", QuartzJobData.view( jobDataMap ).get( "regions" ) );
+    assertEquals( "EMEA", QuartzJobData.toParams( jobDataMap ).get( "regions" ) );
+  }
+
+  @Test
+  public void testToParamsIsModifiable() {
+    Map<String, Object> params = QuartzJobData.toParams( QuartzJobData.toJobDataMap( createParams() ) );
+
+    params.put( "jobName", "Sales" );
+
+    assertEquals( "Sales", params.get( "jobName" ) );
+    assertTrue( params.get( "parameters" ) instanceof Map );
+  }
+
+  @Test
+  public void testKeepsMapsWithoutComplexValuesAsTheyAre() {
+    Map<String, Object> params = Collections.singletonMap( QuartzScheduler.RESERVEDMAPKEY_ACTIONUSER, "admin" );
+
+    JobDataMap jobDataMap = QuartzJobData.toJobDataMap( params );
+
+    assertEquals( params, jobDataMap.getWrappedMap() );
+    assertEquals( params, QuartzJobData.view( jobDataMap ) );
+  }
+
+  @Test
+  public void testKeepsParamsAsTheyAreWhenTheyCannotBeEncoded() {
+    Map<String, Object> params = createParams();
+    params.put( "notSerializable", new Object() );
+
+    JobDataMap jobDataMap = QuartzJobData.toJobDataMap( params );
+
+    assertEquals( params, jobDataMap.getWrappedMap() );
+    assertTrue( QuartzJobData.needsEncoding( jobDataMap ) );
+  }
+
+  private static Map<String, Object> createParams() {
+    Map<String, Object> params = new HashMap<>();
+    params.put( QuartzScheduler.RESERVEDMAPKEY_ACTIONUSER, "admin" );
+    params.put( QuartzScheduler.RESERVEDMAPKEY_LAST_EXECUTION_TIME, new Date( 1410786491777L ) );
+    Map<String, Object> parameters = new HashMap<>();
+    parameters.put( "year", 2024 );
+    params.put( "parameters", parameters );
+    ListParamValue regions = new ListParamValue();
+    regions.add( "EMEA" );
+    regions.add( "APAC" );
+    params.put( "regions", regions );
+    return params;
+  }
+}
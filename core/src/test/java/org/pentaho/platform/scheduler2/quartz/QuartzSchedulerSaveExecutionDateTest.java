@@ -4,6 +4,8 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.pentaho.platform.api.scheduler2.IBlockoutManager;
+import org.pentaho.platform.scheduler2.blockout.BlockoutRegistry;
 import org.quartz.CalendarIntervalScheduleBuilder;
 import org.quartz.CalendarIntervalTrigger;
 import org.quartz.DateBuilder;
@@ -39,6 +41,8 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -134,15 +138,75 @@ public class QuartzSchedulerSaveExecutionDateTest {
     // Act
     mockQuartzScheduler.saveExecutionDate( jobKey, executionTime );
 
-    // Assert
-    verify( mockScheduler ).deleteJob( jobKey );
+    // Assert - the job detail is replaced in place, the job is not deleted and rescheduled
+    verify( mockScheduler, never() ).deleteJob( jobKey );
+    verify( mockScheduler, never() ).scheduleJob( any( JobDetail.class ), any( Trigger.class ) );
 
     ArgumentCaptor<JobDetail> jobDetailCaptor = ArgumentCaptor.forClass( JobDetail.class );
-    verify( mockScheduler ).scheduleJob( jobDetailCaptor.capture(), any( Trigger.class ) );
+    verify( mockScheduler ).addJob( jobDetailCaptor.capture(), eq( true ), eq( true ) );
     assertEquals( executionTime,
       jobDetailCaptor.getValue().getJobDataMap().get( QuartzScheduler.RESERVEDMAPKEY_LAST_EXECUTION_TIME ) );
   }
 
+  @Test
+  public void testSaveExecutionDateOfBlockoutKeepsVersionStamp() throws Exception {
+    JobKey jobKey = new JobKey( "admin\t" + IBlockoutManager.BLOCK_OUT_JOB_NAME + "\tuuid", "admin" );
+    JobDetail mockJobDetail = mock( JobDetail.class );
+    when( mockJobDetail.getKey() ).thenReturn( jobKey );
+    when( mockJobDetail.getJobDataMap() ).thenReturn( new JobDataMap() );
+    when( mockJobDetail.getJobClass() ).thenReturn( (Class) BlockingQuartzJob.class );
+
+    Trigger mockTrigger = mock( Trigger.class );
+    when( mockTrigger.getNextFireTime() ).thenReturn( new Date( System.currentTimeMillis() + 60_000 ) );
+
+    Scheduler mockScheduler = mock( Scheduler.class );
+    when( mockScheduler.getJobDetail( jobKey ) ).thenReturn( mockJobDetail );
+    when( mockScheduler.getTriggersOfJob( jobKey ) )
+      .thenAnswer( unused -> Collections.singletonList( mockTrigger ) );
+
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+
+    QuartzScheduler mockQuartzScheduler = new QuartzScheduler();
+    mockQuartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    mockQuartzScheduler.saveExecutionDate( jobKey, new Date() );
+
+    verify( mockScheduler ).addJob( any( JobDetail.class ), eq( true ), eq( true ) );
+    verify( mockScheduler, never() )
+      .addCalendar( eq( BlockoutRegistry.VERSION_CALENDAR_NAME ), any(), anyBoolean(), anyBoolean() );
+  }
+
+  @Test
+  public void testSaveExecutionDateIgnoresOlderExecutionTime() throws Exception {
+    Date newerExecutionTime = new Date();
+    JobDetail mockJobDetail = mock( JobDetail.class );
+    JobKey jobKey = new JobKey( TEST_JOB, TEST_GROUP );
+    JobDataMap jobDataMap = new JobDataMap();
+    jobDataMap.put( QuartzScheduler.RESERVEDMAPKEY_LAST_EXECUTION_TIME, newerExecutionTime );
+
+    when( mockJobDetail.getKey() ).thenReturn( jobKey );
+    when( mockJobDetail.getJobDataMap() ).thenReturn( jobDataMap );
+
+    Trigger mockTrigger = mock( Trigger.class );
+    when( mockTrigger.getNextFireTime() ).thenReturn( new Date( System.currentTimeMillis() + 60_000 ) );
+
+    Scheduler mockScheduler = mock( Scheduler.class );
+    when( mockScheduler.getJobDetail( jobKey ) ).thenReturn( mockJobDetail );
+    when( mockScheduler.getTriggersOfJob( jobKey ) )
+      .thenAnswer( unused -> Collections.singletonList( mockTrigger ) );
+
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+
+    QuartzScheduler mockQuartzScheduler = new QuartzScheduler();
+    mockQuartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    mockQuartzScheduler.saveExecutionDate( jobKey, new Date( newerExecutionTime.getTime() - 1000 ) );
+
+    verify( mockScheduler, never() ).addJob( any( JobDetail.class ), eq( true ), eq( true ) );
+  }
+
   @Test
   public void testSaveExecutionDateCalendarIntervalTriggerPreservesSchedule() throws Exception {
     Date executionTime = new Date();
@@ -180,21 +244,17 @@ public class QuartzSchedulerSaveExecutionDateTest {
 
     mockQuartzScheduler.saveExecutionDate( jobKey, executionTime );
 
-    verify( mockScheduler ).deleteJob( jobKey );
+    // The trigger, and with it the schedule, is not rebuilt on execution
+    verify( mockScheduler, never() ).deleteJob( jobKey );
+    verify( mockScheduler, never() ).scheduleJob( any( JobDetail.class ), any( Trigger.class ) );
+    verify( mockScheduler, never() ).rescheduleJob( any( TriggerKey.class ), any( Trigger.class ) );
 
     ArgumentCaptor<JobDetail> jobDetailCaptor = ArgumentCaptor.forClass( JobDetail.class );
-    ArgumentCaptor<Trigger> triggerCaptor = ArgumentCaptor.forClass( Trigger.class );
-    verify( mockScheduler ).scheduleJob( jobDetailCaptor.capture(), triggerCaptor.capture() );
+    verify( mockScheduler ).addJob( jobDetailCaptor.capture(), eq( true ), eq( true ) );
     assertEquals( executionTime,
       jobDetailCaptor.getValue().getJobDataMap().get( QuartzScheduler.RESERVEDMAPKEY_LAST_EXECUTION_TIME ) );
-    Trigger scheduledTrigger = triggerCaptor.getValue();
-    assertTrue( scheduledTrigger instanceof CalendarIntervalTriggerImpl );
-    CalendarIntervalTriggerImpl t = (CalendarIntervalTriggerImpl) scheduledTrigger;
-    assertEquals( 5, t.getRepeatInterval() );
-    assertEquals( DateBuilder.IntervalUnit.MINUTE, t.getRepeatIntervalUnit() );
-    assertEquals( UTC_TIMEZONE, t.getTimeZone( ).getID( ) );
-    assertEquals( CalendarIntervalTrigger.MISFIRE_INSTRUCTION_DO_NOTHING, t.getMisfireInstruction() );
-    assertNotNull( t.getStartTime() );
+    assertEquals( BlockingQuartzJob.class, jobDetailCaptor.getValue().getJobClass() );
+    assertEquals( jobKey, jobDetailCaptor.getValue().getKey() );
   }
 
   @Test
@@ -461,6 +521,7 @@ public class QuartzSchedulerSaveExecutionDateTest {
     // would trigger an immediate execution and create an infinite loop.
     verify( mockScheduler, never() ).deleteJob( jobKey );
     verify( mockScheduler, never() ).scheduleJob( any( JobDetail.class ), any( Trigger.class ) );
+    verify( mockScheduler, never() ).addJob( any( JobDetail.class ), eq( true ), eq( true ) );
   }
 
   @Test
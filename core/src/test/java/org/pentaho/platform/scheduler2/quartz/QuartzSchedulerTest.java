@@ -16,11 +16,14 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
 import org.pentaho.platform.api.repository2.unified.RepositoryFile;
 import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.IJob;
 import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.JobState;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
 import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
@@ -29,9 +32,11 @@ import org.quartz.CronExpression;
 import org.quartz.CronScheduleBuilder;
 import org.quartz.CronTrigger;
 import org.quartz.DateBuilder;
+import org.quartz.JobBuilder;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
 import org.quartz.JobKey;
+import org.quartz.ObjectAlreadyExistsException;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerFactory;
 import org.quartz.SimpleScheduleBuilder;
@@ -39,16 +44,22 @@ import org.quartz.SimpleTrigger;
 import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
 import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
 import org.quartz.impl.triggers.CalendarIntervalTriggerImpl;
 import org.quartz.impl.triggers.CronTriggerImpl;
 import org.quartz.spi.MutableTrigger;
 
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
 
 import static org.junit.Assert.assertEquals;
@@ -58,6 +69,8 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.pentaho.platform.api.scheduler2.IScheduler.RESERVEDMAPKEY_ACTIONUSER;
@@ -466,6 +479,7 @@ public class QuartzSchedulerTest {
     trigger.setRepeatIntervalUnit( DateBuilder.IntervalUnit.MINUTE );
     trigger.setMisfireInstruction( CalendarIntervalTrigger.MISFIRE_INSTRUCTION_FIRE_ONCE_NOW );
     trigger.setTimeZone( TimeZone.getTimeZone( "UTC" ) );
+    trigger.setPriority( 8 );
 
     Scheduler mockScheduler = mock( Scheduler.class );
     when( mockScheduler.getJobDetail( jobKey ) ).thenReturn( mockJobDetail );
@@ -488,6 +502,7 @@ public class QuartzSchedulerTest {
     assertTrue( triggerCaptor.getValue() instanceof CalendarIntervalTrigger );
     assertTrue( "Normalized start time should be in the future",
       triggerCaptor.getValue().getStartTime().after( new Date() ) );
+    assertEquals( 8, triggerCaptor.getValue().getPriority() );
   }
 
   @Test
@@ -663,4 +678,357 @@ public class QuartzSchedulerTest {
     assertEquals( 7, mappedTrigger.getRepeatCount() );
   }
 
+  @Test
+  public void testGetJobReturnsModifiableParams() throws Exception {
+    JobKey quartzJobKey = new JobKey( TEST_JOB_ID, "testJob" );
+    CalendarIntervalTriggerImpl trigger = new CalendarIntervalTriggerImpl();
+    trigger.setKey( new TriggerKey( TEST_JOB_ID, "testJob" ) );
+    trigger.setJobKey( quartzJobKey );
+    trigger.setStartTime( new Date() );
+    trigger.setRepeatInterval( 1 );
+    trigger.setRepeatIntervalUnit( DateBuilder.IntervalUnit.DAY );
+
+    Map<String, Object> params = new HashMap<>();
+    params.put( RESERVEDMAPKEY_ACTIONUSER, "admin" );
+    params.put( "regions", new String[] { "EMEA", "APAC" } );
+    JobDetail mockJobDetail = mock( JobDetail.class );
+    when( mockJobDetail.getJobDataMap() ).thenReturn( QuartzJobData.toJobDataMap( params ) );
+    when( mockJobDetail.getKey() ).thenReturn( quartzJobKey );
+
+    Scheduler mockScheduler = mock( Scheduler.class );
+    Mockito.doReturn( Collections.singletonList( trigger ) ).when( mockScheduler ).getTriggersOfJob( any( JobKey.class ) );
+    when( mockScheduler.getJobDetail( any( JobKey.class ) ) ).thenReturn( mockJobDetail );
+    when( mockScheduler.getTriggerState( any( TriggerKey.class ) ) ).thenReturn( Trigger.TriggerState.NORMAL );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    Job job = quartzScheduler.getJob( TEST_JOB_ID );
+
+    assertTrue( job.getJobParams().get( "regions" ) instanceof String[] );
+    job.getJobParams().put( "regions", new ArrayList<>( Arrays.asList( "EMEA", "APAC" ) ) );
+    assertEquals( Arrays.asList( "EMEA", "APAC" ), job.getJobParams().get( "regions" ) );
+  }
+
+  @Test
+  public void testShutdownStopsCompletionServices() throws Exception {
+    Scheduler quartzScheduler = mock( Scheduler.class );
+    SchedulerFactory quartzSchedulerFactory = mock( SchedulerFactory.class );
+    when( quartzSchedulerFactory.getScheduler() ).thenReturn( quartzScheduler );
+    QuartzScheduler scheduler = Mockito.spy( new QuartzScheduler( quartzSchedulerFactory ) );
+    Mockito.doNothing().when( scheduler ).shutdownCompletionServices();
+
+    scheduler.shutdown();
+
+    InOrder inOrder = Mockito.inOrder( quartzScheduler, scheduler );
+    inOrder.verify( quartzScheduler ).shutdown( true );
+    inOrder.verify( scheduler ).shutdownCompletionServices();
+  }
+
+  @Test
+  public void testGetExistingJobIdsQueriesOncePerOwner() throws Exception {
+    Scheduler mockScheduler = mock( Scheduler.class );
+    when( mockScheduler.getJobKeys( GroupMatcher.jobGroupEquals( "admin" ) ) ).thenReturn( new HashSet<>( Arrays.asList(
+      new JobKey( "admin\tfirst\tuuid1", "admin" ), new JobKey( "admin\tsecond\tuuid2", "admin" ),
+      new JobKey( "admin\tother\tuuid3", "admin" ) ) ) );
+    when( mockScheduler.getJobKeys( GroupMatcher.jobGroupEquals( "suzy" ) ) ).thenReturn( new HashSet<>() );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    Set<String> existing = quartzScheduler.getExistingJobIds( Arrays.asList( "admin\tfirst\tuuid1",
+      "admin\tsecond\tuuid2", "admin\tgone\tuuid4", "suzy\tfirst\tuuid5", "not a job id" ) );
+
+    assertEquals( new HashSet<>( Arrays.asList( "admin\tfirst\tuuid1", "admin\tsecond\tuuid2" ) ), existing );
+    verify( mockScheduler, times( 2 ) ).getJobKeys( any() );
+    verify( mockScheduler, times( 0 ) ).getJobDetail( any( JobKey.class ) );
+  }
+
+  @Test
+  public void testGetJobs_FilterAppliedBeforeTriggerConversion() throws Exception {
+    JobKey acceptedKey = new JobKey( "admin\taccepted\tuuid1", "admin" );
+    JobKey rejectedKey = new JobKey( "admin\trejected\tuuid2", "admin" );
+
+    Scheduler mockScheduler = mock( Scheduler.class );
+    when( mockScheduler.getJobKeys( any() ) ).thenReturn( new HashSet<>( Arrays.asList( acceptedKey, rejectedKey ) ) );
+    for ( JobKey jobKey : Arrays.asList( acceptedKey, rejectedKey ) ) {
+      CalendarIntervalTriggerImpl trigger = new CalendarIntervalTriggerImpl();
+      trigger.setKey( new TriggerKey( jobKey.getName(), jobKey.getGroup() ) );
+      trigger.setJobKey( jobKey );
+      trigger.setStartTime( new Date() );
+      trigger.setRepeatInterval( 1 );
+      trigger.setRepeatIntervalUnit( DateBuilder.IntervalUnit.DAY );
+      Mockito.doReturn( Collections.singletonList( trigger ) ).when( mockScheduler ).getTriggersOfJob( jobKey );
+
+      JobDetail jobDetail = mock( JobDetail.class );
+      when( jobDetail.getKey() ).thenReturn( jobKey );
+      when( jobDetail.getJobDataMap() ).thenReturn( new JobDataMap() );
+      when( mockScheduler.getJobDetail( jobKey ) ).thenReturn( jobDetail );
+    }
+    when( mockScheduler.getTriggerState( any( TriggerKey.class ) ) ).thenReturn( Trigger.TriggerState.PAUSED );
+
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    List<IJob> jobs = quartzScheduler.getJobs( job -> "accepted".equals( job.getJobName() ) );
+
+    assertEquals( 1, jobs.size() );
+    Job job = (Job) jobs.get( 0 );
+    assertEquals( acceptedKey.getName(), job.getJobId() );
+    assertEquals( "admin", job.getUserName() );
+    assertTrue( job.getJobTrigger() instanceof SimpleJobTrigger );
+    assertEquals( JobState.PAUSED, job.getState() );
+    verify( mockScheduler, times( 1 ) ).getJobDetail( acceptedKey );
+    verify( mockScheduler, times( 1 ) ).getTriggerState( new TriggerKey( acceptedKey.getName(), "admin" ) );
+    verify( mockScheduler, never() ).getTriggerState( new TriggerKey( rejectedKey.getName(), "admin" ) );
+  }
+
+  @Test
+  public void testGetJobs_PausedJobNextRunIsInFuture() throws Exception {
+    JobKey jobKey = new JobKey( "admin\tpaused\tuuid", "admin" );
+    long now = System.currentTimeMillis();
+    CronTriggerImpl trigger = (CronTriggerImpl) TriggerBuilder.newTrigger()
+      .withIdentity( jobKey.getName(), jobKey.getGroup() )
+      .forJob( jobKey )
+      .withSchedule( CronScheduleBuilder.cronSchedule( TEST_CRON_EXPRESSION ) )
+      .startAt( new Date( now - 86400000L ) )
+      .build();
+    // paused a day ago, the stored next fire time was not moved since
+    trigger.setNextFireTime( new Date( now - 3600000L ) );
+
+    Scheduler mockScheduler = mock( Scheduler.class );
+    when( mockScheduler.getJobKeys( any() ) ).thenReturn( new HashSet<>( Collections.singletonList( jobKey ) ) );
+    Mockito.doReturn( Collections.singletonList( trigger ) ).when( mockScheduler ).getTriggersOfJob( jobKey );
+    JobDetail jobDetail = mock( JobDetail.class );
+    when( jobDetail.getKey() ).thenReturn( jobKey );
+    when( jobDetail.getJobDataMap() ).thenReturn( new JobDataMap() );
+    when( mockScheduler.getJobDetail( jobKey ) ).thenReturn( jobDetail );
+    when( mockScheduler.getTriggerState( any( TriggerKey.class ) ) ).thenReturn( Trigger.TriggerState.PAUSED );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    // the filter sees the next run before the trigger is converted
+    List<IJob> jobs = quartzScheduler.getJobs( job -> job.getNextRun().getTime() > now );
+
+    assertEquals( 1, jobs.size() );
+    assertEquals( JobState.PAUSED, jobs.get( 0 ).getState() );
+    assertTrue( jobs.get( 0 ).getNextRun().getTime() > now );
+  }
+
+  @Test
+  public void testCreateJobKeepsAvailabilityWindowOnTrigger() throws Exception {
+    Scheduler mockScheduler = mock( Scheduler.class );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    Date start = new Date( System.currentTimeMillis() + 86400000L );
+    ComplexJobTrigger complexTrigger = new ComplexJobTrigger();
+    complexTrigger.setCronString( TEST_CRON_EXPRESSION );
+    complexTrigger.setStartTime( start );
+    HashMap<String, Object> jobParams = new HashMap<>();
+    jobParams.put( RESERVEDMAPKEY_ACTIONUSER, "fooUser" );
+
+    quartzScheduler.createJob( "fooJob", jobParams, complexTrigger, null );
+
+    ArgumentCaptor<Trigger> triggerCaptor = ArgumentCaptor.forClass( Trigger.class );
+    verify( mockScheduler ).scheduleJob( any( JobDetail.class ), triggerCaptor.capture() );
+    verify( mockScheduler, never() ).addCalendar( Mockito.anyString(), any(), Mockito.anyBoolean(),
+      Mockito.anyBoolean() );
+    assertNull( triggerCaptor.getValue().getCalendarName() );
+    assertEquals( start, triggerCaptor.getValue().getStartTime() );
+    assertEquals( start, jobParams.get( QuartzScheduler.RESERVEDMAPKEY_AVAILABILITY_START ) );
+  }
+
+  @Test
+  public void testCreateJobSetsTriggerPriority() throws Exception {
+    Scheduler mockScheduler = mock( Scheduler.class );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    ComplexJobTrigger complexTrigger = new ComplexJobTrigger();
+    complexTrigger.setCronString( TEST_CRON_EXPRESSION );
+    HashMap<String, Object> jobParams = new HashMap<>();
+    jobParams.put( RESERVEDMAPKEY_ACTIONUSER, "fooUser" );
+    jobParams.put( QuartzScheduler.RESERVEDMAPKEY_PRIORITY, "8" );
+
+    quartzScheduler.createJob( "fooJob", jobParams, complexTrigger, null );
+
+    ArgumentCaptor<Trigger> triggerCaptor = ArgumentCaptor.forClass( Trigger.class );
+    verify( mockScheduler ).scheduleJob( any( JobDetail.class ), triggerCaptor.capture() );
+    assertEquals( 8, triggerCaptor.getValue().getPriority() );
+    assertFalse( triggerCaptor.getValue().getJobDataMap().containsKey( QuartzScheduler.RESERVEDMAPKEY_PARTITION ) );
+  }
+
+  @Test
+  public void testCreateJobKeepsPartitionTagOnTrigger() throws Exception {
+    Scheduler mockScheduler = mock( Scheduler.class );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    ComplexJobTrigger complexTrigger = new ComplexJobTrigger();
+    complexTrigger.setCronString( TEST_CRON_EXPRESSION );
+    HashMap<String, Object> jobParams = new HashMap<>();
+    jobParams.put( RESERVEDMAPKEY_ACTIONUSER, "fooUser" );
+    jobParams.put( QuartzScheduler.RESERVEDMAPKEY_PARTITION, "finance" );
+
+    quartzScheduler.createJob( "fooJob", jobParams, complexTrigger, null );
+
+    ArgumentCaptor<Trigger> triggerCaptor = ArgumentCaptor.forClass( Trigger.class );
+    verify( mockScheduler ).scheduleJob( any( JobDetail.class ), triggerCaptor.capture() );
+    assertEquals( "finance", triggerCaptor.getValue().getJobDataMap().get( QuartzScheduler.RESERVEDMAPKEY_PARTITION ) );
+  }
+
+  @Test
+  public void testGetPriority() {
+    Map<String, Object> jobParams = new HashMap<>();
+    assertNull( QuartzScheduler.getPriority( jobParams ) );
+    jobParams.put( QuartzScheduler.RESERVEDMAPKEY_PRIORITY, "high" );
+    assertNull( QuartzScheduler.getPriority( jobParams ) );
+    jobParams.put( QuartzScheduler.RESERVEDMAPKEY_PRIORITY, 3L );
+    assertEquals( Integer.valueOf( 3 ), QuartzScheduler.getPriority( jobParams ) );
+  }
+
+  @Test
+  public void testMigrateAvailabilityCalendars() throws Exception {
+    String jobId = "admin\tcronJob\tuuid";
+    String orphanId = "admin\tremovedJob\tuuid";
+    JobKey jobKey = new JobKey( jobId, "admin" );
+    Date start = new Date( System.currentTimeMillis() + 86400000L );
+
+    Scheduler mockScheduler = mock( Scheduler.class );
+    when( mockScheduler.getCalendarNames() ).thenReturn( Arrays.asList( jobId, orphanId ) );
+    when( mockScheduler.getCalendar( jobId ) ).thenReturn( new QuartzSchedulerAvailability( start, null ) );
+    when( mockScheduler.getCalendar( orphanId ) ).thenReturn( new QuartzSchedulerAvailability( start, null ) );
+
+    CronTriggerImpl trigger = (CronTriggerImpl) TriggerBuilder.newTrigger()
+      .withIdentity( jobId, "admin" )
+      .withSchedule( CronScheduleBuilder.cronSchedule( TEST_CRON_EXPRESSION ) )
+      .modifiedByCalendar( jobId )
+      .build();
+    trigger.computeFirstFireTime( null );
+    Mockito.doReturn( Collections.singletonList( trigger ) ).when( mockScheduler ).getTriggersOfJob( jobKey );
+    JobDetail jobDetail = mock( JobDetail.class );
+    when( jobDetail.getJobClass() ).thenAnswer( invocation -> BlockingQuartzJob.class );
+    when( jobDetail.getJobDataMap() ).thenReturn( new JobDataMap() );
+    when( mockScheduler.getJobDetail( jobKey ) ).thenReturn( jobDetail );
+    when( mockScheduler.getTriggerState( trigger.getKey() ) ).thenReturn( Trigger.TriggerState.PAUSED );
+
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    assertEquals( 2, quartzScheduler.migrateAvailabilityCalendars() );
+
+    ArgumentCaptor<Trigger> triggerCaptor = ArgumentCaptor.forClass( Trigger.class );
+    verify( mockScheduler ).rescheduleJob( Mockito.eq( trigger.getKey() ), triggerCaptor.capture() );
+    assertNull( triggerCaptor.getValue().getCalendarName() );
+    assertEquals( start, triggerCaptor.getValue().getStartTime() );
+    ArgumentCaptor<JobDetail> jobDetailCaptor = ArgumentCaptor.forClass( JobDetail.class );
+    verify( mockScheduler ).addJob( jobDetailCaptor.capture(), Mockito.eq( true ), Mockito.eq( true ) );
+    assertEquals( start,
+      jobDetailCaptor.getValue().getJobDataMap().get( QuartzScheduler.RESERVEDMAPKEY_AVAILABILITY_START ) );
+    verify( mockScheduler ).pauseTrigger( trigger.getKey() );
+    verify( mockScheduler ).deleteCalendar( jobId );
+    verify( mockScheduler ).deleteCalendar( orphanId );
+    verify( mockScheduler ).addCalendar( Mockito.eq( QuartzScheduler.AVAILABILITY_MIGRATED_CALENDAR_NAME ), any(),
+      Mockito.eq( false ), Mockito.eq( false ) );
+    verify( mockScheduler, never() ).deleteCalendar( QuartzScheduler.AVAILABILITY_MIGRATED_CALENDAR_NAME );
+  }
+
+  @Test
+  public void testMigrateAvailabilityCalendarsSkippedOnceMigrated() throws Exception {
+    Scheduler mockScheduler = mock( Scheduler.class );
+    Mockito.doThrow( new ObjectAlreadyExistsException( "already migrated" ) ).when( mockScheduler )
+      .addCalendar( Mockito.eq( QuartzScheduler.AVAILABILITY_MIGRATED_CALENDAR_NAME ), any(), Mockito.eq( false ),
+        Mockito.eq( false ) );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    assertEquals( 0, quartzScheduler.migrateAvailabilityCalendars() );
+
+    verify( mockScheduler, never() ).getCalendarNames();
+  }
+
+  @Test
+  public void testMigrateJobData() throws Exception {
+    JobKey plainJobKey = new JobKey( "admin\tplainJob\tuuid", "admin" );
+    JobKey migratedJobKey = new JobKey( "admin\tmigratedJob\tuuid", "admin" );
+    Map<String, Object> params = new HashMap<>();
+    params.put( QuartzScheduler.RESERVEDMAPKEY_ACTIONUSER, "admin" );
+    params.put( "parameters", new HashMap<>( Collections.singletonMap( "region", "EMEA" ) ) );
+
+    Scheduler mockScheduler = mock( Scheduler.class );
+    when( mockScheduler.getJobKeys( Mockito.any() ) )
+      .thenReturn( new HashSet<>( Arrays.asList( plainJobKey, migratedJobKey ) ) );
+    when( mockScheduler.getJobDetail( plainJobKey ) ).thenReturn( JobBuilder.newJob( BlockingQuartzJob.class )
+      .withIdentity( plainJobKey ).usingJobData( new JobDataMap( params ) ).build() );
+    when( mockScheduler.getJobDetail( migratedJobKey ) ).thenReturn( JobBuilder.newJob( BlockingQuartzJob.class )
+      .withIdentity( migratedJobKey ).usingJobData( QuartzJobData.toJobDataMap( params ) ).build() );
+
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    assertEquals( 1, quartzScheduler.migrateJobData() );
+
+    ArgumentCaptor<JobDetail> jobDetailCaptor = ArgumentCaptor.forClass( JobDetail.class );
+    verify( mockScheduler ).addJob( jobDetailCaptor.capture(), Mockito.eq( true ), Mockito.eq( true ) );
+    JobDataMap jobDataMap = jobDetailCaptor.getValue().getJobDataMap();
+    assertEquals( plainJobKey, jobDetailCaptor.getValue().getKey() );
+    assertEquals( "admin", jobDataMap.get( QuartzScheduler.RESERVEDMAPKEY_ACTIONUSER ) );
+    assertNull( jobDataMap.get( "parameters" ) );
+    assertEquals( params, QuartzJobData.view( jobDataMap ) );
+    verify( mockScheduler ).addCalendar( Mockito.eq( QuartzScheduler.JOB_DATA_MIGRATED_CALENDAR_NAME ), any(),
+      Mockito.eq( false ), Mockito.eq( false ) );
+    verify( mockScheduler, never() ).deleteCalendar( QuartzScheduler.JOB_DATA_MIGRATED_CALENDAR_NAME );
+  }
+
+  @Test
+  public void testMigrateJobDataRetriedWhenAJobFails() throws Exception {
+    JobKey jobKey = new JobKey( "admin\tplainJob\tuuid", "admin" );
+    Scheduler mockScheduler = mock( Scheduler.class );
+    when( mockScheduler.getJobKeys( Mockito.any() ) )
+      .thenReturn( new HashSet<>( Collections.singletonList( jobKey ) ) );
+    when( mockScheduler.getJobDetail( jobKey ) ).thenThrow( new org.quartz.SchedulerException( "store down" ) );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    assertEquals( 0, quartzScheduler.migrateJobData() );
+
+    verify( mockScheduler ).deleteCalendar( QuartzScheduler.JOB_DATA_MIGRATED_CALENDAR_NAME );
+  }
+
+  @Test
+  public void testMigrateJobDataSkippedOnceMigrated() throws Exception {
+    Scheduler mockScheduler = mock( Scheduler.class );
+    Mockito.doThrow( new ObjectAlreadyExistsException( "already migrated" ) ).when( mockScheduler )
+      .addCalendar( Mockito.eq( QuartzScheduler.JOB_DATA_MIGRATED_CALENDAR_NAME ), any(), Mockito.eq( false ),
+        Mockito.eq( false ) );
+    SchedulerFactory mockSchedulerFactory = mock( SchedulerFactory.class );
+    when( mockSchedulerFactory.getScheduler() ).thenReturn( mockScheduler );
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( mockSchedulerFactory );
+
+    assertEquals( 0, quartzScheduler.migrateJobData() );
+
+    verify( mockScheduler, never() ).getJobKeys( any() );
+  }
 }
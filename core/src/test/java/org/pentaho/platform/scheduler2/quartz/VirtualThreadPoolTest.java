@@ -0,0 +1,178 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.scheduler2.quartz;
+
+import org.junit.After;
+import org.junit.Test;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerConfigException;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.simpl.RAMJobStore;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VirtualThreadPoolTest {
+
+  private VirtualThreadPool pool;
+
+  @After
+  public void tearDown() {
+    if ( pool != null ) {
+      pool.shutdown( false );
+    }
+    CpuBoundActionLimiter.getInstance().configure( null, 1 );
+  }
+
+  @Test
+  public void testRunsMoreJobsThanPlatformPoolWouldAllow() throws Exception {
+    pool = createPool( 50 );
+    CountDownLatch started = new CountDownLatch( 50 );
+    CountDownLatch release = new CountDownLatch( 1 );
+
+    for ( int i = 0; i < 50; i++ ) {
+      assertTrue( pool.runInThread( () -> {
+        started.countDown();
+        await( release );
+      } ) );
+    }
+
+    assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+    assertEquals( 50, pool.getRunningCount() );
+    release.countDown();
+    pool.shutdown( true );
+    assertEquals( 0, pool.getRunningCount() );
+  }
+
+  @Test
+  public void testBlockForAvailableThreadsReportsFreeSlots() throws Exception {
+    pool = createPool( 2 );
+    assertEquals( 2, pool.blockForAvailableThreads() );
+
+    CountDownLatch started = new CountDownLatch( 1 );
+    CountDownLatch release = new CountDownLatch( 1 );
+    pool.runInThread( () -> {
+      started.countDown();
+      await( release );
+    } );
+    assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+    assertEquals( 1, pool.blockForAvailableThreads() );
+
+    release.countDown();
+    pool.shutdown( true );
+  }
+
+  @Test
+  public void testRejectsJobsAfterShutdown() throws Exception {
+    pool = createPool( 2 );
+    pool.shutdown( true );
+    assertFalse( pool.runInThread( () -> { } ) );
+  }
+
+  @Test
+  public void testStartsFromShippedProperties() throws Exception {
+    Properties properties = new Properties();
+    try ( InputStream in = new FileInputStream( "../assembly/src/main/quartz/quartz.properties" ) ) {
+      properties.load( in );
+    }
+    // the thread pool as shipped, only the job store is swapped for one without a database
+    properties.stringPropertyNames().stream()
+      .filter( name -> name.startsWith( "org.quartz.jobStore." ) || name.startsWith( "org.quartz.dataSource." ) )
+      .forEach( properties::remove );
+    properties.setProperty( "org.quartz.jobStore.class", RAMJobStore.class.getName() );
+    properties.setProperty( "org.quartz.scheduler.instanceName", "VirtualThreadPoolTest" );
+    properties.setProperty( "org.quartz.threadPool.class", VirtualThreadPool.class.getName() );
+
+    Scheduler scheduler = new StdSchedulerFactory( properties ).getScheduler();
+    try {
+      assertEquals( VirtualThreadPool.class, scheduler.getMetaData().getThreadPoolClass() );
+      assertEquals( 10, scheduler.getMetaData().getThreadPoolSize() );
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+
+  @Test( expected = SchedulerConfigException.class )
+  public void testInvalidThreadPriority() throws Exception {
+    pool = new VirtualThreadPool();
+    pool.setThreadPriority( 11 );
+    pool.initialize();
+  }
+
+  @Test( expected = SchedulerConfigException.class )
+  public void testInvalidThreadCount() throws Exception {
+    createPool( 0 );
+  }
+
+  @Test
+  public void testCpuBoundActionsAreCapped() throws Exception {
+    pool = new VirtualThreadPool();
+    pool.setThreadCount( 10 );
+    pool.setCpuBoundThreadCount( 2 );
+    pool.setCpuBoundActions( "com.example.RenderAction, renderBean" );
+    pool.initialize();
+
+    CpuBoundActionLimiter limiter = CpuBoundActionLimiter.getInstance();
+    assertTrue( limiter.isCpuBound( "com.example.RenderAction", null ) );
+    assertTrue( limiter.isCpuBound( null, "renderBean" ) );
+    assertFalse( limiter.isCpuBound( "com.example.MailAction", "mailBean" ) );
+
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch( 6 );
+    for ( int i = 0; i < 6; i++ ) {
+      pool.runInThread( () -> {
+        try {
+          limiter.call( "com.example.RenderAction", null, () -> {
+            maxRunning.accumulateAndGet( running.incrementAndGet(), Math::max );
+            Thread.sleep( 20 );
+            return running.decrementAndGet();
+          } );
+        } catch ( Exception e ) {
+          throw new IllegalStateException( e );
+        } finally {
+          done.countDown();
+        }
+      } );
+    }
+
+    assertTrue( done.await( 10, TimeUnit.SECONDS ) );
+    assertTrue( maxRunning.get() <= 2 );
+    assertEquals( 2, limiter.getAvailablePermits() );
+  }
+
+  private VirtualThreadPool createPool( int threadCount ) throws SchedulerConfigException {
+    VirtualThreadPool threadPool = new VirtualThreadPool();
+    threadPool.setThreadCount( threadCount );
+    threadPool.setInstanceName( "test" );
+    threadPool.initialize();
+    return threadPool;
+  }
+
+  private static void await( CountDownLatch latch ) {
+    try {
+      latch.await( 10, TimeUnit.SECONDS );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.http.api.resources;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.IJob;
+import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.SchedulerException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JobListWriterTest {
+
+  private final JobListWriter writer = new JobListWriter();
+
+  private final List<IJob> jobs = Arrays.asList( createJob( "first" ), createJob( "second" ) );
+
+  @Test
+  public void testFormatFromAccept() {
+    assertEquals( JobListWriter.Format.JSON, JobListWriter.Format.fromAccept( null ) );
+    assertEquals( JobListWriter.Format.JSON, JobListWriter.Format.fromAccept( "*/*" ) );
+    assertEquals( JobListWriter.Format.XML, JobListWriter.Format.fromAccept( "text/html, application/xml;q=0.9" ) );
+    assertEquals( JobListWriter.Format.SMILE,
+      JobListWriter.Format.fromAccept( "application/x-jackson-smile, application/json" ) );
+  }
+
+  @Test
+  public void testWritesJson() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    writer.write( JobListWriter.Format.JSON, jobs::forEach, out );
+
+    assertJobs( new ObjectMapper().readTree( out.toByteArray() ) );
+  }
+
+  @Test
+  public void testWritesSmile() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    writer.write( JobListWriter.Format.SMILE, jobs::forEach, out );
+
+    assertJobs( new ObjectMapper( new SmileFactory() ).readTree( out.toByteArray() ) );
+  }
+
+  @Test
+  public void testWritesXml() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    writer.write( JobListWriter.Format.XML, jobs::forEach, out );
+
+    Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+      .parse( new ByteArrayInputStream( out.toByteArray() ) );
+    assertEquals( "jobs", document.getDocumentElement().getTagName() );
+    NodeList jobElements = document.getDocumentElement().getElementsByTagName( "job" );
+    assertEquals( 2, jobElements.getLength() );
+    assertEquals( "first",
+      ( (Element) jobElements.item( 0 ) ).getElementsByTagName( "jobName" ).item( 0 ).getTextContent() );
+    assertTrue( out.toString( "UTF-8" ).contains( "<name>ActionAdapterQuartzJob-StreamProvider</name>" ) );
+  }
+
+  @Test
+  public void testEmptyListing() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    writer.write( JobListWriter.Format.JSON, Collections.<IJob>emptyList()::forEach, out );
+
+    assertEquals( 0, new ObjectMapper().readTree( out.toByteArray() ).get( "job" ).size() );
+  }
+
+  @Test
+  public void testListingFailure() {
+    try {
+      writer.write( JobListWriter.Format.JSON, consumer -> {
+        throw new SchedulerException( "store unavailable" );
+      }, new ByteArrayOutputStream() );
+      fail();
+    } catch ( IOException e ) {
+      assertTrue( e.getCause() instanceof SchedulerException );
+    }
+  }
+
+  private static void assertJobs( JsonNode document ) {
+    JsonNode jobArray = document.get( "job" );
+    assertEquals( 2, jobArray.size() );
+    assertEquals( "first", jobArray.get( 0 ).get( "jobName" ).asText() );
+    assertEquals( "second", jobArray.get( 1 ).get( "jobName" ).asText() );
+    assertTrue( jobArray.get( 0 ).get( "jobParams" ).toString().contains( "ActionAdapterQuartzJob-StreamProvider" ) );
+  }
+
+  private static Job createJob( String name ) {
+    Job job = new Job();
+    job.setJobId( "admin\t" + name + "\t1410786491777" );
+    job.setJobName( name );
+    job.setUserName( "admin" );
+    job.setJobParams( Collections.singletonMap( "ActionAdapterQuartzJob-StreamProvider", "/home/admin/" + name ) );
+    return job;
+  }
+}
@@ -28,12 +28,18 @@ import org.pentaho.platform.api.scheduler2.JobWrapper;
 import org.pentaho.platform.web.http.api.proxies.BlockStatusProxy;
 import org.pentaho.platform.web.http.api.resources.services.ISchedulerServicePlugin;
 
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 import static jakarta.ws.rs.core.Response.Status.FORBIDDEN;
 import static jakarta.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR;
@@ -41,11 +47,15 @@ import static jakarta.ws.rs.core.Response.Status.OK;
 import static jakarta.ws.rs.core.Response.Status.UNAUTHORIZED;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -267,6 +277,94 @@ public class SchedulerResourceTest {
     verify( schedulerResource.schedulerService, times( 1 ) ).getJobs();
   }
 
+  @Test
+  public void testGetJobHistory() throws Exception {
+    JobHistoryPage page = new JobHistoryPage();
+    doReturn( page ).when( schedulerResource.schedulerService ).getJobHistory( "jobId", 0, 10 );
+    Response mockResponse = mock( Response.class );
+    doReturn( mockResponse ).when( schedulerResource ).buildOkResponse( page );
+
+    assertEquals( mockResponse, schedulerResource.getJobHistory( "jobId", 0, 10 ) );
+  }
+
+  @Test
+  public void testGetJobHistoryForbidden() throws Exception {
+    Mockito.doThrow( IllegalAccessException.class ).when( schedulerResource.schedulerService )
+      .getJobHistory( "jobId", 0, 10 );
+    Response mockResponse = mock( Response.class );
+    doReturn( mockResponse ).when( schedulerResource ).buildStatusResponse( FORBIDDEN );
+
+    assertEquals( mockResponse, schedulerResource.getJobHistory( "jobId", 0, 10 ) );
+  }
+
+  @Test
+  public void testGetJobsStream() throws Exception {
+    doReturn( true ).when( schedulerResource.schedulerService ).canListJobs();
+    JobListWriter mockWriter = mock( JobListWriter.class );
+    doReturn( mockWriter ).when( schedulerResource ).getJobListWriter();
+
+    Response response = schedulerResource.getJobsStream( "application/xml", null );
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ( (StreamingOutput) response.getEntity() ).write( out );
+
+    assertEquals( OK.getStatusCode(), response.getStatus() );
+    assertEquals( MediaType.APPLICATION_XML_TYPE, response.getMediaType() );
+    assertNull( response.getHeaderString( HttpHeaders.CONTENT_ENCODING ) );
+    verify( mockWriter ).write( eq( JobListWriter.Format.XML ), any(), eq( out ) );
+  }
+
+  @Test
+  public void testGetJobsStreamCompressed() throws Exception {
+    doReturn( true ).when( schedulerResource.schedulerService ).canListJobs();
+    JobListWriter mockWriter = mock( JobListWriter.class );
+    doReturn( mockWriter ).when( schedulerResource ).getJobListWriter();
+
+    Response response = schedulerResource.getJobsStream( JobListWriter.APPLICATION_SMILE, "deflate, gzip" );
+    ( (StreamingOutput) response.getEntity() ).write( new ByteArrayOutputStream() );
+
+    assertEquals( "gzip", response.getHeaderString( HttpHeaders.CONTENT_ENCODING ) );
+    verify( mockWriter ).write( eq( JobListWriter.Format.SMILE ), any(), any( GZIPOutputStream.class ) );
+  }
+
+  @Test
+  public void testGetJobsStreamForbidden() {
+    doReturn( false ).when( schedulerResource.schedulerService ).canListJobs();
+    Response mockResponse = mock( Response.class );
+    doReturn( mockResponse ).when( schedulerResource ).buildStatusResponse( FORBIDDEN );
+
+    assertEquals( mockResponse, schedulerResource.getJobsStream( "application/json", "gzip" ) );
+    verify( schedulerResource, never() ).getJobListWriter();
+  }
+
+  @Test
+  public void testGetMetrics() throws Exception {
+    Map<String, Object> metrics = Collections.singletonMap( "blockoutSkips", 2L );
+    doReturn( metrics ).when( schedulerResource.schedulerService ).getMetrics();
+    Response mockResponse = mock( Response.class );
+    doReturn( mockResponse ).when( schedulerResource ).buildStatusResponse( OK, metrics );
+
+    assertEquals( mockResponse, schedulerResource.getMetrics() );
+  }
+
+  @Test
+  public void testGetMetricsForbidden() throws Exception {
+    Mockito.doThrow( IllegalAccessException.class ).when( schedulerResource.schedulerService ).getMetrics();
+    Response mockResponse = mock( Response.class );
+    doReturn( mockResponse ).when( schedulerResource ).buildStatusResponse( FORBIDDEN );
+
+    assertEquals( mockResponse, schedulerResource.getMetrics() );
+  }
+
+  @Test
+  public void testGetPrometheusMetrics() throws Exception {
+    String metrics = "pentaho_scheduler_running_jobs 2\n";
+    doReturn( metrics ).when( schedulerResource.schedulerService ).getPrometheusMetrics();
+    Response mockResponse = mock( Response.class );
+    doReturn( mockResponse ).when( schedulerResource ).buildPlainTextOkResponse( metrics );
+
+    assertEquals( mockResponse, schedulerResource.getPrometheusMetrics() );
+  }
+
   @Test
   public void testIsScheduleAllowed() {
     String id = "id";
@@ -616,21 +714,46 @@ public class SchedulerResourceTest {
 
     doReturn( jobIds ).when( mockJobsRequest ).getJobIds();
     JobsResponse mockJobsResponse = new JobsResponse();
-
-    IJob mockJob1 = mock( IJob.class );
-    doReturn( true ).when( schedulerResource.schedulerService ).removeJob( jobIds.get( 0 ) );
-    doReturn( mockJob1 ).when( schedulerResource.schedulerService ).getJob( jobIds.get( 0 ) );
     mockJobsResponse.addChanges( jobIds.get( 0 ), REMOVED_JOB_STATE );
-
-    IJob mockJob2 = mock( IJob.class );
-    doReturn( false ).when( schedulerResource.schedulerService ).removeJob( jobIds.get( 1 ) );
-    doReturn( mockJob2 ).when( schedulerResource.schedulerService ).getJob( jobIds.get( 1 ) );
-    doReturn( JobState.NORMAL ).when( mockJob2 ).getState();
     mockJobsResponse.addChanges( jobIds.get( 1 ), JobState.NORMAL.toString() );
+    doReturn( mockJobsResponse ).when( schedulerResource.schedulerService ).removeJobs( jobIds );
 
     JobsResponse testResponse = schedulerResource.removeJobs( mockJobsRequest );
     assertNotNull( testResponse );
     assertTrue( Maps.difference( convertToMap( testResponse.getChanges() ), convertToMap( mockJobsResponse.getChanges() ) ).areEqual() );
+    verify( schedulerResource.schedulerService, times( 1 ) ).removeJobs( jobIds );
+    verify( schedulerResource.schedulerService, never() ).removeJob( anyString() );
+  }
+
+  @Test
+  public void testDeleteJobs() throws Exception {
+    JobsRequest mockJobsRequest = mock( JobsRequest.class );
+    List<String> jobIds = Collections.singletonList( "jobId" );
+    doReturn( jobIds ).when( mockJobsRequest ).getJobIds();
+
+    JobsResponse removedResponse = new JobsResponse();
+    removedResponse.addChanges( "jobId", REMOVED_JOB_STATE );
+    doReturn( removedResponse ).when( schedulerResource.schedulerService ).removeJobs( jobIds );
+
+    assertEquals( removedResponse, schedulerResource.deleteJobs( mockJobsRequest ) );
+    verify( schedulerResource.schedulerService, never() ).removeJob( anyString() );
+  }
+
+  @Test
+  public void testPauseAndResumeJobs() throws Exception {
+    JobsRequest mockJobsRequest = mock( JobsRequest.class );
+    List<String> jobIds = Collections.singletonList( "jobId" );
+    doReturn( jobIds ).when( mockJobsRequest ).getJobIds();
+
+    JobsResponse pausedResponse = new JobsResponse();
+    pausedResponse.addChanges( "jobId", JobState.PAUSED.name() );
+    doReturn( pausedResponse ).when( schedulerResource.schedulerService ).pauseJobs( jobIds );
+    assertEquals( pausedResponse, schedulerResource.pauseJobs( mockJobsRequest ) );
+
+    JobsResponse resumedResponse = new JobsResponse();
+    resumedResponse.addChanges( "jobId", JobState.NORMAL.name() );
+    doReturn( resumedResponse ).when( schedulerResource.schedulerService ).resumeJobs( jobIds );
+    assertEquals( resumedResponse, schedulerResource.resumeJobs( mockJobsRequest ) );
   }
 
   @Test
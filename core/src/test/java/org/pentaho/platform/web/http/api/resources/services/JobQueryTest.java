@@ -0,0 +1,163 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.platform.web.http.api.resources.services;
+
+import org.junit.Test;
+import org.pentaho.platform.api.scheduler2.ComplexJobTrigger;
+import org.pentaho.platform.api.scheduler2.CronJobTrigger;
+import org.pentaho.platform.api.scheduler2.IJob;
+import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.api.scheduler2.Job;
+import org.pentaho.platform.api.scheduler2.JobState;
+import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.scheduler2.recur.QualifiedDayOfWeek;
+import org.pentaho.platform.scheduler2.recur.SequentialRecurrence;
+import org.pentaho.platform.util.ActionUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JobQueryTest {
+
+  @Test
+  public void testResourceNameFromInputFileParam() {
+    Job job = createJob( "job", "admin" );
+    job.getJobParams().put( ActionUtil.QUARTZ_STREAMPROVIDER_INPUT_FILE, "/home/admin/Sales Report.prpt" );
+
+    JobQuery query = new JobQuery();
+    query.setResourceName( "sales" );
+    assertTrue( query.accept( job ) );
+
+    query.setResourceName( "admin" );
+    assertFalse( query.accept( job ) );
+  }
+
+  @Test
+  public void testResourceNameFromStreamProvider() {
+    Job job = createJob( "job", "admin" );
+    job.getJobParams().put( IScheduler.RESERVEDMAPKEY_STREAMPROVIDER,
+      "input file = /home/admin/load.ktr:output file=/home/admin/load.*" );
+
+    assertEquals( "/home/admin/load.ktr", JobQuery.getInputFilePath( job ) );
+  }
+
+  @Test
+  public void testContentCleanerIsNeverListed() {
+    assertFalse( new JobQuery().accept( createJob( "GeneratedContentCleaner", "admin" ) ) );
+  }
+
+  @Test
+  public void testStateNextRunAndTypeFilters() {
+    Job job = createJob( "job", "admin" );
+    job.setState( JobState.PAUSED );
+    job.setNextRun( new Date( 2000L ) );
+    SimpleJobTrigger trigger = new SimpleJobTrigger();
+    trigger.setUiPassParam( "DAILY" );
+    job.setJobTrigger( trigger );
+
+    JobQuery query = new JobQuery();
+    query.setState( "paused" );
+    query.setScheduleType( "Daily" );
+    query.setNextRunAfter( new Date( 1000L ) );
+    query.setNextRunBefore( new Date( 3000L ) );
+    assertTrue( query.accept( job ) );
+
+    query.setNextRunBefore( new Date( 1500L ) );
+    assertFalse( query.accept( job ) );
+
+    query.setNextRunBefore( null );
+    query.setState( "normal" );
+    assertFalse( query.accept( job ) );
+  }
+
+  @Test
+  public void testScheduleTypeWithoutUiPassParam() {
+    assertEquals( "RUN_ONCE", JobQuery.getScheduleType( new SimpleJobTrigger( new Date(), null, 0, 0 ) ) );
+    assertEquals( "HOURS", JobQuery.getScheduleType( new SimpleJobTrigger( new Date(), null, -1, 7200 ) ) );
+    assertEquals( "WEEKLY", JobQuery.getScheduleType( new SimpleJobTrigger( new Date(), null, -1, 604800 ) ) );
+    assertEquals( "CRON", JobQuery.getScheduleType( new CronJobTrigger() ) );
+
+    ComplexJobTrigger weekDays = new ComplexJobTrigger();
+    weekDays.addDayOfWeekRecurrence( new SequentialRecurrence( ComplexJobTrigger.MONDAY, ComplexJobTrigger.FRIDAY ) );
+    assertEquals( "DAILY", JobQuery.getScheduleType( weekDays ) );
+
+    ComplexJobTrigger weekly = new ComplexJobTrigger();
+    weekly.addDayOfWeekRecurrence( ComplexJobTrigger.MONDAY, ComplexJobTrigger.THURSDAY );
+    assertEquals( "WEEKLY", JobQuery.getScheduleType( weekly ) );
+
+    ComplexJobTrigger monthly = new ComplexJobTrigger();
+    monthly.addDayOfWeekRecurrence( new QualifiedDayOfWeek( QualifiedDayOfWeek.DayOfWeekQualifier.FIRST,
+      QualifiedDayOfWeek.DayOfWeek.MON ) );
+    assertEquals( "MONTHLY", JobQuery.getScheduleType( monthly ) );
+
+    ComplexJobTrigger yearly = new ComplexJobTrigger( null, ComplexJobTrigger.MARCH, 15, null, 8 );
+    assertEquals( "YEARLY", JobQuery.getScheduleType( yearly ) );
+
+    Job job = createJob( "job", "admin" );
+    job.setJobTrigger( weekDays );
+    JobQuery query = new JobQuery();
+    query.setScheduleType( "daily" );
+    assertTrue( query.accept( job ) );
+
+    weekDays.setUiPassParam( "WEEKLY" );
+    assertFalse( query.accept( job ) );
+  }
+
+  @Test
+  public void testComparatorKeepsMissingValuesLast() {
+    Job early = createJob( "early", "admin" );
+    early.setNextRun( new Date( 1000L ) );
+    Job late = createJob( "late", "admin" );
+    late.setNextRun( new Date( 2000L ) );
+    Job never = createJob( "never", "admin" );
+
+    JobQuery query = new JobQuery();
+    query.setSortBy( "next_run" );
+    List<IJob> jobs = new ArrayList<>( Arrays.asList( never, late, early ) );
+    jobs.sort( query.getComparator() );
+    assertEquals( Arrays.asList( early, late, never ), jobs );
+
+    query.setAscending( false );
+    jobs.sort( query.getComparator() );
+    assertEquals( Arrays.asList( late, early, never ), jobs );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testUnknownSortField() {
+    new JobQuery().setSortBy( "resource" );
+  }
+
+  @Test
+  public void testLimitIsBounded() {
+    JobQuery query = new JobQuery();
+    query.setLimit( 0 );
+    assertEquals( JobQuery.DEFAULT_LIMIT, query.getLimit() );
+
+    query.setLimit( Integer.MAX_VALUE );
+    assertEquals( JobQuery.MAX_LIMIT, query.getLimit() );
+  }
+
+  private Job createJob( String jobName, String userName ) {
+    Job job = new Job();
+    job.setJobName( jobName );
+    job.setUserName( userName );
+    job.setJobId( userName + "\t" + jobName + "\t1" );
+    return job;
+  }
+}
@@ -17,6 +17,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -30,6 +31,7 @@ import org.pentaho.platform.api.scheduler2.IBackgroundExecutionStreamProvider;
 import org.pentaho.platform.api.scheduler2.IBlockoutManager;
 import org.pentaho.platform.api.scheduler2.IJob;
 import org.pentaho.platform.api.scheduler2.IJobFilter;
+import org.pentaho.platform.api.scheduler2.IJobResult;
 import org.pentaho.platform.api.scheduler2.IJobScheduleParam;
 import org.pentaho.platform.api.scheduler2.IJobTrigger;
 import org.pentaho.platform.api.scheduler2.IScheduler;
@@ -37,26 +39,53 @@ import org.pentaho.platform.api.scheduler2.Job;
 import org.pentaho.platform.api.scheduler2.JobState;
 import org.pentaho.platform.api.scheduler2.SchedulerException;
 import org.pentaho.platform.api.scheduler2.SimpleJobTrigger;
+import org.pentaho.platform.scheduler2.history.JobExecutionRecord;
+import org.pentaho.platform.scheduler2.quartz.JobLocks;
+import org.pentaho.platform.scheduler2.quartz.QuartzJobData;
+import org.pentaho.platform.scheduler2.quartz.QuartzScheduler;
 import org.pentaho.platform.security.policy.rolebased.actions.AdministerSecurityAction;
 import org.pentaho.platform.security.policy.rolebased.actions.SchedulerAction;
 import org.pentaho.platform.security.policy.rolebased.actions.SchedulerExecuteAction;
 import org.pentaho.platform.web.http.api.proxies.BlockStatusProxy;
 import org.pentaho.platform.web.http.api.resources.ComplexJobTriggerProxy;
+import org.pentaho.platform.web.http.api.resources.JobHistoryPage;
+import org.pentaho.platform.web.http.api.resources.JobPage;
 import org.pentaho.platform.web.http.api.resources.JobRequest;
 import org.pentaho.platform.web.http.api.resources.JobScheduleParam;
 import org.pentaho.platform.web.http.api.resources.JobScheduleRequest;
+import org.pentaho.platform.web.http.api.resources.JobsResponse;
+import org.pentaho.platform.web.http.api.resources.JobsResponseEntry;
 import org.pentaho.platform.web.http.api.resources.SchedulerOutputPathResolver;
+import org.pentaho.platform.web.http.api.resources.SchedulerResource;
 import org.pentaho.platform.web.http.api.resources.SchedulerResourceUtil;
 import org.pentaho.platform.web.http.api.resources.SessionResource;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerFactory;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.impl.triggers.CronTriggerImpl;
 
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -69,6 +98,7 @@ import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
@@ -177,6 +207,22 @@ public class SchedulerServiceTest {
     } );
   }
 
+  @Test
+  @SuppressWarnings( "unchecked" )
+  public void testCreateJobPassesPriority() throws Exception {
+    runWithCreateJobMocks( () -> {
+      JobScheduleRequest scheduleRequest = getBasicRequest();
+      scheduleRequest.setInputFile( "" );
+      scheduleRequest.setPriority( 8 );
+      schedulerService.createJob( scheduleRequest );
+
+      ArgumentCaptor<Map> params = ArgumentCaptor.forClass( Map.class );
+      verify( schedulerService.scheduler ).createJob( nullable( String.class ), any( Class.class ), params.capture(),
+        any( IJobTrigger.class ) );
+      assertEquals( 8, params.getValue().get( QuartzScheduler.RESERVEDMAPKEY_PRIORITY ) );
+    } );
+  }
+
   @Test
   public void testCreateJob() throws Exception {
     JobScheduleRequest scheduleRequest = getBasicRequest();
@@ -734,6 +780,94 @@ public class SchedulerServiceTest {
     }
   }
 
+  @Test
+  public void testRemoveJobsInOneBatch() throws SchedulerException {
+    String own = "admin\tReport\t1";
+    String other = "suzy\tReport\t2";
+    String missing = "admin\tGone\t3";
+    QuartzScheduler quartzScheduler = mock( QuartzScheduler.class );
+    schedulerService.scheduler = quartzScheduler;
+    IPentahoSession session = mock( IPentahoSession.class );
+    doReturn( "admin" ).when( session ).getName();
+    doReturn( session ).when( schedulerService ).getSession();
+    doReturn( false ).when( schedulerService ).isScheduleAllowed();
+
+    doReturn( new HashSet<>( Arrays.asList( own, other ) ) ).when( quartzScheduler ).getExistingJobIds( any() );
+    Job otherJob = mock( Job.class );
+    doReturn( JobState.NORMAL ).when( otherJob ).getState();
+    doReturn( otherJob ).when( schedulerService ).getJob( other );
+
+    JobsResponse response = schedulerService.removeJobs( Arrays.asList( own, other, missing ) );
+
+    verify( quartzScheduler, times( 1 ) ).getExistingJobIds( Arrays.asList( own, other, missing ) );
+    verify( quartzScheduler, times( 1 ) ).removeJobs( Arrays.asList( own ) );
+    verify( quartzScheduler, times( 0 ) ).removeJob( anyString() );
+    // owners come from the job ids, only the job the caller may not remove is loaded, for its state
+    verify( schedulerService, times( 0 ) ).getJob( own );
+    verify( schedulerService, times( 0 ) ).getJob( missing );
+    Map<String, String> changes = toMap( response );
+    assertEquals( SchedulerResource.REMOVED_JOB_STATE, changes.get( own ) );
+    assertEquals( JobState.NORMAL.name(), changes.get( other ) );
+    assertEquals( SchedulerResource.ERROR_JOB_STATE, changes.get( missing ) );
+  }
+
+  @Test
+  public void testPauseJobsRetriesJobByJobWhenBatchFails() throws SchedulerException {
+    String good = "admin\tgood\t1";
+    String bad = "admin\tbad\t2";
+    QuartzScheduler quartzScheduler = mock( QuartzScheduler.class );
+    schedulerService.scheduler = quartzScheduler;
+    doReturn( true ).when( schedulerService ).isScheduleAllowed();
+
+    doReturn( new HashSet<>( Arrays.asList( good, bad ) ) ).when( quartzScheduler ).getExistingJobIds( any() );
+    Job pausedJob = mock( Job.class );
+    doReturn( JobState.PAUSED ).when( pausedJob ).getState();
+    doReturn( pausedJob ).when( schedulerService ).getJob( good );
+    doReturn( mock( Job.class ) ).when( schedulerService ).getJob( bad );
+    doThrow( new SchedulerException( "batch" ) ).when( quartzScheduler ).pauseJobs( any() );
+    doThrow( new SchedulerException( "bad" ) ).when( quartzScheduler ).pauseJob( bad );
+
+    JobsResponse response = schedulerService.pauseJobs( Arrays.asList( good, bad ) );
+
+    verify( quartzScheduler, times( 1 ) ).pauseJob( good );
+    Map<String, String> changes = toMap( response );
+    assertEquals( JobState.PAUSED.name(), changes.get( good ) );
+    assertEquals( SchedulerResource.ERROR_JOB_STATE, changes.get( bad ) );
+  }
+
+  private Map<String, String> toMap( JobsResponse response ) {
+    Map<String, String> changes = new HashMap<>();
+    for ( JobsResponseEntry entry : response.getChanges().getEntry() ) {
+      changes.put( entry.getKey(), entry.getValue() );
+    }
+    return changes;
+  }
+
+  @Test
+  public void testReadsAreNotBlockedByJobMutation() throws Exception {
+    Job job = mock( Job.class );
+    doReturn( job ).when( schedulerService.scheduler ).getJob( "job-id" );
+    doReturn( true ).when( schedulerService ).isScheduleAllowed();
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    // the lock is shared with every other service instance and with the scheduler
+    Lock jobLock = JobLocks.getInstance().get( "job-id" );
+    Future<Boolean> removal;
+    jobLock.lock();
+    try {
+      removal = executor.submit( () -> schedulerService.removeJob( "job-id" ) );
+      // A read of the very job being mutated goes through while its lock is held
+      assertEquals( job, schedulerService.getJob( "job-id" ) );
+      Thread.sleep( 100 );
+      assertFalse( removal.isDone() );
+    } finally {
+      jobLock.unlock();
+    }
+
+    assertTrue( removal.get( 5, TimeUnit.SECONDS ) );
+    executor.shutdown();
+  }
+
   @Test
   public void testShutdown() throws SchedulerException {
     doReturn( true ).when( schedulerService.policy ).isAllowed( SchedulerAction.NAME );
@@ -797,6 +931,124 @@ public class SchedulerServiceTest {
     verify( schedulerService.scheduler, times( 1 ) ).getJobs( any( IJobFilter.class ) );
   }
 
+  @Test
+  public void testGetJobsPage() throws Exception {
+    IPentahoSession mockPentahoSession = mock( IPentahoSession.class );
+
+    doReturn( mockPentahoSession ).when( schedulerService ).getSession();
+    doReturn( "admin" ).when( mockPentahoSession ).getName();
+    doReturn( true ).when( schedulerService ).canAdminister();
+    doReturn( true ).when( schedulerService ).isScheduleAllowed();
+    List<Job> storedJobs = new ArrayList<>();
+    storedJobs.add( createJob( "b", "admin" ) );
+    storedJobs.add( createJob( "a", "suzy" ) );
+    storedJobs.add( createJob( "c", "suzy" ) );
+    storedJobs.add( createJob( IBlockoutManager.BLOCK_OUT_JOB_NAME, "pat" ) );
+    storedJobs.add( createJob( "GeneratedContentCleaner", "admin" ) );
+    doAnswer( invocation -> {
+      IJobFilter filter = invocation.getArgument( 0 );
+      List<IJob> accepted = new ArrayList<>();
+      for ( Job job : storedJobs ) {
+        if ( filter.accept( job ) ) {
+          accepted.add( job );
+        }
+      }
+      return accepted;
+    } ).when( schedulerService.scheduler ).getJobs( any( IJobFilter.class ) );
+
+    JobQuery query = new JobQuery();
+    query.setLimit( 2 );
+    JobPage page = schedulerService.getJobs( query );
+
+    assertEquals( 3, page.getTotalCount() );
+    assertEquals( 2, page.getJobs().size() );
+    assertEquals( "a", page.getJobs().get( 0 ).getJobName() );
+    assertEquals( "b", page.getJobs().get( 1 ).getJobName() );
+    assertEquals( Arrays.asList( "admin", "suzy" ), page.getOwners() );
+    assertEquals( Arrays.asList( "a", "b", "c" ), page.getResources() );
+
+    query.setUserName( "suzy" );
+    query.setOffset( 1 );
+    page = schedulerService.getJobs( query );
+
+    assertEquals( 2, page.getTotalCount() );
+    assertEquals( 1, page.getJobs().size() );
+    assertEquals( "c", page.getJobs().get( 0 ).getJobName() );
+
+    query.setUserName( null );
+    query.setSortBy( JobQuery.SortField.NAME );
+    query.setAscending( false );
+    query.setOffset( 2 );
+    page = schedulerService.getJobs( query );
+
+    assertEquals( 3, page.getTotalCount() );
+    assertEquals( 1, page.getJobs().size() );
+    assertEquals( "a", page.getJobs().get( 0 ).getJobName() );
+  }
+
+  @Test
+  public void testGetJobsPageFiltersPausedJobOnNextRunInFuture() throws Exception {
+    IPentahoSession mockPentahoSession = mock( IPentahoSession.class );
+    doReturn( mockPentahoSession ).when( schedulerService ).getSession();
+    doReturn( "admin" ).when( mockPentahoSession ).getName();
+    doReturn( true ).when( schedulerService ).canAdminister();
+    doReturn( true ).when( schedulerService ).isScheduleAllowed();
+
+    long now = System.currentTimeMillis();
+    Scheduler quartz = mock( Scheduler.class );
+    JobKey paused = new JobKey( "admin\tpaused\t1", "admin" );
+    JobKey active = new JobKey( "admin\tactive\t2", "admin" );
+    // paused a day ago, the stored next fire time was not moved since
+    addQuartzJob( quartz, paused, new Date( now - 3600000L ), Trigger.TriggerState.PAUSED );
+    addQuartzJob( quartz, active, new Date( now + 86400000L ), Trigger.TriggerState.NORMAL );
+    doReturn( new HashSet<>( Arrays.asList( paused, active ) ) ).when( quartz ).getJobKeys( any() );
+    SchedulerFactory schedulerFactory = mock( SchedulerFactory.class );
+    doReturn( quartz ).when( schedulerFactory ).getScheduler();
+    QuartzScheduler quartzScheduler = new QuartzScheduler();
+    quartzScheduler.setQuartzSchedulerFactory( schedulerFactory );
+    schedulerService.scheduler = quartzScheduler;
+
+    JobQuery query = new JobQuery();
+    query.setSortBy( JobQuery.SortField.NEXT_RUN );
+    query.setNextRunAfter( new Date( now ) );
+    JobPage page = schedulerService.getJobs( query );
+
+    assertEquals( 2, page.getTotalCount() );
+    assertEquals( "paused", page.getJobs().get( 0 ).getJobName() );
+    assertEquals( "active", page.getJobs().get( 1 ).getJobName() );
+
+    query.setNextRunAfter( null );
+    query.setNextRunBefore( new Date( now ) );
+    page = schedulerService.getJobs( query );
+
+    assertEquals( 0, page.getTotalCount() );
+  }
+
+  private void addQuartzJob( Scheduler quartz, JobKey jobKey, Date nextFireTime, Trigger.TriggerState state )
+    throws Exception {
+    CronTriggerImpl trigger = (CronTriggerImpl) TriggerBuilder.newTrigger()
+      .withIdentity( jobKey.getName(), jobKey.getGroup() )
+      .forJob( jobKey )
+      .withSchedule( CronScheduleBuilder.cronSchedule( "0 0/5 * * * ?" ) )
+      .startAt( new Date( System.currentTimeMillis() - 86400000L ) )
+      .build();
+    trigger.setNextFireTime( nextFireTime );
+    JobDetail jobDetail = mock( JobDetail.class );
+    doReturn( jobKey ).when( jobDetail ).getKey();
+    doReturn( new JobDataMap() ).when( jobDetail ).getJobDataMap();
+    doReturn( jobDetail ).when( quartz ).getJobDetail( jobKey );
+    doReturn( Collections.singletonList( trigger ) ).when( quartz ).getTriggersOfJob( jobKey );
+    doReturn( state ).when( quartz ).getTriggerState( new TriggerKey( jobKey.getName(), jobKey.getGroup() ) );
+  }
+
+  private Job createJob( String jobName, String userName ) {
+    Job job = new Job();
+    job.setJobName( jobName );
+    job.setUserName( userName );
+    job.setJobId( userName + "\t" + jobName + "\t1" );
+    return job;
+  }
+
   @Test
   public void testGetJobsForbidden() throws Exception {
     doReturn( false ).when( schedulerService ).isScheduleAllowed();
@@ -813,6 +1065,40 @@ public class SchedulerServiceTest {
     verify( schedulerService.scheduler, times( 0 ) ).getJobs( any( IJobFilter.class ) );
   }
 
+  @Test
+  public void testForEachJob() throws Exception {
+    IPentahoSession mockPentahoSession = mock( IPentahoSession.class );
+
+    doReturn( mockPentahoSession ).when( schedulerService ).getSession();
+    doReturn( "admin" ).when( mockPentahoSession ).getName();
+    doReturn( true ).when( schedulerService ).canAdminister();
+    doReturn( true ).when( schedulerService ).isScheduleAllowed();
+    List<IJob> mockJobs = new ArrayList<>();
+    mockJobs.add( mock( IJob.class ) );
+    mockJobs.add( mock( IJob.class ) );
+    doReturn( mockJobs ).when( schedulerService.scheduler ).getJobs( any( IJobFilter.class ) );
+
+    List<IJob> visited = new ArrayList<>();
+    schedulerService.forEachJob( visited::add );
+
+    assertEquals( mockJobs, visited );
+  }
+
+  @Test
+  public void testForEachJobForbidden() throws Exception {
+    doReturn( false ).when( schedulerService ).isScheduleAllowed();
+    doReturn( false ).when( schedulerService ).isExecuteScheduleAllowed();
+
+    try {
+      schedulerService.forEachJob( job -> fail() );
+      fail();
+    } catch ( IllegalAccessException e ) {
+      // Expected
+    }
+
+    verify( schedulerService.scheduler, times( 0 ) ).getJobs( any( IJobFilter.class ) );
+  }
+
   @Test
   public void testGetJobsExecuteSchedulePermission() throws Exception {
     IPentahoSession mockPentahoSession = mock( IPentahoSession.class );
@@ -838,6 +1124,55 @@ public class SchedulerServiceTest {
     verify( schedulerService.scheduler, times( 1 ) ).getJobs( any( IJobFilter.class ) );
   }
 
+  @Test
+  public void testGetJobHistory() throws Exception {
+    doReturn( true ).when( schedulerService ).canAdminister();
+    List<IJobResult> history = new ArrayList<>();
+    for ( int i = 0; i < 5; i++ ) {
+      history.add( new JobExecutionRecord( "jobId", i, i + 1, JobExecutionRecord.Status.SUCCEEDED, "node", null ) );
+    }
+    doReturn( history ).when( schedulerService.scheduler ).getJobHistory( "jobId" );
+
+    JobHistoryPage page = schedulerService.getJobHistory( "jobId", 3, 10 );
+
+    assertEquals( 5, page.getTotalCount() );
+    assertEquals( 2, page.getExecutions().size() );
+    assertEquals( history.get( 3 ), page.getExecutions().get( 0 ) );
+  }
+
+  @Test( expected = IllegalAccessException.class )
+  public void testGetJobHistoryOfOtherUser() throws Exception {
+    IPentahoSession mockPentahoSession = mock( IPentahoSession.class );
+    doReturn( mockPentahoSession ).when( schedulerService ).getSession();
+    doReturn( "bob" ).when( mockPentahoSession ).getName();
+    doReturn( false ).when( schedulerService ).canAdminister();
+    IJob job = mock( IJob.class );
+    doReturn( "suzy" ).when( job ).getUserName();
+    doReturn( job ).when( schedulerService.scheduler ).getJob( "jobId" );
+
+    schedulerService.getJobHistory( "jobId", 0, 10 );
+  }
+
+  @Test
+  public void testGetMetrics() throws Exception {
+    QuartzScheduler quartzScheduler = mock( QuartzScheduler.class );
+    schedulerService.scheduler = quartzScheduler;
+    doReturn( true ).when( schedulerService ).canAdminister();
+    doReturn( 8 ).when( quartzScheduler ).getThreadPoolSize();
+
+    Map<String, Object> metrics = schedulerService.getMetrics();
+
+    assertEquals( 8, ( (Map<?, ?>) metrics.get( "threadPool" ) ).get( "size" ) );
+    assertTrue( schedulerService.getPrometheusMetrics().contains( "pentaho_scheduler_thread_pool_size 8\n" ) );
+  }
+
+  @Test( expected = IllegalAccessException.class )
+  public void testGetMetricsRequiresAdministrator() throws Exception {
+    doReturn( false ).when( schedulerService ).canAdminister();
+
+    schedulerService.getMetrics();
+  }
+
   @Test
   public void testDoGetGeneratedContentForSchedule() throws Exception {
     String lineageId = "test.prpt";
@@ -970,6 +1305,24 @@ public class SchedulerServiceTest {
     verify( schedulerService, times( 2 ) ).canAdminister();
   }
 
+  @Test
+  public void testGetJobInfoTurnsArrayParamsIntoLists() throws Exception {
+    String jobId = "admin\tjob\tuuid";
+    Map<String, Object> params = new HashMap<>();
+    params.put( QuartzScheduler.RESERVEDMAPKEY_ACTIONUSER, "admin" );
+    params.put( "regions", new String[] { "EMEA", "APAC" } );
+    Job job = new Job();
+    job.setUserName( "admin" );
+    // the params as QuartzScheduler.getJob decodes them from the job store
+    job.setJobParams( QuartzJobData.toParams( QuartzJobData.toJobDataMap( params ) ) );
+    doReturn( job ).when( schedulerService ).getJob( jobId );
+    doReturn( true ).when( schedulerService ).canAdminister();
+
+    IJob jobInfo = schedulerService.getJobInfo( jobId );
+
+    assertEquals( Arrays.asList( "EMEA", "APAC" ), jobInfo.getJobParams().get( "regions" ) );
+  }
+
   @Test
   public void testGetJobInfoError() throws Exception {
     String jobId = "jobId";
@@ -30,8 +30,10 @@ import org.pentaho.gwt.widgets.client.dialogs.IDialogCallback;
 import org.pentaho.gwt.widgets.client.dialogs.PromptDialogBox;
 import org.pentaho.mantle.client.messages.Messages;
 
+import java.util.Collection;
 import java.util.Date;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 public class FilterDialog extends PromptDialogBox {
 
@@ -101,26 +103,77 @@ public class FilterDialog extends PromptDialogBox {
     super(
       Messages.getString( "filterSchedules" ), Messages.getString( "ok" ), Messages.getString( "cancel" ), false,
       true ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    addExecutionFilterHandlers();
   }
 
   public FilterDialog( JsArray<JsJob> jobs, IDialogCallback callback ) {
     super(
       Messages.getString( "filterSchedules" ), Messages.getString( "ok" ), Messages.getString( "cancel" ), false,
       true ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    addExecutionFilterHandlers();
     initUI( jobs );
     // setSize("800px", "500px");
     setCallback( callback );
   }
 
   /**
-   * @param jobs
+   * @param resources resource names suggested by the resource filter
+   * @param users     users offered by the user filter
+   */
+  public FilterDialog( Collection<String> resources, Collection<String> users, IDialogCallback callback ) {
+    super(
+      Messages.getString( "filterSchedules" ), Messages.getString( "ok" ), Messages.getString( "cancel" ), false,
+      true ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    addExecutionFilterHandlers();
+    initUI( resources, users );
+    setCallback( callback );
+  }
+
+  /**
+   * @param jobs jobs whose resources and owners are offered
    */
   public void initUI( JsArray<JsJob> jobs ) {
+    Set<String> resources = new LinkedHashSet<String>();
+    Set<String> users = new LinkedHashSet<String>();
     if ( jobs != null ) {
       for ( int i = 0; i < jobs.length(); i++ ) {
-        resourceOracle.add( jobs.get( i ).getShortResourceName() );
+        resources.add( jobs.get( i ).getShortResourceName() );
+        users.add( jobs.get( i ).getUserName() );
       }
     }
+    initUI( resources, users );
+  }
+
+  /**
+   * Registered once per dialog; {@link #initUI(Collection, Collection)} runs again every time the dialog is reopened.
+   */
+  private void addExecutionFilterHandlers() {
+    afterCheckBox.addValueChangeHandler( new ValueChangeHandler<Boolean>() {
+      public void onValueChange( ValueChangeEvent<Boolean> event ) {
+        afterDateBox.setEnabled( event.getValue() );
+      }
+    } );
+
+    beforeCheckBox.addValueChangeHandler( new ValueChangeHandler<Boolean>() {
+      public void onValueChange( ValueChangeEvent<Boolean> event ) {
+        beforeDateBox.setEnabled( event.getValue() );
+      }
+    } );
+  }
+
+  /**
+   * Fills the dialog with the given resources and users. Can be called again to refresh them, the current selections
+   * are kept.
+   *
+   * @param resources resource names suggested by the resource filter, those of every schedule rather than only the
+   *                  ones on the current page
+   * @param users     users offered by the user filter
+   */
+  public void initUI( Collection<String> resources, Collection<String> users ) {
+    resourceOracle.clear();
+    if ( resources != null ) {
+      resourceOracle.addAll( resources );
+    }
 
     resourceSuggestBox.setWidth( "240px" );
     userListBox.setWidth( "200px" );
@@ -137,33 +190,24 @@ public class FilterDialog extends PromptDialogBox {
     executionFilterPanel.setWidget( 1, 1, afterDateBox );
     executionFilterCaptionPanel.add( executionFilterPanel );
 
-    afterCheckBox.addValueChangeHandler( new ValueChangeHandler<Boolean>() {
-      public void onValueChange( ValueChangeEvent<Boolean> event ) {
-        afterDateBox.setEnabled( event.getValue() );
-      }
-    } );
-
-    beforeCheckBox.addValueChangeHandler( new ValueChangeHandler<Boolean>() {
-      public void onValueChange( ValueChangeEvent<Boolean> event ) {
-        beforeDateBox.setEnabled( event.getValue() );
-      }
-    } );
     beforeDateBox.setEnabled( beforeCheckBox.getValue() );
     afterDateBox.setEnabled( afterCheckBox.getValue() );
 
     final String showAll = Messages.getString( "showAll" );
-    // user filter
-    int selectedIndex = getSelectedIndex( userListBox );
+    // user filter, the selection is restored by name since the users may have changed
+    String selectedUser = userListBox.getSelectedIndex() > 0 ? getUserFilter() : null;
     userListBox.clear();
     userListBox.addItem( showAll );
-    HashSet<String> uniqueUsers = new HashSet<String>();
-    if ( jobs != null ) {
-      for ( int i = 0; i < jobs.length(); i++ ) {
-        uniqueUsers.add( jobs.get( i ).getUserName() );
-      }
+    Set<String> uniqueUsers = new LinkedHashSet<String>();
+    if ( users != null ) {
+      uniqueUsers.addAll( users );
     }
+    int selectedIndex = 0;
     for ( String user : uniqueUsers ) {
       userListBox.addItem( user );
+      if ( user.equals( selectedUser ) ) {
+        selectedIndex = userListBox.getItemCount() - 1;
+      }
     }
     userListBox.setSelectedIndex( selectedIndex );
 
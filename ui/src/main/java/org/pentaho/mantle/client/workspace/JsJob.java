@@ -25,6 +25,8 @@ public class JsJob extends JavaScriptObject {
 
   private static final String ACTION_ADAPTER_QUARTZ_JOB_STREAM_PROVIDER = "ActionAdapterQuartzJob-StreamProvider";
   private static final String ACTION_ADAPTER_QUARTZ_JOB_STREAM_PROVIDER_INPUT_FILE = "ActionAdapterQuartzJob-StreamProvider-InputFile";
+  private static final String ACTION_ADAPTER_QUARTZ_JOB_PRIORITY = "ActionAdapterQuartzJob-Priority";
+  private static final String DEFAULT_PRIORITY = "5";
 
   public static final String OUTPUT_FILE_SEPARATOR = ":output file\\s*=|:outputFile\\s*=";
   public static final String INPUT_FILE_SEPARATOR = "input file =";
@@ -166,6 +168,14 @@ public class JsJob extends JavaScriptObject {
        + ":outputFile = " + outputPath + "/" + outputFileName + ".*" );
   }
 
+  /**
+   * @return the priority of the schedule, the Quartz default if it has none
+   */
+  public final String getPriority() {
+    String priority = getJobParamValue( ACTION_ADAPTER_QUARTZ_JOB_PRIORITY );
+    return priority == null || priority.isEmpty() ? DEFAULT_PRIORITY : priority;
+  }
+
   public final String getShortResourceName() {
     String resource = getInputFilePath();
     if ( resource.contains( "/" ) ) {
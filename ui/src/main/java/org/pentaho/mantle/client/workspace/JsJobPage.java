@@ -0,0 +1,38 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.mantle.client.workspace;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayString;
+
+/**
+ * Wraps the JSON response of the getJobsPage REST call, something like:
+ * {"job":[...], "offset":0, "limit":20, "totalCount":153, "owner":["admin","suzy"],
+ * "resource":["Sales Report.prpt"]}
+ */
+public class JsJobPage extends JavaScriptObject {
+
+  // Overlay types always have protected, zero argument constructors.
+  protected JsJobPage() {
+  }
+
+  public final native JsArray<JsJob> getJobs() /*-{ return this.job != null ? this.job : []; }-*/; //
+
+  public final native int getTotalCount() /*-{ return this.totalCount != null ? parseInt(this.totalCount) : 0; }-*/; //
+
+  public final native JsArrayString getOwners() /*-{ return this.owner != null ? this.owner : []; }-*/; //
+
+  public final native JsArrayString getResources() /*-{ return this.resource != null ? this.resource : []; }-*/; //
+}
@@ -39,7 +39,8 @@ import com.google.gwt.user.cellview.client.AbstractCellTable;
 import com.google.gwt.user.cellview.client.AbstractHeaderOrFooterBuilder;
 import com.google.gwt.user.cellview.client.CellTable;
 import com.google.gwt.user.cellview.client.Column;
-import com.google.gwt.user.cellview.client.ColumnSortEvent.ListHandler;
+import com.google.gwt.user.cellview.client.ColumnSortEvent.AsyncHandler;
+import com.google.gwt.user.cellview.client.ColumnSortList;
 import com.google.gwt.user.cellview.client.Header;
 import com.google.gwt.user.cellview.client.SimplePager;
 import com.google.gwt.user.cellview.client.SimplePager.TextLocation;
@@ -51,7 +52,8 @@ import com.google.gwt.user.client.ui.SimplePanel;
 import com.google.gwt.user.client.ui.VerticalPanel;
 import com.google.gwt.view.client.CellPreviewEvent;
 import com.google.gwt.view.client.DefaultSelectionEventManager;
-import com.google.gwt.view.client.ListDataProvider;
+import com.google.gwt.view.client.HasData;
+import com.google.gwt.view.client.AsyncDataProvider;
 import com.google.gwt.view.client.MultiSelectionModel;
 import com.google.gwt.view.client.Range;
 import org.pentaho.gwt.widgets.client.dialogs.IDialogCallback;
@@ -127,14 +129,45 @@ public class SchedulesPanel extends SimplePanel {
 
   private Header<Boolean> selectAllHeader;
 
-  private JsArray<JsJob> allJobs;
+  /**
+   * Jobs of the page on display
+   */
+  private JsArray<JsJob> pageJobs;
+
+  /**
+   * Rows handed to the table, refilled in place for every page
+   */
+  private final List<JsJob> pageRows = new ArrayList<>( PAGE_SIZE );
+
+  /**
+   * Owners of all the jobs visible to the user, offered by the filter dialog
+   */
+  private final List<String> owners = new ArrayList<>();
+
+  /**
+   * Resource names of all the jobs visible to the user, suggested by the filter dialog
+   */
+  private final List<String> resources = new ArrayList<>();
 
-  private final ArrayList<IJobFilter> filters = new ArrayList<>();
+  /**
+   * Query parameters of the active filters, applied by the server
+   */
+  private final Map<String, String> filterParams = new HashMap<>();
+
+  /**
+   * Server side sort field of each sortable column
+   */
+  private final Map<Column<JsJob, ?>, String> sortFields = new HashMap<>();
 
   private final CellTable<JsJob> table =
     new CellTable<>( PAGE_SIZE, (CellTableResources) GWT.create( CellTableResources.class ) );
 
-  private final ListDataProvider<JsJob> dataProvider = new ListDataProvider<>();
+  private final AsyncDataProvider<JsJob> dataProvider = new AsyncDataProvider<JsJob>() {
+    @Override
+    protected void onRangeChanged( HasData<JsJob> display ) {
+      loadPage( display.getVisibleRange() );
+    }
+  };
 
   private SimplePager pager;
 
@@ -144,38 +177,37 @@ public class SchedulesPanel extends SimplePanel {
   
   private final IDialogCallback filterDialogCallback = new IDialogCallback() {
     public void okPressed() {
-      filters.clear();
+      filterParams.clear();
 
       // create filters
       if ( filterDialog.getAfterDate() != null ) {
-        filters.add( job -> job.getNextRun().after( filterDialog.getAfterDate() ) );
+        filterParams.put( "nextRunAfter", String.valueOf( filterDialog.getAfterDate().getTime() ) );
       }
 
       if ( filterDialog.getBeforeDate() != null ) {
-        filters.add( job -> job.getNextRun().before( filterDialog.getBeforeDate() ) );
+        filterParams.put( "nextRunBefore", String.valueOf( filterDialog.getBeforeDate().getTime() ) );
       }
 
       if ( !StringUtils.isEmpty( filterDialog.getResourceName() ) ) {
-        filters.add(
-          job -> job.getShortResourceName().toLowerCase().contains( filterDialog.getResourceName().toLowerCase() ) );
+        filterParams.put( "resourceName", filterDialog.getResourceName() );
       }
 
       final String showAll = Messages.getString( "showAll" );
 
       if ( !StringUtils.isEmpty( filterDialog.getUserFilter() ) && !filterDialog.getUserFilter().equals( showAll ) ) {
-        filters.add( job -> job.getUserName().equalsIgnoreCase( filterDialog.getUserFilter() ) );
+        filterParams.put( "userName", filterDialog.getUserFilter() );
       }
 
       if ( !StringUtils.isEmpty( filterDialog.getStateFilter() ) && !filterDialog.getStateFilter().equals( showAll ) ) {
-        filters.add( job -> job.getState().toLowerCase().equalsIgnoreCase( filterDialog.getStateFilter() ) );
+        filterParams.put( "state", filterDialog.getStateFilter() );
       }
 
       if ( !StringUtils.isEmpty( filterDialog.getTypeFilter() ) && !filterDialog.getTypeFilter().equals( showAll ) ) {
-        filters.add( job -> job.getJobTrigger().getScheduleType().equalsIgnoreCase( filterDialog.getTypeFilter() ) );
+        filterParams.put( "scheduleType", filterDialog.getTypeFilter() );
       }
 
-      filterRemoveButton.setEnabled( !filters.isEmpty() );
-      filterAndShowData();
+      filterRemoveButton.setEnabled( !filterParams.isEmpty() );
+      showFirstPage();
     }
 
     public void cancelPressed() {
@@ -210,16 +242,40 @@ public class SchedulesPanel extends SimplePanel {
 
   public SchedulesPanel( final boolean isAdmin, final boolean isScheduler, final boolean canExecuteSchedules,
                          final boolean hideInternalVariables) {
+    // attaching the table to the data provider loads the first page
     createUI( isAdmin, isScheduler, canExecuteSchedules, hideInternalVariables );
     getTimeZoneData();
-    refresh();
   }
 
   public void refresh() {
-    final String apiEndpoint = "api/scheduler/getJobs";
+    loadPage( table.getVisibleRange() );
+  }
+
+  private void showFirstPage() {
+    table.setVisibleRangeAndClearData( new Range( 0, PAGE_SIZE ), true );
+  }
+
+  /**
+   * Fetches one page of jobs, filtered and sorted by the server.
+   */
+  private void loadPage( final Range range ) {
+    final StringBuilder apiEndpoint = new StringBuilder( "api/scheduler/getJobsPage" )
+      .append( "?offset=" ).append( range.getStart() )
+      .append( "&limit=" ).append( range.getLength() );
+
+    ColumnSortList sortList = table.getColumnSortList();
+    if ( sortList.size() > 0 && sortFields.containsKey( sortList.get( 0 ).getColumn() ) ) {
+      apiEndpoint.append( "&sortBy=" ).append( sortFields.get( sortList.get( 0 ).getColumn() ) )
+        .append( "&sortOrder=" ).append( sortList.get( 0 ).isAscending() ? "asc" : "desc" );
+    }
+
+    for ( Map.Entry<String, String> param : filterParams.entrySet() ) {
+      apiEndpoint.append( '&' ).append( param.getKey() ).append( '=' )
+        .append( URL.encodeQueryString( param.getValue() ) );
+    }
 
     RequestBuilder executableTypesRequestBuilder =
-      createRequestBuilder( RequestBuilder.GET, ScheduleHelper.getPluginContextURL(), apiEndpoint );
+      createRequestBuilder( RequestBuilder.GET, ScheduleHelper.getPluginContextURL(), apiEndpoint.toString() );
     executableTypesRequestBuilder.setHeader( ACCEPT, APPLICATION_JSON );
     final MessageDialogBox errorDialog =
       new MessageDialogBox(
@@ -234,8 +290,7 @@ public class SchedulesPanel extends SimplePanel {
 
         public void onResponseReceived( Request request, Response response ) {
           if ( response.getStatusCode() == Response.SC_OK ) {
-            allJobs = parseJson( JsonUtils.escapeJsonForEval( response.getText() ) );
-            filterAndShowData();
+            showPage( range, parseJsonPage( JsonUtils.escapeJsonForEval( response.getText() ) ) );
           } else {
             errorDialog.center();
           }
@@ -246,40 +301,40 @@ public class SchedulesPanel extends SimplePanel {
     }
   }
 
-  private void filterAndShowData() {
-    filters.add( job -> !job.getInputFilePath().equals( "GeneratedContentCleaner" ) );
+  private void showPage( Range range, JsJobPage page ) {
+    pageJobs = page.getJobs();
 
-    ArrayList<JsJob> filteredList = new ArrayList<>();
+    owners.clear();
+    for ( int i = 0; i < page.getOwners().length(); i++ ) {
+      owners.add( page.getOwners().get( i ) );
+    }
 
-    for ( int i = 0; i < allJobs.length(); i++ ) {
-      filteredList.add( allJobs.get( i ) );
+    resources.clear();
+    for ( int i = 0; i < page.getResources().length(); i++ ) {
+      resources.add( page.getResources().get( i ) );
+    }
 
-      // filter if needed
-      for ( IJobFilter filter : filters ) {
-        if ( !filter.accept( allJobs.get( i ) ) ) {
-          filteredList.remove( allJobs.get( i ) );
-        }
-      }
+    pageRows.clear();
+    for ( int i = 0; i < pageJobs.length(); i++ ) {
+      pageRows.add( pageJobs.get( i ) );
     }
 
-    if ( filteredList.isEmpty() ) {
+    if ( pageRows.isEmpty() ) {
       selectAllHeader.setHeaderStyleNames( "cellTableSelectAllHeader" );
     } else {
       selectAllHeader.setHeaderStyleNames( "" );
     }
 
-    List<JsJob> list = dataProvider.getList();
-    list.clear();
-    list.addAll( filteredList );
-    pager.setVisible( filteredList.size() > PAGE_SIZE );
-
     clearJobsSelection();
 
+    dataProvider.updateRowCount( page.getTotalCount(), true );
+    dataProvider.updateRowData( range.getStart(), pageRows );
+    pager.setVisible( page.getTotalCount() > PAGE_SIZE );
+
     editButton.setEnabled( false );
     controlScheduleButton.setEnabled( false );
     scheduleRemoveButton.setEnabled( false );
     triggerNowButton.setEnabled( false );
-    table.setPageStart( 0 );
 
     table.setKeyboardSelectedRow( 0, false );
     table.setKeyboardSelectedColumn( 0, false );
@@ -446,7 +501,7 @@ public class SchedulesPanel extends SimplePanel {
         return job.getJobId();
       }
     };
-    idColumn.setSortable( true );
+    idColumn.setSortable( false );
 
     Column<JsJob, Boolean> checkColumn = new Column<JsJob, Boolean>( new CheckboxCell( true, false ) ) {
       @Override
@@ -460,12 +515,12 @@ public class SchedulesPanel extends SimplePanel {
       public Boolean getValue() {
         int selectedCount = selectionModel.getSelectedSet().size();
 
-        return selectedCount != 0 && selectedCount == dataProvider.getList().size();
+        return selectedCount != 0 && selectedCount == table.getVisibleItemCount();
       }
     };
 
     selectAllHeader.setUpdater( value -> {
-      for ( JsJob item : dataProvider.getList() ) {
+      for ( JsJob item : table.getVisibleItems() ) {
         selectionModel.setSelected( item, value );
       }
     } );
@@ -482,7 +537,7 @@ public class SchedulesPanel extends SimplePanel {
         return job.getScheduledExtn();
       }
     };
-    type.setSortable( true );
+    type.setSortable( false );
 
     HtmlColumn<JsJob> resourceColumn = new HtmlColumn<JsJob>() {
       @Override
@@ -496,7 +551,7 @@ public class SchedulesPanel extends SimplePanel {
         return name.replace( "/", "/<wbr/>" );
       }
     };
-    resourceColumn.setSortable( true );
+    resourceColumn.setSortable( false );
 
     HtmlColumn<JsJob> outputPathColumn = new HtmlColumn<JsJob>( new ClickableSafeHtmlCell() ) {
       @Override
@@ -534,7 +589,7 @@ public class SchedulesPanel extends SimplePanel {
         new ParameterPreviewSidebar( job, hideInternalVariables ).show();
       }
     } );
-    parametersColumn.setSortable( true );
+    parametersColumn.setSortable( false );
 
     outputPathColumn.setFieldUpdater( ( index, jsJob, value ) -> {
       if ( value != null && !BLANK_VALUE.equals( value.asString() ) ) {
@@ -544,7 +599,7 @@ public class SchedulesPanel extends SimplePanel {
       }
     } );
 
-    outputPathColumn.setSortable( true );
+    outputPathColumn.setSortable( false );
 
     TextColumn<JsJob> scheduleColumn = new TextColumn<JsJob>() {
       public String getValue( JsJob job ) {
@@ -555,7 +610,7 @@ public class SchedulesPanel extends SimplePanel {
         }
       }
     };
-    scheduleColumn.setSortable( true );
+    scheduleColumn.setSortable( false );
 
     TextColumn<JsJob> userNameColumn = new TextColumn<JsJob>() {
       public String getValue( JsJob job ) {
@@ -582,6 +637,17 @@ public class SchedulesPanel extends SimplePanel {
     };
     stateColumn.setSortable( true );
 
+    TextColumn<JsJob> priorityColumn = new TextColumn<JsJob>() {
+      public String getValue( JsJob job ) {
+        try {
+          return job.getPriority();
+        } catch ( Exception e ) {
+          return BLANK_VALUE;
+        }
+      }
+    };
+    priorityColumn.setSortable( false );
+
     TextColumn<JsJob> nextFireColumn = new TextColumn<JsJob>() {
       public String getValue( JsJob job ) {
         try {
@@ -618,23 +684,13 @@ public class SchedulesPanel extends SimplePanel {
       table.addColumn( userNameColumn, Messages.getString( "user" ) );
     }
 
+    table.addColumn( priorityColumn, Messages.getString( "priority" ) );
     table.addColumn( stateColumn, Messages.getString( "state" ) );
 
-    table.addColumnStyleName( 0, "backgroundContentHeaderTableCell" );
-    table.addColumnStyleName( 1, "backgroundContentHeaderTableCell" );
-    table.addColumnStyleName( 2, "backgroundContentHeaderTableCell" );
-    table.addColumnStyleName( 3, "backgroundContentHeaderTableCell" );
-    table.addColumnStyleName( 4, "backgroundContentHeaderTableCell" );
-    table.addColumnStyleName( 5, "backgroundContentHeaderTableCell" );
-    table.addColumnStyleName( 6, "backgroundContentHeaderTableCell" );
-    table.addColumnStyleName( 7, "backgroundContentHeaderTableCell" );
-
-    if ( isAdmin || canExecuteSchedules ) {
-      table.addColumnStyleName( 8, "backgroundContentHeaderTableCell" );
+    for ( int column = 0; column < table.getColumnCount(); column++ ) {
+      table.addColumnStyleName( column, "backgroundContentHeaderTableCell" );
     }
 
-    table.addColumnStyleName( ( isAdmin || canExecuteSchedules ) ? 9 : 8, "backgroundContentHeaderTableCell" );
-
     table.setColumnWidth( checkColumn, 40, Unit.PX );
     table.setColumnWidth( nameColumn, 160, Unit.PX );
     table.setColumnWidth( resourceColumn, 200, Unit.PX );
@@ -649,145 +705,21 @@ public class SchedulesPanel extends SimplePanel {
       table.setColumnWidth( userNameColumn, 100, Unit.PX );
     }
 
+    table.setColumnWidth( priorityColumn, 70, Unit.PX );
     table.setColumnWidth( stateColumn, 90, Unit.PX );
 
-    dataProvider.addDataDisplay( table );
-    List<JsJob> list = dataProvider.getList();
-
-    ListHandler<JsJob> columnSortHandler = new ListHandler<>( list );
-
-    columnSortHandler.setComparator( idColumn, ( o1, o2 ) -> {
-      if ( o1 == o2 ) {
-        return 0;
-      }
-
-      if ( o1 != null ) {
-        return ( o2 != null ) ? o1.getJobId().compareTo( o2.getJobId() ) : 1;
-      }
-      return -1;
-    } );
-
-    columnSortHandler.setComparator( nameColumn, ( o1, o2 ) -> {
-      if ( o1 == o2 ) {
-        return 0;
-      }
-
-      if ( o1 != null ) {
-        return ( o2 != null ) ? o1.getJobName().compareTo( o2.getJobName() ) : 1;
-      }
-      return -1;
-    } );
-
-    columnSortHandler.setComparator( resourceColumn, ( o1, o2 ) -> {
-      if ( o1 == o2 ) {
-        return 0;
-      }
-
-      if ( o1 != null ) {
-        String r1 = o1.getShortResourceName();
-        String r2 = null;
-
-        if ( o2 != null ) {
-          r2 = o2.getShortResourceName();
-        }
-
-        return ( o2 != null ) ? r1.compareTo( r2 ) : 1;
-      }
-      return -1;
-    } );
-
-    columnSortHandler.setComparator( outputPathColumn, ( o1, o2 ) -> {
-      if ( o1 == o2 ) {
-        return 0;
-      }
-
-      if ( o1 != null ) {
-        String r1 = o1.getOutputPath();
-        String r2 = null;
-
-        if ( o2 != null ) {
-          r2 = o2.getOutputPath();
-        }
+    sortFields.put( nameColumn, "NAME" );
+    sortFields.put( userNameColumn, "OWNER" );
+    sortFields.put( stateColumn, "STATE" );
+    sortFields.put( nextFireColumn, "NEXT_RUN" );
+    sortFields.put( lastFireColumn, "LAST_RUN" );
 
-        return ( o2 != null ) ? r1.compareTo( r2 ) : 1;
-      }
-      return -1;
-    } );
-
-    columnSortHandler.setComparator( scheduleColumn, ( o1, o2 ) -> {
-      String s1 = o1.getJobTrigger().getDescription( serverTzString );
-      String s2 = o2.getJobTrigger().getDescription( serverTzString );
-      return s1.compareTo( s2 );
-    } );
-
-    columnSortHandler.setComparator( userNameColumn, ( o1, o2 ) -> {
-      if ( o1 == o2 ) {
-        return 0;
-      }
-
-      if ( o1 != null ) {
-        return ( o2 != null ) ? o1.getUserName().compareTo( o2.getUserName() ) : 1;
-      }
-      return -1;
-    } );
-
-    columnSortHandler.setComparator( stateColumn, ( o1, o2 ) -> {
-      if ( o1 == o2 ) {
-        return 0;
-      }
-
-      if ( o1 != null ) {
-        return ( o2 != null ) ? o1.getState().compareTo( o2.getState() ) : 1;
-      }
-      return -1;
-    } );
-
-    columnSortHandler.setComparator( nextFireColumn, ( o1, o2 ) -> {
-      if ( o1 == o2 ) {
-        return 0;
-      }
-
-      if ( o1 == null || o1.getNextRun() == null ) {
-        return -1;
-      }
-
-      if ( o2 == null || o2.getNextRun() == null ) {
-        return 1;
-      }
-
-      if ( o1.getNextRun() == o2.getNextRun() ) {
-        return 0;
-      }
-
-      return o1.getNextRun().compareTo( o2.getNextRun() );
-    } );
-
-    columnSortHandler.setComparator( lastFireColumn, ( o1, o2 ) -> {
-      if ( o1 == o2 ) {
-        return 0;
-      }
-
-      if ( o1 == null || o1.getLastRun() == null ) {
-        return -1;
-      }
-      if ( o2 == null || o2.getLastRun() == null ) {
-        return 1;
-      }
-
-      if ( o1.getLastRun() == o2.getLastRun() ) {
-        return 0;
-      }
-
-      return o1.getLastRun().compareTo( o2.getLastRun() );
-    } );
-
-    table.addColumnSortHandler( columnSortHandler );
-
-    table.getColumnSortList().push( idColumn );
-    table.getColumnSortList().push( resourceColumn );
-    table.getColumnSortList().push( outputPathColumn );
+    // Sorting happens on the server, for the columns above
+    table.addColumnSortHandler( new AsyncHandler( table ) );
     table.getColumnSortList().push( nameColumn );
 
+    dataProvider.addDataDisplay( table );
+
     table.getSelectionModel().addSelectionChangeHandler( event -> {
       Set<JsJob> selectedJobs = getSelectedJobs();
 
@@ -912,8 +844,8 @@ public class SchedulesPanel extends SimplePanel {
 
         boolean isRunning = JOB_STATE_NORMAL.equalsIgnoreCase( job.getState() );
 
-        final String action = isRunning ? "pauseJob" : "resumeJob";
-        controlJobs( selectedJobs, action, RequestBuilder.POST, false );
+        final String action = isRunning ? "pauseJobs" : "resumeJobs";
+        controlJobs( selectedJobs, action, false );
       }
     } );
     controlScheduleButton.setEnabled( false );
@@ -948,9 +880,9 @@ public class SchedulesPanel extends SimplePanel {
     // Add filter button
     filterButton.setCommand( () -> {
       if ( filterDialog == null ) {
-        filterDialog = new FilterDialog( allJobs, filterDialogCallback );
+        filterDialog = new FilterDialog( resources, owners, filterDialogCallback );
       } else {
-        filterDialog.initUI( allJobs );
+        filterDialog.initUI( resources, owners );
       }
 
       filterDialog.center();
@@ -965,14 +897,14 @@ public class SchedulesPanel extends SimplePanel {
     // Add remove filters button
     filterRemoveButton.setCommand( () -> {
       filterDialog = null;
-      filters.clear();
-      filterAndShowData();
+      filterParams.clear();
+      showFirstPage();
       filterRemoveButton.setEnabled( false );
       filterButton.setImage( getThemeableImage( ICON_SMALL_STYLE, "icon-filter-add", ICON_ZOOMABLE ) );
     } );
 
     filterRemoveButton.setToolTip( Messages.getString( "removeFilters" ) );
-    filterRemoveButton.setEnabled( !filters.isEmpty() );
+    filterRemoveButton.setEnabled( !filterParams.isEmpty() );
 
     if ( isAdmin || canExecuteSchedules ) {
       bar.add( filterRemoveButton );
@@ -1164,7 +1096,7 @@ public class SchedulesPanel extends SimplePanel {
     MessageDialogBox messageDialog = new MessageDialogBox( title, message, false, true, true );
     messageDialog.center();
 
-    controlJobs( jobs, "triggerNow", RequestBuilder.POST, true );
+    controlJobs( jobs, "triggerJobsNow", true );
   }
 
   private Set<JsJob> getExecutableJobs( Map<String, List<JsJob>> candidateJobs, Response response ) {
@@ -1232,7 +1164,7 @@ public class SchedulesPanel extends SimplePanel {
 
     prompt.setCallback( new IDialogCallback() {
       public void okPressed() {
-        controlJobs( jobs, "removeJob", RequestBuilder.DELETE, true );
+        controlJobs( jobs, "deleteJobs", true );
         prompt.hide();
       }
 
@@ -1245,39 +1177,49 @@ public class SchedulesPanel extends SimplePanel {
     prompt.center();
   }
 
-  private void controlJobs( final Set<JsJob> jobs, String function, final Method method, final boolean refreshData ) {
-    for ( final JsJob job : jobs ) {
-      RequestBuilder builder =
-        createRequestBuilder( method, ScheduleHelper.getPluginContextURL(), "api/scheduler/" + function );
+  /**
+   * Applies a bulk operation to the given jobs with a single request; the response holds the new state of every job.
+   */
+  private void controlJobs( final Set<JsJob> jobs, String function, final boolean refreshData ) {
+    RequestBuilder builder =
+      createRequestBuilder( RequestBuilder.POST, ScheduleHelper.getPluginContextURL(), "api/scheduler/" + function );
+    builder.setHeader( CONTENT_TYPE, APPLICATION_JSON );
+    builder.setHeader( ACCEPT, APPLICATION_JSON );
 
-      builder.setHeader( CONTENT_TYPE, APPLICATION_JSON );
+    JSONObject requestData = new JSONObject();
+    requestData.put( "jobIds", getIds( jobs ) );
 
-      JSONObject startJobRequest = new JSONObject();
-      startJobRequest.put( "jobId", new JSONString( job.getJobId() ) );
+    try {
+      builder.sendRequest( requestData.toString(), new RequestCallback() {
 
-      try {
-        builder.sendRequest( startJobRequest.toString(), new RequestCallback() {
+        public void onError( Request request, Throwable exception ) {
+          // showError(exception);
+        }
 
-          public void onError( Request request, Throwable exception ) {
-            // showError(exception);
+        public void onResponseReceived( Request request, Response response ) {
+          if ( response.getStatusCode() != Response.SC_OK ) {
+            return;
           }
 
-          public void onResponseReceived( Request request, Response response ) {
-            final String jobState = response.getText();
-
-            job.setState( jobState );
-            table.redraw();
+          JSONObject responseObj = new JSONObject( JsonUtils.safeEval( response.getText() ) );
+          Map<String, String> changes = SchedulerUiUtil.getMapFromJSONResponse( responseObj, "changes" );
 
-            updateJobScheduleButtonStyle( jobState );
-
-            if ( refreshData ) {
-              refresh();
+          for ( JsJob job : jobs ) {
+            String jobState = changes.get( job.getJobId() );
+            if ( jobState != null ) {
+              job.setState( jobState );
+              updateJobScheduleButtonStyle( jobState );
             }
           }
-        } );
-      } catch ( RequestException e ) {
-        // showError(e);
-      }
+          table.redraw();
+
+          if ( refreshData ) {
+            refresh();
+          }
+        }
+      } );
+    } catch ( RequestException e ) {
+      // showError(e);
     }
   }
 
@@ -1294,7 +1236,7 @@ public class SchedulesPanel extends SimplePanel {
   @SuppressWarnings( { "java:S112" } )
   private void removeJobs( final Set<JsJob> jobs ) {
     RequestBuilder builder =
-      createRequestBuilder( RequestBuilder.POST, ScheduleHelper.getPluginContextURL(), "api/scheduler/removeJobs" );
+      createRequestBuilder( RequestBuilder.POST, ScheduleHelper.getPluginContextURL(), "api/scheduler/deleteJobs" );
     builder.setHeader( CONTENT_TYPE, APPLICATION_JSON );
     builder.setHeader( ACCEPT, APPLICATION_JSON );
 
@@ -1483,14 +1425,8 @@ public class SchedulesPanel extends SimplePanel {
     return builder;
   }
 
-  private native JsArray<JsJob> parseJson( String json ) /*-{
-    var obj = JSON.parse(json);
-
-    if (obj != null && obj.hasOwnProperty("job")) {
-      return obj.job;
-    }
-
-    return [];
+  private native JsJobPage parseJsonPage( String json ) /*-{
+    return JSON.parse(json);
   }-*/;
 
   private native JsJob parseJsonJob( String json ) /*-{
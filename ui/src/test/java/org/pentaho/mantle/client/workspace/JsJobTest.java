@@ -75,6 +75,17 @@ public class JsJobTest {
     assertEquals( "/some_valid_value", resourceName );
   }
 
+  @Test
+  public void getPriority() {
+    doCallRealMethod().when( jsJob ).getPriority();
+
+    when( jsJob.getJobParamValue( "ActionAdapterQuartzJob-Priority" ) ).thenReturn( null );
+    assertEquals( "5", jsJob.getPriority() );
+
+    when( jsJob.getJobParamValue( "ActionAdapterQuartzJob-Priority" ) ).thenReturn( "8" );
+    assertEquals( "8", jsJob.getPriority() );
+  }
+
   @Test
   public void getScheduledExtn_basicPaths() {
     doCallRealMethod().when( jsJob ).getScheduledExtn();